@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import org.apache.cordova.CallbackContext;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs plugin actions off the WebView thread on a bounded pool.
+ *
+ * Actions of one call are executed one by one in the order they were submitted,
+ * client-level actions share their own serial queue. Different queues run in parallel.
+ * An action that throws is reported to JS as an error, as PluginManager does for actions run on its thread.
+ */
+class ActionExecutor {
+    private static final int POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final Object CLIENT_QUEUE = new Object();
+
+    private final ExecutorService mPool;
+    private final Map<Object, ArrayDeque<Action>> mQueues = new HashMap<>();
+
+    private static final class Action {
+        final Runnable runnable;
+        final CallbackContext callbackContext;
+
+        Action(Runnable runnable, CallbackContext callbackContext) {
+            this.runnable = runnable;
+            this.callbackContext = callbackContext;
+        }
+    }
+
+    ActionExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        mPool = Executors.newFixedThreadPool(POOL_SIZE,
+                runnable -> new Thread(runnable, "VoximplantAction-" + threadCount.incrementAndGet()));
+    }
+
+    /**
+     * @param callbackContext completed with an error if the action throws, may be null
+     */
+    void executeClientAction(Runnable action, CallbackContext callbackContext) {
+        execute(CLIENT_QUEUE, new Action(action, callbackContext));
+    }
+
+    void executeCallAction(String callId, Runnable action, CallbackContext callbackContext) {
+        execute(callId, new Action(action, callbackContext));
+    }
+
+    void shutdown() {
+        mPool.shutdown();
+        synchronized (mQueues) {
+            mQueues.clear();
+        }
+    }
+
+    private void execute(Object queueKey, Action action) {
+        synchronized (mQueues) {
+            ArrayDeque<Action> queue = mQueues.get(queueKey);
+            if (queue != null) {
+                queue.addLast(action);
+                return;
+            }
+            mQueues.put(queueKey, new ArrayDeque<>());
+        }
+        submit(queueKey, action);
+    }
+
+    private void submit(Object queueKey, Action action) {
+        try {
+            mPool.execute(() -> run(queueKey, action));
+        } catch (RejectedExecutionException e) {
+            Log.e("VOXCRD", "ActionExecutor: executor is shut down, action is dropped");
+        }
+    }
+
+    private void run(Object queueKey, Action action) {
+        try {
+            action.runnable.run();
+        } catch (RuntimeException e) {
+            Log.e("VOXCRD", "ActionExecutor: action failed: " + e.getMessage());
+            if (action.callbackContext != null && !action.callbackContext.isFinished()) {
+                action.callbackContext.error(e.getMessage());
+            }
+        }
+        Action next;
+        synchronized (mQueues) {
+            ArrayDeque<Action> queue = mQueues.get(queueKey);
+            next = queue != null ? queue.pollFirst() : null;
+            if (next == null) {
+                mQueues.remove(queueKey);
+            }
+        }
+        if (next != null) {
+            submit(queueKey, next);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes the arguments of a plugin action and decodes them without throwing.
+ *
+ * Every field is read on its own with opt* calls, so a missing or malformed optional field
+ * falls back to its default and does not affect the other fields, as the opt* defaults did before.
+ * JSON null is treated as missing. Numbers and booleans given as strings are accepted, as optInt and
+ * optBoolean accept them. Missing required fields and type mismatches of required fields are collected
+ * and reported to JS in one error object.
+ */
+class ArgumentSchema {
+    enum Type {
+        STRING,
+        BOOLEAN,
+        INT,
+        OBJECT,
+        ARRAY,
+        STRING_MAP
+    }
+
+    static final class Field {
+        final int position;
+        final String name;
+        final Type type;
+        final boolean required;
+        final Object defaultValue;
+        private final String[] mPath;
+
+        private Field(int position, String name, Type type, boolean required, Object defaultValue) {
+            this.position = position;
+            this.name = name;
+            this.type = type;
+            this.required = required;
+            this.defaultValue = defaultValue;
+            mPath = name == null ? new String[0] : name.split("\\.");
+        }
+
+        /**
+         * @param position index of the argument in the exec arguments array
+         * @param name     dot-separated path inside the argument object, or null for the argument itself
+         */
+        static Field optional(int position, String name, Type type, Object defaultValue) {
+            return new Field(position, name, type, false, defaultValue);
+        }
+
+        static Field optional(int position, String name, Type type) {
+            return new Field(position, name, type, false, null);
+        }
+
+        static Field required(int position, String name, Type type) {
+            return new Field(position, name, type, true, null);
+        }
+
+        private Object read(JSONArray args) {
+            Object value = args.opt(position);
+            for (String key : mPath) {
+                if (!(value instanceof JSONObject)) {
+                    return null;
+                }
+                value = ((JSONObject) value).opt(key);
+            }
+            return value == JSONObject.NULL ? null : value;
+        }
+
+        private Object convert(Object value) {
+            switch (type) {
+                case STRING:
+                    return value instanceof String || value instanceof Number || value instanceof Boolean
+                            ? value.toString() : null;
+                case BOOLEAN:
+                    if (value instanceof Boolean) {
+                        return value;
+                    }
+                    if ("true".equalsIgnoreCase(value.toString()) || "false".equalsIgnoreCase(value.toString())) {
+                        return Boolean.valueOf(value.toString());
+                    }
+                    return null;
+                case INT:
+                    if (value instanceof Number) {
+                        return ((Number) value).intValue();
+                    }
+                    if (value instanceof String) {
+                        try {
+                            return (int) Double.parseDouble((String) value);
+                        } catch (NumberFormatException e) {
+                            return null;
+                        }
+                    }
+                    return null;
+                case OBJECT:
+                    return value instanceof JSONObject ? value : null;
+                case ARRAY:
+                    return value instanceof JSONArray ? value : null;
+                case STRING_MAP:
+                    return value instanceof JSONObject ? VoximplantUtils.convertJSONObjectToMap((JSONObject) value) : null;
+                default:
+                    return null;
+            }
+        }
+
+        private String describe() {
+            return name == null ? "arguments[" + position + "]" : "arguments[" + position + "]." + name;
+        }
+    }
+
+    static final class Arguments {
+        private final ArgumentSchema mSchema;
+        private final Object[] mValues;
+        private final List<String> mErrors;
+
+        private Arguments(ArgumentSchema schema, Object[] values, List<String> errors) {
+            mSchema = schema;
+            mValues = values;
+            mErrors = errors;
+        }
+
+        boolean isValid() {
+            return mErrors == null;
+        }
+
+        String getString(Field field) {
+            return (String) get(field);
+        }
+
+        /**
+         * @return false if an optional field without a default value is missing
+         */
+        boolean has(Field field) {
+            return get(field) != null;
+        }
+
+        boolean getBoolean(Field field) {
+            Object value = get(field);
+            return value != null && (Boolean) value;
+        }
+
+        int getInt(Field field) {
+            Object value = get(field);
+            return value != null ? (Integer) value : 0;
+        }
+
+        JSONObject getJSONObject(Field field) {
+            return (JSONObject) get(field);
+        }
+
+        JSONArray getJSONArray(Field field) {
+            return (JSONArray) get(field);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> getStringMap(Field field) {
+            return (Map<String, String>) get(field);
+        }
+
+        /**
+         * Reports validation errors as {code: "INVALID_ARGUMENTS", action, errors: [{field, message}]}.
+         */
+        void reportError(CallbackContext callbackContext) {
+            Log.e("VOXCRD", mSchema.mAction + ": invalid arguments: " + mErrors);
+            JSONObject error = new JSONObject();
+            try {
+                error.put("code", "INVALID_ARGUMENTS");
+                error.put("action", mSchema.mAction);
+                JSONArray errors = new JSONArray();
+                for (int i = 0; i < mErrors.size(); i += 2) {
+                    JSONObject fieldError = new JSONObject();
+                    fieldError.put("field", mErrors.get(i));
+                    fieldError.put("message", mErrors.get(i + 1));
+                    errors.put(fieldError);
+                }
+                error.put("errors", errors);
+            } catch (JSONException e) {
+                Log.e("VOXCRD", "ArgumentSchema: failed to create json");
+            }
+            callbackContext.error(error);
+        }
+
+        private Object get(Field field) {
+            Field[] fields = mSchema.mFields;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] == field) {
+                    return mValues[i];
+                }
+            }
+            throw new IllegalArgumentException("Field " + field.describe() + " is not a part of " + mSchema.mAction);
+        }
+    }
+
+    private final String mAction;
+    private final Field[] mFields;
+
+    ArgumentSchema(String action, Field... fields) {
+        mAction = action;
+        mFields = fields;
+    }
+
+    Arguments decode(JSONArray args) {
+        Object[] values = new Object[mFields.length];
+        List<String> errors = null;
+        for (int i = 0; i < mFields.length; i++) {
+            Field field = mFields[i];
+            Object raw = args != null ? field.read(args) : null;
+            Object value = raw != null ? field.convert(raw) : null;
+            String error = null;
+            if (raw != null && value == null && field.required) {
+                error = "expected " + field.type.name().toLowerCase();
+            } else if (raw != null && value == null) {
+                Log.w("VOXCRD", mAction + ": " + field.describe() + " is not "
+                        + field.type.name().toLowerCase() + ", the default is used");
+            } else if (value == null && field.required) {
+                error = "is required";
+            }
+            if (error != null) {
+                if (errors == null) {
+                    errors = new ArrayList<>();
+                }
+                errors.add(field.describe());
+                errors.add(error);
+            }
+            values[i] = value != null ? value : field.defaultValue;
+        }
+        return new Arguments(this, values, errors);
+    }
+}
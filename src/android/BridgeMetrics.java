@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms for the JS bridge.
+ *
+ * Actions are measured from VoximplantPlugin.execute to the moment the action handler returns,
+ * events from the SDK callback to the moment their batch is handed over to Cordova.
+ */
+class BridgeMetrics {
+    private static final ArgumentSchema.Field RESET = ArgumentSchema.Field.optional(0, "reset", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema GET_BRIDGE_METRICS = new ArgumentSchema("getBridgeMetrics", RESET);
+
+    private final ConcurrentMap<String, LatencyHistogram> mActionQueueDelay = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> mActionExecution = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] mEventLatency = new LatencyHistogram[EventType.values().length];
+    private final LatencyHistogram[] mPriorityLatency = new LatencyHistogram[EventType.Priority.values().length];
+    private final LatencyHistogram mMainLooperDelay = new LatencyHistogram();
+    private final AtomicLong mEventsSent = new AtomicLong();
+    private final AtomicLong mEventsDropped = new AtomicLong();
+    private final AtomicLong mEventsCoalesced = new AtomicLong();
+    private final AtomicLong mBatchesSent = new AtomicLong();
+
+    BridgeMetrics() {
+        for (int i = 0; i < mEventLatency.length; i++) {
+            mEventLatency[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < mPriorityLatency.length; i++) {
+            mPriorityLatency[i] = new LatencyHistogram();
+        }
+    }
+
+    void recordAction(String action, long queueDelayNanos, long executionNanos) {
+        histogram(mActionQueueDelay, action).record(queueDelayNanos);
+        histogram(mActionExecution, action).record(executionNanos);
+    }
+
+    void recordEventDelivered(EventType type, long latencyNanos) {
+        mEventLatency[type.ordinal()].record(latencyNanos);
+        mPriorityLatency[type.priority.ordinal()].record(latencyNanos);
+        mEventsSent.incrementAndGet();
+    }
+
+    void recordEventDropped() {
+        mEventsDropped.incrementAndGet();
+    }
+
+    void recordEventCoalesced() {
+        mEventsCoalesced.incrementAndGet();
+    }
+
+    void recordBatch(long mainLooperDelayNanos) {
+        mMainLooperDelay.record(mainLooperDelayNanos);
+        mBatchesSent.incrementAndGet();
+    }
+
+    void reset() {
+        for (LatencyHistogram histogram : mActionQueueDelay.values()) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : mActionExecution.values()) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : mEventLatency) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : mPriorityLatency) {
+            histogram.reset();
+        }
+        mMainLooperDelay.reset();
+        mEventsSent.set(0);
+        mEventsDropped.set(0);
+        mEventsCoalesced.set(0);
+        mBatchesSent.set(0);
+    }
+
+    boolean getBridgeMetrics(JSONArray args, CallManager callManager, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = GET_BRIDGE_METRICS.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        JSONObject metrics = new JSONObject();
+        try {
+            metrics.put("bucketBoundsMs", LatencyHistogram.bucketBoundsToJSON());
+            JSONObject actions = new JSONObject();
+            for (Map.Entry<String, LatencyHistogram> entry : mActionExecution.entrySet()) {
+                JSONObject action = new JSONObject();
+                action.put("execution", entry.getValue().toJSON());
+                LatencyHistogram queueDelay = mActionQueueDelay.get(entry.getKey());
+                if (queueDelay != null) {
+                    action.put("queueDelay", queueDelay.toJSON());
+                }
+                actions.put(entry.getKey(), action);
+            }
+            metrics.put("actions", actions);
+            JSONObject events = new JSONObject();
+            for (EventType type : EventType.values()) {
+                LatencyHistogram latency = mEventLatency[type.ordinal()];
+                if (latency.getCount() > 0) {
+                    events.put(type.jsName, latency.toJSON());
+                }
+            }
+            metrics.put("events", events);
+            JSONObject priorities = new JSONObject();
+            for (EventType.Priority priority : EventType.Priority.values()) {
+                priorities.put(priority.name(), mPriorityLatency[priority.ordinal()].toJSON());
+            }
+            metrics.put("eventPriorities", priorities);
+            metrics.put("mainLooperDelay", mMainLooperDelay.toJSON());
+            metrics.put("eventsSent", mEventsSent.get());
+            metrics.put("eventsDropped", mEventsDropped.get());
+            metrics.put("eventsCoalesced", mEventsCoalesced.get());
+            metrics.put("batchesSent", mBatchesSent.get());
+            metrics.put("liveCalls", callManager.getLiveCallCount());
+            metrics.put("evictedCalls", callManager.getEvictedCallCount());
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "BridgeMetrics.getBridgeMetrics: failed to create json");
+        }
+        if (arguments.getBoolean(RESET)) {
+            reset();
+        }
+        callbackContext.success(metrics);
+        return true;
+    }
+
+    private static LatencyHistogram histogram(ConcurrentMap<String, LatencyHistogram> histograms, String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            LatencyHistogram existing = histograms.putIfAbsent(name, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+}
@@ -4,26 +4,100 @@
 
 package com.voximplant.cordova.sdk;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 
 import org.apache.cordova.CallbackContext;
-import org.apache.cordova.CordovaWebView;
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 class CallManager {
-    private final Map<String, CallModule> mCallModules;
-    private final CordovaWebView mWebView;
-    private Handler mHandler = new Handler(Looper.getMainLooper());
+    private static final ArgumentSchema.Field CALL_ID = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field SUBSCRIBED_EVENTS = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.ARRAY);
+    private static final ArgumentSchema.Field LAST_EVENT_SEQ = ArgumentSchema.Field.optional(0, null, ArgumentSchema.Type.INT, 0);
+    private static final ArgumentSchema.Field EVENT_CHANNEL_ID = ArgumentSchema.Field.optional(1, null, ArgumentSchema.Type.INT, 0);
+    private static final ArgumentSchema CALL_ACTION = new ArgumentSchema("Call", CALL_ID);
+    private static final ArgumentSchema REGISTER_EVENT_CHANNEL = new ArgumentSchema("registerEventChannel", LAST_EVENT_SEQ, EVENT_CHANNEL_ID);
+    private static final ArgumentSchema SET_EVENT_SUBSCRIPTIONS = new ArgumentSchema("setEventSubscriptions", SUBSCRIBED_EVENTS);
 
-    CallManager(CordovaWebView webView) {
-        mCallModules = new HashMap<>();
-        mWebView = webView;
+    private final ConcurrentMap<String, CallModule> mCallModules;
+    private final AtomicLong mEvictedCalls = new AtomicLong();
+    private final EventChannel mEventChannel;
+    private final CallSetupStats mCallSetupStats = new CallSetupStats();
+    private final HeaderCache mHeaderCache = new HeaderCache();
+    private final VideoViewManager mVideoViewManager;
+    private final ScheduledExecutorService mCallScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "VoximplantCallScheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // tone sequences get their own thread, so tones are not delayed by the work on the call scheduler
+    private final ScheduledExecutorService mTonePacer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "VoximplantTonePacer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final TimerWheel mTimerWheel = new TimerWheel(mCallScheduler, 100, 512);
+    // all events are delivered until JS reports its subscriptions
+    private volatile long mSubscriptionMask = -1L;
+    private volatile boolean mLazyHeaders;
+
+    CallManager(BridgeMetrics bridgeMetrics, VideoViewManager videoViewManager) {
+        mVideoViewManager = videoViewManager;
+        mCallModules = new ConcurrentHashMap<>();
+        mEventChannel = new EventChannel(bridgeMetrics);
+    }
+
+    void registerEventChannel(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = REGISTER_EVENT_CHANNEL.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
+        }
+        mEventChannel.register(callbackContext, arguments.getInt(LAST_EVENT_SEQ), arguments.getInt(EVENT_CHANNEL_ID));
+    }
+
+    void pauseEvents() {
+        mEventChannel.pause();
+    }
+
+    void resumeEvents() {
+        mEventChannel.resume();
+    }
+
+    void resetEvents() {
+        mEventChannel.reset();
+    }
+
+    VideoViewManager getVideoViewManager() {
+        return mVideoViewManager;
+    }
+
+    ScheduledExecutorService getCallScheduler() {
+        return mCallScheduler;
+    }
+
+    ScheduledExecutorService getTonePacer() {
+        return mTonePacer;
+    }
+
+    /**
+     * Deadlines of plugin operations, ticks on the call scheduler every 100 ms.
+     */
+    TimerWheel getTimerWheel() {
+        return mTimerWheel;
+    }
+
+    void release() {
+        mCallScheduler.shutdownNow();
+        mTonePacer.shutdownNow();
     }
 
     void addNewCall(String callId, CallModule callModule) {
@@ -31,26 +105,47 @@ class CallManager {
     }
 
     void callHasEnded(String callId) {
-        mCallModules.remove(callId);
+        if (callId == null) {
+            return;
+        }
+        if (mCallModules.remove(callId) != null) {
+            mEvictedCalls.incrementAndGet();
+        }
+        mEventChannel.dropHeldEvents(callId);
+        mVideoViewManager.removeVideoStreams(callId);
     }
 
-    CallModule checkCallEvent(JSONArray args, CallbackContext callbackContext) {
-        if (args == null || args.length() == 0) {
-            callbackContext.error("Invalid arguments");
-            return null;
-        }
-        String callId = null;
+    int getLiveCallCount() {
+        return mCallModules.size();
+    }
+
+    long getEvictedCallCount() {
+        return mEvictedCalls.get();
+    }
+
+    CallSetupStats getCallSetupStats() {
+        return mCallSetupStats;
+    }
+
+    boolean getCallStats(CallbackContext callbackContext) {
+        JSONObject stats = new JSONObject();
         try {
-            callId = args.getString(0);
+            stats.put("liveCalls", getLiveCallCount());
+            stats.put("evictedCalls", getEvictedCallCount());
         } catch (JSONException e) {
-            Log.e("VOXCRD", "Failed to get callId");
-            callbackContext.error("Invalid arguments");
-            return  null;
+            Log.e("VOXCRD", "CallManager.getCallStats: failed to create json");
         }
-        if (callId == null) {
-            callbackContext.error("Invalid arguments");
+        callbackContext.success(stats);
+        return true;
+    }
+
+    CallModule checkCallEvent(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = CALL_ACTION.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
             return null;
         }
+        String callId = arguments.getString(CALL_ID);
         CallModule callModule = mCallModules.get(callId);
         if (callModule == null) {
             callbackContext.error("Failed to find call for callId: " + callId);
@@ -58,10 +153,78 @@ class CallManager {
         return callModule;
     }
 
-    void sendEventToJS(String event) {
-        mHandler.post(() -> {
-            mWebView.loadUrl(event);
-        });
+    boolean isSubscribed(EventType type) {
+        return (mSubscriptionMask & type.mask()) != 0;
+    }
+
+    boolean setEventSubscriptions(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = SET_EVENT_SUBSCRIPTIONS.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        JSONArray events = arguments.getJSONArray(SUBSCRIBED_EVENTS);
+        long mask = 0;
+        for (EventType type : EventType.values()) {
+            if (type.required) {
+                mask |= type.mask();
+            }
+        }
+        for (int i = 0; i < events.length(); i++) {
+            EventType type = EventType.fromJsName(events.optString(i));
+            if (type != null) {
+                mask |= type.mask();
+            }
+        }
+        mSubscriptionMask = mask;
+        callbackContext.success();
+        return true;
+    }
 
+    void setLazyHeaders(boolean lazyHeaders) {
+        mLazyHeaders = lazyHeaders;
+    }
+
+    HeaderCache getHeaderCache() {
+        return mHeaderCache;
+    }
+
+    /**
+     * Writes the headers into the event, or only a handle to them if lazy header delivery is enabled.
+     */
+    EventWriter writeHeaders(EventWriter event, String callId, Map<String, String> headers) {
+        if (!mLazyHeaders) {
+            return event.headers("headers", headers);
+        }
+        if (headers == null || headers.isEmpty()) {
+            return event;
+        }
+        return event.field("headersId", mHeaderCache.put(callId, headers))
+                .field("headerCount", headers.size());
+    }
+
+    void sendEventToJS(EventWriter event) {
+        sendEventToJS(event, null);
+    }
+
+    /**
+     * @param callId the call the event is about
+     */
+    void sendEventToJS(EventWriter event, String callId) {
+        EventType type = event.getType();
+        long startNanos = event.getStartNanos();
+        mEventChannel.send(type, startNanos, event.end(), callId);
+    }
+
+    /**
+     * Sends an event of a coalesce group. In background it is held and only written if it is still the latest
+     * one for its key when delivered, see {@link EventType#coalesceGroup}.
+     *
+     * @param coalesceKey call or endpoint of the event
+     */
+    void sendEventToJS(EventType type, String callId, String coalesceKey, EventChannel.EventSource source) {
+        if (!mEventChannel.hold(type, source, callId, coalesceKey)) {
+            sendEventToJS(source.write(), callId);
+        }
     }
 }
@@ -19,74 +19,109 @@ import com.voximplant.sdk.call.VideoFlags;
 
 import org.apache.cordova.CallbackContext;
 import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
-import java.util.HashMap;
 import java.util.Map;
 
 class CallModule implements ICallListener, IEndpointListener {
+    // call settings of Client.call and Call.answer, the second exec argument
+    static final ArgumentSchema.Field CALL_SETTINGS_CUSTOM_DATA = ArgumentSchema.Field.optional(1, "customData", ArgumentSchema.Type.STRING);
+    static final ArgumentSchema.Field CALL_SETTINGS_SEND_VIDEO = ArgumentSchema.Field.optional(1, "video.sendVideo", ArgumentSchema.Type.BOOLEAN, false);
+    static final ArgumentSchema.Field CALL_SETTINGS_RECEIVE_VIDEO = ArgumentSchema.Field.optional(1, "video.receiveVideo", ArgumentSchema.Type.BOOLEAN, false);
+    static final ArgumentSchema.Field CALL_SETTINGS_EXTRA_HEADERS = ArgumentSchema.Field.optional(1, "extraHeaders", ArgumentSchema.Type.STRING_MAP);
+    static final ArgumentSchema.Field CALL_SETTINGS_VIDEO_CODEC = ArgumentSchema.Field.optional(1, "preferredVideoCodec", ArgumentSchema.Type.STRING, "AUTO");
+
+    private static final ArgumentSchema.Field HEADERS = ArgumentSchema.Field.optional(1, null, ArgumentSchema.Type.STRING_MAP);
+    private static final ArgumentSchema.Field SEND_AUDIO_ENABLE = ArgumentSchema.Field.optional(1, null, ArgumentSchema.Type.BOOLEAN, true);
+    private static final ArgumentSchema.Field SEND_TONE_KEY = ArgumentSchema.Field.required(1, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field SEND_MESSAGE_TEXT = ArgumentSchema.Field.required(1, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field SEND_INFO_TYPE = ArgumentSchema.Field.required(1, "type", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field SEND_INFO_BODY = ArgumentSchema.Field.required(1, "body", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field SEND_INFO_HEADERS = ArgumentSchema.Field.optional(1, "headers", ArgumentSchema.Type.STRING_MAP);
+    private static final ArgumentSchema.Field SEND_INFO_REPLACE_KEY = ArgumentSchema.Field.optional(1, "replaceKey", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field SEND_MESSAGE_REPLACE_KEY = ArgumentSchema.Field.optional(2, "replaceKey", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field QUEUE_RATE = ArgumentSchema.Field.optional(1, "rate", ArgumentSchema.Type.INT, OutboundQueue.DEFAULT_RATE);
+    private static final ArgumentSchema.Field QUEUE_BURST = ArgumentSchema.Field.optional(1, "burst", ArgumentSchema.Type.INT, OutboundQueue.DEFAULT_BURST);
+    private static final ArgumentSchema.Field QUEUE_CAPACITY = ArgumentSchema.Field.optional(1, "capacity", ArgumentSchema.Type.INT, OutboundQueue.DEFAULT_CAPACITY);
+    private static final ArgumentSchema.Field QUEUE_DROP_POLICY = ArgumentSchema.Field.optional(1, "dropPolicy", ArgumentSchema.Type.STRING, "DROP_OLDEST");
+    private static final ArgumentSchema.Field HOLD_ENABLE = ArgumentSchema.Field.optional(1, null, ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field TONE_SEQUENCE_TONES = ArgumentSchema.Field.required(1, "tones", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field TONE_SEQUENCE_INTERVAL = ArgumentSchema.Field.optional(1, "interval", ArgumentSchema.Type.INT, 170);
+
+    private static final ArgumentSchema HANGUP = new ArgumentSchema("Call.hangup", HEADERS);
+    private static final ArgumentSchema ANSWER = new ArgumentSchema("Call.answer", CALL_SETTINGS_CUSTOM_DATA,
+            CALL_SETTINGS_SEND_VIDEO, CALL_SETTINGS_RECEIVE_VIDEO, CALL_SETTINGS_EXTRA_HEADERS, CALL_SETTINGS_VIDEO_CODEC);
+    private static final ArgumentSchema DECLINE = new ArgumentSchema("Call.decline", HEADERS);
+    private static final ArgumentSchema REJECT = new ArgumentSchema("Call.reject", HEADERS);
+    private static final ArgumentSchema SEND_AUDIO = new ArgumentSchema("Call.sendAudio", SEND_AUDIO_ENABLE);
+    private static final ArgumentSchema SEND_TONE = new ArgumentSchema("Call.sendTone", SEND_TONE_KEY);
+    private static final ArgumentSchema SEND_MESSAGE = new ArgumentSchema("Call.sendMessage", SEND_MESSAGE_TEXT, SEND_MESSAGE_REPLACE_KEY);
+    private static final ArgumentSchema SEND_INFO = new ArgumentSchema("Call.sendInfo", SEND_INFO_TYPE, SEND_INFO_BODY, SEND_INFO_HEADERS,
+            SEND_INFO_REPLACE_KEY);
+    private static final ArgumentSchema CONFIGURE_OUTBOUND_QUEUE = new ArgumentSchema("Call.configureOutboundQueue",
+            QUEUE_RATE, QUEUE_BURST, QUEUE_CAPACITY, QUEUE_DROP_POLICY);
+    private static final ArgumentSchema HOLD = new ArgumentSchema("Call.hold", HOLD_ENABLE);
+    private static final ArgumentSchema SEND_TONE_SEQUENCE = new ArgumentSchema("Call.sendToneSequence",
+            TONE_SEQUENCE_TONES, TONE_SEQUENCE_INTERVAL);
+
     private final ICall mCall;
     private final CallManager mCallManager;
+    private final CallSetupTimeline mTimeline = new CallSetupTimeline();
+    private final OutboundQueue mOutboundQueue;
+    private volatile ToneSequence mToneSequence;
 
     CallModule(ICall call, CallManager callManager) {
         mCall = call;
         mCallManager = callManager;
+        mOutboundQueue = new OutboundQueue(call, callManager.getCallScheduler());
         mCall.addCallListener(this);
     }
 
     boolean startCall(CallbackContext callbackContext) {
+        // register before start, so a failure reported right away by the SDK evicts the call
+        mCallManager.addNewCall(mCall.getCallId(), this);
+        mTimeline.start(true);
         try {
             mCall.start();
         } catch (CallException e) {
             Log.e("VOXCRD", "Client.call: failed to start call: " + e.getErrorCode());
+            mCall.removeCallListener(this);
+            mCallManager.callHasEnded(mCall.getCallId());
             callbackContext.error(e.getErrorCode().toString());
             return true;
         }
-        mCallManager.addNewCall(mCall.getCallId(), this);
         callbackContext.success(mCall.getCallId());
         return true;
     }
 
+    /**
+     * Drops a call that has been created but not started, see {@link PreparedCalls}.
+     * The listener is removed first, so JS does not get events of a call it has never seen; the hangup
+     * then makes the SDK release the call.
+     */
+    void discard() {
+        mCall.removeCallListener(this);
+        mOutboundQueue.close();
+        mCall.hangup(null);
+    }
+
     void hangup(JSONArray args, CallbackContext callbackContext) {
-        Map<String, String> headers = null;
-        if (args.length() > 1) {
-            try {
-                JSONObject params = args.getJSONObject(1);
-                headers = VoximplantUtils.convertJSONObjectToMap(params);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.hangup: failed to parse json - extra headers");
-            }
+        ArgumentSchema.Arguments arguments = HANGUP.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
         }
-        mCall.hangup(headers);
+        mCall.hangup(arguments.getStringMap(HEADERS));
         callbackContext.success();
     }
 
     void answer(JSONArray args, CallbackContext callbackContext) {
-        String customData = null;
-        Map<String, String> headers = null;
-        boolean sendVideo = false;
-        boolean receiveVideo = false;
-        String videoCodec = "AUTO";
-        if (args.length() > 1) {
-            try {
-                JSONObject params = args.getJSONObject(1);
-                customData = params.getString("customData");
-                sendVideo = params.getJSONObject("video").getBoolean("sendVideo");
-                receiveVideo = params.getJSONObject("video").getBoolean("receiveVideo");
-                JSONObject object = params.getJSONObject("extraHeaders");
-                headers = VoximplantUtils.convertJSONObjectToMap(object);
-                videoCodec = params.getString("preferredVideoCodec");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.answer: failed to parse json - call settings");
-            }
+        ArgumentSchema.Arguments arguments = ANSWER.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
         }
-
-        CallSettings callSettings = new CallSettings();
-        callSettings.customData = customData;
-        callSettings.extraHeaders = headers;
-        callSettings.videoFlags = new VideoFlags(receiveVideo, sendVideo);
-        callSettings.preferredVideoCodec = VoximplantUtils.convertStringToVideoCodec(videoCodec);
+        CallSettings callSettings = createCallSettings(arguments);
+        mTimeline.start(false);
         try {
             mCall.answer(callSettings);
         } catch (CallException e) {
@@ -97,17 +132,13 @@ class CallModule implements ICallListener, IEndpointListener {
 
 
     void decline(JSONArray args, CallbackContext callbackContext) {
-        Map<String, String> headers = null;
-        if (args.length() > 1) {
-            try {
-                JSONObject params = args.getJSONObject(1);
-                headers = VoximplantUtils.convertJSONObjectToMap(params);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.decline: failed to parse json - headers");
-            }
+        ArgumentSchema.Arguments arguments = DECLINE.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
         }
         try {
-            mCall.reject(RejectMode.DECLINE, headers);
+            mCall.reject(RejectMode.DECLINE, arguments.getStringMap(HEADERS));
         } catch (CallException e) {
             Log.e("VOXCRD", "Call.decline: failed to decline call " + e.getErrorCode());
         }
@@ -115,17 +146,13 @@ class CallModule implements ICallListener, IEndpointListener {
     }
 
     void reject(JSONArray args, CallbackContext callbackContext) {
-        Map<String, String> headers = null;
-        if (args.length() > 1) {
-            try {
-                JSONObject params = args.getJSONObject(1);
-                headers = VoximplantUtils.convertJSONObjectToMap(params);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.reject: failed to parse json - headers");
-            }
+        ArgumentSchema.Arguments arguments = REJECT.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
         }
         try {
-            mCall.reject(RejectMode.BUSY, headers);
+            mCall.reject(RejectMode.BUSY, arguments.getStringMap(HEADERS));
         } catch (CallException e) {
             Log.e("VOXCRD", "Call.reject: failed to decline call " + e.getErrorCode());
         }
@@ -133,73 +160,60 @@ class CallModule implements ICallListener, IEndpointListener {
     }
 
     void sendAudio(JSONArray args, CallbackContext callbackContext) {
-        boolean enable = true;
-        if (args.length() > 1) {
-            try {
-                enable = args.getBoolean(1);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.sendAudio: failed to parse json - enable");
-            }
+        ArgumentSchema.Arguments arguments = SEND_AUDIO.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
         }
-        mCall.sendAudio(enable);
+        mCall.sendAudio(arguments.getBoolean(SEND_AUDIO_ENABLE));
         callbackContext.success();
     }
 
     void sendTone(JSONArray args, CallbackContext callbackContext) {
-        String dtmf = null;
-        if (args.length() > 1) {
-            try {
-                dtmf = args.getString(1);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.sendTone: failed to parse json - key");
-            }
+        ArgumentSchema.Arguments arguments = SEND_TONE.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
         }
-        mCall.sendDTMF(dtmf);
+        mCall.sendDTMF(arguments.getString(SEND_TONE_KEY));
         callbackContext.success();
     }
 
     void sendMessage(JSONArray args, CallbackContext callbackContext) {
-        String message = null;
-        if (args.length() > 1) {
-            try {
-                message = args.getString(1);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.sendMessage: failed to parse json - message");
-            }
+        ArgumentSchema.Arguments arguments = SEND_MESSAGE.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
+        }
+        if (mOutboundQueue.offer(null, arguments.getString(SEND_MESSAGE_TEXT), null,
+                arguments.getString(SEND_MESSAGE_REPLACE_KEY))) {
+            callbackContext.success();
+        } else {
+            callbackContext.error("QUEUE_FULL");
         }
-        mCall.sendMessage(message);
-        callbackContext.success();
     }
 
     void sendInfo(JSONArray args, CallbackContext callbackContext) {
-        String mimeType = null;
-        String body = null;
-        Map<String, String> headers = null;
-        if (args.length() > 1) {
-            try {
-                JSONObject params = args.getJSONObject(1);
-                mimeType = params.getString("type");
-                body = params.getString("body");
-                JSONObject object = params.getJSONObject("headers");
-                headers = VoximplantUtils.convertJSONObjectToMap(object);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.sendInfo: failed to parse json");
-            }
+        ArgumentSchema.Arguments arguments = SEND_INFO.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
+        }
+        if (mOutboundQueue.offer(arguments.getString(SEND_INFO_TYPE), arguments.getString(SEND_INFO_BODY),
+                arguments.getStringMap(SEND_INFO_HEADERS), arguments.getString(SEND_INFO_REPLACE_KEY))) {
+            callbackContext.success();
+        } else {
+            callbackContext.error("QUEUE_FULL");
         }
-        mCall.sendInfo(mimeType, body, headers);
-        callbackContext.success();
     }
 
     void hold(JSONArray args, CallbackContext callbackContext) {
-        boolean enable = false;
-        if (args.length() > 1) {
-            try {
-                enable = args.getBoolean(1);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Call.hold: failed to parse json");
-            }
+        ArgumentSchema.Arguments arguments = HOLD.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
         }
-        mCall.hold(enable, new ICallCompletionHandler() {
+        mCall.hold(arguments.getBoolean(HOLD_ENABLE), new ICallCompletionHandler() {
             @Override
             public void onComplete() {
                 callbackContext.success();
@@ -212,207 +226,271 @@ class CallModule implements ICallListener, IEndpointListener {
         });
     }
 
+    void configureOutboundQueue(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = CONFIGURE_OUTBOUND_QUEUE.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
+        }
+        int rate = arguments.getInt(QUEUE_RATE);
+        int burst = arguments.getInt(QUEUE_BURST);
+        int capacity = arguments.getInt(QUEUE_CAPACITY);
+        OutboundQueue.DropPolicy dropPolicy = VoximplantUtils.convertStringToDropPolicy(arguments.getString(QUEUE_DROP_POLICY));
+        if (rate < 1 || rate > 1000 || burst < 1 || burst > 1000 || capacity < 1 || capacity > 4096 || dropPolicy == null) {
+            callbackContext.error("Invalid outbound queue options: rate and burst must be 1-1000, capacity 1-4096, "
+                    + "dropPolicy DROP_OLDEST or DROP_NEWEST");
+            return;
+        }
+        mOutboundQueue.configure(rate, burst, capacity, dropPolicy);
+        callbackContext.success();
+    }
+
+    void getOutboundQueueStats(CallbackContext callbackContext) {
+        callbackContext.success(mOutboundQueue.getStats());
+    }
+
+    void sendToneSequence(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = SEND_TONE_SEQUENCE.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return;
+        }
+        String tones = arguments.getString(TONE_SEQUENCE_TONES);
+        int interval = arguments.getInt(TONE_SEQUENCE_INTERVAL);
+        if (!tones.matches("[0-9*#]+") || interval < 40 || interval > 7000) {
+            callbackContext.error("Invalid tone sequence: tones must be 0-9, * or #, interval 40-7000 ms");
+            return;
+        }
+        ToneSequence toneSequence = mToneSequence;
+        if (toneSequence != null && toneSequence.isActive()) {
+            callbackContext.error("A tone sequence is already in progress");
+            return;
+        }
+        toneSequence = new ToneSequence(mCall, tones, interval, mCallManager.getTonePacer(), callbackContext);
+        mToneSequence = toneSequence;
+        toneSequence.start();
+    }
+
+    void cancelToneSequence(CallbackContext callbackContext) {
+        ToneSequence toneSequence = mToneSequence;
+        if (toneSequence == null || !toneSequence.cancel("CANCELLED")) {
+            callbackContext.error("No tone sequence in progress");
+            return;
+        }
+        callbackContext.success(toneSequence.getProgress());
+    }
+
+    void getToneSequenceProgress(CallbackContext callbackContext) {
+        ToneSequence toneSequence = mToneSequence;
+        if (toneSequence == null) {
+            callbackContext.error("No tone sequence was sent");
+            return;
+        }
+        callbackContext.success(toneSequence.getProgress());
+    }
+
+    private void cancelToneSequenceOnCallEnd() {
+        ToneSequence toneSequence = mToneSequence;
+        if (toneSequence != null) {
+            toneSequence.cancel("CALL_ENDED");
+        }
+    }
+
+    static CallSettings createCallSettings(ArgumentSchema.Arguments arguments) {
+        CallSettings callSettings = new CallSettings();
+        callSettings.customData = arguments.getString(CALL_SETTINGS_CUSTOM_DATA);
+        callSettings.extraHeaders = arguments.getStringMap(CALL_SETTINGS_EXTRA_HEADERS);
+        callSettings.videoFlags = new VideoFlags(arguments.getBoolean(CALL_SETTINGS_RECEIVE_VIDEO),
+                arguments.getBoolean(CALL_SETTINGS_SEND_VIDEO));
+        callSettings.preferredVideoCodec = VoximplantUtils.convertStringToVideoCodec(
+                arguments.getString(CALL_SETTINGS_VIDEO_CODEC));
+        return callSettings;
+    }
+
     @Override
     public void onCallConnected(ICall call, Map<String, String> headers) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            JSONObject object = VoximplantUtils.convertMapToJSONObject(headers);
-            if (object != null) {
-                params.put("headers", object);
-            }
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "onCallConnected: Failed to add params to json");
+        mTimeline.mark(CallSetupTimeline.Stage.CONNECTED);
+        if (mCallManager.isSubscribed(EventType.CALL_CONNECTED)) {
+            EventWriter event = EventWriter.begin(EventType.CALL_CONNECTED)
+                    .field("callId", call.getCallId());
+            mCallManager.sendEventToJS(mCallManager.writeHeaders(event, call.getCallId(), headers), call.getCallId());
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallConnected'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onCallDisconnected(ICall call, Map<String, String> headers, boolean answeredElsewhere) {
         mCall.removeCallListener(this);
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            params.put("answeredElsewhere", answeredElsewhere);
-            JSONObject object = VoximplantUtils.convertMapToJSONObject(headers);
-            if (object != null) {
-                params.put("headers", object);
-            }
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "onCallDisconnected: Failed to add params to json");
+        cancelToneSequenceOnCallEnd();
+        mOutboundQueue.close();
+        mCallManager.callHasEnded(call.getCallId());
+        mCallManager.getCallSetupStats().add(mTimeline);
+        if (mCallManager.isSubscribed(EventType.CALL_DISCONNECTED)) {
+            EventWriter event = EventWriter.begin(EventType.CALL_DISCONNECTED)
+                    .field("callId", call.getCallId())
+                    .field("answeredElsewhere", answeredElsewhere);
+            mCallManager.writeHeaders(event, call.getCallId(), headers);
+            mCallManager.sendEventToJS(mTimeline.write(event, "timeline"), call.getCallId());
         }
-
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallDisconnected'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onCallRinging(ICall call, Map<String, String> headers) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            JSONObject object = VoximplantUtils.convertMapToJSONObject(headers);
-            if (object != null) {
-                params.put("headers", object);
-            }
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "onCallRinging: Failed to add params to json");
+        mTimeline.mark(CallSetupTimeline.Stage.RINGING);
+        if (mCallManager.isSubscribed(EventType.CALL_PROGRESS_TONE_START)) {
+            String callId = call.getCallId();
+            mCallManager.sendEventToJS(EventType.CALL_PROGRESS_TONE_START, callId, callId,
+                    () -> mCallManager.writeHeaders(EventWriter.begin(EventType.CALL_PROGRESS_TONE_START)
+                            .field("callId", callId), callId, headers));
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallProgressToneStart'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onCallFailed(ICall call, int code, String description, Map<String, String> headers) {
         mCall.removeCallListener(this);
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            params.put("code", code);
-            params.put("reason", description);
-            JSONObject object = VoximplantUtils.convertMapToJSONObject(headers);
-            if (object != null) {
-                params.put("headers", object);
-            }
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "onCallFailed: Failed to add params to json");
+        cancelToneSequenceOnCallEnd();
+        mOutboundQueue.close();
+        mCallManager.callHasEnded(call.getCallId());
+        mCallManager.getCallSetupStats().add(mTimeline);
+        if (mCallManager.isSubscribed(EventType.CALL_FAILED)) {
+            EventWriter event = EventWriter.begin(EventType.CALL_FAILED)
+                    .field("callId", call.getCallId())
+                    .field("code", code)
+                    .field("reason", description);
+            mCallManager.writeHeaders(event, call.getCallId(), headers);
+            mCallManager.sendEventToJS(mTimeline.write(event, "timeline"), call.getCallId());
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallFailed'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onCallAudioStarted(ICall call) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-        } catch (JSONException e ) {
-            Log.e("VOXCRD", "onCallAudioStarted: Failed to add params to json");
+        mTimeline.mark(CallSetupTimeline.Stage.AUDIO);
+        if (mCallManager.isSubscribed(EventType.CALL_PROGRESS_TONE_STOP)) {
+            String callId = call.getCallId();
+            mCallManager.sendEventToJS(EventType.CALL_PROGRESS_TONE_STOP, callId, callId,
+                    () -> EventWriter.begin(EventType.CALL_PROGRESS_TONE_STOP).field("callId", callId));
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallProgressToneStop'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onSIPInfoReceived(ICall call, String type, String content, Map<String, String> headers) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            params.put("mimeType", type);
-            params.put("body", content);
-            JSONObject object = VoximplantUtils.convertMapToJSONObject(headers);
-            if (object != null) {
-                params.put("headers", object);
-            }
-        } catch (JSONException e ) {
-            Log.e("VOXCRD", "onSIPInfoReceived: Failed to add params to json");
+        if (mCallManager.isSubscribed(EventType.CALL_INFO_RECEIVED)) {
+            EventWriter event = EventWriter.begin(EventType.CALL_INFO_RECEIVED)
+                    .field("callId", call.getCallId())
+                    .field("mimeType", type)
+                    .field("body", content);
+            mCallManager.sendEventToJS(mCallManager.writeHeaders(event, call.getCallId(), headers), call.getCallId());
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallInfoReceived'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onMessageReceived(ICall call, String text) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            params.put("text", text);
-        } catch (JSONException e ) {
-            Log.e("VOXCRD", "onMessageReceived: Failed to add params to json");
+        if (mCallManager.isSubscribed(EventType.CALL_MESSAGE_RECEIVED)) {
+            mCallManager.sendEventToJS(EventWriter.begin(EventType.CALL_MESSAGE_RECEIVED)
+                    .field("callId", call.getCallId())
+                    .field("text", text), call.getCallId());
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallMessageReceived'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onLocalVideoStreamAdded(ICall call, IVideoStream videoStream) {
-
+        mCallManager.getVideoViewManager().addVideoStream(call.getCallId(), videoStream);
+        if (mCallManager.isSubscribed(EventType.CALL_LOCAL_VIDEO_STREAM_ADDED)) {
+            mCallManager.sendEventToJS(EventWriter.begin(EventType.CALL_LOCAL_VIDEO_STREAM_ADDED)
+                    .field("callId", call.getCallId())
+                    .field("videoStreamId", videoStream.getVideoStreamId()), call.getCallId());
+        }
     }
 
     @Override
     public void onLocalVideoStreamRemoved(ICall call, IVideoStream videoStream) {
-
+        mCallManager.getVideoViewManager().removeVideoStream(videoStream);
+        if (mCallManager.isSubscribed(EventType.CALL_LOCAL_VIDEO_STREAM_REMOVED)) {
+            mCallManager.sendEventToJS(EventWriter.begin(EventType.CALL_LOCAL_VIDEO_STREAM_REMOVED)
+                    .field("callId", call.getCallId())
+                    .field("videoStreamId", videoStream.getVideoStreamId()), call.getCallId());
+        }
     }
 
     @Override
     public void onICETimeout(ICall call) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-        } catch (JSONException e ) {
-            Log.e("VOXCRD", "onICETimeout: Failed to add params to json");
+        mTimeline.markIceTimeout();
+        if (mCallManager.isSubscribed(EventType.CALL_ICE_TIMEOUT)) {
+            String callId = call.getCallId();
+            mCallManager.sendEventToJS(EventType.CALL_ICE_TIMEOUT, callId, callId,
+                    () -> EventWriter.begin(EventType.CALL_ICE_TIMEOUT).field("callId", callId));
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallICETimeout'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onICECompleted(ICall call) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-        } catch (JSONException e ) {
-            Log.e("VOXCRD", "onICECompleted: Failed to add params to json");
+        mTimeline.mark(CallSetupTimeline.Stage.ICE);
+        if (mCallManager.isSubscribed(EventType.CALL_ICE_COMPLETED)) {
+            String callId = call.getCallId();
+            mCallManager.sendEventToJS(EventType.CALL_ICE_COMPLETED, callId, callId,
+                    () -> EventWriter.begin(EventType.CALL_ICE_COMPLETED).field("callId", callId));
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallICECompleted'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onEndpointAdded(ICall call, IEndpoint endpoint) {
         endpoint.setEndpointListener(this);
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            params.put("endpointId", endpoint.getEndpointId());
-            params.put("displayName", endpoint.getUserDisplayName() == null ? "" : endpoint.getUserDisplayName());
-            params.put("sipUri", endpoint.getSipUri() == null ? "" : endpoint.getSipUri());
-            params.put("userName", endpoint.getUserName() == null ? "" : endpoint.getUserName());
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "onEndpointAdded: Failed to add params to json");
+        if (mCallManager.isSubscribed(EventType.CALL_ENDPOINT_ADDED)) {
+            mCallManager.sendEventToJS(EventWriter.begin(EventType.CALL_ENDPOINT_ADDED)
+                    .field("callId", call.getCallId())
+                    .field("endpointId", endpoint.getEndpointId())
+                    .field("displayName", endpoint.getUserDisplayName() == null ? "" : endpoint.getUserDisplayName())
+                    .field("sipUri", endpoint.getSipUri() == null ? "" : endpoint.getSipUri())
+                    .field("userName", endpoint.getUserName() == null ? "" : endpoint.getUserName()), call.getCallId());
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('CallEndpointAdded'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onRemoteVideoStreamAdded(IEndpoint endpoint, IVideoStream videoStream) {
-
+        mCallManager.getVideoViewManager().addVideoStream(mCall.getCallId(), videoStream);
+        if (mCallManager.isSubscribed(EventType.ENDPOINT_REMOTE_VIDEO_STREAM_ADDED)) {
+            mCallManager.sendEventToJS(EventWriter.begin(EventType.ENDPOINT_REMOTE_VIDEO_STREAM_ADDED)
+                    .field("callId", mCall.getCallId())
+                    .field("endpointId", endpoint.getEndpointId())
+                    .field("videoStreamId", videoStream.getVideoStreamId()), mCall.getCallId());
+        }
     }
 
     @Override
     public void onRemoteVideoStreamRemoved(IEndpoint endpoint, IVideoStream videoStream) {
-
+        mCallManager.getVideoViewManager().removeVideoStream(videoStream);
+        if (mCallManager.isSubscribed(EventType.ENDPOINT_REMOTE_VIDEO_STREAM_REMOVED)) {
+            mCallManager.sendEventToJS(EventWriter.begin(EventType.ENDPOINT_REMOTE_VIDEO_STREAM_REMOVED)
+                    .field("callId", mCall.getCallId())
+                    .field("endpointId", endpoint.getEndpointId())
+                    .field("videoStreamId", videoStream.getVideoStreamId()), mCall.getCallId());
+        }
     }
 
     @Override
     public void onEndpointRemoved(IEndpoint endpoint) {
         endpoint.setEndpointListener(null);
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", mCall.getCallId());
-            params.put("endpointId", endpoint.getEndpointId());
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "onEndpointRemoved: Failed to add params to json");
+        if (mCallManager.isSubscribed(EventType.ENDPOINT_REMOVED)) {
+            mCallManager.sendEventToJS(EventWriter.begin(EventType.ENDPOINT_REMOVED)
+                    .field("callId", mCall.getCallId())
+                    .field("endpointId", endpoint.getEndpointId()), mCall.getCallId());
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('EndpointRemoved'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 
     @Override
     public void onEndpointInfoUpdated(IEndpoint endpoint) {
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", mCall.getCallId());
-            params.put("endpointId", endpoint.getEndpointId());
-            params.put("displayName", endpoint.getUserDisplayName() == null ? "" : endpoint.getUserDisplayName());
-            params.put("sipUri", endpoint.getSipUri() == null ? "" : endpoint.getSipUri());
-            params.put("userName", endpoint.getUserName() == null ? "" : endpoint.getUserName());
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "onEndpointInfoUpdated: Failed to add params to json");
-        }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('EndpointInfoUpdated'," + params + ")";
-        mCallManager.sendEventToJS(event);
+        if (mCallManager.isSubscribed(EventType.ENDPOINT_INFO_UPDATED)) {
+            String callId = mCall.getCallId();
+            String endpointId = endpoint.getEndpointId();
+            String displayName = endpoint.getUserDisplayName() == null ? "" : endpoint.getUserDisplayName();
+            String sipUri = endpoint.getSipUri() == null ? "" : endpoint.getSipUri();
+            String userName = endpoint.getUserName() == null ? "" : endpoint.getUserName();
+            mCallManager.sendEventToJS(EventType.ENDPOINT_INFO_UPDATED, callId, callId + "/" + endpointId,
+                    () -> EventWriter.begin(EventType.ENDPOINT_INFO_UPDATED)
+                            .field("callId", callId)
+                            .field("endpointId", endpointId)
+                            .field("displayName", displayName)
+                            .field("sipUri", sipUri)
+                            .field("userName", userName));
+        }
     }
 }
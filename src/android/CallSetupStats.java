@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Rolling percentiles of the call setup stages over the last WINDOW_SIZE finished calls.
+ */
+class CallSetupStats {
+    private static final int WINDOW_SIZE = 256;
+
+    private final long[][] mSamples = new long[CallSetupTimeline.Stage.values().length][WINDOW_SIZE];
+    private final int[] mSampleCounts = new int[CallSetupTimeline.Stage.values().length];
+    private final int[] mNextIndex = new int[CallSetupTimeline.Stage.values().length];
+    private long mCalls;
+
+    synchronized void add(CallSetupTimeline timeline) {
+        if (!timeline.isStarted()) {
+            return;
+        }
+        mCalls++;
+        for (CallSetupTimeline.Stage stage : CallSetupTimeline.Stage.values()) {
+            long delta = timeline.getDeltaMs(stage);
+            if (delta < 0) {
+                continue;
+            }
+            int index = stage.ordinal();
+            mSamples[index][mNextIndex[index]] = delta;
+            mNextIndex[index] = (mNextIndex[index] + 1) % WINDOW_SIZE;
+            if (mSampleCounts[index] < WINDOW_SIZE) {
+                mSampleCounts[index]++;
+            }
+        }
+    }
+
+    boolean getCallSetupStats(CallbackContext callbackContext) {
+        JSONObject stats = new JSONObject();
+        try {
+            synchronized (this) {
+                stats.put("calls", mCalls);
+                for (CallSetupTimeline.Stage stage : CallSetupTimeline.Stage.values()) {
+                    int index = stage.ordinal();
+                    long[] samples = Arrays.copyOf(mSamples[index], mSampleCounts[index]);
+                    Arrays.sort(samples);
+                    JSONObject stageStats = new JSONObject();
+                    stageStats.put("count", samples.length);
+                    stageStats.put("p50", percentile(samples, 0.5));
+                    stageStats.put("p90", percentile(samples, 0.9));
+                    stageStats.put("p99", percentile(samples, 0.99));
+                    stats.put(stage.jsName, stageStats);
+                }
+            }
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "CallSetupStats.getCallSetupStats: failed to create json");
+        }
+        callbackContext.success(stats);
+        return true;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(sorted.length * percentile) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+}
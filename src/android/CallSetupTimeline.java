@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+/**
+ * Monotonic timestamps of the call setup stages, relative to Call.start or Call.answer.
+ */
+class CallSetupTimeline {
+    enum Stage {
+        RINGING("ringingMs"),
+        ICE("iceMs"),
+        CONNECTED("connectedMs"),
+        AUDIO("audioMs");
+
+        final String jsName;
+
+        Stage(String jsName) {
+            this.jsName = jsName;
+        }
+    }
+
+    private static final long NOT_REACHED = -1;
+
+    private final long[] mStageNanos = new long[Stage.values().length];
+    private volatile long mStartNanos = NOT_REACHED;
+    private volatile boolean mIceTimeout;
+    private volatile boolean mOutgoing;
+
+    CallSetupTimeline() {
+        for (int i = 0; i < mStageNanos.length; i++) {
+            mStageNanos[i] = NOT_REACHED;
+        }
+    }
+
+    void start(boolean outgoing) {
+        mOutgoing = outgoing;
+        mStartNanos = System.nanoTime();
+    }
+
+    synchronized void mark(Stage stage) {
+        if (mStageNanos[stage.ordinal()] == NOT_REACHED) {
+            mStageNanos[stage.ordinal()] = System.nanoTime();
+        }
+    }
+
+    void markIceTimeout() {
+        mIceTimeout = true;
+        mark(Stage.ICE);
+    }
+
+    boolean isStarted() {
+        return mStartNanos != NOT_REACHED;
+    }
+
+    /**
+     * @return delta from the start in milliseconds, or -1 if the stage was not reached
+     */
+    synchronized long getDeltaMs(Stage stage) {
+        long nanos = mStageNanos[stage.ordinal()];
+        if (nanos == NOT_REACHED || mStartNanos == NOT_REACHED) {
+            return NOT_REACHED;
+        }
+        return (nanos - mStartNanos) / 1000000;
+    }
+
+    EventWriter write(EventWriter writer, String name) {
+        if (!isStarted()) {
+            return writer;
+        }
+        writer.beginObject(name)
+                .field("direction", mOutgoing ? "outgoing" : "incoming");
+        for (Stage stage : Stage.values()) {
+            long delta = getDeltaMs(stage);
+            if (delta != NOT_REACHED) {
+                writer.field(stage.jsName, delta);
+            }
+        }
+        if (mIceTimeout) {
+            writer.field("iceTimeout", true);
+        }
+        return writer.endObject();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor for the SDK callbacks.
+ *
+ * The SDK keeps the executor it was given with the first client instance, so the plugin always passes
+ * this process-wide instance and switches the delivery mode behind it. The dedicated thread of the
+ * SHARED mode is created lazily and released when the plugin is destroyed; a page reload keeps it, as the
+ * client and its calls outlive the page.
+ *
+ * The callbacks are never run on the SDK thread itself: the listeners call back into the SDK and take plugin locks.
+ */
+class CallbackExecutor implements Executor {
+    enum Mode {
+        // one dedicated thread shared by all client instances
+        SHARED,
+        // callbacks are posted to the main looper
+        MAIN
+    }
+
+    private static final CallbackExecutor sInstance = new CallbackExecutor();
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private volatile Mode mMode = Mode.SHARED;
+    private ExecutorService mSharedThread;
+
+    private CallbackExecutor() {
+    }
+
+    static CallbackExecutor getInstance() {
+        return sInstance;
+    }
+
+    void setMode(Mode mode) {
+        mMode = mode;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        switch (mMode) {
+            case MAIN:
+                mMainHandler.post(runnable);
+                break;
+            case SHARED:
+            default:
+                // under the lock, so a callback is never submitted to the thread being released
+                synchronized (this) {
+                    getSharedThread().execute(runnable);
+                }
+                break;
+        }
+    }
+
+    synchronized void release() {
+        if (mSharedThread != null) {
+            // already queued callbacks are still delivered
+            mSharedThread.shutdown();
+            mSharedThread = null;
+        }
+    }
+
+    private ExecutorService getSharedThread() {
+        if (mSharedThread == null) {
+            mSharedThread = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "VoximplantCallbacks"));
+        }
+        return mSharedThread;
+    }
+}
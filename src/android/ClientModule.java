@@ -5,83 +5,185 @@
 package com.voximplant.cordova.sdk;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.voximplant.sdk.Voximplant;
-import com.voximplant.sdk.call.CallException;
 import com.voximplant.sdk.call.CallSettings;
 import com.voximplant.sdk.call.ICall;
 import com.voximplant.sdk.call.IEndpoint;
-import com.voximplant.sdk.call.VideoCodec;
-import com.voximplant.sdk.call.VideoFlags;
 import com.voximplant.sdk.client.AuthParams;
 import com.voximplant.sdk.client.ClientConfig;
+import com.voximplant.sdk.client.ClientState;
 import com.voximplant.sdk.client.IClient;
 import com.voximplant.sdk.client.IClientIncomingCallListener;
 import com.voximplant.sdk.client.IClientLoginListener;
 import com.voximplant.sdk.client.IClientSessionListener;
+import com.voximplant.sdk.client.IPushTokenCompletionHandler;
 import com.voximplant.sdk.client.LoginError;
-import com.voximplant.sdk.client.RequestAudioFocusMode;
+import com.voximplant.sdk.client.PushTokenError;
 
 import org.apache.cordova.CallbackContext;
 import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
 import java.util.Map;
-import java.util.concurrent.Executors;
-
-import okhttp3.internal.Util;
+import java.util.concurrent.Executor;
 
 class ClientModule implements IClientSessionListener, IClientLoginListener, IClientIncomingCallListener {
+    private static final String PREFERENCES = "com.voximplant.cordova.sdk.ClientModule";
+    private static final String KEY_CLIENT_CONFIG = "clientConfig";
+    private static final String KEY_CONNECT_OPTIONS = "connectOptions";
+    // a push is only useful while the call is ringing, a later login must not bring up a call that has ended
+    private static final long PUSH_TTL_MS = 30000;
+    // keys of the pending CONNECT operations started natively, a connect from JS has the key null; a connect with
+    // another key is rejected while one is in progress instead of sharing its result
+    private static final String CONNECT_KEY_RECONNECT = "reconnect";
+    private static final String CONNECT_KEY_PUSH = "push";
+
+    private static final ArgumentSchema.Field INIT_DEBUG_LOGGING = ArgumentSchema.Field.optional(0, "enableDebugLogging", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field INIT_LOGCAT_LOGGING = ArgumentSchema.Field.optional(0, "enableLogcatLogging", ArgumentSchema.Type.BOOLEAN, true);
+    private static final ArgumentSchema.Field INIT_AUDIO_FOCUS_MODE = ArgumentSchema.Field.optional(0, "requestAudioFocusMode", ArgumentSchema.Type.STRING, "REQUEST_ON_CALL_START");
+    private static final ArgumentSchema.Field INIT_BUNDLE_ID = ArgumentSchema.Field.optional(0, "bundleId", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field INIT_CALLBACK_EXECUTOR_MODE = ArgumentSchema.Field.optional(0, "callbackExecutorMode", ArgumentSchema.Type.STRING, "SHARED");
+    private static final ArgumentSchema.Field INIT_LAZY_HEADERS = ArgumentSchema.Field.optional(0, "lazyHeaders", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field INIT_TOKEN_MANAGEMENT = ArgumentSchema.Field.optional(0, "tokenManagement", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field CONNECT_CONNECTIVITY_CHECK = ArgumentSchema.Field.optional(0, "connectivityCheck", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field CONNECT_SERVERS = ArgumentSchema.Field.optional(0, "servers", ArgumentSchema.Type.ARRAY);
+    private static final ArgumentSchema.Field CONNECT_AUTO_LOGIN = ArgumentSchema.Field.optional(0, "autoLogin", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field CONNECT_AUTO_RECONNECT = ArgumentSchema.Field.optional(0, "autoReconnect", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field USERNAME = ArgumentSchema.Field.required(0, "username", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field LOGIN_PASSWORD = ArgumentSchema.Field.required(0, "password", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field LOGIN_TOKEN = ArgumentSchema.Field.required(0, "token", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field LOGIN_HASH = ArgumentSchema.Field.required(0, "hash", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field PUSH_TOKEN = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field PUSH_PAYLOAD = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING_MAP);
+    private static final ArgumentSchema.Field CALL_NUMBER = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field PREPARE_CALL_TTL = ArgumentSchema.Field.optional(2, "ttl", ArgumentSchema.Type.INT, PreparedCalls.DEFAULT_TTL_MS);
+    private static final ArgumentSchema.Field PREPARED_CALL_ID = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING);
+
+    private static final ArgumentSchema INIT = new ArgumentSchema("Client.init", INIT_DEBUG_LOGGING, INIT_LOGCAT_LOGGING,
+            INIT_AUDIO_FOCUS_MODE, INIT_BUNDLE_ID, INIT_CALLBACK_EXECUTOR_MODE, INIT_LAZY_HEADERS, INIT_TOKEN_MANAGEMENT);
+    private static final ArgumentSchema CONNECT = new ArgumentSchema("Client.connect", CONNECT_CONNECTIVITY_CHECK, CONNECT_SERVERS,
+            CONNECT_AUTO_LOGIN, CONNECT_AUTO_RECONNECT);
+    private static final ArgumentSchema LOGIN = new ArgumentSchema("Client.login", USERNAME, LOGIN_PASSWORD);
+    private static final ArgumentSchema LOGIN_WITH_TOKEN = new ArgumentSchema("Client.loginWithToken", USERNAME, LOGIN_TOKEN);
+    private static final ArgumentSchema LOGIN_WITH_ONE_TIME_KEY = new ArgumentSchema("Client.loginWithOneTimeKey", USERNAME, LOGIN_HASH);
+    private static final ArgumentSchema REQUEST_ONE_TIME_KEY = new ArgumentSchema("Client.requestOneTimeKey", USERNAME);
+    private static final ArgumentSchema REFRESH_TOKENS = new ArgumentSchema("Client.tokenRefresh", USERNAME, LOGIN_TOKEN);
+    private static final ArgumentSchema REGISTER_PUSH_TOKEN = new ArgumentSchema("Client.registerPushNotificationsToken", PUSH_TOKEN);
+    private static final ArgumentSchema UNREGISTER_PUSH_TOKEN = new ArgumentSchema("Client.unregisterPushNotificationsToken", PUSH_TOKEN);
+    private static final ArgumentSchema HANDLE_PUSH_NOTIFICATION = new ArgumentSchema("Client.handlePushNotification", PUSH_PAYLOAD);
+    private static final ArgumentSchema CALL = new ArgumentSchema("Client.call", CALL_NUMBER,
+            CallModule.CALL_SETTINGS_CUSTOM_DATA, CallModule.CALL_SETTINGS_SEND_VIDEO, CallModule.CALL_SETTINGS_RECEIVE_VIDEO,
+            CallModule.CALL_SETTINGS_EXTRA_HEADERS, CallModule.CALL_SETTINGS_VIDEO_CODEC);
+    private static final ArgumentSchema PREPARE_CALL = new ArgumentSchema("Client.prepareCall", CALL_NUMBER,
+            CallModule.CALL_SETTINGS_CUSTOM_DATA, CallModule.CALL_SETTINGS_SEND_VIDEO, CallModule.CALL_SETTINGS_RECEIVE_VIDEO,
+            CallModule.CALL_SETTINGS_EXTRA_HEADERS, CallModule.CALL_SETTINGS_VIDEO_CODEC, PREPARE_CALL_TTL);
+    private static final ArgumentSchema START_PREPARED_CALL = new ArgumentSchema("Client.startPreparedCall", PREPARED_CALL_ID);
+
     private final CallManager mCallManager;
     private final CordovaWebView mWebView;
 
-    private IClient mClient;
-    private CallbackContext mConnectCallbackContext;
-    private CallbackContext mLoginCallbackContext;
-    private CallbackContext mRefreshTokenCallback;
-    private CallbackContext mDisconnectCallback;
+    private final PendingOperations mPendingOperations;
+    private final TokenManager mTokenManager;
+    private final ReconnectSupervisor mReconnectSupervisor;
+    private final PreparedCalls mPreparedCalls;
 
-    ClientModule(CallManager callManager, CordovaWebView webView) {
+    private IClient mClient;
+    private Context mContext;
+    // parameters of the last connect, reused to reconnect
+    private volatile boolean mConnectivityCheck;
+    private volatile ArrayList<String> mServers = new ArrayList<>();
+    private volatile boolean mAutoReconnect;
+    // pushes wait for the login to be passed to the SDK
+    private final ArrayDeque<PendingPush> mPendingPushes = new ArrayDeque<>();
+    // the user of the login or token refresh in progress, the SDK does not report it with the tokens
+    private volatile String mLoginUsername;
+    private volatile String mRefreshUsername;
+    private volatile boolean mAutoLogin;
+
+    /**
+     * @param clientExecutor runs the client actions, used for the work started natively
+     */
+    ClientModule(CallManager callManager, CordovaWebView webView, Context context, Executor clientExecutor) {
         mCallManager = callManager;
         mWebView = webView;
+        mContext = context.getApplicationContext();
+        mPendingOperations = new PendingOperations(callManager.getTimerWheel());
+        mPreparedCalls = new PreparedCalls(callManager.getTimerWheel());
+        mTokenManager = new TokenManager(callManager.getCallScheduler(), this::refreshTokens);
+        mReconnectSupervisor = new ReconnectSupervisor(callManager, clientExecutor, new ReconnectSupervisor.Client() {
+            @Override
+            public void reconnect() {
+                ClientModule.this.reconnect();
+            }
+
+            @Override
+            public void dropConnection() {
+                mClient.disconnect();
+            }
+        });
     }
 
     boolean createClient(JSONArray args, CallbackContext callbackContext, Context context) {
-        String bundleId = null;
-        boolean enableDebugLogging = false;
-        boolean enableLogcatLogging = true;
-        RequestAudioFocusMode requestAudioFocusMode = RequestAudioFocusMode.REQUEST_ON_CALL_START;
-
-        if (args.length() > 0) {
-            try {
-                JSONObject config = args.getJSONObject(0);
-                enableDebugLogging = config.getBoolean("enableDebugLogging");
-                enableLogcatLogging = config.getBoolean("enableLogcatLogging");
-                requestAudioFocusMode = VoximplantUtils.convertStringToRequestAudioFocusMode(config.getString("requestAudioFocusMode"));
-                bundleId = config.getString("bundleId");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.init: failed to parse json, " + e.getMessage());
-            }
+        ArgumentSchema.Arguments arguments = INIT.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
         }
+        createClient(arguments, context);
+        // kept to create the client when a push arrives before JS is loaded
+        JSONObject config = args.optJSONObject(0);
+        getPreferences().edit().putString(KEY_CLIENT_CONFIG, config != null ? config.toString() : "{}").apply();
+        callbackContext.success();
+        return true;
+    }
+
+    private void createClient(ArgumentSchema.Arguments arguments, Context context) {
+        mCallManager.setLazyHeaders(arguments.getBoolean(INIT_LAZY_HEADERS));
+        String bundleId = arguments.getString(INIT_BUNDLE_ID);
 
         ClientConfig clientConfig = new ClientConfig();
-        clientConfig.enableDebugLogging = enableDebugLogging;
-        clientConfig.enableLogcatLogging = enableLogcatLogging;
-        clientConfig.requestAudioFocusMode = requestAudioFocusMode;
+        clientConfig.enableDebugLogging = arguments.getBoolean(INIT_DEBUG_LOGGING);
+        clientConfig.enableLogcatLogging = arguments.getBoolean(INIT_LOGCAT_LOGGING);
+        clientConfig.requestAudioFocusMode = VoximplantUtils.convertStringToRequestAudioFocusMode(
+                arguments.getString(INIT_AUDIO_FOCUS_MODE));
         if (bundleId != null && !bundleId.isEmpty()) {
             clientConfig.packageName = bundleId;
         }
-        mClient = Voximplant.getClientInstance(Executors.newSingleThreadExecutor(), context, clientConfig);
+        clientConfig.eglBase = VideoViewManager.getEglBase();
+        CallbackExecutor callbackExecutor = CallbackExecutor.getInstance();
+        callbackExecutor.setMode(VoximplantUtils.convertStringToCallbackExecutorMode(
+                arguments.getString(INIT_CALLBACK_EXECUTOR_MODE)));
+        mClient = Voximplant.getClientInstance(callbackExecutor, context, clientConfig);
         mClient.setClientSessionListener(this);
         mClient.setClientLoginListener(this);
         mClient.setClientIncomingCallListener(this);
-        callbackContext.success();
-        return true;
+        mTokenManager.setEnabled(context, arguments.getBoolean(INIT_TOKEN_MANAGEMENT));
+    }
+
+    /**
+     * Drops the state bound to the page, called when the WebView is reloaded. The client stays connected, so
+     * the token refresh and the reconnect supervision go on.
+     */
+    void reset() {
+        mPendingOperations.clear();
+        mPreparedCalls.clear();
+    }
+
+    void release() {
+        reset();
+        dropPendingPushes("plugin destroyed");
+        mTokenManager.release();
+        mReconnectSupervisor.release();
+        CallbackExecutor.getInstance().release();
     }
 
     boolean getClientState(CallbackContext callbackContext) {
@@ -90,284 +192,590 @@ class ClientModule implements IClientSessionListener, IClientLoginListener, ICli
     }
 
     boolean connect(JSONArray args, CallbackContext callbackContext) {
-        boolean connectivityCheck = false;
+        return connect(args, callbackContext, null);
+    }
+
+    /**
+     * @param key the pending operation key, null for a connect from JS
+     */
+    private boolean connect(JSONArray args, CallbackContext callbackContext, String key) {
+        ArgumentSchema.Arguments arguments = CONNECT.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
         ArrayList<String> servers = new ArrayList<>();
-        if (args.length() > 0) {
-            try {
-                JSONObject options = args.getJSONObject(0);
-                connectivityCheck = options.getBoolean("connectivityCheck");
-                JSONArray serversJson = options.getJSONArray("servers");
-                for (int i = 0; i < serversJson.length(); i++) {
-                    servers.add(serversJson.getString(i));
+        JSONArray serversJson = arguments.getJSONArray(CONNECT_SERVERS);
+        if (serversJson != null) {
+            for (int i = 0; i < serversJson.length(); i++) {
+                String server = serversJson.optString(i, null);
+                if (server != null) {
+                    servers.add(server);
                 }
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.connect: failed to parse json");
             }
         }
 
+        long requestId = mPendingOperations.begin(PendingOperations.Kind.CONNECT, key, callbackContext);
+        if (requestId == 0) {
+            return true;
+        }
+        // an explicit connect takes over from the reconnect supervision, it is rejected during a reconnect attempt
+        mReconnectSupervisor.stop();
+        mAutoReconnect = arguments.getBoolean(CONNECT_AUTO_RECONNECT);
+        mAutoLogin = arguments.getBoolean(CONNECT_AUTO_LOGIN);
+        mConnectivityCheck = arguments.getBoolean(CONNECT_CONNECTIVITY_CHECK);
+        mServers = servers;
+        if (key == null) {
+            JSONObject options = args.optJSONObject(0);
+            getPreferences().edit().putString(KEY_CONNECT_OPTIONS, options != null ? options.toString() : "{}").apply();
+        }
         try {
-            mClient.connect(connectivityCheck, servers);
-            mConnectCallbackContext = callbackContext;
+            mClient.connect(mConnectivityCheck, servers);
         } catch (IllegalStateException e) {
-            callbackContext.error("Invalid state");
+            mPendingOperations.fail(requestId, "Invalid state");
         }
         return true;
     }
 
     boolean login(JSONArray args, CallbackContext callbackContext) {
-        String username = null;
-        String password = null;
-        if (args.length() > 0) {
-            try {
-                JSONObject params = args.getJSONObject(0);
-                username = params.getString("username");
-                password = params.getString("password");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.login: failed to parse json");
-            }
+        ArgumentSchema.Arguments arguments = LOGIN.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        if (mPendingOperations.begin(PendingOperations.Kind.LOGIN, PendingOperations.credentialsKey("password",
+                arguments.getString(USERNAME), arguments.getString(LOGIN_PASSWORD)), callbackContext) != 0) {
+            mLoginUsername = arguments.getString(USERNAME);
+            mClient.login(arguments.getString(USERNAME), arguments.getString(LOGIN_PASSWORD));
         }
-        mClient.login(username, password);
-        mLoginCallbackContext = callbackContext;
         return true;
     }
 
     boolean loginWithToken(JSONArray args, CallbackContext callbackContext) {
-        String username = null;
-        String token = null;
-        if (args.length() > 0) {
-            try {
-                JSONObject params = args.getJSONObject(0);
-                username = params.getString("username");
-                token = params.getString("token");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.loginWithToken: failed to parse json");
-            }
+        ArgumentSchema.Arguments arguments = LOGIN_WITH_TOKEN.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        if (mPendingOperations.begin(PendingOperations.Kind.LOGIN, PendingOperations.credentialsKey("token",
+                arguments.getString(USERNAME), arguments.getString(LOGIN_TOKEN)), callbackContext) != 0) {
+            mLoginUsername = arguments.getString(USERNAME);
+            mClient.loginWithAccessToken(arguments.getString(USERNAME), arguments.getString(LOGIN_TOKEN));
         }
-        mClient.loginWithAccessToken(username, token);
-        mLoginCallbackContext = callbackContext;
         return true;
     }
 
     boolean loginWithOneTimeKey(JSONArray args, CallbackContext callbackContext) {
-        String username = null;
-        String hash = null;
-        if (args.length() > 0) {
-            try {
-                JSONObject params = args.getJSONObject(0);
-                username = params.getString("username");
-                hash = params.getString("hash");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.loginWithOneTimeKey: failed to parse json");
-            }
+        ArgumentSchema.Arguments arguments = LOGIN_WITH_ONE_TIME_KEY.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        if (mPendingOperations.begin(PendingOperations.Kind.LOGIN, PendingOperations.credentialsKey("oneTimeKey",
+                arguments.getString(USERNAME), arguments.getString(LOGIN_HASH)), callbackContext) != 0) {
+            mLoginUsername = arguments.getString(USERNAME);
+            mClient.loginWithOneTimeKey(arguments.getString(USERNAME), arguments.getString(LOGIN_HASH));
         }
-        mClient.loginWithOneTimeKey(username, hash);
-        mLoginCallbackContext = callbackContext;
         return true;
     }
 
     boolean requestOneTimeKey(JSONArray args, CallbackContext callbackContext) {
-        String username = null;
-        if (args.length() > 0) {
-            try {
-                JSONObject params = args.getJSONObject(0);
-                username = params.getString("username");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.requestOneTimeKey: failed to parse json");
-            }
+        ArgumentSchema.Arguments arguments = REQUEST_ONE_TIME_KEY.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        String username = arguments.getString(USERNAME);
+        if (mPendingOperations.begin(PendingOperations.Kind.ONE_TIME_KEY, username, callbackContext) != 0) {
+            mClient.requestOneTimeKey(username);
         }
-        mClient.requestOneTimeKey(username);
-        mLoginCallbackContext = callbackContext;
         return true;
     }
 
     boolean refreshTokens(JSONArray args, CallbackContext callbackContext) {
-        String username = null;
-        String refreshToken = null;
-        if (args.length() > 0) {
-            try {
-                JSONObject params = args.getJSONObject(0);
-                username = params.getString("username");
-                refreshToken = params.getString("token");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.tokenRefresh: failed to parse json");
+        ArgumentSchema.Arguments arguments = REFRESH_TOKENS.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        String username = arguments.getString(USERNAME);
+        String token = arguments.getString(LOGIN_TOKEN);
+        if (mPendingOperations.begin(PendingOperations.Kind.REFRESH_TOKEN,
+                PendingOperations.credentialsKey("refresh", username, token), callbackContext) != 0) {
+            mRefreshUsername = username;
+            mClient.refreshToken(username, token);
+        }
+        return true;
+    }
+
+    boolean clearTokens(CallbackContext callbackContext) {
+        mTokenManager.clear();
+        callbackContext.success();
+        return true;
+    }
+
+    /**
+     * Refreshes the stored tokens when they are due, see {@link TokenManager}.
+     */
+    private boolean refreshTokens(String username, String refreshToken) {
+        if (mClient == null || mClient.getClientState() != ClientState.LOGGED_IN) {
+            return false;
+        }
+        if (mPendingOperations.begin(PendingOperations.Kind.REFRESH_TOKEN,
+                PendingOperations.credentialsKey("refresh", username, refreshToken),
+                new EventCallbackContext(EventType.REFRESH_TOKEN_RESULT, null)) != 0) {
+            mRefreshUsername = username;
+            mClient.refreshToken(username, refreshToken);
+        }
+        return true;
+    }
+
+    /**
+     * Logs in with the stored access token right after connect, refreshing it first if it has expired.
+     * The result is reported with the AuthResult event.
+     *
+     * @param listener gets the login result, may be null
+     * @return false if there are no usable tokens
+     */
+    private boolean autoLogin(ResultListener listener) {
+        TokenManager.Tokens tokens = mTokenManager.getTokens();
+        if (tokens == null) {
+            return false;
+        }
+        if (tokens.isAccessTokenValid()) {
+            if (mPendingOperations.begin(PendingOperations.Kind.LOGIN, 
+                    PendingOperations.credentialsKey("token", tokens.username, tokens.accessToken),
+                    new EventCallbackContext(EventType.AUTH_RESULT, listener)) != 0) {
+                mLoginUsername = tokens.username;
+                mClient.loginWithAccessToken(tokens.username, tokens.accessToken);
+            }
+            return true;
+        }
+        if (tokens.isRefreshTokenValid()) {
+            if (mPendingOperations.begin(PendingOperations.Kind.REFRESH_TOKEN,
+                    PendingOperations.credentialsKey("refresh", tokens.username, tokens.refreshToken),
+                    new EventCallbackContext(EventType.REFRESH_TOKEN_RESULT, success -> {
+                        if ((!success || !autoLogin(listener)) && listener != null) {
+                            listener.onResult(false);
+                        }
+                    })) != 0) {
+                mRefreshUsername = tokens.username;
+                mClient.refreshToken(tokens.username, tokens.refreshToken);
             }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Connects with the parameters of the last connect and logs in with the stored tokens,
+     * see {@link ReconnectSupervisor}.
+     */
+    private void reconnect() {
+        long requestId = mPendingOperations.begin(PendingOperations.Kind.CONNECT, CONNECT_KEY_RECONNECT,
+                new EventCallbackContext(null, connected -> {
+                    if (!connected) {
+                        mReconnectSupervisor.onAttemptFinished(false, false);
+                    } else if (!autoLogin(loggedIn -> mReconnectSupervisor.onAttemptFinished(true, loggedIn))) {
+                        mReconnectSupervisor.onAttemptFinished(true, false);
+                    }
+                }));
+        if (requestId == 0) {
+            return;
+        }
+        try {
+            mClient.connect(mConnectivityCheck, mServers);
+        } catch (IllegalStateException e) {
+            mPendingOperations.fail(requestId, "Invalid state");
+        }
+    }
+
+    boolean registerPushNotificationsToken(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = REGISTER_PUSH_TOKEN.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
         }
-        mClient.refreshToken(username, refreshToken);
-        mRefreshTokenCallback = callbackContext;
+        mClient.registerForPushNotifications(arguments.getString(PUSH_TOKEN), createPushTokenHandler(callbackContext));
         return true;
     }
 
-    boolean disconnect(CallbackContext callbackContext) {
-        mDisconnectCallback = callbackContext;
-        mClient.disconnect();
+    boolean unregisterPushNotificationsToken(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = UNREGISTER_PUSH_TOKEN.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        mClient.unregisterFromPushNotifications(arguments.getString(PUSH_TOKEN), createPushTokenHandler(callbackContext));
         return true;
     }
 
-    boolean call(JSONArray args, CallbackContext callbackContext) {
-        String number = null;
-        if (args.length() > 0) {
-            try {
-                number = args.getString(0);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.call: failed to parse json - number parameter");
+    boolean handlePushNotification(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = HANDLE_PUSH_NOTIFICATION.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        handlePushNotification(arguments.getStringMap(PUSH_PAYLOAD), SystemClock.elapsedRealtime());
+        callbackContext.success();
+        return true;
+    }
+
+    /**
+     * Passes the push to the SDK once the client is logged in. If the client is not created or connected yet,
+     * it is created with the last config used by JS, connected and logged in with the stored tokens right away,
+     * so the incoming call arrives while the page is still loading and waits in the event channel.
+     *
+     * The connect is made even if JS has not connected in this session: it uses the options of the last connect
+     * from JS with autoLogin set, and its result is only logged. A Client.connect from JS made while it is in
+     * progress is rejected, see CONNECT_KEY_PUSH.
+     *
+     * A push that is not passed within PUSH_TTL_MS of its arrival, or when the login fails, is dropped.
+     *
+     * @param receivedAt {@link SystemClock#elapsedRealtime()} when the app received the push
+     */
+    void handlePushNotification(Map<String, String> payload, long receivedAt) {
+        long ttl = PUSH_TTL_MS - (SystemClock.elapsedRealtime() - receivedAt);
+        if (ttl <= 0) {
+            Log.i("VOXCRD", "Client: push is dropped: it was received " + (PUSH_TTL_MS - ttl) + " ms ago");
+            return;
+        }
+        PendingPush push = new PendingPush(payload);
+        synchronized (mPendingPushes) {
+            mPendingPushes.addLast(push);
+            push.expiry = mCallManager.getTimerWheel().schedule(() -> expirePush(push), ttl);
+        }
+        if (mClient == null) {
+            String config = getPreferences().getString(KEY_CLIENT_CONFIG, null);
+            ArgumentSchema.Arguments arguments = config != null ? INIT.decode(toArgs(config)) : null;
+            if (arguments == null || !arguments.isValid()) {
+                Log.i("VOXCRD", "Client.handlePushNotification: the client is not initialized yet");
+                return;
+            }
+            createClient(arguments, mContext);
+        }
+        switch (mClient.getClientState()) {
+            case LOGGED_IN:
+                handlePendingPushes();
+                break;
+            case DISCONNECTED:
+                JSONArray args = toArgs(getPreferences().getString(KEY_CONNECT_OPTIONS, "{}"));
+                try {
+                    args.getJSONObject(0).put("autoLogin", true);
+                } catch (JSONException e) {
+                    Log.e("VOXCRD", "Client.handlePushNotification: failed to create json");
+                }
+                connect(args, new EventCallbackContext(null, null), CONNECT_KEY_PUSH);
+                break;
+            case CONNECTED:
+                // log in with the stored tokens unless JS is logging in already; otherwise the push waits for JS
+                if (!mPendingOperations.isPending(PendingOperations.Kind.LOGIN)) {
+                    autoLogin(null);
+                }
+                break;
+            default:
+                // the pushes are passed on login
+                break;
+        }
+    }
+
+    private void handlePendingPushes() {
+        while (true) {
+            PendingPush push;
+            synchronized (mPendingPushes) {
+                push = mPendingPushes.pollFirst();
+            }
+            if (push == null) {
+                return;
             }
+            mCallManager.getTimerWheel().cancel(push.expiry);
+            mClient.handlePushNotification(push.payload);
         }
-        String customData = null;
-        Map<String, String> headers = null;
-        boolean sendVideo = false;
-        boolean receiveVideo = false;
-        String videoCodec = "AUTO";
-        if (args.length() > 1) {
-            try {
-                JSONObject params = args.getJSONObject(1);
-                customData = params.getString("customData");
-                sendVideo = params.getJSONObject("video").getBoolean("sendVideo");
-                receiveVideo = params.getJSONObject("video").getBoolean("receiveVideo");
-                JSONObject object = params.getJSONObject("extraHeaders");
-                headers = VoximplantUtils.convertJSONObjectToMap(object);
-                videoCodec = params.getString("preferredVideoCodec");
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.call: failed to parse json - call settings");
+    }
+
+    private void dropPendingPushes(String reason) {
+        int dropped;
+        synchronized (mPendingPushes) {
+            dropped = mPendingPushes.size();
+            for (PendingPush push : mPendingPushes) {
+                mCallManager.getTimerWheel().cancel(push.expiry);
             }
+            mPendingPushes.clear();
+        }
+        if (dropped > 0) {
+            Log.i("VOXCRD", "Client: " + dropped + " pending pushes are dropped: " + reason);
         }
+    }
 
-        CallSettings callSettings = new CallSettings();
-        callSettings.customData = customData;
-        callSettings.extraHeaders = headers;
-        callSettings.videoFlags = new VideoFlags(receiveVideo, sendVideo);
-        callSettings.preferredVideoCodec = VoximplantUtils.convertStringToVideoCodec(videoCodec);
-        ICall call = mClient.call(number, callSettings);
+    private void expirePush(PendingPush push) {
+        boolean removed;
+        synchronized (mPendingPushes) {
+            removed = mPendingPushes.remove(push);
+        }
+        if (removed) {
+            Log.i("VOXCRD", "Client: pending push is dropped: the client has not logged in in time");
+        }
+    }
+
+    private IPushTokenCompletionHandler createPushTokenHandler(CallbackContext callbackContext) {
+        return new IPushTokenCompletionHandler() {
+            @Override
+            public void onSuccess() {
+                callbackContext.success();
+            }
+
+            @Override
+            public void onFailure(PushTokenError error) {
+                callbackContext.error(error.name());
+            }
+        };
+    }
+
+    private SharedPreferences getPreferences() {
+        return mContext.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+
+    private static JSONArray toArgs(String json) {
+        JSONArray args = new JSONArray();
+        try {
+            args.put(new JSONObject(json));
+        } catch (JSONException e) {
+            args.put(new JSONObject());
+        }
+        return args;
+    }
+
+    boolean disconnect(CallbackContext callbackContext) {
+        mReconnectSupervisor.stop();
+        if (mPendingOperations.begin(PendingOperations.Kind.DISCONNECT, null, callbackContext) != 0) {
+            mClient.disconnect();
+        }
+        return true;
+    }
+
+    boolean call(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = CALL.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        CallSettings callSettings = CallModule.createCallSettings(arguments);
+        ICall call = mClient.call(arguments.getString(CALL_NUMBER), callSettings);
+        CallModule callModule = new CallModule(call, mCallManager);
+        return callModule.startCall(callbackContext);
+    }
+
+    /**
+     * Creates an outgoing call without starting it and returns its call id to pass to startPreparedCall.
+     */
+    boolean prepareCall(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = PREPARE_CALL.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        int ttl = arguments.getInt(PREPARE_CALL_TTL);
+        if (ttl <= 0 || ttl > PreparedCalls.MAX_TTL_MS) {
+            callbackContext.error("Invalid ttl: " + ttl);
+            return true;
+        }
+        CallSettings callSettings = CallModule.createCallSettings(arguments);
+        ICall call = mClient.call(arguments.getString(CALL_NUMBER), callSettings);
+        if (call == null) {
+            callbackContext.error("Invalid state");
+            return true;
+        }
         CallModule callModule = new CallModule(call, mCallManager);
+        if (!mPreparedCalls.add(call.getCallId(), callModule, ttl)) {
+            callModule.discard();
+            callbackContext.error("Too many prepared calls");
+            return true;
+        }
+        callbackContext.success(call.getCallId());
+        return true;
+    }
+
+    boolean startPreparedCall(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = START_PREPARED_CALL.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        String callId = arguments.getString(PREPARED_CALL_ID);
+        CallModule callModule = mPreparedCalls.remove(callId);
+        if (callModule == null) {
+            callbackContext.error("Failed to find prepared call: " + callId);
+            return true;
+        }
         return callModule.startCall(callbackContext);
     }
 
     @Override
     public void onConnectionEstablished() {
-        if (mConnectCallbackContext != null) {
-            mConnectCallbackContext.success();
-            mConnectCallbackContext = null;
+        JSONObject params = new JSONObject();
+        try {
+            params.put("autoLogin", mAutoLogin && autoLogin(null));
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "Client.onConnectionEstablished: failed to create json");
+        }
+        mAutoLogin = false;
+        if (mAutoReconnect && !mReconnectSupervisor.isReconnecting()) {
+            mReconnectSupervisor.start(mContext);
         }
+        mPendingOperations.succeed(PendingOperations.Kind.CONNECT, params);
     }
 
     @Override
     public void onConnectionFailed(String error) {
-        if (mConnectCallbackContext != null) {
-            mConnectCallbackContext.error(error);
-            mConnectCallbackContext = null;
-        }
+        mPendingOperations.fail(PendingOperations.Kind.CONNECT, error);
+        mReconnectSupervisor.onConnectionLost("connectionFailed");
     }
 
     @Override
     public void onConnectionClosed() {
-        if (mDisconnectCallback != null) {
-            mDisconnectCallback.success();
-            mDisconnectCallback = null;
-        }
+        mPendingOperations.succeed(PendingOperations.Kind.DISCONNECT, null);
+        // the SDK does not report the requests that were in progress on the closed connection
+        mPendingOperations.failAll(new PendingOperations.Kind[] {PendingOperations.Kind.CONNECT,
+                PendingOperations.Kind.LOGIN, PendingOperations.Kind.ONE_TIME_KEY, PendingOperations.Kind.REFRESH_TOKEN},
+                PendingOperations.CODE_CONNECTION_CLOSED, "Connection closed");
+        mReconnectSupervisor.onConnectionLost("connectionClosed");
     }
 
     @Override
     public void onLoginSuccessful(String displayName, AuthParams authParams) {
-        if (mLoginCallbackContext != null) {
-            JSONObject params = new JSONObject();
-            try {
-                params.put("displayName", displayName);
-                JSONObject tokens = new JSONObject();
-                tokens.put("accessToken", authParams.getAccessToken());
-                tokens.put("accessExpire", authParams.getAccessTokenTimeExpired());
-                tokens.put("refreshToken", authParams.getRefreshToken());
-                tokens.put("refreshExpire", authParams.getRefreshTokenTimeExpired());
-                params.put("tokens", tokens);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.onLoginSuccessful: failed to create json");
-            }
-            mLoginCallbackContext.success(params);
-            mLoginCallbackContext = null;
+        JSONObject params = new JSONObject();
+        try {
+            params.put("displayName", displayName);
+            params.put("tokens", convertAuthParamsToJSONObject(authParams));
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "Client.onLoginSuccessful: failed to create json");
         }
+        mTokenManager.onTokensIssued(mLoginUsername, authParams);
+        mPendingOperations.succeed(PendingOperations.Kind.LOGIN, params);
+        handlePendingPushes();
     }
 
     @Override
     public void onLoginFailed(LoginError loginError) {
-        if (mLoginCallbackContext != null) {
-            JSONObject params = new JSONObject();
-            try {
-                params.put("code", VoximplantUtils.convertLoginErrorToInt(loginError));
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.onLoginSuccessful: failed to create json");
-            }
-            mLoginCallbackContext.error(params);
-            mLoginCallbackContext = null;
+        JSONObject params = new JSONObject();
+        try {
+            params.put("code", VoximplantUtils.convertLoginErrorToInt(loginError));
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "Client.onLoginFailed: failed to create json");
         }
+        // login and one time key requests never overlap, so the failure belongs to the pending one
+        mPendingOperations.fail(PendingOperations.Kind.LOGIN, params);
+        mPendingOperations.fail(PendingOperations.Kind.ONE_TIME_KEY, params);
+        dropPendingPushes("login failed");
     }
 
     @Override
     public void onRefreshTokenFailed(LoginError loginError) {
-        if (mRefreshTokenCallback != null) {
-            JSONObject params = new JSONObject();
-            try {
-                params.put("code", VoximplantUtils.convertLoginErrorToInt(loginError));
-            } catch (JSONException e) {
-                Log.e("VXOCRD", "Client.onRefreshTokenFailed: failed to create json");
-            }
-            mRefreshTokenCallback.error(params);
-            mRefreshTokenCallback = null;
+        JSONObject params = new JSONObject();
+        try {
+            params.put("code", VoximplantUtils.convertLoginErrorToInt(loginError));
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "Client.onRefreshTokenFailed: failed to create json");
         }
+        mTokenManager.onRefreshFailed(VoximplantUtils.convertLoginErrorToInt(loginError));
+        mPendingOperations.fail(PendingOperations.Kind.REFRESH_TOKEN, params);
     }
 
     @Override
     public void onRefreshTokenSuccess(AuthParams authParams) {
-        if (mRefreshTokenCallback != null) {
-            JSONObject params = new JSONObject();
-            try {
-                JSONObject tokens = new JSONObject();
-                tokens.put("accessToken", authParams.getAccessToken());
-                tokens.put("accessExpire", authParams.getAccessTokenTimeExpired());
-                tokens.put("refreshToken", authParams.getRefreshToken());
-                tokens.put("refreshExpire", authParams.getRefreshTokenTimeExpired());
-                params.put("tokens", tokens);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.onRefreshTokenSuccess: failed to create json");
-            }
-            mRefreshTokenCallback.success(params);
-            mRefreshTokenCallback = null;
+        JSONObject params = new JSONObject();
+        try {
+            params.put("tokens", convertAuthParamsToJSONObject(authParams));
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "Client.onRefreshTokenSuccess: failed to create json");
         }
+        mTokenManager.onTokensIssued(mRefreshUsername, authParams);
+        mPendingOperations.succeed(PendingOperations.Kind.REFRESH_TOKEN, params);
     }
 
     @Override
     public void onOneTimeKeyGenerated(String key) {
-        if (mLoginCallbackContext != null) {
-            JSONObject params = new JSONObject();
-            try {
-                params.put("result", false);
-                params.put("code", 302);
-                params.put("key", key);
-            } catch (JSONException e) {
-                Log.e("VOXCRD", "Client.onOneTimeKeyGenerated: failed to create json");
-            }
-            mLoginCallbackContext.success(params);
-            mLoginCallbackContext = null;
+        JSONObject params = new JSONObject();
+        try {
+            params.put("result", false);
+            params.put("code", 302);
+            params.put("key", key);
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "Client.onOneTimeKeyGenerated: failed to create json");
         }
+        mPendingOperations.succeed(PendingOperations.Kind.ONE_TIME_KEY, params);
     }
 
     @Override
     public void onIncomingCall(ICall call, boolean hasIncomingVideo, Map<String, String> headers) {
         CallModule callModule = new CallModule(call, mCallManager);
         mCallManager.addNewCall(call.getCallId(), callModule);
-        JSONObject params = new JSONObject();
-        try {
-            params.put("callId", call.getCallId());
-            IEndpoint endpoint = call.getEndpoints().get(0);
-            if (endpoint != null) {
-                params.put("endpointId", endpoint.getEndpointId());
-                params.put("displayName", endpoint.getUserDisplayName());
-                params.put("sipUri", endpoint.getSipUri());
-                params.put("userName", endpoint.getUserName());
+        EventWriter writer = EventWriter.begin(EventType.INCOMING_CALL)
+                .field("callId", call.getCallId());
+        IEndpoint endpoint = call.getEndpoints().get(0);
+        if (endpoint != null) {
+            writer.field("endpointId", endpoint.getEndpointId())
+                    .field("displayName", endpoint.getUserDisplayName())
+                    .field("sipUri", endpoint.getSipUri())
+                    .field("userName", endpoint.getUserName());
+        }
+        writer.field("video", hasIncomingVideo);
+        mCallManager.sendEventToJS(mCallManager.writeHeaders(writer, call.getCallId(), headers), call.getCallId());
+    }
+
+    private static JSONObject convertAuthParamsToJSONObject(AuthParams authParams) throws JSONException {
+        JSONObject tokens = new JSONObject();
+        tokens.put("accessToken", authParams.getAccessToken());
+        tokens.put("accessExpire", authParams.getAccessTokenTimeExpired());
+        tokens.put("refreshToken", authParams.getRefreshToken());
+        tokens.put("refreshExpire", authParams.getRefreshTokenTimeExpired());
+        return tokens;
+    }
+
+    private static final class PendingPush {
+        final Map<String, String> payload;
+        TimerWheel.Timeout expiry;
+
+        PendingPush(Map<String, String> payload) {
+            this.payload = payload;
+        }
+    }
+
+    private interface ResultListener {
+        void onResult(boolean success);
+    }
+
+    /**
+     * Receives the result of an operation started natively and reports it to JS with a client event.
+     */
+    private class EventCallbackContext extends CallbackContext {
+        private final EventType mEventType;
+        private final ResultListener mListener;
+
+        /**
+         * @param eventType the event to report the result with, or null to not report it
+         * @param listener  gets the result after it is reported, may be null
+         */
+        EventCallbackContext(EventType eventType, ResultListener listener) {
+            super("VoximplantClient#" + (eventType != null ? eventType.jsName : "internal"), mWebView);
+            mEventType = eventType;
+            mListener = listener;
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            if (pluginResult.getStatus() == PluginResult.Status.NO_RESULT.ordinal()) {
+                return;
+            }
+            boolean success = pluginResult.getStatus() == PluginResult.Status.OK.ordinal();
+            if (mEventType != null) {
+                mCallManager.sendEventToJS(EventWriter.begin(mEventType)
+                        .field("result", success)
+                        .json("data", pluginResult.getMessage()));
+            }
+            if (mListener != null) {
+                mListener.onResult(success);
             }
-            params.put("video", hasIncomingVideo);
-            params.put("headers", VoximplantUtils.convertMapToJSONObject(headers));
-        } catch (JSONException e) {
-            Log.e("VOXCRD", "Client.onIncomingCall: failed to create json");
         }
-        String event = "javascript:window.Voximplant.Client.prototype._onEvent('IncomingCall'," + params + ")";
-        mCallManager.sendEventToJS(event);
     }
 }
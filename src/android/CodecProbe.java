@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Log;
+
+import com.voximplant.sdk.call.VideoCodec;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Finds out which video codecs have hardware encoders and decoders on the device.
+ *
+ * MediaCodecList is queried once per OS build: the result is stored in SharedPreferences together with
+ * Build.FINGERPRINT and is probed again only after a system update.
+ */
+class CodecProbe {
+    private static final String PREFERENCES = "com.voximplant.cordova.sdk.CodecProbe";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_CAPABILITIES = "capabilities";
+
+    private static final String MIME_H264 = "video/avc";
+    private static final String MIME_VP8 = "video/x-vnd.on2.vp8";
+
+    private static final long H264_HW_ENCODER = 1;
+    private static final long H264_HW_DECODER = 1 << 1;
+    private static final long VP8_HW_ENCODER = 1 << 2;
+    private static final long VP8_HW_DECODER = 1 << 3;
+    private static final long PROBED = 1 << 4;
+
+    private static CodecProbe sInstance;
+
+    private Context mContext;
+    private long mCapabilities;
+
+    static synchronized CodecProbe getInstance() {
+        if (sInstance == null) {
+            sInstance = new CodecProbe();
+        }
+        return sInstance;
+    }
+
+    synchronized void init(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * @return the codec with hardware support on both sides, preferring H264, or AUTO if there is none
+     */
+    VideoCodec getOptimalCodec() {
+        long capabilities = getCapabilities();
+        if (has(capabilities, H264_HW_ENCODER | H264_HW_DECODER)) {
+            return VideoCodec.H264;
+        }
+        if (has(capabilities, VP8_HW_ENCODER | VP8_HW_DECODER)) {
+            return VideoCodec.VP8;
+        }
+        // encoding costs more than decoding, so prefer the codec that can be encoded in hardware
+        if (has(capabilities, H264_HW_ENCODER)) {
+            return VideoCodec.H264;
+        }
+        if (has(capabilities, VP8_HW_ENCODER)) {
+            return VideoCodec.VP8;
+        }
+        return VideoCodec.AUTO;
+    }
+
+    boolean getVideoCodecCapabilities(CallbackContext callbackContext) {
+        long capabilities = getCapabilities();
+        JSONObject result = new JSONObject();
+        try {
+            JSONObject h264 = new JSONObject();
+            h264.put("hardwareEncoder", has(capabilities, H264_HW_ENCODER));
+            h264.put("hardwareDecoder", has(capabilities, H264_HW_DECODER));
+            result.put("H264", h264);
+            JSONObject vp8 = new JSONObject();
+            vp8.put("hardwareEncoder", has(capabilities, VP8_HW_ENCODER));
+            vp8.put("hardwareDecoder", has(capabilities, VP8_HW_DECODER));
+            result.put("VP8", vp8);
+            result.put("optimal", getOptimalCodec().name());
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "CodecProbe.getVideoCodecCapabilities: failed to create json");
+        }
+        callbackContext.success(result);
+        return true;
+    }
+
+    /**
+     * Loads the cached capabilities or probes the codecs. Called at startup off the main thread,
+     * so a call does not wait for the probe.
+     */
+    synchronized long getCapabilities() {
+        if (mCapabilities != 0) {
+            return mCapabilities;
+        }
+        SharedPreferences preferences = mContext != null
+                ? mContext.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE) : null;
+        if (preferences != null && Build.FINGERPRINT.equals(preferences.getString(KEY_FINGERPRINT, null))) {
+            mCapabilities = preferences.getLong(KEY_CAPABILITIES, 0);
+            if (mCapabilities != 0) {
+                return mCapabilities;
+            }
+        }
+        mCapabilities = probe();
+        if (preferences != null) {
+            preferences.edit()
+                    .putString(KEY_FINGERPRINT, Build.FINGERPRINT)
+                    .putLong(KEY_CAPABILITIES, mCapabilities)
+                    .apply();
+        }
+        return mCapabilities;
+    }
+
+    private static long probe() {
+        long capabilities = PROBED;
+        MediaCodecInfo[] codecInfos;
+        try {
+            codecInfos = new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos();
+        } catch (RuntimeException e) {
+            Log.e("VOXCRD", "CodecProbe: failed to get codec list: " + e.getMessage());
+            return capabilities;
+        }
+        for (MediaCodecInfo codecInfo : codecInfos) {
+            if (!isHardwareAccelerated(codecInfo)) {
+                continue;
+            }
+            for (String type : codecInfo.getSupportedTypes()) {
+                if (MIME_H264.equalsIgnoreCase(type)) {
+                    capabilities |= codecInfo.isEncoder() ? H264_HW_ENCODER : H264_HW_DECODER;
+                } else if (MIME_VP8.equalsIgnoreCase(type)) {
+                    capabilities |= codecInfo.isEncoder() ? VP8_HW_ENCODER : VP8_HW_DECODER;
+                }
+            }
+        }
+        Log.i("VOXCRD", "CodecProbe: capabilities " + Long.toBinaryString(capabilities));
+        return capabilities;
+    }
+
+    private static boolean isHardwareAccelerated(MediaCodecInfo codecInfo) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return codecInfo.isHardwareAccelerated();
+        }
+        String name = codecInfo.getName().toLowerCase();
+        return !name.startsWith("omx.google.") && !name.startsWith("c2.android.") && !name.contains(".sw.");
+    }
+
+    private static boolean has(long capabilities, long flags) {
+        return (capabilities & flags) == flags;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Runs a list of plugin actions received in one bridge call and reports their results together.
+ *
+ * Every command is dispatched as a regular action with its own callback context that captures the result
+ * instead of sending it to JS. In the sequential mode the next command is dispatched when the previous one
+ * completes, so no thread is blocked while an action waits for an SDK callback. In the parallel mode all
+ * commands are dispatched at once; commands of the same call still run in order on the call queue.
+ *
+ * The first result of a command completes it. The combined result is sent as a JSON array string, one
+ * {action, success, result} or {action, skipped} entry per command, in the order of the commands.
+ */
+class CommandBatch {
+    interface Dispatcher {
+        /**
+         * @return false if the action is not supported
+         */
+        boolean dispatch(String action, JSONArray args, CallbackContext callbackContext);
+    }
+
+    private static final ArgumentSchema.Field COMMANDS = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.ARRAY);
+    private static final ArgumentSchema.Field PARALLEL = ArgumentSchema.Field.optional(1, "parallel", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field STOP_ON_ERROR = ArgumentSchema.Field.optional(1, "stopOnError", ArgumentSchema.Type.BOOLEAN, true);
+    private static final ArgumentSchema BATCH = new ArgumentSchema("batch", COMMANDS, PARALLEL, STOP_ON_ERROR);
+
+    private static final ArgumentSchema.Field COMMAND_ACTION = ArgumentSchema.Field.required(0, "action", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field COMMAND_ARGS = ArgumentSchema.Field.optional(0, "args", ArgumentSchema.Type.ARRAY);
+    private static final ArgumentSchema COMMAND = new ArgumentSchema("batch.command", COMMAND_ACTION, COMMAND_ARGS);
+
+    private final Dispatcher mDispatcher;
+    private final CordovaWebView mWebView;
+    private final CallbackContext mCallbackContext;
+    private final JSONArray mCommands;
+    private final boolean mParallel;
+    private final boolean mStopOnError;
+    private final String[] mResults;
+    private int mCompleted;
+
+    private CommandBatch(Dispatcher dispatcher, CordovaWebView webView, CallbackContext callbackContext,
+                         JSONArray commands, boolean parallel, boolean stopOnError) {
+        mDispatcher = dispatcher;
+        mWebView = webView;
+        mCallbackContext = callbackContext;
+        mCommands = commands;
+        mParallel = parallel;
+        mStopOnError = stopOnError;
+        mResults = new String[commands.length()];
+    }
+
+    static boolean execute(Dispatcher dispatcher, CordovaWebView webView, JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = BATCH.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        JSONArray commands = arguments.getJSONArray(COMMANDS);
+        boolean parallel = arguments.getBoolean(PARALLEL);
+        CommandBatch batch = new CommandBatch(dispatcher, webView, callbackContext, commands,
+                parallel, arguments.getBoolean(STOP_ON_ERROR));
+        if (commands.length() == 0) {
+            batch.finish();
+        } else if (parallel) {
+            for (int i = 0; i < commands.length(); i++) {
+                batch.dispatch(i);
+            }
+        } else {
+            batch.dispatch(0);
+        }
+        return true;
+    }
+
+    private void dispatch(int index) {
+        JSONArray command = new JSONArray().put(mCommands.opt(index));
+        ArgumentSchema.Arguments arguments = COMMAND.decode(command);
+        CommandCallbackContext commandContext = new CommandCallbackContext(index,
+                arguments.isValid() ? arguments.getString(COMMAND_ACTION) : null);
+        if (!arguments.isValid()) {
+            arguments.reportError(commandContext);
+            return;
+        }
+        String action = arguments.getString(COMMAND_ACTION);
+        JSONArray commandArgs = arguments.getJSONArray(COMMAND_ARGS);
+        if (!mDispatcher.dispatch(action, commandArgs != null ? commandArgs : new JSONArray(), commandContext)) {
+            commandContext.error("Action is not supported in a batch: " + action);
+        }
+    }
+
+    private void onCommandCompleted(int index, String action, boolean success, String result) {
+        boolean dispatchNext = false;
+        boolean finished;
+        synchronized (this) {
+            mResults[index] = "{\"action\":" + JSONObject.quote(action) + ",\"success\":" + success
+                    + ",\"result\":" + (result != null ? result : "null") + "}";
+            mCompleted++;
+            if (!mParallel && index + 1 < mResults.length) {
+                if (success || !mStopOnError) {
+                    dispatchNext = true;
+                } else {
+                    for (int i = index + 1; i < mResults.length; i++) {
+                        JSONObject command = mCommands.optJSONObject(i);
+                        mResults[i] = "{\"action\":" + JSONObject.quote(command != null ? command.optString("action") : "")
+                                + ",\"skipped\":true}";
+                    }
+                    mCompleted = mResults.length;
+                }
+            }
+            finished = mCompleted == mResults.length;
+        }
+        if (dispatchNext) {
+            dispatch(index + 1);
+        } else if (finished) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        StringBuilder results = new StringBuilder("[");
+        for (int i = 0; i < mResults.length; i++) {
+            if (i > 0) {
+                results.append(',');
+            }
+            results.append(mResults[i]);
+        }
+        mCallbackContext.success(results.append(']').toString());
+    }
+
+    private class CommandCallbackContext extends CallbackContext {
+        private final int mIndex;
+        private final String mAction;
+        private boolean mFinished;
+
+        CommandCallbackContext(int index, String action) {
+            super(mCallbackContext.getCallbackId() + "#" + index, mWebView);
+            mIndex = index;
+            mAction = action;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return mFinished;
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            synchronized (this) {
+                if (mFinished || pluginResult.getStatus() == PluginResult.Status.NO_RESULT.ordinal()) {
+                    return;
+                }
+                mFinished = true;
+            }
+            onCommandCompleted(mIndex, mAction, pluginResult.getStatus() == PluginResult.Status.OK.ordinal(),
+                    pluginResult.getMessage());
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Delivers native events to JS through a single persistent callback.
+ *
+ * Pending events wait in one FIFO queue per {@link EventType.Priority} and are drained in batches: at most
+ * one bridge crossing per frame, or immediately for a lifecycle event or when MAX_BATCH_SIZE events are
+ * pending. A batch takes the higher priority queues first, so call lifecycle events are not held behind a
+ * burst of informational ones of other calls; events of the same priority keep their order. Events of one
+ * call are never reordered: when a lifecycle event of a call is queued, the pending informational events of
+ * that call are moved ahead of it, so JS does not get EndpointRemoved after the CallDisconnected of its call.
+ * When MAX_PENDING_EVENTS are pending the oldest informational event is dropped and the next batch has gap set;
+ * lifecycle events are never dropped.
+ *
+ * Events are numbered in the order they are sent and kept in a bounded ring buffer. Each batch is a JSON
+ * object {channel, seq, replay, gap, events} where events is an array of [eventName, params] pairs numbered
+ * from seq, unpacked by Client._onEvents. channel identifies this instance, so a page that outlives it does
+ * not mistake the new numbering for the one it has seen.
+ *
+ * While the app is in background, informational events wait for the next lifecycle event, a full batch or
+ * the return to foreground, so they do not wake the main looper on their own. Events of a coalesce group are
+ * passed as an {@link EventSource} and only the latest one per key is kept; it is written when it is delivered,
+ * so the replaced ones are never serialized. Held events of a call are dropped when the call ends.
+ *
+ * Delivery is suspended while the page is reloading. When JS registers the channel again it passes the last
+ * sequence number it has handled, kept in sessionStorage across the reload, and everything newer that is still
+ * in the buffer is replayed in one batch; gap is set if some of these events were already evicted. A page that
+ * has not seen any events of this channel gets no replay: the sent events are about calls it does not know.
+ * Events that have not been sent yet are delivered to it as usual.
+ */
+class EventChannel {
+    interface EventSource {
+        /**
+         * Writes the event, called when it is delivered. Must not call into the SDK: it runs on the main thread
+         * under the channel lock, so the values are captured when the event is sent.
+         */
+        EventWriter write();
+    }
+
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final int MAX_PENDING_EVENTS = 1024;
+    private static final int BUFFER_CAPACITY = 1024;
+    private static final long FLUSH_DELAY_MS = 16;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final BufferedEvent[] mEvents = new BufferedEvent[BUFFER_CAPACITY];
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<BufferedEvent>[] mPendingEvents = new ArrayDeque[EventType.Priority.values().length];
+    // pending events of a coalesce group sent in background, by group and key
+    private final HashMap<String, BufferedEvent> mHeldEvents = new HashMap<>();
+    private final Runnable mFlushRunnable = this::flush;
+    private final BridgeMetrics mBridgeMetrics;
+    private final int mChannelId = new Random().nextInt(Integer.MAX_VALUE - 1) + 1;
+    private CallbackContext mCallbackContext;
+    private boolean mBackground;
+    private boolean mFlushScheduled;
+    private long mFlushDueNanos;
+    private int mPendingCount;
+    // sequence numbers start from 1, the buffer holds the sent events [mFirstSeq, mNextSeq)
+    private long mFirstSeq = 1;
+    private long mNextSeq = 1;
+    // the last event sent over the current callback
+    private long mSentSeq;
+    private boolean mReplay;
+    private boolean mGap;
+    // pending events have been dropped since the last batch
+    private boolean mDropped;
+
+    EventChannel(BridgeMetrics bridgeMetrics) {
+        mBridgeMetrics = bridgeMetrics;
+        for (int i = 0; i < mPendingEvents.length; i++) {
+            mPendingEvents[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * @param lastSeq   the last event handled by JS, events after it are replayed
+     * @param channelId the channel lastSeq belongs to, 0 if JS has not handled any events yet
+     */
+    synchronized void register(CallbackContext callbackContext, long lastSeq, int channelId) {
+        mCallbackContext = callbackContext;
+        PluginResult result = new PluginResult(PluginResult.Status.NO_RESULT);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+        if (channelId != mChannelId || lastSeq <= 0) {
+            mGap = false;
+            mSentSeq = mNextSeq - 1;
+            mReplay = false;
+        } else {
+            lastSeq = Math.min(lastSeq, mNextSeq - 1);
+            mGap = lastSeq < mFirstSeq - 1;
+            mSentSeq = Math.max(lastSeq, mFirstSeq - 1);
+            mReplay = mSentSeq < mNextSeq - 1;
+        }
+        if (mReplay || mGap || mPendingCount > 0) {
+            scheduleFlush(true);
+        }
+    }
+
+    /**
+     * Switches to the background policy until {@link #resume()}, called when the activity is paused.
+     */
+    synchronized void pause() {
+        mBackground = true;
+    }
+
+    synchronized void resume() {
+        mBackground = false;
+        // the held events stay queued in place and are no longer replaced
+        mHeldEvents.clear();
+        if (mCallbackContext != null && mPendingCount > 0) {
+            scheduleFlush(true);
+        }
+    }
+
+    /**
+     * Drops the callback of the page being unloaded. Events are queued until the new page registers.
+     */
+    synchronized void reset() {
+        mCallbackContext = null;
+    }
+
+    /**
+     * @param callId the call the event is about, null for client events
+     */
+    synchronized void send(EventType type, long createdNanos, String payload, String callId) {
+        enqueue(new BufferedEvent(type, createdNanos, payload, null, callId, null));
+        onEnqueued(type);
+    }
+
+    /**
+     * Holds an event of a coalesce group while the app is in background, replacing the held one with the same key.
+     *
+     * @param coalesceKey identifies the call or endpoint the event is about, used with type.coalesceGroup
+     * @return false if the event is not held and has to be sent with {@link #send}
+     */
+    synchronized boolean hold(EventType type, EventSource source, String callId, String coalesceKey) {
+        if (!mBackground || type.coalesceGroup == null || coalesceKey == null) {
+            return false;
+        }
+        String holdKey = type.coalesceGroup + ":" + coalesceKey;
+        BufferedEvent previous = mHeldEvents.remove(holdKey);
+        if (previous != null && removePending(previous)) {
+            mBridgeMetrics.recordEventCoalesced();
+        }
+        BufferedEvent event = new BufferedEvent(type, System.nanoTime(), null, source, callId, holdKey);
+        mHeldEvents.put(holdKey, event);
+        enqueue(event);
+        onEnqueued(type);
+        return true;
+    }
+
+    /**
+     * Drops the held events of a call that has ended, their state is no longer of interest.
+     */
+    synchronized void dropHeldEvents(String callId) {
+        Iterator<BufferedEvent> iterator = mHeldEvents.values().iterator();
+        while (iterator.hasNext()) {
+            BufferedEvent event = iterator.next();
+            if (callId.equals(event.callId)) {
+                iterator.remove();
+                if (removePending(event)) {
+                    mBridgeMetrics.recordEventCoalesced();
+                }
+            }
+        }
+    }
+
+    private void onEnqueued(EventType type) {
+        if (mCallbackContext == null) {
+            return;
+        }
+        if (type.priority == EventType.Priority.LIFECYCLE || mPendingCount >= MAX_BATCH_SIZE) {
+            scheduleFlush(true);
+        } else if (!mBackground) {
+            scheduleFlush(false);
+        }
+        // in background an informational event waits for the next lifecycle event, a full batch or resume
+    }
+
+    private boolean removePending(BufferedEvent event) {
+        // an informational event may have been moved to a higher priority queue
+        for (ArrayDeque<BufferedEvent> pendingEvents : mPendingEvents) {
+            if (pendingEvents.remove(event)) {
+                mPendingCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void enqueue(BufferedEvent event) {
+        if (mPendingCount >= MAX_PENDING_EVENTS) {
+            // drop the oldest informational event, or this one; lifecycle events are never dropped, JS would keep
+            // a call that has ended
+            BufferedEvent dropped = null;
+            for (int i = mPendingEvents.length - 1; i > EventType.Priority.LIFECYCLE.ordinal(); i--) {
+                if (!mPendingEvents[i].isEmpty()) {
+                    dropped = mPendingEvents[i].pollFirst();
+                    mPendingCount--;
+                    break;
+                }
+            }
+            if (dropped == null && event.type.priority != EventType.Priority.LIFECYCLE) {
+                dropped = event;
+            }
+            if (dropped != null) {
+                Log.w("VOXCRD", "EventChannel: pending queue is full, dropping " + dropped.type.jsName);
+                unhold(dropped);
+                mBridgeMetrics.recordEventDropped();
+                mDropped = true;
+                if (dropped == event) {
+                    return;
+                }
+            }
+        }
+        int priority = event.type.priority.ordinal();
+        if (event.callId != null) {
+            for (int i = priority + 1; i < mPendingEvents.length; i++) {
+                Iterator<BufferedEvent> iterator = mPendingEvents[i].iterator();
+                while (iterator.hasNext()) {
+                    BufferedEvent pending = iterator.next();
+                    if (event.callId.equals(pending.callId)) {
+                        iterator.remove();
+                        mPendingEvents[priority].addLast(pending);
+                    }
+                }
+            }
+        }
+        mPendingEvents[priority].addLast(event);
+        mPendingCount++;
+    }
+
+    private BufferedEvent pollPending() {
+        for (ArrayDeque<BufferedEvent> pendingEvents : mPendingEvents) {
+            if (!pendingEvents.isEmpty()) {
+                mPendingCount--;
+                BufferedEvent event = pendingEvents.pollFirst();
+                unhold(event);
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private void unhold(BufferedEvent event) {
+        if (event.holdKey != null && mHeldEvents.get(event.holdKey) == event) {
+            mHeldEvents.remove(event.holdKey);
+        }
+    }
+
+    private static int index(long seq) {
+        return (int) (seq % BUFFER_CAPACITY);
+    }
+
+    private void scheduleFlush(boolean immediate) {
+        if (immediate) {
+            mHandler.removeCallbacks(mFlushRunnable);
+            mHandler.post(mFlushRunnable);
+            mFlushScheduled = true;
+            mFlushDueNanos = System.nanoTime();
+        } else if (!mFlushScheduled) {
+            mHandler.postDelayed(mFlushRunnable, FLUSH_DELAY_MS);
+            mFlushScheduled = true;
+            mFlushDueNanos = System.nanoTime() + FLUSH_DELAY_MS * 1000000;
+        }
+    }
+
+    private void flush() {
+        CallbackContext callbackContext;
+        String batch;
+        synchronized (this) {
+            long now = System.nanoTime();
+            mFlushScheduled = false;
+            callbackContext = mCallbackContext;
+            if (callbackContext == null || (!mReplay && !mGap && !mDropped && mPendingCount == 0)) {
+                return;
+            }
+            mBridgeMetrics.recordBatch(now - mFlushDueNanos);
+            long firstSeq = mSentSeq + 1;
+            StringBuilder builder = new StringBuilder();
+            builder.append("{\"channel\":").append(mChannelId)
+                    .append(",\"seq\":").append(firstSeq)
+                    .append(",\"replay\":").append(mReplay)
+                    .append(",\"gap\":").append(mGap || mDropped)
+                    .append(",\"events\":[");
+            // a replay is sent in one batch
+            for (long seq = firstSeq; seq < mNextSeq; seq++) {
+                if (seq > firstSeq) {
+                    builder.append(',');
+                }
+                builder.append(mEvents[index(seq)].payload());
+            }
+            int count = 0;
+            while (count < MAX_BATCH_SIZE && mPendingCount > 0) {
+                BufferedEvent event = pollPending();
+                if (mNextSeq > firstSeq) {
+                    builder.append(',');
+                }
+                builder.append(event.payload());
+                mBridgeMetrics.recordEventDelivered(event.type, now - event.createdNanos);
+                if (mNextSeq - mFirstSeq == BUFFER_CAPACITY) {
+                    mEvents[index(mFirstSeq)] = null;
+                    mFirstSeq++;
+                }
+                mEvents[index(mNextSeq)] = event;
+                mNextSeq++;
+                count++;
+            }
+            builder.append("]}");
+            batch = builder.toString();
+            mSentSeq = mNextSeq - 1;
+            mReplay = false;
+            mGap = false;
+            mDropped = false;
+            if (!mPendingEvents[EventType.Priority.LIFECYCLE.ordinal()].isEmpty()) {
+                scheduleFlush(true);
+            } else if (mPendingCount > 0 && (!mBackground || mPendingCount >= MAX_BATCH_SIZE)) {
+                scheduleFlush(false);
+            }
+        }
+        PluginResult result = new PluginResult(PluginResult.Status.OK, batch);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+    }
+
+    private static final class BufferedEvent {
+        final EventType type;
+        final long createdNanos;
+        final String callId;
+        final String holdKey;
+        private String mPayload;
+        private EventSource mSource;
+
+        BufferedEvent(EventType type, long createdNanos, String payload, EventSource source, String callId,
+                      String holdKey) {
+            this.type = type;
+            this.createdNanos = createdNanos;
+            this.callId = callId;
+            this.holdKey = holdKey;
+            mPayload = payload;
+            mSource = source;
+        }
+
+        String payload() {
+            if (mPayload == null) {
+                mPayload = mSource.write().end();
+                mSource = null;
+            }
+            return mPayload;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+enum EventType {
+    // the JS side needs these events to create Call and Endpoint objects, so they can not be unsubscribed
+    INCOMING_CALL("IncomingCall", true, Priority.LIFECYCLE),
+    CALL_CONNECTED("CallConnected", Priority.LIFECYCLE),
+    CALL_DISCONNECTED("CallDisconnected", Priority.LIFECYCLE),
+    CALL_FAILED("CallFailed", Priority.LIFECYCLE),
+    CALL_PROGRESS_TONE_START("CallProgressToneStart", "ProgressTone"),
+    CALL_PROGRESS_TONE_STOP("CallProgressToneStop", "ProgressTone"),
+    CALL_INFO_RECEIVED("CallInfoReceived"),
+    CALL_MESSAGE_RECEIVED("CallMessageReceived"),
+    CALL_ICE_TIMEOUT("CallICETimeout", "ICE"),
+    CALL_ICE_COMPLETED("CallICECompleted", "ICE"),
+    CALL_ENDPOINT_ADDED("CallEndpointAdded", true),
+    ENDPOINT_REMOVED("EndpointRemoved"),
+    ENDPOINT_INFO_UPDATED("EndpointInfoUpdated", "EndpointInfo"),
+    CALL_LOCAL_VIDEO_STREAM_ADDED("CallLocalVideoStreamAdded"),
+    CALL_LOCAL_VIDEO_STREAM_REMOVED("CallLocalVideoStreamRemoved"),
+    ENDPOINT_REMOTE_VIDEO_STREAM_ADDED("EndpointRemoteVideoStreamAdded"),
+    ENDPOINT_REMOTE_VIDEO_STREAM_REMOVED("EndpointRemoteVideoStreamRemoved"),
+    // client events, Client listeners are not reported to native
+    AUTH_RESULT("AuthResult", true, Priority.LIFECYCLE),
+    REFRESH_TOKEN_RESULT("RefreshTokenResult", true),
+    RECONNECTING("Reconnecting", true, Priority.LIFECYCLE),
+    RECONNECTED("Reconnected", true, Priority.LIFECYCLE);
+
+    enum Priority {
+        // state changes of a call, delivered ahead of the informational events of other calls
+        LIFECYCLE,
+        INFORMATIONAL
+    }
+
+    final String jsName;
+    final String prefix;
+    final boolean required;
+    final Priority priority;
+    // informational events of one group only report the latest state, so in background only the last one
+    // per call or endpoint is delivered; null for the events that are delivered right away
+    final String coalesceGroup;
+
+    EventType(String jsName) {
+        this(jsName, false, Priority.INFORMATIONAL, null);
+    }
+
+    EventType(String jsName, Priority priority) {
+        this(jsName, false, priority, null);
+    }
+
+    EventType(String jsName, boolean required) {
+        this(jsName, required, Priority.INFORMATIONAL, null);
+    }
+
+    EventType(String jsName, String coalesceGroup) {
+        this(jsName, false, Priority.INFORMATIONAL, coalesceGroup);
+    }
+
+    EventType(String jsName, boolean required, Priority priority) {
+        this(jsName, required, priority, null);
+    }
+
+    EventType(String jsName, boolean required, Priority priority, String coalesceGroup) {
+        this.jsName = jsName;
+        this.prefix = "[\"" + jsName + "\",{";
+        this.required = required;
+        this.priority = priority;
+        this.coalesceGroup = coalesceGroup;
+    }
+
+    static EventType fromJsName(String jsName) {
+        for (EventType type : values()) {
+            if (type.jsName.equals(jsName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    long mask() {
+        return 1L << ordinal();
+    }
+}
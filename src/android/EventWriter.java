@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import java.util.Map;
+
+/**
+ * Streams an event straight into a reusable per-thread buffer as ["EventName",{params}].
+ *
+ * Field names are trusted constants and are written as is; values and header keys are escaped.
+ * A field with a null value is omitted, the same way JSONObject.put drops it.
+ */
+final class EventWriter {
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<EventWriter> sWriter = new ThreadLocal<EventWriter>() {
+        @Override
+        protected EventWriter initialValue() {
+            return new EventWriter();
+        }
+    };
+
+    private StringBuilder mBuilder = new StringBuilder(INITIAL_CAPACITY);
+    private boolean mHasFields;
+    private EventType mType;
+    private long mStartNanos;
+
+    private EventWriter() {
+    }
+
+    static EventWriter begin(EventType type) {
+        EventWriter writer = sWriter.get();
+        if (writer.mBuilder.capacity() > MAX_RETAINED_CAPACITY) {
+            writer.mBuilder = new StringBuilder(INITIAL_CAPACITY);
+        }
+        writer.mBuilder.setLength(0);
+        writer.mBuilder.append(type.prefix);
+        writer.mHasFields = false;
+        writer.mType = type;
+        writer.mStartNanos = System.nanoTime();
+        return writer;
+    }
+
+    EventType getType() {
+        return mType;
+    }
+
+    long getStartNanos() {
+        return mStartNanos;
+    }
+
+    EventWriter field(String name, String value) {
+        if (value != null) {
+            name(name);
+            string(value);
+        }
+        return this;
+    }
+
+    EventWriter field(String name, boolean value) {
+        name(name);
+        mBuilder.append(value);
+        return this;
+    }
+
+    EventWriter field(String name, int value) {
+        name(name);
+        mBuilder.append(value);
+        return this;
+    }
+
+    EventWriter field(String name, long value) {
+        name(name);
+        mBuilder.append(value);
+        return this;
+    }
+
+    EventWriter beginObject(String name) {
+        name(name);
+        mBuilder.append('{');
+        mHasFields = false;
+        return this;
+    }
+
+    EventWriter endObject() {
+        mBuilder.append('}');
+        mHasFields = true;
+        return this;
+    }
+
+    /**
+     * @param json an already encoded JSON value
+     */
+    EventWriter json(String name, String json) {
+        name(name);
+        mBuilder.append(json);
+        return this;
+    }
+
+    EventWriter headers(String name, Map<String, String> headers) {
+        if (headers == null || headers.isEmpty()) {
+            return this;
+        }
+        name(name);
+        mBuilder.append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            if (!first) {
+                mBuilder.append(',');
+            }
+            first = false;
+            string(entry.getKey());
+            mBuilder.append(':');
+            string(entry.getValue());
+        }
+        mBuilder.append('}');
+        return this;
+    }
+
+    String end() {
+        mBuilder.append("}]");
+        return mBuilder.toString();
+    }
+
+    private void name(String name) {
+        if (mHasFields) {
+            mBuilder.append(',');
+        }
+        mHasFields = true;
+        mBuilder.append('"').append(name).append("\":");
+    }
+
+    private void string(String value) {
+        StringBuilder builder = mBuilder;
+        builder.append('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '"') {
+                replacement = "\\\"";
+            } else if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c == '/' && i > 0 && value.charAt(i - 1) == '<') {
+                replacement = "\\/";
+            } else if (c == '\n') {
+                replacement = "\\n";
+            } else if (c == '\r') {
+                replacement = "\\r";
+            } else if (c == '\t') {
+                replacement = "\\t";
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                replacement = null;
+            } else {
+                continue;
+            }
+            builder.append(value, start, i);
+            if (replacement != null) {
+                builder.append(replacement);
+            } else {
+                builder.append("\\u")
+                        .append(HEX[(c >> 12) & 0xF])
+                        .append(HEX[(c >> 8) & 0xF])
+                        .append(HEX[(c >> 4) & 0xF])
+                        .append(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        builder.append(value, start, length);
+        builder.append('"');
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps SIP headers of recent call events natively, so events carry only a handle to them.
+ *
+ * Headers are stored per call and per handle. Both levels are bounded: the least recently used calls and the
+ * oldest events of a call are dropped first. Header names are matched case-insensitively, as in SIP.
+ *
+ * Handles are numbered by the cache, not by the event channel: an event is written, with its handle, before
+ * it gets a sequence number. The handle is a part of the event payload, so an event replayed after a page reload
+ * carries the same handle and it stays valid as long as the headers are cached.
+ */
+class HeaderCache {
+    private static final int MAX_CALLS = 32;
+    private static final int MAX_EVENTS_PER_CALL = 16;
+
+    private static final ArgumentSchema.Field CALL_ID = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field HEADERS_ID = ArgumentSchema.Field.required(1, null, ArgumentSchema.Type.INT);
+    private static final ArgumentSchema.Field KEYS = ArgumentSchema.Field.optional(2, null, ArgumentSchema.Type.ARRAY);
+    private static final ArgumentSchema GET_CALL_HEADERS = new ArgumentSchema("getCallHeaders", CALL_ID, HEADERS_ID, KEYS);
+
+    private final LinkedHashMap<String, LinkedHashMap<Integer, Map<String, String>>> mCalls =
+            new LinkedHashMap<String, LinkedHashMap<Integer, Map<String, String>>>(MAX_CALLS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LinkedHashMap<Integer, Map<String, String>>> eldest) {
+                    return size() > MAX_CALLS;
+                }
+            };
+    private int mNextSequence;
+
+    synchronized int put(String callId, Map<String, String> headers) {
+        LinkedHashMap<Integer, Map<String, String>> events = mCalls.get(callId);
+        if (events == null) {
+            events = new LinkedHashMap<Integer, Map<String, String>>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Map<String, String>> eldest) {
+                    return size() > MAX_EVENTS_PER_CALL;
+                }
+            };
+            mCalls.put(callId, events);
+        }
+        Map<String, String> names = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        names.putAll(headers);
+        int sequence = ++mNextSequence;
+        events.put(sequence, names);
+        return sequence;
+    }
+
+    synchronized Map<String, String> get(String callId, int sequence) {
+        LinkedHashMap<Integer, Map<String, String>> events = mCalls.get(callId);
+        return events != null ? events.get(sequence) : null;
+    }
+
+    boolean getCallHeaders(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = GET_CALL_HEADERS.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        String callId = arguments.getString(CALL_ID);
+        int sequence = arguments.getInt(HEADERS_ID);
+        Map<String, String> headers = get(callId, sequence);
+        if (headers == null) {
+            callbackContext.error("Headers are no longer available for callId: " + callId);
+            return true;
+        }
+        JSONArray keys = arguments.getJSONArray(KEYS);
+        JSONObject result = new JSONObject();
+        try {
+            if (keys == null) {
+                for (Map.Entry<String, String> entry : headers.entrySet()) {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            } else {
+                for (int i = 0; i < keys.length(); i++) {
+                    String key = keys.optString(i);
+                    String value = headers.get(key);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                }
+            }
+        } catch (JSONException e) {
+            callbackContext.error("Failed to convert headers");
+            return true;
+        }
+        callbackContext.success(result);
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed bucket bounds.
+ */
+class LatencyHistogram {
+    static final double[] BUCKET_BOUNDS_MS = {0.1, 0.25, 0.5, 1, 2, 5, 10, 20, 50, 100, 250, 500, 1000, 2500};
+    private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_MS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            BUCKET_BOUNDS_NANOS[i] = (long) (BUCKET_BOUNDS_MS[i] * 1000000);
+        }
+    }
+
+    // the last bucket collects values above the highest bound
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_BOUNDS_NANOS.length + 1);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        mBuckets.incrementAndGet(bucket);
+        mCount.incrementAndGet();
+        mTotalNanos.addAndGet(nanos);
+        long max = mMaxNanos.get();
+        while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+            max = mMaxNanos.get();
+        }
+    }
+
+    long getCount() {
+        return mCount.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < mBuckets.length(); i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mTotalNanos.set(0);
+        mMaxNanos.set(0);
+    }
+
+    JSONObject toJSON() throws JSONException {
+        long[] buckets = new long[mBuckets.length()];
+        JSONArray bucketsJson = new JSONArray();
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = mBuckets.get(i);
+            bucketsJson.put(buckets[i]);
+        }
+        long count = mCount.get();
+        JSONObject object = new JSONObject();
+        object.put("count", count);
+        object.put("meanMs", count == 0 ? 0 : mTotalNanos.get() / 1e6 / count);
+        object.put("maxMs", mMaxNanos.get() / 1e6);
+        object.put("p50Ms", percentile(buckets, count, 0.5));
+        object.put("p90Ms", percentile(buckets, count, 0.9));
+        object.put("p99Ms", percentile(buckets, count, 0.99));
+        object.put("buckets", bucketsJson);
+        return object;
+    }
+
+    static JSONArray bucketBoundsToJSON() throws JSONException {
+        JSONArray bounds = new JSONArray();
+        for (double bound : BUCKET_BOUNDS_MS) {
+            bounds.put(bound);
+        }
+        return bounds;
+    }
+
+    // upper bound of the bucket that contains the requested percentile, or the max value for the overflow bucket
+    private double percentile(long[] buckets, long count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : mMaxNanos.get() / 1e6;
+            }
+        }
+        return mMaxNanos.get() / 1e6;
+    }
+}
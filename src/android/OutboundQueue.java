@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import com.voximplant.sdk.call.ICall;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits the messages and INFOs sent within a call.
+ *
+ * Messages are passed to the SDK as they are until a limit is set with {@link #configure}. Then a token bucket
+ * allows bursts of up to burst messages and rate messages per second on average. Messages that do not fit are
+ * queued and sent by the call scheduler. A queued message of the same type (text or INFO MIME type) and with the
+ * same replace key as a new one is updated in place, so only the latest value of a replaceable message is sent.
+ * When the queue is full, either the oldest queued message or the new one is dropped.
+ *
+ * The SDK is called outside the queue lock, in the order the messages leave the queue.
+ */
+class OutboundQueue {
+    enum DropPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST
+    }
+
+    private static final class Message {
+        final String replaceKey;
+        // null for a text message
+        final String type;
+        String body;
+        Map<String, String> headers;
+
+        Message(String type, String body, Map<String, String> headers, String replaceKey) {
+            this.type = type;
+            this.body = body;
+            this.headers = headers;
+            this.replaceKey = replaceKey;
+        }
+    }
+
+    static final int DEFAULT_RATE = 20;
+    static final int DEFAULT_BURST = 20;
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final ICall mCall;
+    private final ScheduledExecutorService mScheduler;
+    private final ArrayDeque<Message> mQueue = new ArrayDeque<>();
+    // messages that have left the queue and are being passed to the SDK
+    private final ArrayDeque<Message> mOutgoing = new ArrayDeque<>();
+    private boolean mLimited;
+    private int mRate = DEFAULT_RATE;
+    private int mBurst = DEFAULT_BURST;
+    private int mCapacity = DEFAULT_CAPACITY;
+    private DropPolicy mDropPolicy = DropPolicy.DROP_OLDEST;
+    private double mTokens;
+    private long mRefillNanos;
+    private ScheduledFuture<?> mDrain;
+    private boolean mSending;
+    private boolean mClosed;
+    private long mSent;
+    private long mCoalesced;
+    private long mDropped;
+    private int mMaxDepth;
+
+    OutboundQueue(ICall call, ScheduledExecutorService scheduler) {
+        mCall = call;
+        mScheduler = scheduler;
+    }
+
+    synchronized void configure(int rate, int burst, int capacity, DropPolicy dropPolicy) {
+        if (mLimited) {
+            refill();
+            mTokens = Math.min(mTokens, burst);
+        } else {
+            mLimited = true;
+            mTokens = burst;
+            mRefillNanos = System.nanoTime();
+        }
+        mRate = rate;
+        mBurst = burst;
+        mCapacity = capacity;
+        mDropPolicy = dropPolicy;
+        while (mQueue.size() > mCapacity) {
+            mQueue.pollFirst();
+            mDropped++;
+        }
+        if (mDrain != null) {
+            mDrain.cancel(false);
+            mDrain = null;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * @param type       INFO MIME type, or null for a text message
+     * @param replaceKey key of a replaceable message, or null
+     * @return false if the message is dropped because the queue is full
+     */
+    boolean offer(String type, String body, Map<String, String> headers, String replaceKey) {
+        synchronized (this) {
+            if (mClosed) {
+                return false;
+            }
+            if (!offerLocked(type, body, headers, replaceKey)) {
+                return false;
+            }
+            if (mSending || mOutgoing.isEmpty()) {
+                return true;
+            }
+            mSending = true;
+        }
+        sendOutgoing();
+        return true;
+    }
+
+    private boolean offerLocked(String type, String body, Map<String, String> headers, String replaceKey) {
+        Message message = new Message(type, body, headers, replaceKey);
+        if (!mLimited) {
+            mOutgoing.addLast(message);
+            return true;
+        }
+        if (replaceKey != null) {
+            for (Message queued : mQueue) {
+                if (replaceKey.equals(queued.replaceKey) && Objects.equals(type, queued.type)) {
+                    queued.body = body;
+                    queued.headers = headers;
+                    mCoalesced++;
+                    return true;
+                }
+            }
+        }
+        refill();
+        if (mQueue.isEmpty() && mTokens >= 1) {
+            mTokens--;
+            mOutgoing.addLast(message);
+            return true;
+        }
+        if (mQueue.size() >= mCapacity) {
+            mDropped++;
+            if (mDropPolicy == DropPolicy.DROP_NEWEST) {
+                return false;
+            }
+            mQueue.pollFirst();
+        }
+        mQueue.addLast(message);
+        mMaxDepth = Math.max(mMaxDepth, mQueue.size());
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Drops the queued messages, called when the call has ended.
+     */
+    synchronized void close() {
+        mClosed = true;
+        mDropped += mQueue.size() + mOutgoing.size();
+        mQueue.clear();
+        mOutgoing.clear();
+        if (mDrain != null) {
+            mDrain.cancel(false);
+            mDrain = null;
+        }
+    }
+
+    synchronized JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        try {
+            stats.put("limited", mLimited);
+            stats.put("depth", mQueue.size());
+            stats.put("maxDepth", mMaxDepth);
+            stats.put("sent", mSent);
+            stats.put("coalesced", mCoalesced);
+            stats.put("dropped", mDropped);
+            stats.put("rate", mRate);
+            stats.put("burst", mBurst);
+            stats.put("capacity", mCapacity);
+            stats.put("dropPolicy", mDropPolicy.name());
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "OutboundQueue.getStats: failed to create json");
+        }
+        return stats;
+    }
+
+    private void drain() {
+        synchronized (this) {
+            mDrain = null;
+            if (mClosed) {
+                return;
+            }
+            refill();
+            while (!mQueue.isEmpty() && mTokens >= 1) {
+                mTokens--;
+                mOutgoing.addLast(mQueue.pollFirst());
+            }
+            scheduleDrain();
+            if (mSending || mOutgoing.isEmpty()) {
+                return;
+            }
+            mSending = true;
+        }
+        sendOutgoing();
+    }
+
+    private void scheduleDrain() {
+        if (mDrain != null || mQueue.isEmpty()) {
+            return;
+        }
+        long delayNanos = (long) (Math.max(0, 1 - mTokens) * TimeUnit.SECONDS.toNanos(1) / mRate);
+        try {
+            mDrain = mScheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the plugin is being destroyed
+            close();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        mTokens = Math.min(mBurst, mTokens + (now - mRefillNanos) * mRate / (double) TimeUnit.SECONDS.toNanos(1));
+        mRefillNanos = now;
+    }
+
+    /**
+     * Passes the outgoing messages to the SDK until there are none left, called by the one thread that has set
+     * mSending.
+     */
+    private void sendOutgoing() {
+        Message message = null;
+        while (true) {
+            synchronized (this) {
+                if (message != null) {
+                    mSent++;
+                }
+                message = mOutgoing.pollFirst();
+                if (message == null) {
+                    mSending = false;
+                    return;
+                }
+            }
+            if (message.type == null) {
+                mCall.sendMessage(message.body);
+            } else {
+                mCall.sendInfo(message.type, message.body, message.headers);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client operations waiting for an SDK listener callback, keyed by request id.
+ *
+ * The SDK reports the results of connect, login, one time key and token refresh requests without a request id,
+ * so at most one operation of each kind can be in progress. A request that repeats the pending operation of its
+ * kind with the same key is merged into it and gets the same result. A request with a different key is rejected,
+ * as are the login and one time key requests while the other one is pending: the SDK reports failures of both
+ * through onLoginFailed. Every operation has a deadline on the shared timer wheel and is rejected when it passes.
+ */
+class PendingOperations {
+    enum Kind {
+        CONNECT(60000),
+        DISCONNECT(10000),
+        LOGIN(30000),
+        ONE_TIME_KEY(30000),
+        REFRESH_TOKEN(30000);
+
+        final long timeoutMs;
+
+        Kind(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        /**
+         * Connection requests are rejected with a message, auth requests with an AuthResult-like object.
+         */
+        Object createError(long requestId, int code, String message) {
+            if (this == CONNECT || this == DISCONNECT) {
+                return message;
+            }
+            JSONObject error = new JSONObject();
+            try {
+                error.put("code", code);
+                error.put("message", message);
+                error.put("requestId", requestId);
+            } catch (JSONException e) {
+                Log.e("VOXCRD", "PendingOperations.createError: failed to create json");
+            }
+            return error;
+        }
+
+        private boolean conflictsWith(Kind kind) {
+            return (this == LOGIN && kind == ONE_TIME_KEY) || (this == ONE_TIME_KEY && kind == LOGIN);
+        }
+    }
+
+    // the codes of LoginError.TIMEOUT and LoginError.INVALID_STATE, see VoximplantUtils.convertLoginErrorToInt
+    static final int CODE_TIMEOUT = 408;
+    static final int CODE_IN_PROGRESS = 491;
+    static final int CODE_CONNECTION_CLOSED = 503;
+
+    private static final class Operation {
+        final long requestId;
+        final Kind kind;
+        final String key;
+        final List<CallbackContext> callbacks = new ArrayList<>();
+        TimerWheel.Timeout timeout;
+
+        Operation(long requestId, Kind kind, String key) {
+            this.requestId = requestId;
+            this.kind = kind;
+            this.key = key;
+        }
+    }
+
+    private final TimerWheel mTimerWheel;
+    private final Map<Long, Operation> mOperations = new LinkedHashMap<>();
+    private long mNextRequestId = 1;
+
+    PendingOperations(TimerWheel timerWheel) {
+        mTimerWheel = timerWheel;
+    }
+
+    /**
+     * Builds the key of a request that carries a secret. Only a digest of the secret is kept, so a password or
+     * token does not stay in memory with the pending operation or show up where the key is printed.
+     */
+    static String credentialsKey(String method, String username, String secret) {
+        StringBuilder key = new StringBuilder(method).append(':').append(username).append(':');
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                    (secret != null ? secret : "").getBytes(StandardCharsets.UTF_8));
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is always available; requests of the user are then merged regardless of the secret
+            Log.e("VOXCRD", "PendingOperations.credentialsKey: " + e.getMessage());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Registers a request before it is passed to the SDK.
+     *
+     * @param key identifies the request parameters for merging, null if any two requests of the kind are the same
+     * @return the request id if the caller has to start the SDK request, or 0 if the request is merged into
+     * the pending one or rejected
+     */
+    long begin(Kind kind, String key, CallbackContext callbackContext) {
+        Object error = null;
+        long requestId = 0;
+        synchronized (this) {
+            for (Operation operation : mOperations.values()) {
+                if (operation.kind == kind && (key == null ? operation.key == null : key.equals(operation.key))) {
+                    operation.callbacks.add(callbackContext);
+                    return 0;
+                }
+                if (operation.kind == kind || operation.kind.conflictsWith(kind)) {
+                    error = kind.createError(operation.requestId, CODE_IN_PROGRESS,
+                            "Another " + operation.kind.name() + " request is in progress");
+                    break;
+                }
+            }
+            if (error == null) {
+                requestId = mNextRequestId++;
+                Operation operation = new Operation(requestId, kind, key);
+                operation.callbacks.add(callbackContext);
+                mOperations.put(requestId, operation);
+                final long id = requestId;
+                operation.timeout = mTimerWheel.schedule(() -> expire(id), kind.timeoutMs);
+            }
+        }
+        if (error != null) {
+            reject(callbackContext, error);
+        }
+        return requestId;
+    }
+
+    synchronized boolean isPending(Kind kind) {
+        for (Operation operation : mOperations.values()) {
+            if (operation.kind == kind) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the pending operation of the kind, if any.
+     */
+    void succeed(Kind kind, JSONObject result) {
+        for (CallbackContext callbackContext : finish(kind)) {
+            if (result != null) {
+                callbackContext.success(result);
+            } else {
+                callbackContext.success();
+            }
+        }
+    }
+
+    /**
+     * Rejects the pending operation of the kind, if any.
+     */
+    void fail(Kind kind, Object error) {
+        for (CallbackContext callbackContext : finish(kind)) {
+            reject(callbackContext, error);
+        }
+    }
+
+    /**
+     * Rejects a started operation when the SDK request could not be made.
+     */
+    void fail(long requestId, Object error) {
+        Operation operation;
+        synchronized (this) {
+            operation = remove(requestId);
+        }
+        if (operation != null) {
+            for (CallbackContext callbackContext : operation.callbacks) {
+                reject(callbackContext, error);
+            }
+        }
+    }
+
+    /**
+     * Rejects the operations of the given kinds, called when the connection is closed before they are finished.
+     */
+    void failAll(Kind[] kinds, int code, String message) {
+        List<Operation> operations = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Operation> iterator = mOperations.values().iterator();
+            while (iterator.hasNext()) {
+                Operation operation = iterator.next();
+                for (Kind kind : kinds) {
+                    if (operation.kind == kind) {
+                        iterator.remove();
+                        mTimerWheel.cancel(operation.timeout);
+                        operations.add(operation);
+                        break;
+                    }
+                }
+            }
+        }
+        for (Operation operation : operations) {
+            Object error = operation.kind.createError(operation.requestId, code, message);
+            for (CallbackContext callbackContext : operation.callbacks) {
+                reject(callbackContext, error);
+            }
+        }
+    }
+
+    /**
+     * Drops all operations without a result, called when the page that started them is unloaded.
+     */
+    synchronized void clear() {
+        for (Operation operation : mOperations.values()) {
+            mTimerWheel.cancel(operation.timeout);
+        }
+        mOperations.clear();
+    }
+
+    private List<CallbackContext> finish(Kind kind) {
+        synchronized (this) {
+            for (Operation operation : mOperations.values()) {
+                if (operation.kind == kind) {
+                    remove(operation.requestId);
+                    return operation.callbacks;
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private void expire(long requestId) {
+        Operation operation;
+        synchronized (this) {
+            operation = mOperations.remove(requestId);
+        }
+        if (operation == null) {
+            return;
+        }
+        Log.w("VOXCRD", "PendingOperations: " + operation.kind.name() + " request " + requestId + " timed out");
+        Object error = operation.kind.createError(requestId, CODE_TIMEOUT, "Timeout");
+        for (CallbackContext callbackContext : operation.callbacks) {
+            reject(callbackContext, error);
+        }
+    }
+
+    private Operation remove(long requestId) {
+        Operation operation = mOperations.remove(requestId);
+        if (operation != null) {
+            mTimerWheel.cancel(operation.timeout);
+        }
+        return operation;
+    }
+
+    private static void reject(CallbackContext callbackContext, Object error) {
+        if (error instanceof JSONObject) {
+            callbackContext.error((JSONObject) error);
+        } else {
+            callbackContext.error((String) error);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Outgoing calls that are created and configured ahead of time and started later by their call id.
+ *
+ * A prepared call has its settings parsed, its ICall created and its listeners attached, so starting it only
+ * calls ICall.start. A call that is not started within its TTL is discarded; the expiry runs on the shared
+ * timer wheel.
+ */
+class PreparedCalls {
+    static final int DEFAULT_TTL_MS = 60000;
+    static final int MAX_TTL_MS = 600000;
+    static final int MAX_PREPARED_CALLS = 8;
+
+    private static final class PreparedCall {
+        final CallModule callModule;
+        TimerWheel.Timeout expiry;
+
+        PreparedCall(CallModule callModule) {
+            this.callModule = callModule;
+        }
+    }
+
+    private final TimerWheel mTimerWheel;
+    private final Map<String, PreparedCall> mPreparedCalls = new HashMap<>();
+
+    PreparedCalls(TimerWheel timerWheel) {
+        mTimerWheel = timerWheel;
+    }
+
+    /**
+     * @return false if there are already MAX_PREPARED_CALLS prepared calls
+     */
+    synchronized boolean add(String callId, CallModule callModule, int ttlMs) {
+        if (mPreparedCalls.size() >= MAX_PREPARED_CALLS) {
+            return false;
+        }
+        PreparedCall preparedCall = new PreparedCall(callModule);
+        preparedCall.expiry = mTimerWheel.schedule(() -> expire(callId), ttlMs);
+        mPreparedCalls.put(callId, preparedCall);
+        return true;
+    }
+
+    /**
+     * @return the prepared call to start, or null if there is none or it has expired
+     */
+    synchronized CallModule remove(String callId) {
+        PreparedCall preparedCall = mPreparedCalls.remove(callId);
+        if (preparedCall == null) {
+            return null;
+        }
+        mTimerWheel.cancel(preparedCall.expiry);
+        return preparedCall.callModule;
+    }
+
+    /**
+     * Discards all prepared calls, called when the page that prepared them is unloaded.
+     */
+    synchronized void clear() {
+        for (PreparedCall preparedCall : mPreparedCalls.values()) {
+            mTimerWheel.cancel(preparedCall.expiry);
+            preparedCall.callModule.discard();
+        }
+        mPreparedCalls.clear();
+    }
+
+    private void expire(String callId) {
+        PreparedCall preparedCall;
+        synchronized (this) {
+            preparedCall = mPreparedCalls.remove(callId);
+        }
+        if (preparedCall != null) {
+            Log.i("VOXCRD", "PreparedCalls: prepared call " + callId + " has expired");
+            preparedCall.callModule.discard();
+        }
+    }
+}
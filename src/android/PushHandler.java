@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * Passes push notifications received by the app to the plugin.
+ *
+ * The app gets pushes in its FirebaseMessagingService, which may run before the activity has created the plugin,
+ * or after it has been destroyed. Until a plugin instance is attached the pushes are kept here, with the time they
+ * were received, so the time spent waiting counts towards their expiry.
+ */
+class PushHandler {
+    interface Receiver {
+        /**
+         * @param receivedAt {@link SystemClock#elapsedRealtime()} when the push was received
+         */
+        void onPushNotification(Map<String, String> payload, long receivedAt);
+    }
+
+    private static final class PendingPush {
+        final Map<String, String> payload;
+        final long receivedAt;
+
+        PendingPush(Map<String, String> payload, long receivedAt) {
+            this.payload = payload;
+            this.receivedAt = receivedAt;
+        }
+    }
+
+    // a push is only useful while the call is ringing, so there is no reason to keep many of them
+    private static final int MAX_PENDING_PUSHES = 16;
+
+    private static PushHandler sInstance;
+
+    private final ArrayDeque<PendingPush> mPendingPushes = new ArrayDeque<>();
+    private Receiver mReceiver;
+
+    static synchronized PushHandler getInstance() {
+        if (sInstance == null) {
+            sInstance = new PushHandler();
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return false if the payload is not a Voximplant push
+     */
+    boolean handle(Map<String, String> payload) {
+        if (payload == null || !payload.containsKey("voximplant")) {
+            return false;
+        }
+        long receivedAt = SystemClock.elapsedRealtime();
+        Receiver receiver;
+        synchronized (this) {
+            receiver = mReceiver;
+            if (receiver == null) {
+                if (mPendingPushes.size() == MAX_PENDING_PUSHES) {
+                    mPendingPushes.pollFirst();
+                }
+                mPendingPushes.addLast(new PendingPush(payload, receivedAt));
+                Log.i("VOXCRD", "PushHandler: plugin is not initialized, the push is kept until it is");
+                return true;
+            }
+        }
+        receiver.onPushNotification(payload, receivedAt);
+        return true;
+    }
+
+    void attach(Receiver receiver) {
+        ArrayDeque<PendingPush> pendingPushes;
+        synchronized (this) {
+            mReceiver = receiver;
+            pendingPushes = new ArrayDeque<>(mPendingPushes);
+            mPendingPushes.clear();
+        }
+        for (PendingPush push : pendingPushes) {
+            receiver.onPushNotification(push.payload, push.receivedAt);
+        }
+    }
+
+    synchronized void detach(Receiver receiver) {
+        if (mReceiver == receiver) {
+            mReceiver = null;
+        }
+    }
+}
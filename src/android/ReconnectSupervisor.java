@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restores the connection and login after the connection is lost without an explicit disconnect.
+ *
+ * Attempts are made with exponential backoff and jitter: attempt n waits a random time between half and all of
+ * min(MAX_DELAY_MS, INITIAL_DELAY_MS * 2^(n - 1)). On Android 7+ the default network is watched as well: while
+ * there is none, no attempts are made, and when one becomes available the next attempt is made right away.
+ * When the network the connection was made on is lost and there are no calls, the connection is closed at once
+ * instead of waiting for it to time out. A change of the default network alone leaves a working connection as is.
+ *
+ * The timing runs on the call scheduler, the attempts and the closing of the connection are passed to the client
+ * executor, the thread the client actions of JS run on.
+ *
+ * Progress is reported with the Reconnecting and Reconnected client events.
+ */
+class ReconnectSupervisor {
+    interface Client {
+        /**
+         * Connects and logs in with the stored tokens, then reports the result with
+         * {@link #onAttemptFinished(boolean, boolean)}.
+         */
+        void reconnect();
+
+        /**
+         * Closes the connection, reported back with {@link #onConnectionLost(String)}.
+         */
+        void dropConnection();
+    }
+
+    private enum State {
+        IDLE,
+        CONNECTED,
+        WAITING,
+        RECONNECTING
+    }
+
+    private static final long INITIAL_DELAY_MS = 500;
+    private static final long MAX_DELAY_MS = 30000;
+
+    private final CallManager mCallManager;
+    private final ScheduledExecutorService mScheduler;
+    private final Executor mClientExecutor;
+    private final Client mClient;
+    private final Random mRandom = new Random();
+    private ConnectivityManager mConnectivityManager;
+    private ConnectivityManager.NetworkCallback mNetworkCallback;
+    private State mState = State.IDLE;
+    private Network mNetwork;
+    // assume there is a network if it can not be watched
+    private boolean mNetworkAvailable = true;
+    private boolean mNetworkLost;
+    private ScheduledFuture<?> mNextAttempt;
+    private int mAttempt;
+    private long mLostAt;
+
+    ReconnectSupervisor(CallManager callManager, Executor clientExecutor, Client client) {
+        mCallManager = callManager;
+        mScheduler = callManager.getCallScheduler();
+        mClientExecutor = clientExecutor;
+        mClient = client;
+    }
+
+    /**
+     * Starts supervising the established connection.
+     */
+    synchronized void start(Context context) {
+        if (mState == State.IDLE) {
+            registerNetworkCallback(context);
+        }
+        mState = State.CONNECTED;
+        mAttempt = 0;
+        mNetworkLost = false;
+        cancelAttempt();
+    }
+
+    /**
+     * Stops supervising, called on an explicit disconnect.
+     */
+    synchronized void stop() {
+        mState = State.IDLE;
+        cancelAttempt();
+        unregisterNetworkCallback();
+    }
+
+    synchronized boolean isReconnecting() {
+        return mState == State.WAITING || mState == State.RECONNECTING;
+    }
+
+    /**
+     * @param reason connectionClosed or connectionFailed
+     */
+    synchronized void onConnectionLost(String reason) {
+        if (mState != State.CONNECTED) {
+            return;
+        }
+        mState = State.WAITING;
+        mLostAt = SystemClock.elapsedRealtime();
+        mAttempt = 0;
+        if (mNetworkLost) {
+            mNetworkLost = false;
+            reason = "networkLost";
+        }
+        scheduleAttempt(reason, false);
+    }
+
+    synchronized void onAttemptFinished(boolean connected, boolean loggedIn) {
+        if (mState != State.RECONNECTING) {
+            return;
+        }
+        if (!connected) {
+            mState = State.WAITING;
+            scheduleAttempt("connectionFailed", false);
+            return;
+        }
+        mState = State.CONNECTED;
+        Log.i("VOXCRD", "ReconnectSupervisor: reconnected after " + mAttempt + " attempts");
+        mCallManager.sendEventToJS(EventWriter.begin(EventType.RECONNECTED)
+                .field("attempts", mAttempt)
+                .field("downtime", SystemClock.elapsedRealtime() - mLostAt)
+                .field("loggedIn", loggedIn));
+        mAttempt = 0;
+    }
+
+    void release() {
+        stop();
+    }
+
+    private void scheduleAttempt(String reason, boolean immediate) {
+        cancelAttempt();
+        mAttempt++;
+        long delay = 0;
+        if (!immediate) {
+            long maxDelay = Math.min(MAX_DELAY_MS, INITIAL_DELAY_MS << Math.min(mAttempt - 1, 16));
+            delay = maxDelay / 2 + (long) (mRandom.nextDouble() * maxDelay / 2);
+        }
+        mCallManager.sendEventToJS(EventWriter.begin(EventType.RECONNECTING)
+                .field("attempt", mAttempt)
+                .field("delay", mNetworkAvailable ? delay : -1)
+                .field("reason", reason));
+        if (!mNetworkAvailable) {
+            // the attempt is made when a network becomes available
+            return;
+        }
+        try {
+            mNextAttempt = mScheduler.schedule(this::attempt, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the plugin is being destroyed
+            mNextAttempt = null;
+        }
+    }
+
+    private void cancelAttempt() {
+        if (mNextAttempt != null) {
+            mNextAttempt.cancel(false);
+            mNextAttempt = null;
+        }
+    }
+
+    private void attempt() {
+        synchronized (this) {
+            mNextAttempt = null;
+            if (mState != State.WAITING) {
+                return;
+            }
+            mState = State.RECONNECTING;
+        }
+        mClientExecutor.execute(mClient::reconnect);
+    }
+
+    private synchronized void onNetworkAvailable(Network network) {
+        Network previous = mNetwork;
+        mNetwork = network;
+        mNetworkAvailable = true;
+        if (previous != null && previous.equals(network)) {
+            return;
+        }
+        if (mState == State.WAITING) {
+            cancelAttempt();
+            try {
+                mNextAttempt = mScheduler.schedule(this::attempt, 0, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                mNextAttempt = null;
+            }
+        }
+    }
+
+    private synchronized void onNetworkLost(Network network) {
+        if (!network.equals(mNetwork)) {
+            return;
+        }
+        mNetwork = null;
+        mNetworkAvailable = false;
+        if (mState == State.CONNECTED && !mNetworkLost && mCallManager.getLiveCallCount() == 0) {
+            Log.i("VOXCRD", "ReconnectSupervisor: the network of the connection is lost, reconnecting");
+            mNetworkLost = true;
+            mClientExecutor.execute(mClient::dropConnection);
+        }
+    }
+
+    private void registerNetworkCallback(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || mNetworkCallback != null) {
+            return;
+        }
+        mConnectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (mConnectivityManager == null) {
+            return;
+        }
+        mNetwork = mConnectivityManager.getActiveNetwork();
+        mNetworkAvailable = true;
+        mNetworkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                onNetworkAvailable(network);
+            }
+
+            @Override
+            public void onLost(Network network) {
+                onNetworkLost(network);
+            }
+        };
+        try {
+            mConnectivityManager.registerDefaultNetworkCallback(mNetworkCallback);
+        } catch (RuntimeException e) {
+            Log.e("VOXCRD", "ReconnectSupervisor: failed to register network callback: " + e.getMessage());
+            mNetworkCallback = null;
+        }
+    }
+
+    private void unregisterNetworkCallback() {
+        if (mNetworkCallback == null) {
+            return;
+        }
+        try {
+            mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+        } catch (RuntimeException e) {
+            Log.e("VOXCRD", "ReconnectSupervisor: failed to unregister network callback: " + e.getMessage());
+        }
+        mNetworkCallback = null;
+        mNetwork = null;
+        mNetworkAvailable = true;
+    }
+}
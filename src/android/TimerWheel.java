@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel for coarse deadlines shared by the plugin.
+ *
+ * A timeout is put into the slot it expires in, with the number of full turns left. A single task on the given
+ * scheduler advances the wheel by one slot per tick and only runs while there are pending timeouts. A slot is a
+ * doubly linked list of its timeouts, so adding and cancelling a timeout costs the same however many are pending.
+ * Expired tasks run on the scheduler thread.
+ */
+class TimerWheel {
+    static final class Timeout {
+        private final Runnable mTask;
+        private int mSlot;
+        private long mRounds;
+        private boolean mDone;
+        private Timeout mPrevious;
+        private Timeout mNext;
+
+        private Timeout(Runnable task) {
+            mTask = task;
+        }
+    }
+
+    private final ScheduledExecutorService mScheduler;
+    private final long mTickMs;
+    // the first timeout of each slot
+    private final Timeout[] mSlots;
+    private ScheduledFuture<?> mTicker;
+    private int mCursor;
+    private int mPending;
+
+    TimerWheel(ScheduledExecutorService scheduler, long tickMs, int wheelSize) {
+        mScheduler = scheduler;
+        mTickMs = tickMs;
+        mSlots = new Timeout[wheelSize];
+    }
+
+    /**
+     * @return the timeout to cancel, the task runs within one tick of delayMs
+     */
+    synchronized Timeout schedule(Runnable task, long delayMs) {
+        Timeout timeout = new Timeout(task);
+        long ticks = Math.max(1, (delayMs + mTickMs - 1) / mTickMs);
+        timeout.mSlot = (int) ((mCursor + ticks) % mSlots.length);
+        timeout.mRounds = (ticks - 1) / mSlots.length;
+        Timeout first = mSlots[timeout.mSlot];
+        if (first != null) {
+            timeout.mNext = first;
+            first.mPrevious = timeout;
+        }
+        mSlots[timeout.mSlot] = timeout;
+        mPending++;
+        if (mTicker == null) {
+            try {
+                mTicker = mScheduler.scheduleAtFixedRate(this::tick, mTickMs, mTickMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // the plugin is being destroyed, nothing is waiting for the timeout anymore
+                Log.w("VOXCRD", "TimerWheel: scheduler is shut down");
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * @return false if the timeout has already expired or been cancelled
+     */
+    synchronized boolean cancel(Timeout timeout) {
+        if (timeout == null || timeout.mDone) {
+            return false;
+        }
+        timeout.mDone = true;
+        unlink(timeout);
+        onRemoved();
+        return true;
+    }
+
+    private void tick() {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            mCursor = (mCursor + 1) % mSlots.length;
+            Timeout timeout = mSlots[mCursor];
+            while (timeout != null) {
+                Timeout next = timeout.mNext;
+                if (timeout.mRounds > 0) {
+                    timeout.mRounds--;
+                } else {
+                    unlink(timeout);
+                    timeout.mDone = true;
+                    expired.add(timeout);
+                    onRemoved();
+                }
+                timeout = next;
+            }
+        }
+        // run outside of the lock, a task may schedule or cancel other timeouts
+        for (int i = expired.size() - 1; i >= 0; i--) {
+            try {
+                expired.get(i).mTask.run();
+            } catch (RuntimeException e) {
+                Log.e("VOXCRD", "TimerWheel: timeout task failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.mPrevious != null) {
+            timeout.mPrevious.mNext = timeout.mNext;
+        } else {
+            mSlots[timeout.mSlot] = timeout.mNext;
+        }
+        if (timeout.mNext != null) {
+            timeout.mNext.mPrevious = timeout.mPrevious;
+        }
+        timeout.mPrevious = null;
+        timeout.mNext = null;
+    }
+
+    private void onRemoved() {
+        mPending--;
+        if (mPending == 0 && mTicker != null) {
+            mTicker.cancel(false);
+            mTicker = null;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.Context;
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Base64;
+import android.util.Log;
+
+import com.voximplant.sdk.client.AuthParams;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Keeps the auth tokens of the logged in user and refreshes the access token before it expires.
+ *
+ * The tokens are stored in SharedPreferences encrypted with an AES key kept in the Android Keystore, so they
+ * survive an app restart and allow to log in with the access token right after connect. Before Android 6 there
+ * is no Keystore AES key and the tokens are kept in memory only.
+ *
+ * The refresh is due at a random point between 80% and 90% of the access token lifetime, so clients that
+ * logged in together do not refresh together. It is made only while the client is logged in; otherwise the
+ * next login brings new tokens anyway.
+ */
+class TokenManager {
+    interface Refresher {
+        /**
+         * @return false if the refresh can not be made now
+         */
+        boolean refreshToken(String username, String refreshToken);
+    }
+
+    static final class Tokens {
+        final String username;
+        final String accessToken;
+        final String refreshToken;
+        // wall clock time in milliseconds
+        final long accessExpire;
+        final long refreshExpire;
+        final long issued;
+
+        Tokens(String username, String accessToken, long accessExpire, String refreshToken, long refreshExpire,
+               long issued) {
+            this.username = username;
+            this.accessToken = accessToken;
+            this.accessExpire = accessExpire;
+            this.refreshToken = refreshToken;
+            this.refreshExpire = refreshExpire;
+            this.issued = issued;
+        }
+
+        boolean isAccessTokenValid() {
+            return accessToken != null && accessExpire - System.currentTimeMillis() > MIN_VALIDITY_MS;
+        }
+
+        boolean isRefreshTokenValid() {
+            return refreshToken != null && refreshExpire - System.currentTimeMillis() > MIN_VALIDITY_MS;
+        }
+    }
+
+    private static final String PREFERENCES = "com.voximplant.cordova.sdk.TokenManager";
+    private static final String KEY_TOKENS = "tokens";
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String KEY_ALIAS = "com.voximplant.cordova.sdk.tokens";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int GCM_TAG_LENGTH = 128;
+    // a token that expires sooner is not used for login
+    private static final long MIN_VALIDITY_MS = 60000;
+    private static final long RETRY_DELAY_MS = 60000;
+
+    private final ScheduledExecutorService mScheduler;
+    private final Refresher mRefresher;
+    private final Random mRandom = new Random();
+    private Context mContext;
+    private boolean mEnabled;
+    private Tokens mTokens;
+    private ScheduledFuture<?> mRefresh;
+
+    TokenManager(ScheduledExecutorService scheduler, Refresher refresher) {
+        mScheduler = scheduler;
+        mRefresher = refresher;
+    }
+
+    /**
+     * Loads the stored tokens and starts the refresh schedule, or forgets the tokens if disabled.
+     */
+    synchronized void setEnabled(Context context, boolean enabled) {
+        mContext = context.getApplicationContext();
+        mEnabled = enabled;
+        if (!enabled) {
+            clear();
+            return;
+        }
+        if (mTokens == null) {
+            mTokens = load();
+        }
+        scheduleRefresh();
+    }
+
+    synchronized boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * @return the stored tokens, or null if there are none or token management is disabled
+     */
+    synchronized Tokens getTokens() {
+        return mEnabled ? mTokens : null;
+    }
+
+    /**
+     * Stores the tokens issued on login or refresh.
+     *
+     * @param username the user the tokens belong to, or null if they are refreshed for the stored user
+     */
+    synchronized void onTokensIssued(String username, AuthParams authParams) {
+        if (!mEnabled || authParams == null || authParams.getAccessToken() == null) {
+            return;
+        }
+        if (username == null) {
+            if (mTokens == null) {
+                return;
+            }
+            username = mTokens.username;
+        }
+        long now = System.currentTimeMillis();
+        mTokens = new Tokens(username,
+                authParams.getAccessToken(), now + TimeUnit.SECONDS.toMillis(authParams.getAccessTokenTimeExpired()),
+                authParams.getRefreshToken(), now + TimeUnit.SECONDS.toMillis(authParams.getRefreshTokenTimeExpired()),
+                now);
+        save(mTokens);
+        scheduleRefresh();
+    }
+
+    /**
+     * @param code login error code, see VoximplantUtils.convertLoginErrorToInt
+     */
+    synchronized void onRefreshFailed(int code) {
+        if (!mEnabled || mTokens == null) {
+            return;
+        }
+        switch (code) {
+            case 401:
+            case 403:
+            case 404:
+            case 701:
+                Log.w("VOXCRD", "TokenManager: refresh token is rejected: " + code);
+                clear();
+                break;
+            default:
+                schedule(RETRY_DELAY_MS + mRandom.nextInt((int) RETRY_DELAY_MS));
+                break;
+        }
+    }
+
+    synchronized void clear() {
+        cancelRefresh();
+        mTokens = null;
+        if (mContext != null) {
+            mContext.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).edit().remove(KEY_TOKENS).apply();
+        }
+    }
+
+    synchronized void release() {
+        cancelRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (mTokens == null || mTokens.refreshToken == null) {
+            cancelRefresh();
+            return;
+        }
+        long lifetime = Math.max(0, mTokens.accessExpire - mTokens.issued);
+        long due = mTokens.issued + (long) (lifetime * (0.8 + 0.1 * mRandom.nextDouble()));
+        schedule(Math.max(0, due - System.currentTimeMillis()));
+    }
+
+    private void schedule(long delayMs) {
+        cancelRefresh();
+        try {
+            mRefresh = mScheduler.schedule(this::refresh, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the plugin is being destroyed
+            mRefresh = null;
+        }
+    }
+
+    private void cancelRefresh() {
+        if (mRefresh != null) {
+            mRefresh.cancel(false);
+            mRefresh = null;
+        }
+    }
+
+    private void refresh() {
+        Tokens tokens;
+        synchronized (this) {
+            mRefresh = null;
+            tokens = mTokens;
+        }
+        if (tokens == null || !tokens.isRefreshTokenValid()) {
+            return;
+        }
+        if (!mRefresher.refreshToken(tokens.username, tokens.refreshToken)) {
+            Log.i("VOXCRD", "TokenManager: client is not logged in, the refresh is postponed until the next login");
+        }
+    }
+
+    private Tokens load() {
+        String stored = mContext.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).getString(KEY_TOKENS, null);
+        if (stored == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return null;
+        }
+        try {
+            byte[] data = Base64.decode(stored, Base64.NO_WRAP);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            // the first byte is the IV length
+            cipher.init(Cipher.DECRYPT_MODE, getKey(), new GCMParameterSpec(GCM_TAG_LENGTH, data, 1, data[0]));
+            byte[] plain = cipher.doFinal(data, 1 + data[0], data.length - 1 - data[0]);
+            JSONObject json = new JSONObject(new String(plain, StandardCharsets.UTF_8));
+            Tokens tokens = new Tokens(json.getString("username"),
+                    json.getString("accessToken"), json.getLong("accessExpire"),
+                    json.optString("refreshToken", null), json.optLong("refreshExpire"),
+                    json.getLong("issued"));
+            return tokens.isAccessTokenValid() || tokens.isRefreshTokenValid() ? tokens : null;
+        } catch (GeneralSecurityException | JSONException | IllegalArgumentException e) {
+            Log.e("VOXCRD", "TokenManager: failed to load tokens: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(Tokens tokens) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return;
+        }
+        try {
+            JSONObject json = new JSONObject();
+            json.put("username", tokens.username);
+            json.put("accessToken", tokens.accessToken);
+            json.put("accessExpire", tokens.accessExpire);
+            json.put("refreshToken", tokens.refreshToken);
+            json.put("refreshExpire", tokens.refreshExpire);
+            json.put("issued", tokens.issued);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, getKey());
+            byte[] iv = cipher.getIV();
+            byte[] encrypted = cipher.doFinal(json.toString().getBytes(StandardCharsets.UTF_8));
+            byte[] data = new byte[1 + iv.length + encrypted.length];
+            data[0] = (byte) iv.length;
+            System.arraycopy(iv, 0, data, 1, iv.length);
+            System.arraycopy(encrypted, 0, data, 1 + iv.length, encrypted.length);
+            mContext.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).edit()
+                    .putString(KEY_TOKENS, Base64.encodeToString(data, Base64.NO_WRAP))
+                    .apply();
+        } catch (GeneralSecurityException | JSONException e) {
+            Log.e("VOXCRD", "TokenManager: failed to save tokens: " + e.getMessage());
+        }
+    }
+
+    private static SecretKey getKey() throws GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+        try {
+            keyStore.load(null);
+        } catch (IOException e) {
+            throw new GeneralSecurityException(e);
+        }
+        KeyStore.Entry entry = keyStore.getEntry(KEY_ALIAS, null);
+        if (entry instanceof KeyStore.SecretKeyEntry) {
+            return ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+        }
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+        keyGenerator.init(new KeyGenParameterSpec.Builder(KEY_ALIAS,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(256)
+                .build());
+        return keyGenerator.generateKey();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.util.Log;
+
+import com.voximplant.sdk.call.ICall;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a DTMF string digit by digit at a fixed pace from a native scheduler.
+ *
+ * Digit i is due at start + i * interval, so a late digit does not delay the following ones. The SDK sends every
+ * digit with its own tone length, interval only sets the spacing. The SDK is called outside the sequence lock.
+ */
+class ToneSequence {
+    private final ICall mCall;
+    private final String mTones;
+    private final long mIntervalNanos;
+    private final ScheduledExecutorService mScheduler;
+    private CallbackContext mCallbackContext;
+    private ScheduledFuture<?> mNextTone;
+    private long mStartNanos;
+    private int mSent;
+    private String mResult;
+
+    ToneSequence(ICall call, String tones, int intervalMs, ScheduledExecutorService scheduler,
+                 CallbackContext callbackContext) {
+        mCall = call;
+        mTones = tones;
+        mIntervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        mScheduler = scheduler;
+        mCallbackContext = callbackContext;
+    }
+
+    synchronized void start() {
+        mStartNanos = System.nanoTime();
+        scheduleNextTone(0);
+    }
+
+    synchronized boolean isActive() {
+        return mResult == null;
+    }
+
+    /**
+     * Stops the sequence and rejects the pending sendToneSequence callback with the given code.
+     *
+     * @return false if the sequence is already finished
+     */
+    synchronized boolean cancel(String code) {
+        if (mResult != null) {
+            return false;
+        }
+        if (mNextTone != null) {
+            mNextTone.cancel(false);
+        }
+        finish(code);
+        return true;
+    }
+
+    synchronized JSONObject getProgress() {
+        JSONObject progress = new JSONObject();
+        try {
+            progress.put("active", mResult == null);
+            progress.put("sent", mSent);
+            progress.put("total", mTones.length());
+            if (mResult != null) {
+                progress.put("result", mResult);
+            }
+        } catch (JSONException e) {
+            Log.e("VOXCRD", "ToneSequence.getProgress: failed to create json");
+        }
+        return progress;
+    }
+
+    private void sendNextTone() {
+        String tone;
+        synchronized (this) {
+            if (mResult != null) {
+                return;
+            }
+            tone = String.valueOf(mTones.charAt(mSent));
+        }
+        mCall.sendDTMF(tone);
+        synchronized (this) {
+            mSent++;
+            if (mResult != null) {
+                // cancelled while the tone was being sent
+                return;
+            }
+            if (mSent == mTones.length()) {
+                finish("COMPLETED");
+                return;
+            }
+            long delayNanos = mStartNanos + mSent * mIntervalNanos - System.nanoTime();
+            scheduleNextTone(Math.max(0, delayNanos));
+        }
+    }
+
+    private void scheduleNextTone(long delayNanos) {
+        try {
+            mNextTone = mScheduler.schedule(this::sendNextTone, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // the plugin is being destroyed
+            finish("CANCELLED");
+        }
+    }
+
+    private void finish(String result) {
+        mResult = result;
+        mNextTone = null;
+        JSONObject progress = getProgress();
+        if ("COMPLETED".equals(result)) {
+            mCallbackContext.success(progress);
+        } else {
+            try {
+                progress.put("code", result);
+            } catch (JSONException e) {
+                Log.e("VOXCRD", "ToneSequence.finish: failed to create json");
+            }
+            mCallbackContext.error(progress);
+        }
+        mCallbackContext = null;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+import com.voximplant.sdk.call.IVideoStream;
+import com.voximplant.sdk.call.RenderScaleType;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.json.JSONArray;
+import org.webrtc.EglBase;
+import org.webrtc.SurfaceViewRenderer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Renders video streams natively into SurfaceViewRenderer views placed over or under the WebView.
+ *
+ * Frames go from the SDK to the renderers directly and never cross the JS bridge; JS only creates views,
+ * sets their layout in CSS pixels relative to the WebView and chooses the stream to render.
+ * The SDK and the renderers share one EGL context. It is handed to the SDK client, which lives as long as the
+ * process, so it is created once per process and never released. Views are only touched on the UI thread.
+ */
+class VideoViewManager {
+    private static final ArgumentSchema.Field VIEW_ID = ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field LAYOUT_X = ArgumentSchema.Field.optional(1, "x", ArgumentSchema.Type.INT, 0);
+    private static final ArgumentSchema.Field LAYOUT_Y = ArgumentSchema.Field.optional(1, "y", ArgumentSchema.Type.INT, 0);
+    private static final ArgumentSchema.Field LAYOUT_WIDTH = ArgumentSchema.Field.required(1, "width", ArgumentSchema.Type.INT);
+    private static final ArgumentSchema.Field LAYOUT_HEIGHT = ArgumentSchema.Field.required(1, "height", ArgumentSchema.Type.INT);
+    private static final ArgumentSchema.Field LAYOUT_PLACEMENT = ArgumentSchema.Field.optional(1, "placement", ArgumentSchema.Type.STRING, "OVER");
+    private static final ArgumentSchema.Field LAYOUT_MIRROR = ArgumentSchema.Field.optional(1, "mirror", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field LAYOUT_SCALE_TYPE = ArgumentSchema.Field.optional(1, "scaleType", ArgumentSchema.Type.STRING, "FILL");
+    // an update keeps the current values when these are omitted
+    private static final ArgumentSchema.Field UPDATE_MIRROR = ArgumentSchema.Field.optional(1, "mirror", ArgumentSchema.Type.BOOLEAN);
+    private static final ArgumentSchema.Field UPDATE_SCALE_TYPE = ArgumentSchema.Field.optional(1, "scaleType", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field VIDEO_STREAM_ID = ArgumentSchema.Field.optional(1, null, ArgumentSchema.Type.STRING);
+
+    private static final ArgumentSchema CREATE_VIDEO_VIEW = new ArgumentSchema("VideoView.create", VIEW_ID, LAYOUT_X, LAYOUT_Y,
+            LAYOUT_WIDTH, LAYOUT_HEIGHT, LAYOUT_PLACEMENT, LAYOUT_MIRROR, LAYOUT_SCALE_TYPE);
+    private static final ArgumentSchema UPDATE_VIDEO_VIEW = new ArgumentSchema("VideoView.update", VIEW_ID, LAYOUT_X, LAYOUT_Y,
+            LAYOUT_WIDTH, LAYOUT_HEIGHT, UPDATE_MIRROR, UPDATE_SCALE_TYPE);
+    private static final ArgumentSchema RENDER_VIDEO_STREAM = new ArgumentSchema("VideoView.render", VIEW_ID, VIDEO_STREAM_ID);
+    private static final ArgumentSchema REMOVE_VIDEO_VIEW = new ArgumentSchema("VideoView.remove", VIEW_ID);
+
+    private static final class VideoView {
+        final SurfaceViewRenderer renderer;
+        final boolean under;
+        RenderScaleType scaleType;
+        IVideoStream videoStream;
+
+        VideoView(SurfaceViewRenderer renderer, boolean under) {
+            this.renderer = renderer;
+            this.under = under;
+        }
+    }
+
+    private static final class CallVideoStream {
+        final String callId;
+        final IVideoStream videoStream;
+
+        CallVideoStream(String callId, IVideoStream videoStream) {
+            this.callId = callId;
+            this.videoStream = videoStream;
+        }
+    }
+
+    private static EglBase sEglBase;
+
+    private final CordovaWebView mWebView;
+    private final Activity mActivity;
+    private final ConcurrentMap<String, CallVideoStream> mVideoStreams = new ConcurrentHashMap<>();
+    // accessed on the UI thread only
+    private final Map<String, VideoView> mVideoViews = new HashMap<>();
+    // the WebView background replaced while there are views under it
+    private Drawable mWebViewBackground;
+    private int mUnderViewCount;
+
+    VideoViewManager(CordovaWebView webView, Activity activity) {
+        mWebView = webView;
+        mActivity = activity;
+    }
+
+    static synchronized EglBase getEglBase() {
+        if (sEglBase == null) {
+            sEglBase = EglBase.create();
+        }
+        return sEglBase;
+    }
+
+    void addVideoStream(String callId, IVideoStream videoStream) {
+        mVideoStreams.put(videoStream.getVideoStreamId(), new CallVideoStream(callId, videoStream));
+    }
+
+    /**
+     * Forgets the video streams of a call that has ended.
+     */
+    void removeVideoStreams(String callId) {
+        for (CallVideoStream callVideoStream : mVideoStreams.values()) {
+            if (callId.equals(callVideoStream.callId)) {
+                removeVideoStream(callVideoStream.videoStream);
+            }
+        }
+    }
+
+    void removeVideoStream(IVideoStream videoStream) {
+        if (mVideoStreams.remove(videoStream.getVideoStreamId()) == null) {
+            return;
+        }
+        mActivity.runOnUiThread(() -> {
+            for (VideoView videoView : mVideoViews.values()) {
+                if (videoView.videoStream == videoStream) {
+                    videoStream.removeVideoRenderer(videoView.renderer);
+                    videoView.videoStream = null;
+                }
+            }
+        });
+    }
+
+    boolean createVideoView(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = CREATE_VIDEO_VIEW.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        String viewId = arguments.getString(VIEW_ID);
+        String placement = arguments.getString(LAYOUT_PLACEMENT);
+        if (!"OVER".equals(placement) && !"UNDER".equals(placement)) {
+            callbackContext.error("Invalid placement: " + placement);
+            return true;
+        }
+        mActivity.runOnUiThread(() -> {
+            if (mVideoViews.containsKey(viewId)) {
+                callbackContext.error("Video view already exists: " + viewId);
+                return;
+            }
+            View webView = mWebView.getView();
+            ViewParent parent = webView.getParent();
+            if (!(parent instanceof ViewGroup)) {
+                callbackContext.error("WebView has no parent to place a video view in");
+                return;
+            }
+            SurfaceViewRenderer renderer = new SurfaceViewRenderer(mActivity);
+            renderer.init(getEglBase().getEglBaseContext(), null);
+            renderer.setEnableHardwareScaler(true);
+            ViewGroup container = (ViewGroup) parent;
+            boolean under = "UNDER".equals(placement);
+            if (under) {
+                if (mUnderViewCount++ == 0) {
+                    // the video shows through the transparent parts of the page
+                    mWebViewBackground = webView.getBackground();
+                    webView.setBackgroundColor(Color.TRANSPARENT);
+                }
+                container.addView(renderer, container.indexOfChild(webView));
+            } else {
+                renderer.setZOrderMediaOverlay(true);
+                container.addView(renderer);
+            }
+            VideoView videoView = new VideoView(renderer, under);
+            mVideoViews.put(viewId, videoView);
+            applyLayout(videoView, arguments);
+            renderer.setMirror(arguments.getBoolean(LAYOUT_MIRROR));
+            videoView.scaleType = convertScaleType(arguments.getString(LAYOUT_SCALE_TYPE));
+            callbackContext.success();
+        });
+        return true;
+    }
+
+    boolean updateVideoView(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = UPDATE_VIDEO_VIEW.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        mActivity.runOnUiThread(() -> {
+            VideoView videoView = findVideoView(arguments, callbackContext);
+            if (videoView == null) {
+                return;
+            }
+            RenderScaleType scaleType = videoView.scaleType;
+            applyLayout(videoView, arguments);
+            if (arguments.has(UPDATE_MIRROR)) {
+                videoView.renderer.setMirror(arguments.getBoolean(UPDATE_MIRROR));
+            }
+            if (arguments.has(UPDATE_SCALE_TYPE)) {
+                videoView.scaleType = convertScaleType(arguments.getString(UPDATE_SCALE_TYPE));
+            }
+            if (videoView.videoStream != null && videoView.scaleType != scaleType) {
+                videoView.videoStream.removeVideoRenderer(videoView.renderer);
+                videoView.videoStream.addVideoRenderer(videoView.renderer, videoView.scaleType);
+            }
+            callbackContext.success();
+        });
+        return true;
+    }
+
+    boolean renderVideoStream(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = RENDER_VIDEO_STREAM.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        String videoStreamId = arguments.getString(VIDEO_STREAM_ID);
+        mActivity.runOnUiThread(() -> {
+            VideoView videoView = findVideoView(arguments, callbackContext);
+            if (videoView == null) {
+                return;
+            }
+            IVideoStream videoStream = null;
+            if (videoStreamId != null) {
+                CallVideoStream callVideoStream = mVideoStreams.get(videoStreamId);
+                if (callVideoStream == null) {
+                    callbackContext.error("Failed to find video stream: " + videoStreamId);
+                    return;
+                }
+                videoStream = callVideoStream.videoStream;
+            }
+            if (videoView.videoStream != null) {
+                videoView.videoStream.removeVideoRenderer(videoView.renderer);
+            }
+            videoView.videoStream = videoStream;
+            if (videoStream != null) {
+                videoStream.addVideoRenderer(videoView.renderer, videoView.scaleType);
+            }
+            callbackContext.success();
+        });
+        return true;
+    }
+
+    boolean removeVideoView(JSONArray args, CallbackContext callbackContext) {
+        ArgumentSchema.Arguments arguments = REMOVE_VIDEO_VIEW.decode(args);
+        if (!arguments.isValid()) {
+            arguments.reportError(callbackContext);
+            return true;
+        }
+        mActivity.runOnUiThread(() -> {
+            VideoView videoView = findVideoView(arguments, callbackContext);
+            if (videoView == null) {
+                return;
+            }
+            mVideoViews.remove(arguments.getString(VIEW_ID));
+            releaseVideoView(videoView);
+            callbackContext.success();
+        });
+        return true;
+    }
+
+    /**
+     * Removes all video views, called when the page is reloaded.
+     */
+    void removeVideoViews() {
+        mActivity.runOnUiThread(() -> {
+            for (VideoView videoView : mVideoViews.values()) {
+                releaseVideoView(videoView);
+            }
+            mVideoViews.clear();
+        });
+    }
+
+    void release() {
+        removeVideoViews();
+    }
+
+    private VideoView findVideoView(ArgumentSchema.Arguments arguments, CallbackContext callbackContext) {
+        String viewId = arguments.getString(VIEW_ID);
+        VideoView videoView = mVideoViews.get(viewId);
+        if (videoView == null) {
+            callbackContext.error("Failed to find video view: " + viewId);
+        }
+        return videoView;
+    }
+
+    private void applyLayout(VideoView videoView, ArgumentSchema.Arguments arguments) {
+        float density = mActivity.getResources().getDisplayMetrics().density;
+        View webView = mWebView.getView();
+        SurfaceViewRenderer renderer = videoView.renderer;
+        renderer.setLayoutParams(new ViewGroup.LayoutParams(Math.round(arguments.getInt(LAYOUT_WIDTH) * density),
+                Math.round(arguments.getInt(LAYOUT_HEIGHT) * density)));
+        renderer.setX(webView.getX() + arguments.getInt(LAYOUT_X) * density);
+        renderer.setY(webView.getY() + arguments.getInt(LAYOUT_Y) * density);
+    }
+
+    private static RenderScaleType convertScaleType(String scaleType) {
+        return "FIT".equals(scaleType) ? RenderScaleType.SCALE_FIT : RenderScaleType.SCALE_FILL;
+    }
+
+    private void releaseVideoView(VideoView videoView) {
+        if (videoView.under && --mUnderViewCount == 0) {
+            mWebView.getView().setBackground(mWebViewBackground);
+            mWebViewBackground = null;
+        }
+        if (videoView.videoStream != null) {
+            videoView.videoStream.removeVideoRenderer(videoView.renderer);
+            videoView.videoStream = null;
+        }
+        ViewParent parent = videoView.renderer.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(videoView.renderer);
+        }
+        videoView.renderer.release();
+    }
+}
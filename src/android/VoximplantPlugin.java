@@ -10,103 +10,268 @@ import org.apache.cordova.CallbackContext;
 import org.json.JSONArray;
 import org.json.JSONException;
 
+import java.util.Map;
+
 public class VoximplantPlugin extends CordovaPlugin {
     private ClientModule mClientModule;
+    private PushHandler.Receiver mPushReceiver;
     private CallManager mCallManager;
+    private ActionExecutor mActionExecutor;
+    private BridgeMetrics mBridgeMetrics;
+    private VideoViewManager mVideoViewManager;
 
     @Override
     protected void pluginInitialize() {
-        mCallManager = new CallManager(webView);
-        mClientModule = new ClientModule(mCallManager, webView);
+        mBridgeMetrics = new BridgeMetrics();
+        mVideoViewManager = new VideoViewManager(webView, cordova.getActivity());
+        mCallManager = new CallManager(mBridgeMetrics, mVideoViewManager);
+        mActionExecutor = new ActionExecutor();
+        mClientModule = new ClientModule(mCallManager, webView, cordova.getContext(),
+                runnable -> mActionExecutor.executeClientAction(runnable, null));
+        mPushReceiver = (payload, receivedAt) -> mActionExecutor.executeClientAction(measured("handlePushNotification",
+                () -> mClientModule.handlePushNotification(payload, receivedAt)), null);
+        // the plugin is loaded on startup, so a push that has started the app is handled while the page loads
+        PushHandler.getInstance().attach(mPushReceiver);
+        CodecProbe.getInstance().init(cordova.getContext());
+        cordova.getThreadPool().execute(() -> CodecProbe.getInstance().getCapabilities());
+    }
+
+    /**
+     * Passes a push notification to the Voximplant SDK, to be called from the FirebaseMessagingService of the app.
+     * The push may arrive before the WebView is loaded: the client is then connected and logged in with the tokens
+     * stored with ClientConfig.tokenManagement, and the IncomingCall event is delivered once JS is ready.
+     *
+     * @param payload the data of the RemoteMessage
+     * @return false if the push is not sent by Voximplant
+     */
+    public static boolean handlePushNotification(Map<String, String> payload) {
+        return PushHandler.getInstance().handle(payload);
+    }
+
+    @Override
+    public void onPause(boolean multitasking) {
+        mCallManager.pauseEvents();
+        super.onPause(multitasking);
+    }
+
+    @Override
+    public void onResume(boolean multitasking) {
+        super.onResume(multitasking);
+        mCallManager.resumeEvents();
+    }
+
+    @Override
+    public void onReset() {
+        mCallManager.resetEvents();
+        mClientModule.reset();
+        mVideoViewManager.removeVideoViews();
+        super.onReset();
+    }
+
+    @Override
+    public void onDestroy() {
+        PushHandler.getInstance().detach(mPushReceiver);
+        mActionExecutor.shutdown();
+        mClientModule.release();
+        mCallManager.release();
+        mVideoViewManager.release();
+        super.onDestroy();
     }
 
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) {
+        switch (action) {
+            case "registerEventChannel":
+                mCallManager.registerEventChannel(args, callbackContext);
+                return true;
+            case "setEventSubscriptions":
+                return mCallManager.setEventSubscriptions(args, callbackContext);
+            case "createVideoView":
+                return mVideoViewManager.createVideoView(args, callbackContext);
+            case "updateVideoView":
+                return mVideoViewManager.updateVideoView(args, callbackContext);
+            case "renderVideoStream":
+                return mVideoViewManager.renderVideoStream(args, callbackContext);
+            case "removeVideoView":
+                return mVideoViewManager.removeVideoView(args, callbackContext);
+            case "batch":
+                return CommandBatch.execute(this::dispatch, webView, args, callbackContext);
+        }
+        return dispatch(action, args, callbackContext);
+    }
+
+    private boolean dispatch(String action, JSONArray args, CallbackContext callbackContext) {
         switch (action) {
             case "initClient":
-                return mClientModule.createClient(args, callbackContext, cordova.getContext());
             case "connect":
-                return mClientModule.connect(args, callbackContext);
             case "login":
-                return mClientModule.login(args, callbackContext);
             case "getClientState":
-                return mClientModule.getClientState(callbackContext);
             case "loginWithToken":
-                return mClientModule.loginWithToken(args, callbackContext);
             case "loginWithOneTimeKey":
-                return mClientModule.loginWithOneTimeKey(args, callbackContext);
             case "requestOneTimeKey":
-                return mClientModule.requestOneTimeKey(args, callbackContext);
             case "tokenRefresh":
-                return mClientModule.refreshTokens(args, callbackContext);
             case "disconnect":
-                return mClientModule.disconnect(callbackContext);
             case "call":
-                return mClientModule.call(args, callbackContext);
-            case "hangup": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.hangup(args, callbackContext);
-                }
-                return true;
-            }
-            case "answer": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.answer(args, callbackContext);
-                }
-                return true;
-            }
-            case "decline": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.decline(args, callbackContext);
-                }
-                return true;
-            }
-            case "reject": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.reject(args, callbackContext);
-                }
-                return true;
-            }
-            case "sendAudio": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.sendAudio(args, callbackContext);
-                }
+            case "getCallStats":
+            case "getBridgeMetrics":
+            case "getCallSetupStats":
+            case "getCallHeaders":
+            case "getVideoCodecCapabilities":
+            case "clearTokens":
+            case "registerPushNotificationsToken":
+            case "unregisterPushNotificationsToken":
+            case "handlePushNotification":
+            case "prepareCall":
+            case "startPreparedCall":
+                mActionExecutor.executeClientAction(measured(action,
+                        () -> executeClientAction(action, args, callbackContext)), callbackContext);
                 return true;
-            }
-            case "sendTone": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.sendTone(args, callbackContext);
-                }
+            case "hangup":
+            case "answer":
+            case "decline":
+            case "reject":
+            case "sendAudio":
+            case "sendTone":
+            case "sendMessage":
+            case "sendInfo":
+            case "hold":
+            case "sendToneSequence":
+            case "cancelToneSequence":
+            case "getToneSequenceProgress":
+            case "configureOutboundQueue":
+            case "getOutboundQueueStats":
+                mActionExecutor.executeCallAction(args.optString(0), measured(action,
+                        () -> executeCallAction(action, args, callbackContext)), callbackContext);
                 return true;
-            }
-            case "sendMessage": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.sendMessage(args, callbackContext);
-                }
-                return true;
-            }
-            case "sendInfo": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.sendInfo(args, callbackContext);
-                }
-                return true;
-            }
-            case "hold": {
-                CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
-                if (callModule != null) {
-                    callModule.hold(args, callbackContext);
-                }
-                return true;
-            }
         }
         return false;
     }
+
+    private Runnable measured(String action, Runnable runnable) {
+        long submittedNanos = System.nanoTime();
+        return () -> {
+            long startedNanos = System.nanoTime();
+            runnable.run();
+            mBridgeMetrics.recordAction(action, startedNanos - submittedNanos, System.nanoTime() - startedNanos);
+        };
+    }
+
+    private void executeClientAction(String action, JSONArray args, CallbackContext callbackContext) {
+        switch (action) {
+            case "initClient":
+                mClientModule.createClient(args, callbackContext, cordova.getContext());
+                break;
+            case "connect":
+                mClientModule.connect(args, callbackContext);
+                break;
+            case "login":
+                mClientModule.login(args, callbackContext);
+                break;
+            case "getClientState":
+                mClientModule.getClientState(callbackContext);
+                break;
+            case "loginWithToken":
+                mClientModule.loginWithToken(args, callbackContext);
+                break;
+            case "loginWithOneTimeKey":
+                mClientModule.loginWithOneTimeKey(args, callbackContext);
+                break;
+            case "requestOneTimeKey":
+                mClientModule.requestOneTimeKey(args, callbackContext);
+                break;
+            case "tokenRefresh":
+                mClientModule.refreshTokens(args, callbackContext);
+                break;
+            case "disconnect":
+                mClientModule.disconnect(callbackContext);
+                break;
+            case "call":
+                mClientModule.call(args, callbackContext);
+                break;
+            case "getCallStats":
+                mCallManager.getCallStats(callbackContext);
+                break;
+            case "getBridgeMetrics":
+                mBridgeMetrics.getBridgeMetrics(args, mCallManager, callbackContext);
+                break;
+            case "getCallSetupStats":
+                mCallManager.getCallSetupStats().getCallSetupStats(callbackContext);
+                break;
+            case "getCallHeaders":
+                mCallManager.getHeaderCache().getCallHeaders(args, callbackContext);
+                break;
+            case "getVideoCodecCapabilities":
+                CodecProbe.getInstance().getVideoCodecCapabilities(callbackContext);
+                break;
+            case "clearTokens":
+                mClientModule.clearTokens(callbackContext);
+                break;
+            case "registerPushNotificationsToken":
+                mClientModule.registerPushNotificationsToken(args, callbackContext);
+                break;
+            case "unregisterPushNotificationsToken":
+                mClientModule.unregisterPushNotificationsToken(args, callbackContext);
+                break;
+            case "handlePushNotification":
+                mClientModule.handlePushNotification(args, callbackContext);
+                break;
+            case "prepareCall":
+                mClientModule.prepareCall(args, callbackContext);
+                break;
+            case "startPreparedCall":
+                mClientModule.startPreparedCall(args, callbackContext);
+                break;
+        }
+    }
+
+    private void executeCallAction(String action, JSONArray args, CallbackContext callbackContext) {
+        CallModule callModule = mCallManager.checkCallEvent(args, callbackContext);
+        if (callModule == null) {
+            return;
+        }
+        switch (action) {
+            case "hangup":
+                callModule.hangup(args, callbackContext);
+                break;
+            case "answer":
+                callModule.answer(args, callbackContext);
+                break;
+            case "decline":
+                callModule.decline(args, callbackContext);
+                break;
+            case "reject":
+                callModule.reject(args, callbackContext);
+                break;
+            case "sendAudio":
+                callModule.sendAudio(args, callbackContext);
+                break;
+            case "sendTone":
+                callModule.sendTone(args, callbackContext);
+                break;
+            case "sendMessage":
+                callModule.sendMessage(args, callbackContext);
+                break;
+            case "sendInfo":
+                callModule.sendInfo(args, callbackContext);
+                break;
+            case "hold":
+                callModule.hold(args, callbackContext);
+                break;
+            case "sendToneSequence":
+                callModule.sendToneSequence(args, callbackContext);
+                break;
+            case "cancelToneSequence":
+                callModule.cancelToneSequence(callbackContext);
+                break;
+            case "getToneSequenceProgress":
+                callModule.getToneSequenceProgress(callbackContext);
+                break;
+            case "configureOutboundQueue":
+                callModule.configureOutboundQueue(args, callbackContext);
+                break;
+            case "getOutboundQueueStats":
+                callModule.getOutboundQueueStats(callbackContext);
+                break;
+        }
+    }
 }
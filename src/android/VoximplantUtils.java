@@ -30,6 +30,27 @@ class VoximplantUtils {
         }
     }
 
+    static OutboundQueue.DropPolicy convertStringToDropPolicy(String policy) {
+        switch (policy) {
+            case "DROP_OLDEST":
+                return OutboundQueue.DropPolicy.DROP_OLDEST;
+            case "DROP_NEWEST":
+                return OutboundQueue.DropPolicy.DROP_NEWEST;
+            default:
+                return null;
+        }
+    }
+
+    static CallbackExecutor.Mode convertStringToCallbackExecutorMode(String mode) {
+        switch (mode) {
+            case "MAIN":
+                return CallbackExecutor.Mode.MAIN;
+            case "SHARED":
+            default:
+                return CallbackExecutor.Mode.SHARED;
+        }
+    }
+
     static int convertLoginErrorToInt(LoginError error) {
         switch (error) {
             case INVALID_PASSWORD:
@@ -90,6 +111,8 @@ class VoximplantUtils {
                 return VideoCodec.VP8;
             case "H264":
                 return VideoCodec.H264;
+            case "OPTIMAL":
+                return CodecProbe.getInstance().getOptimalCodec();
             case "AUTO":
             default:
                 return VideoCodec.AUTO;
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The call actions that decode call settings with extra headers, from the exec arguments to the SDK request.
+ * The arguments are already parsed from the exec message, as Cordova passes them to the plugin.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentParsingBenchmark {
+    @Param({"0", "1", "5", "10", "25", "50"})
+    public int headerCount;
+
+    private Bridge mBridge;
+    private JSONArray mAnswerArgs;
+    private JSONArray mCallArgs;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mBridge = new Bridge();
+        JSONObject callSettings = new JSONObject()
+                .put("customData", "benchmark")
+                .put("video", new JSONObject().put("sendVideo", true).put("receiveVideo", true))
+                .put("preferredVideoCodec", "VP8");
+        if (headerCount > 0) {
+            callSettings.put("extraHeaders", SipHeaders.createJSONObject(headerCount));
+        }
+        mAnswerArgs = new JSONArray().put(Bridge.CALL_ID).put(callSettings);
+        mCallArgs = new JSONArray().put("+15551234567").put(callSettings);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mBridge.release();
+    }
+
+    @Benchmark
+    public long callModuleAnswer() {
+        mBridge.callModule.answer(mAnswerArgs, mBridge.callbackContext());
+        return mBridge.webView.getResultCount();
+    }
+
+    @Benchmark
+    public long clientModuleCall() {
+        mBridge.clientModule.call(mCallArgs, mBridge.callbackContext());
+        // the call is never connected, drop it so the call table does not grow
+        mBridge.callManager.callHasEnded(Bridge.CALL_ID);
+        return mBridge.webView.getResultCount();
+    }
+}
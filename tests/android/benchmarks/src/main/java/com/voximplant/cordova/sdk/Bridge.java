@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.app.Activity;
+import android.os.Looper;
+
+import com.voximplant.sdk.Voximplant;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+
+/**
+ * The plugin modules wired as in VoximplantPlugin, with a stub call and the event channel registered.
+ * Posted work runs on the benchmark thread with {@link #runLooper()}.
+ */
+final class Bridge {
+    static final String CALL_ID = "call-1";
+
+    final NullWebView webView = new NullWebView();
+    final BridgeMetrics bridgeMetrics = new BridgeMetrics();
+    final CallManager callManager;
+    final ClientModule clientModule;
+    final StubEndpoint endpoint = new StubEndpoint("endpoint-1");
+    final StubCall call = new StubCall(CALL_ID, endpoint);
+    final CallModule callModule;
+
+    Bridge() {
+        Looper.getMainLooper().clear();
+        Activity activity = new Activity();
+        callManager = new CallManager(bridgeMetrics, new VideoViewManager(webView, activity));
+        clientModule = new ClientModule(callManager, webView, activity, Runnable::run);
+        Voximplant.setClientInstance(new StubClient(call));
+        clientModule.createClient(new JSONArray(), callbackContext(), activity);
+        callModule = new CallModule(call, callManager);
+        callManager.addNewCall(CALL_ID, callModule);
+        callManager.registerEventChannel(new JSONArray(), new CallbackContext("events", webView));
+        runLooper();
+    }
+
+    CallbackContext callbackContext() {
+        return new CallbackContext("action", webView);
+    }
+
+    void runLooper() {
+        Looper.getMainLooper().runAll();
+    }
+
+    void release() {
+        clientModule.release();
+        callManager.release();
+        Voximplant.setClientInstance(null);
+        Looper.getMainLooper().clear();
+    }
+}
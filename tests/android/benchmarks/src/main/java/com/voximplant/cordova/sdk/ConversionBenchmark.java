@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Header conversions between the SDK maps and the JSON objects of the exec arguments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+    @Param({"0", "1", "5", "10", "25", "50"})
+    public int headerCount;
+
+    private JSONObject mJSONObject;
+    private Map<String, String> mMap;
+
+    @Setup
+    public void setUp() {
+        mJSONObject = SipHeaders.createJSONObject(headerCount);
+        mMap = SipHeaders.create(headerCount);
+    }
+
+    @Benchmark
+    public Map<String, String> convertJSONObjectToMap() {
+        return VoximplantUtils.convertJSONObjectToMap(mJSONObject);
+    }
+
+    @Benchmark
+    public JSONObject convertMapToJSONObject() {
+        return VoximplantUtils.convertMapToJSONObject(mMap);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivery of the events without SIP headers, from the SDK callback to the plugin result of the event channel.
+ * The events with headers are measured by {@link HeaderEventBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+    @Param({"CALL_PROGRESS_TONE_STOP", "CALL_MESSAGE_RECEIVED", "CALL_ICE_TIMEOUT", "CALL_ICE_COMPLETED",
+            "CALL_ENDPOINT_ADDED", "ENDPOINT_REMOVED", "ENDPOINT_INFO_UPDATED", "CALL_LOCAL_VIDEO_STREAM_ADDED",
+            "CALL_LOCAL_VIDEO_STREAM_REMOVED", "ENDPOINT_REMOTE_VIDEO_STREAM_ADDED",
+            "ENDPOINT_REMOTE_VIDEO_STREAM_REMOVED", "AUTH_RESULT", "REFRESH_TOKEN_RESULT", "RECONNECTING",
+            "RECONNECTED"})
+    public String eventType;
+
+    private Bridge mBridge;
+    private Runnable mEvent;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mBridge = new Bridge();
+        mEvent = EventSources.create(EventType.valueOf(eventType), mBridge, Collections.emptyMap());
+    }
+
+    @TearDown
+    public void tearDown() {
+        mBridge.release();
+    }
+
+    @Benchmark
+    public long deliver() {
+        mEvent.run();
+        mBridge.runLooper();
+        return mBridge.webView.getEncodedLength();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Produces each event the way the plugin does: call and endpoint events through the SDK listener callbacks of
+ * CallModule and ClientModule, client events with the writers of ClientModule and ReconnectSupervisor, which are
+ * only reachable through their private paths.
+ */
+final class EventSources {
+    private EventSources() {
+    }
+
+    static Runnable create(EventType type, Bridge bridge, Map<String, String> headers) throws JSONException {
+        CallModule callModule = bridge.callModule;
+        StubCall call = bridge.call;
+        StubEndpoint endpoint = bridge.endpoint;
+        StubEndpoint.VideoStream videoStream = new StubEndpoint.VideoStream("stream-1");
+        switch (type) {
+            case INCOMING_CALL:
+                return () -> bridge.clientModule.onIncomingCall(call, true, headers);
+            case CALL_CONNECTED:
+                return () -> callModule.onCallConnected(call, headers);
+            case CALL_DISCONNECTED:
+                return () -> callModule.onCallDisconnected(call, headers, false);
+            case CALL_FAILED:
+                return () -> callModule.onCallFailed(call, 486, "Busy Here", headers);
+            case CALL_PROGRESS_TONE_START:
+                return () -> callModule.onCallRinging(call, headers);
+            case CALL_PROGRESS_TONE_STOP:
+                return () -> callModule.onCallAudioStarted(call);
+            case CALL_INFO_RECEIVED:
+                return () -> callModule.onSIPInfoReceived(call, "application/json", "{\"state\":\"ready\"}", headers);
+            case CALL_MESSAGE_RECEIVED:
+                return () -> callModule.onMessageReceived(call, "Operator is typing");
+            case CALL_ICE_TIMEOUT:
+                return () -> callModule.onICETimeout(call);
+            case CALL_ICE_COMPLETED:
+                return () -> callModule.onICECompleted(call);
+            case CALL_ENDPOINT_ADDED:
+                return () -> callModule.onEndpointAdded(call, endpoint);
+            case ENDPOINT_REMOVED:
+                return () -> callModule.onEndpointRemoved(endpoint);
+            case ENDPOINT_INFO_UPDATED:
+                return () -> callModule.onEndpointInfoUpdated(endpoint);
+            case CALL_LOCAL_VIDEO_STREAM_ADDED:
+                return () -> callModule.onLocalVideoStreamAdded(call, videoStream);
+            case CALL_LOCAL_VIDEO_STREAM_REMOVED:
+                return () -> callModule.onLocalVideoStreamRemoved(call, videoStream);
+            case ENDPOINT_REMOTE_VIDEO_STREAM_ADDED:
+                return () -> callModule.onRemoteVideoStreamAdded(endpoint, videoStream);
+            case ENDPOINT_REMOTE_VIDEO_STREAM_REMOVED:
+                return () -> callModule.onRemoteVideoStreamRemoved(endpoint, videoStream);
+            case AUTH_RESULT: {
+                String data = new PluginResult(PluginResult.Status.OK, new JSONObject()
+                        .put("displayName", "User endpoint-1")
+                        .put("tokens", createTokens())).getMessage();
+                return () -> bridge.callManager.sendEventToJS(EventWriter.begin(EventType.AUTH_RESULT)
+                        .field("result", true)
+                        .json("data", data));
+            }
+            case REFRESH_TOKEN_RESULT: {
+                String data = new PluginResult(PluginResult.Status.OK, new JSONObject()
+                        .put("tokens", createTokens())).getMessage();
+                return () -> bridge.callManager.sendEventToJS(EventWriter.begin(EventType.REFRESH_TOKEN_RESULT)
+                        .field("result", true)
+                        .json("data", data));
+            }
+            case RECONNECTING:
+                return () -> bridge.callManager.sendEventToJS(EventWriter.begin(EventType.RECONNECTING)
+                        .field("attempt", 3)
+                        .field("delay", 4000)
+                        .field("reason", "connectionClosed"));
+            case RECONNECTED:
+                return () -> bridge.callManager.sendEventToJS(EventWriter.begin(EventType.RECONNECTED)
+                        .field("attempts", 3)
+                        .field("downtime", 9250L)
+                        .field("loggedIn", true));
+        }
+        throw new IllegalArgumentException("Unknown event type: " + type);
+    }
+
+    private static JSONObject createTokens() throws JSONException {
+        return new JSONObject()
+                .put("accessToken", "a1b2c3d4e5f60718293a4b5c6d7e8f90")
+                .put("accessExpire", 3600)
+                .put("refreshToken", "0f1e2d3c4b5a69788796a5b4c3d2e1f0")
+                .put("refreshExpire", 2592000);
+    }
+}
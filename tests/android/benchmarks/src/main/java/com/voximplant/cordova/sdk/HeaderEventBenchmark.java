@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivery of the events that carry SIP headers, from the SDK callback to the plugin result of the event channel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderEventBenchmark {
+    @Param({"INCOMING_CALL", "CALL_CONNECTED", "CALL_DISCONNECTED", "CALL_FAILED", "CALL_PROGRESS_TONE_START",
+            "CALL_INFO_RECEIVED"})
+    public String eventType;
+
+    @Param({"0", "1", "5", "10", "25", "50"})
+    public int headerCount;
+
+    // lazy delivery only sends a handle to the headers, see CallManager.writeHeaders
+    @Param({"false", "true"})
+    public boolean lazyHeaders;
+
+    private Bridge mBridge;
+    private Runnable mEvent;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mBridge = new Bridge();
+        mBridge.callManager.setLazyHeaders(lazyHeaders);
+        mEvent = EventSources.create(EventType.valueOf(eventType), mBridge, SipHeaders.create(headerCount));
+    }
+
+    @TearDown
+    public void tearDown() {
+        mBridge.release();
+    }
+
+    @Benchmark
+    public long deliver() {
+        mEvent.run();
+        mBridge.runLooper();
+        return mBridge.webView.getEncodedLength();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.Context;
+import android.view.View;
+
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+
+/**
+ * Drops the plugin results after encoding them, as the bridge does before passing them to JS.
+ */
+final class NullWebView implements CordovaWebView {
+    private long mResults;
+    private long mChars;
+
+    long getResultCount() {
+        return mResults;
+    }
+
+    long getEncodedLength() {
+        return mChars;
+    }
+
+    @Override
+    public void sendPluginResult(PluginResult cr, String callbackId) {
+        mResults++;
+        mChars += cr.getMessage().length();
+    }
+
+    @Override
+    public View getView() {
+        return null;
+    }
+
+    @Override
+    public Context getContext() {
+        return null;
+    }
+
+    @Override
+    public void loadUrl(String url) {
+    }
+}
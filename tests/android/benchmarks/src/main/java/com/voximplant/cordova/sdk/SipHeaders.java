@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Custom SIP headers of the sizes seen in calls: X- names and values of 8 to 64 characters.
+ */
+final class SipHeaders {
+    private SipHeaders() {
+    }
+
+    static Map<String, String> create(int count) {
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder value = new StringBuilder("v" + i + "-");
+            while (value.length() < 8 + (i * 7) % 57) {
+                value.append((char) ('a' + value.length() % 26));
+            }
+            headers.put(String.format("X-Custom-Header-%02d", i), value.toString());
+        }
+        return headers;
+    }
+
+    static JSONObject createJSONObject(int count) {
+        JSONObject object = new JSONObject();
+        try {
+            for (Map.Entry<String, String> header : create(count).entrySet()) {
+                object.put(header.getKey(), header.getValue());
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return object;
+    }
+}
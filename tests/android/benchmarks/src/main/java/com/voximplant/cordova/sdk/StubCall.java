@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.CallSettings;
+import com.voximplant.sdk.call.ICall;
+import com.voximplant.sdk.call.ICallCompletionHandler;
+import com.voximplant.sdk.call.ICallListener;
+import com.voximplant.sdk.call.IEndpoint;
+import com.voximplant.sdk.call.IVideoStream;
+import com.voximplant.sdk.call.RejectMode;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Call that accepts every request and never reports anything on its own.
+ */
+final class StubCall implements ICall {
+    private final String mCallId;
+    private final List<IEndpoint> mEndpoints;
+
+    StubCall(String callId, IEndpoint endpoint) {
+        mCallId = callId;
+        mEndpoints = Collections.singletonList(endpoint);
+    }
+
+    @Override
+    public String getCallId() {
+        return mCallId;
+    }
+
+    @Override
+    public List<IEndpoint> getEndpoints() {
+        return mEndpoints;
+    }
+
+    @Override
+    public List<IVideoStream> getLocalVideoStreams() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void addCallListener(ICallListener listener) {
+    }
+
+    @Override
+    public void removeCallListener(ICallListener listener) {
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void answer(CallSettings settings) {
+    }
+
+    @Override
+    public void reject(RejectMode mode, Map<String, String> headers) {
+    }
+
+    @Override
+    public void hangup(Map<String, String> headers) {
+    }
+
+    @Override
+    public void sendAudio(boolean enable) {
+    }
+
+    @Override
+    public void sendDTMF(String dtmf) {
+    }
+
+    @Override
+    public void sendMessage(String message) {
+    }
+
+    @Override
+    public void sendInfo(String mimeType, String body, Map<String, String> headers) {
+    }
+
+    @Override
+    public void hold(boolean enable, ICallCompletionHandler handler) {
+        handler.onComplete();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.CallSettings;
+import com.voximplant.sdk.call.ICall;
+import com.voximplant.sdk.client.ClientState;
+import com.voximplant.sdk.client.IClient;
+import com.voximplant.sdk.client.IClientIncomingCallListener;
+import com.voximplant.sdk.client.IClientLoginListener;
+import com.voximplant.sdk.client.IClientSessionListener;
+import com.voximplant.sdk.client.IPushTokenCompletionHandler;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logged in client that returns the same call for every outgoing call.
+ */
+final class StubClient implements IClient {
+    private final ICall mCall;
+
+    StubClient(ICall call) {
+        mCall = call;
+    }
+
+    @Override
+    public ClientState getClientState() {
+        return ClientState.LOGGED_IN;
+    }
+
+    @Override
+    public void connect(boolean connectivityCheck, List<String> servers) {
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+    @Override
+    public void login(String username, String password) {
+    }
+
+    @Override
+    public void loginWithAccessToken(String username, String token) {
+    }
+
+    @Override
+    public void loginWithOneTimeKey(String username, String hash) {
+    }
+
+    @Override
+    public void requestOneTimeKey(String username) {
+    }
+
+    @Override
+    public void refreshToken(String username, String refreshToken) {
+    }
+
+    @Override
+    public ICall call(String number, CallSettings callSettings) {
+        return mCall;
+    }
+
+    @Override
+    public void setClientSessionListener(IClientSessionListener listener) {
+    }
+
+    @Override
+    public void setClientLoginListener(IClientLoginListener listener) {
+    }
+
+    @Override
+    public void setClientIncomingCallListener(IClientIncomingCallListener listener) {
+    }
+
+    @Override
+    public void registerForPushNotifications(String pushToken, IPushTokenCompletionHandler handler) {
+    }
+
+    @Override
+    public void unregisterFromPushNotifications(String pushToken, IPushTokenCompletionHandler handler) {
+    }
+
+    @Override
+    public void handlePushNotification(Map<String, String> message) {
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.IEndpoint;
+import com.voximplant.sdk.call.IEndpointListener;
+import com.voximplant.sdk.call.IVideoStream;
+import com.voximplant.sdk.call.RenderScaleType;
+
+import org.webrtc.VideoSink;
+
+import java.util.Collections;
+import java.util.List;
+
+final class StubEndpoint implements IEndpoint {
+    static final class VideoStream implements IVideoStream {
+        private final String mVideoStreamId;
+
+        VideoStream(String videoStreamId) {
+            mVideoStreamId = videoStreamId;
+        }
+
+        @Override
+        public String getVideoStreamId() {
+            return mVideoStreamId;
+        }
+
+        @Override
+        public void addVideoRenderer(VideoSink renderer, RenderScaleType scaleType) {
+        }
+
+        @Override
+        public void removeVideoRenderer(VideoSink renderer) {
+        }
+    }
+
+    private final String mEndpointId;
+
+    StubEndpoint(String endpointId) {
+        mEndpointId = endpointId;
+    }
+
+    @Override
+    public String getEndpointId() {
+        return mEndpointId;
+    }
+
+    @Override
+    public String getUserName() {
+        return "user-" + mEndpointId;
+    }
+
+    @Override
+    public String getUserDisplayName() {
+        return "User " + mEndpointId;
+    }
+
+    @Override
+    public String getSipUri() {
+        return "sip:user-" + mEndpointId + "@app.account.voximplant.com";
+    }
+
+    @Override
+    public List<IVideoStream> getVideoStreams() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void setEndpointListener(IEndpointListener listener) {
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArgumentSchemaTest {
+    private static final ArgumentSchema.Field CALL_ID =
+            ArgumentSchema.Field.required(0, null, ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field VIDEO =
+            ArgumentSchema.Field.optional(1, "video.sendVideo", ArgumentSchema.Type.BOOLEAN, false);
+    private static final ArgumentSchema.Field TIMEOUT =
+            ArgumentSchema.Field.optional(1, "timeout", ArgumentSchema.Type.INT, 30);
+    private static final ArgumentSchema.Field CUSTOM_DATA =
+            ArgumentSchema.Field.optional(1, "customData", ArgumentSchema.Type.STRING);
+    private static final ArgumentSchema.Field HEADERS =
+            ArgumentSchema.Field.optional(2, null, ArgumentSchema.Type.STRING_MAP);
+    private static final ArgumentSchema.Field SETTINGS =
+            ArgumentSchema.Field.optional(1, null, ArgumentSchema.Type.OBJECT);
+    private static final ArgumentSchema.Field SERVERS =
+            ArgumentSchema.Field.optional(3, null, ArgumentSchema.Type.ARRAY);
+    private static final ArgumentSchema SCHEMA =
+            new ArgumentSchema("test", CALL_ID, VIDEO, TIMEOUT, CUSTOM_DATA, HEADERS, SETTINGS, SERVERS);
+
+    @Test
+    public void decodesFields() throws JSONException {
+        JSONObject settings = new JSONObject()
+                .put("video", new JSONObject().put("sendVideo", true))
+                .put("timeout", 10)
+                .put("customData", "data");
+        JSONArray args = new JSONArray()
+                .put("call")
+                .put(settings)
+                .put(new JSONObject().put("X-Key", "value"))
+                .put(new JSONArray().put("server"));
+
+        ArgumentSchema.Arguments arguments = SCHEMA.decode(args);
+
+        assertTrue(arguments.isValid());
+        assertEquals("call", arguments.getString(CALL_ID));
+        assertTrue(arguments.getBoolean(VIDEO));
+        assertEquals(10, arguments.getInt(TIMEOUT));
+        assertEquals("data", arguments.getString(CUSTOM_DATA));
+        Map<String, String> headers = arguments.getStringMap(HEADERS);
+        assertEquals(1, headers.size());
+        assertEquals("value", headers.get("X-Key"));
+        assertEquals(settings, arguments.getJSONObject(SETTINGS));
+        assertEquals(1, arguments.getJSONArray(SERVERS).length());
+    }
+
+    @Test
+    public void usesDefaultsForMissingAndNullFields() throws JSONException {
+        JSONArray args = new JSONArray()
+                .put("call")
+                .put(new JSONObject().put("video", JSONObject.NULL).put("customData", JSONObject.NULL))
+                .put(JSONObject.NULL);
+
+        ArgumentSchema.Arguments arguments = SCHEMA.decode(args);
+
+        assertTrue(arguments.isValid());
+        assertFalse(arguments.getBoolean(VIDEO));
+        assertEquals(30, arguments.getInt(TIMEOUT));
+        assertNull(arguments.getString(CUSTOM_DATA));
+        assertNull(arguments.getStringMap(HEADERS));
+        assertNull(arguments.getJSONArray(SERVERS));
+    }
+
+    @Test
+    public void acceptsNumbersAndBooleansGivenAsStrings() throws JSONException {
+        JSONArray args = new JSONArray()
+                .put(42)
+                .put(new JSONObject()
+                        .put("video", new JSONObject().put("sendVideo", "TRUE"))
+                        .put("timeout", "12.7")
+                        .put("customData", false));
+
+        ArgumentSchema.Arguments arguments = SCHEMA.decode(args);
+
+        assertTrue(arguments.isValid());
+        assertEquals("42", arguments.getString(CALL_ID));
+        assertTrue(arguments.getBoolean(VIDEO));
+        assertEquals(12, arguments.getInt(TIMEOUT));
+        assertEquals("false", arguments.getString(CUSTOM_DATA));
+    }
+
+    @Test
+    public void truncatesFractionalInts() throws JSONException {
+        ArgumentSchema.Arguments arguments = SCHEMA.decode(new JSONArray()
+                .put("call")
+                .put(new JSONObject().put("timeout", 2.9)));
+
+        assertEquals(2, arguments.getInt(TIMEOUT));
+    }
+
+    @Test
+    public void keepsTheDefaultForMalformedOptionalFields() throws JSONException {
+        JSONArray args = new JSONArray()
+                .put("call")
+                .put(new JSONObject()
+                        .put("video", "yes")
+                        .put("timeout", "soon")
+                        .put("customData", new JSONObject()))
+                .put("not a map")
+                .put(new JSONObject());
+
+        ArgumentSchema.Arguments arguments = SCHEMA.decode(args);
+
+        assertTrue(arguments.isValid());
+        assertFalse(arguments.getBoolean(VIDEO));
+        assertEquals(30, arguments.getInt(TIMEOUT));
+        assertNull(arguments.getString(CUSTOM_DATA));
+        assertNull(arguments.getStringMap(HEADERS));
+        assertNull(arguments.getJSONArray(SERVERS));
+    }
+
+    @Test
+    public void readsNestedFieldsOnlyFromObjects() throws JSONException {
+        ArgumentSchema.Arguments arguments = SCHEMA.decode(new JSONArray()
+                .put("call")
+                .put(new JSONObject().put("video", true)));
+
+        assertTrue(arguments.isValid());
+        assertFalse(arguments.getBoolean(VIDEO));
+    }
+
+    @Test
+    public void reportsAllInvalidRequiredFields() throws JSONException {
+        ArgumentSchema.Field user = ArgumentSchema.Field.required(0, "user", ArgumentSchema.Type.STRING);
+        ArgumentSchema.Field count = ArgumentSchema.Field.required(0, "count", ArgumentSchema.Type.INT);
+        ArgumentSchema.Field flag = ArgumentSchema.Field.optional(0, "flag", ArgumentSchema.Type.BOOLEAN, true);
+        ArgumentSchema schema = new ArgumentSchema("login", user, count, flag);
+
+        ArgumentSchema.Arguments arguments = schema.decode(new JSONArray()
+                .put(new JSONObject().put("count", "many").put("flag", 1)));
+        assertFalse(arguments.isValid());
+        assertTrue(arguments.getBoolean(flag));
+
+        RecordingWebView webView = new RecordingWebView();
+        arguments.reportError(webView.callbackContext("login"));
+        List<PluginResult> results = webView.results("login");
+        assertEquals(1, results.size());
+        assertEquals(PluginResult.Status.ERROR.ordinal(), results.get(0).getStatus());
+        JSONObject error = new JSONObject(results.get(0).getMessage());
+        assertEquals("INVALID_ARGUMENTS", error.getString("code"));
+        assertEquals("login", error.getString("action"));
+        JSONArray errors = error.getJSONArray("errors");
+        assertEquals(2, errors.length());
+        assertEquals("arguments[0].user", errors.getJSONObject(0).getString("field"));
+        assertEquals("is required", errors.getJSONObject(0).getString("message"));
+        assertEquals("arguments[0].count", errors.getJSONObject(1).getString("field"));
+        assertEquals("expected int", errors.getJSONObject(1).getString("message"));
+    }
+
+    @Test
+    public void reportsMissingArguments() {
+        assertFalse(SCHEMA.decode(null).isValid());
+        assertFalse(SCHEMA.decode(new JSONArray()).isValid());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAFieldOfAnotherSchema() {
+        ArgumentSchema.Field other = ArgumentSchema.Field.optional(0, null, ArgumentSchema.Type.STRING);
+
+        SCHEMA.decode(new JSONArray().put("call")).getString(other);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.app.Activity;
+
+import com.voximplant.sdk.call.ICall;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CallManagerTest {
+    private RecordingWebView mWebView;
+    private CallManager mCallManager;
+
+    @Before
+    public void setUp() {
+        mWebView = new RecordingWebView();
+        mCallManager = new CallManager(new BridgeMetrics(), new VideoViewManager(mWebView, new Activity()));
+    }
+
+    @After
+    public void tearDown() {
+        mCallManager.release();
+    }
+
+    @Test
+    public void evictsEndedCalls() {
+        CallModule a = callModule("a");
+        mCallManager.addNewCall("a", a);
+        mCallManager.addNewCall("b", callModule("b"));
+        assertEquals(2, mCallManager.getLiveCallCount());
+        assertSame(a, mCallManager.checkCallEvent(new JSONArray().put("a"), mWebView.callbackContext("a")));
+
+        mCallManager.callHasEnded("a");
+        assertEquals(1, mCallManager.getLiveCallCount());
+        assertEquals(1, mCallManager.getEvictedCallCount());
+        assertNull(mCallManager.checkCallEvent(new JSONArray().put("a"), mWebView.callbackContext("a")));
+        List<PluginResult> results = mWebView.results("a");
+        assertEquals(1, results.size());
+        assertEquals(PluginResult.Status.ERROR.ordinal(), results.get(0).getStatus());
+    }
+
+    @Test
+    public void countsACallOnceWhenItEndsTwice() throws JSONException {
+        mCallManager.addNewCall("a", callModule("a"));
+
+        // a call may end with both the failed and the disconnected callbacks
+        mCallManager.callHasEnded("a");
+        mCallManager.callHasEnded("a");
+        mCallManager.callHasEnded(null);
+
+        mCallManager.getCallStats(mWebView.callbackContext("stats"));
+        JSONObject stats = new JSONObject(mWebView.results("stats").get(0).getMessage());
+        assertEquals(0, stats.getInt("liveCalls"));
+        assertEquals(1, stats.getLong("evictedCalls"));
+    }
+
+    private CallModule callModule(String callId) {
+        ICall call = (ICall) Proxy.newProxyInstance(ICall.class.getClassLoader(), new Class<?>[]{ICall.class},
+                (proxy, method, args) -> method.getName().equals("getCallId") ? callId : null);
+        return new CallModule(call, mCallManager);
+    }
+}
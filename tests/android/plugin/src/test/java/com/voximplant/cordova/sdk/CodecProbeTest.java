@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+
+import com.voximplant.sdk.call.VideoCodec;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CodecProbeTest {
+    private static final String H264 = "video/avc";
+    private static final String VP8 = "video/x-vnd.on2.vp8";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextWrapper();
+        mContext.getSharedPreferences("com.voximplant.cordova.sdk.CodecProbe", Context.MODE_PRIVATE)
+                .edit().clear().apply();
+    }
+
+    @After
+    public void tearDown() {
+        MediaCodecList.setCodecInfos();
+    }
+
+    @Test
+    public void prefersH264WhenItIsInHardwareOnBothSides() throws JSONException {
+        MediaCodecList.setCodecInfos(
+                new MediaCodecInfo("OMX.qcom.video.encoder.avc", true, H264),
+                new MediaCodecInfo("OMX.qcom.video.decoder.avc", false, H264),
+                new MediaCodecInfo("OMX.qcom.video.encoder.vp8", true, VP8),
+                new MediaCodecInfo("OMX.qcom.video.decoder.vp8", false, VP8));
+
+        CodecProbe probe = probe();
+        assertEquals(VideoCodec.H264, probe.getOptimalCodec());
+
+        RecordingWebView webView = new RecordingWebView();
+        probe.getVideoCodecCapabilities(webView.callbackContext("capabilities"));
+        JSONObject capabilities = new JSONObject(webView.results("capabilities").get(0).getMessage());
+        assertTrue(capabilities.getJSONObject("VP8").getBoolean("hardwareEncoder"));
+        assertTrue(capabilities.getJSONObject("VP8").getBoolean("hardwareDecoder"));
+        assertEquals("H264", capabilities.getString("optimal"));
+    }
+
+    @Test
+    public void prefersTheCodecWithAHardwareEncoder() {
+        MediaCodecList.setCodecInfos(
+                new MediaCodecInfo("OMX.google.h264.encoder", true, H264),
+                new MediaCodecInfo("OMX.qcom.video.decoder.avc", false, H264),
+                new MediaCodecInfo("OMX.qcom.video.encoder.vp8", true, VP8),
+                new MediaCodecInfo("c2.android.vp8.decoder", false, VP8));
+
+        assertEquals(VideoCodec.VP8, probe().getOptimalCodec());
+    }
+
+    @Test
+    public void fallsBackToAutoWithoutHardwareCodecs() {
+        MediaCodecList.setCodecInfos(
+                new MediaCodecInfo("OMX.google.h264.encoder", true, H264),
+                new MediaCodecInfo("OMX.google.vp8.decoder", false, VP8),
+                new MediaCodecInfo("OMX.vendor.sw.vp8.encoder", true, VP8));
+
+        assertEquals(VideoCodec.AUTO, probe().getOptimalCodec());
+    }
+
+    @Test
+    public void usesTheStoredCapabilitiesOfTheSameBuild() throws JSONException {
+        MediaCodecList.setCodecInfos(new MediaCodecInfo("OMX.qcom.video.encoder.avc", true, H264));
+        assertEquals(VideoCodec.H264, probe().getOptimalCodec());
+
+        // the codecs of the same OS build are not queried again
+        MediaCodecList.setCodecInfos();
+        assertEquals(VideoCodec.H264, probe().getOptimalCodec());
+
+        RecordingWebView webView = new RecordingWebView();
+        probe().getVideoCodecCapabilities(webView.callbackContext("capabilities"));
+        JSONObject h264 = new JSONObject(webView.results("capabilities").get(0).getMessage()).getJSONObject("H264");
+        assertTrue(h264.getBoolean("hardwareEncoder"));
+        assertFalse(h264.getBoolean("hardwareDecoder"));
+    }
+
+    private CodecProbe probe() {
+        CodecProbe probe = new CodecProbe();
+        probe.init(mContext);
+        return probe;
+    }
+}
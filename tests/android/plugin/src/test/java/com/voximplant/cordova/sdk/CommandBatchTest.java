@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CommandBatchTest {
+    private RecordingWebView mWebView;
+    // the actions in the order they are dispatched
+    private List<String> mDispatched;
+    // the callback contexts of the dispatched actions that have not completed right away
+    private List<CallbackContext> mWaiting;
+
+    @Before
+    public void setUp() {
+        mWebView = new RecordingWebView();
+        mDispatched = new ArrayList<>();
+        mWaiting = new ArrayList<>();
+    }
+
+    @Test
+    public void runsCommandsOneAfterAnother() throws JSONException {
+        execute(new JSONArray().put(command("wait")).put(command("ok")), new JSONObject());
+        assertEquals("[wait]", mDispatched.toString());
+
+        mWaiting.get(0).success("done");
+        assertEquals("[wait, ok]", mDispatched.toString());
+        JSONArray results = results();
+        assertEquals(2, results.length());
+        assertEquals("wait", results.getJSONObject(0).getString("action"));
+        assertEquals("done", results.getJSONObject(0).getString("result"));
+        assertTrue(results.getJSONObject(1).getBoolean("success"));
+        // the batch completes once, the commands do not send anything to JS themselves
+        assertEquals(1, mWebView.results().size());
+    }
+
+    @Test
+    public void skipsTheRestAfterAnError() throws JSONException {
+        execute(new JSONArray().put(command("fail")).put(command("ok")).put(command("ok")), new JSONObject());
+
+        assertEquals("[fail]", mDispatched.toString());
+        JSONArray results = results();
+        assertFalse(results.getJSONObject(0).getBoolean("success"));
+        assertTrue(results.getJSONObject(1).getBoolean("skipped"));
+        assertTrue(results.getJSONObject(2).getBoolean("skipped"));
+    }
+
+    @Test
+    public void continuesAfterAnErrorIfAsked() throws JSONException {
+        execute(new JSONArray().put(command("fail")).put(command("unknown")).put(command("ok")),
+                new JSONObject().put("stopOnError", false));
+
+        assertEquals("[fail, unknown, ok]", mDispatched.toString());
+        JSONArray results = results();
+        assertFalse(results.getJSONObject(0).getBoolean("success"));
+        assertEquals("Action is not supported in a batch: unknown", results.getJSONObject(1).getString("result"));
+        assertTrue(results.getJSONObject(2).getBoolean("success"));
+    }
+
+    @Test
+    public void reportsParallelResultsInTheOrderOfTheCommands() throws JSONException {
+        execute(new JSONArray().put(command("wait")).put(command("wait")), new JSONObject().put("parallel", true));
+        assertEquals("[wait, wait]", mDispatched.toString());
+
+        mWaiting.get(1).success("second");
+        assertTrue(mWebView.results().isEmpty());
+        mWaiting.get(0).success("first");
+        // a command completes with its first result only
+        mWaiting.get(0).error("late");
+        JSONArray results = results();
+        assertEquals("first", results.getJSONObject(0).getString("result"));
+        assertEquals("second", results.getJSONObject(1).getString("result"));
+        assertEquals(1, mWebView.results().size());
+    }
+
+    @Test
+    public void reportsAnInvalidCommand() throws JSONException {
+        execute(new JSONArray().put(new JSONObject()).put(command("ok")), new JSONObject().put("stopOnError", false));
+
+        assertEquals("[ok]", mDispatched.toString());
+        JSONArray results = results();
+        assertFalse(results.getJSONObject(0).getBoolean("success"));
+        assertTrue(results.getJSONObject(1).getBoolean("success"));
+    }
+
+    private void execute(JSONArray commands, JSONObject options) {
+        CommandBatch.execute(this::dispatch, mWebView, new JSONArray().put(commands).put(options),
+                mWebView.callbackContext("batch"));
+    }
+
+    private boolean dispatch(String action, JSONArray args, CallbackContext callbackContext) {
+        mDispatched.add(action);
+        switch (action) {
+            case "ok":
+                callbackContext.success();
+                return true;
+            case "fail":
+                callbackContext.error("failed");
+                return true;
+            case "wait":
+                callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.NO_RESULT));
+                mWaiting.add(callbackContext);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static JSONObject command(String action) throws JSONException {
+        return new JSONObject().put("action", action).put("args", new JSONArray());
+    }
+
+    private JSONArray results() throws JSONException {
+        List<PluginResult> results = mWebView.results("batch");
+        assertEquals(1, results.size());
+        assertEquals(PluginResult.Status.OK.ordinal(), results.get(0).getStatus());
+        return new JSONArray(results.get(0).getStrMessage());
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.os.Looper;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventChannelTest {
+    private RecordingWebView mWebView;
+    private EventChannel mChannel;
+
+    @Before
+    public void setUp() {
+        Looper.getMainLooper().clear();
+        mWebView = new RecordingWebView();
+        mChannel = new EventChannel(new BridgeMetrics());
+    }
+
+    @Test
+    public void registerKeepsTheCallback() {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+
+        List<PluginResult> results = mWebView.results("events");
+        assertEquals(1, results.size());
+        assertEquals(PluginResult.Status.NO_RESULT.ordinal(), results.get(0).getStatus());
+        assertTrue(results.get(0).getKeepCallback());
+    }
+
+    @Test
+    public void numbersEventsFromOne() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        send(EventType.CALL_CONNECTED, "a");
+        send(EventType.CALL_DISCONNECTED, "a");
+        Looper.getMainLooper().runAll();
+        send(EventType.CALL_CONNECTED, "b");
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(0).getLong("seq"));
+        assertEquals("[CallConnected:a, CallDisconnected:a]", names(batches.get(0)));
+        assertEquals(3, batches.get(1).getLong("seq"));
+        assertEquals("[CallConnected:b]", names(batches.get(1)));
+        assertFalse(batches.get(0).getBoolean("replay"));
+        assertFalse(batches.get(0).getBoolean("gap"));
+        assertTrue(mWebView.results("events").get(1).getKeepCallback());
+    }
+
+    @Test
+    public void batchesInformationalEvents() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        for (int i = 0; i < 10; i++) {
+            send(EventType.CALL_MESSAGE_RECEIVED, "a");
+        }
+        assertEquals(0, batches("events").size());
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(1, batches.size());
+        assertEquals(10, batches.get(0).getJSONArray("events").length());
+    }
+
+    @Test
+    public void queuesEventsUntilRegistered() throws JSONException {
+        send(EventType.CALL_CONNECTED, "a");
+        Looper.getMainLooper().runAll();
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).getLong("seq"));
+        assertEquals("[CallConnected:a]", names(batches.get(0)));
+    }
+
+    @Test
+    public void deliversLifecycleEventsAheadOfOtherCalls() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        send(EventType.CALL_MESSAGE_RECEIVED, "a");
+        send(EventType.CALL_MESSAGE_RECEIVED, "b");
+        send(EventType.ENDPOINT_REMOVED, "a");
+        send(EventType.CALL_DISCONNECTED, "a");
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(1, batches.size());
+        assertEquals("[CallMessageReceived:a, EndpointRemoved:a, CallDisconnected:a, CallMessageReceived:b]",
+                names(batches.get(0)));
+    }
+
+    @Test
+    public void flushesPendingLifecycleEventsWithoutDelay() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        for (int i = 0; i < 70; i++) {
+            send(EventType.CALL_CONNECTED, "c" + i);
+        }
+        // only the messages that are due, a delayed flush would leave the rest of the events queued
+        Looper.getMainLooper().runPending();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(2, batches.size());
+        assertEquals(64, batches.get(0).getJSONArray("events").length());
+        assertEquals(6, batches.get(1).getJSONArray("events").length());
+    }
+
+    @Test
+    public void dropsTheOldestInformationalEventWhenTheQueueIsFull() throws JSONException {
+        for (int i = 0; i < 1024; i++) {
+            send(EventType.CALL_MESSAGE_RECEIVED, "m" + i);
+        }
+        send(EventType.CALL_DISCONNECTED, "a");
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertTrue(batches.get(0).getBoolean("gap"));
+        assertFalse(batches.get(1).getBoolean("gap"));
+        assertTrue(names(batches.get(0)).startsWith("[CallDisconnected:a,"));
+        List<String> names = new ArrayList<>();
+        for (JSONObject batch : batches) {
+            names.add(names(batch));
+        }
+        String all = names.toString();
+        assertFalse(all.contains("CallMessageReceived:m0,"));
+        assertTrue(all.contains("CallMessageReceived:m1,"));
+        assertTrue(all.contains("CallMessageReceived:m1023]"));
+    }
+
+    @Test
+    public void neverDropsLifecycleEvents() throws JSONException {
+        for (int i = 0; i < 1030; i++) {
+            send(EventType.CALL_DISCONNECTED, "c" + i);
+        }
+        send(EventType.CALL_MESSAGE_RECEIVED, "m");
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertTrue(batches.get(0).getBoolean("gap"));
+        int count = 0;
+        for (JSONObject batch : batches) {
+            assertFalse(names(batch).contains("CallMessageReceived"));
+            count += batch.getJSONArray("events").length();
+        }
+        assertEquals(1030, count);
+    }
+
+    @Test
+    public void replaysEventsAfterTheLastHandledOne() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        send(EventType.CALL_CONNECTED, "a");
+        send(EventType.CALL_CONNECTED, "b");
+        send(EventType.CALL_CONNECTED, "c");
+        Looper.getMainLooper().runAll();
+        int channelId = batches("events").get(0).getInt("channel");
+
+        mChannel.reset();
+        mChannel.register(mWebView.callbackContext("reloaded"), 1, channelId);
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("reloaded");
+        assertEquals(1, batches.size());
+        assertEquals(channelId, batches.get(0).getInt("channel"));
+        assertEquals(2, batches.get(0).getLong("seq"));
+        assertTrue(batches.get(0).getBoolean("replay"));
+        assertFalse(batches.get(0).getBoolean("gap"));
+        assertEquals("[CallConnected:b, CallConnected:c]", names(batches.get(0)));
+    }
+
+    @Test
+    public void deliversEventsQueuedWhileReloadingAfterTheReplay() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        send(EventType.CALL_CONNECTED, "a");
+        send(EventType.CALL_CONNECTED, "b");
+        Looper.getMainLooper().runAll();
+        int channelId = batches("events").get(0).getInt("channel");
+
+        mChannel.reset();
+        send(EventType.CALL_DISCONNECTED, "a");
+        Looper.getMainLooper().runAll();
+        mChannel.register(mWebView.callbackContext("reloaded"), 1, channelId);
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("reloaded");
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).getLong("seq"));
+        assertEquals("[CallConnected:b, CallDisconnected:a]", names(batches.get(0)));
+    }
+
+    @Test
+    public void doesNotReplayToAPageOfAnotherChannel() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        send(EventType.CALL_CONNECTED, "a");
+        Looper.getMainLooper().runAll();
+        int channelId = batches("events").get(0).getInt("channel");
+
+        mChannel.reset();
+        mChannel.register(mWebView.callbackContext("other"), 1, channelId + 1);
+        mChannel.register(mWebView.callbackContext("fresh"), 0, 0);
+        Looper.getMainLooper().runAll();
+        assertEquals(0, batches("other").size());
+        assertEquals(0, batches("fresh").size());
+
+        send(EventType.CALL_DISCONNECTED, "a");
+        Looper.getMainLooper().runAll();
+        List<JSONObject> batches = batches("fresh");
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).getLong("seq"));
+        assertFalse(batches.get(0).getBoolean("replay"));
+    }
+
+    @Test
+    public void doesNotReplayWhenAllEventsAreHandled() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        send(EventType.CALL_CONNECTED, "a");
+        Looper.getMainLooper().runAll();
+        int channelId = batches("events").get(0).getInt("channel");
+
+        mChannel.reset();
+        mChannel.register(mWebView.callbackContext("handled"), 1, channelId);
+        Looper.getMainLooper().runAll();
+        mChannel.reset();
+        // a position ahead of the channel is treated as the last sent event
+        mChannel.register(mWebView.callbackContext("ahead"), 100, channelId);
+        Looper.getMainLooper().runAll();
+        send(EventType.CALL_DISCONNECTED, "a");
+        Looper.getMainLooper().runAll();
+
+        assertEquals(0, batches("handled").size());
+        List<JSONObject> batches = batches("ahead");
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).getLong("seq"));
+    }
+
+    @Test
+    public void reportsAGapWhenReplayedEventsAreEvicted() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        for (int i = 0; i < 1100; i++) {
+            send(EventType.CALL_CONNECTED, "c" + i);
+            if (i % 100 == 99) {
+                Looper.getMainLooper().runAll();
+            }
+        }
+        Looper.getMainLooper().runAll();
+        int channelId = batches("events").get(0).getInt("channel");
+
+        mChannel.reset();
+        mChannel.register(mWebView.callbackContext("reloaded"), 10, channelId);
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("reloaded");
+        assertEquals(1, batches.size());
+        JSONObject batch = batches.get(0);
+        assertTrue(batch.getBoolean("gap"));
+        assertTrue(batch.getBoolean("replay"));
+        // the buffer keeps the last 1024 events
+        assertEquals(1100 - 1024 + 1, batch.getLong("seq"));
+        JSONArray events = batch.getJSONArray("events");
+        assertEquals(1024, events.length());
+        assertEquals("c76", events.getJSONArray(0).getJSONObject(1).getString("callId"));
+        assertEquals("c1099", events.getJSONArray(1023).getJSONObject(1).getString("callId"));
+    }
+
+    @Test
+    public void holdsOnlyInBackground() {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        assertFalse(mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "a", null),
+                "a", "e1"));
+        mChannel.pause();
+        assertFalse(mChannel.hold(EventType.CALL_MESSAGE_RECEIVED, source(EventType.CALL_MESSAGE_RECEIVED, "a", null),
+                "a", "e1"));
+        assertFalse(mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "a", null),
+                "a", null));
+        assertTrue(mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "a", null),
+                "a", "e1"));
+    }
+
+    @Test
+    public void keepsTheLatestHeldEventAndWritesOnlyIt() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        mChannel.pause();
+        AtomicInteger writes = new AtomicInteger();
+        mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "first", writes),
+                "a", "e1");
+        mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "other", writes),
+                "a", "e2");
+        mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "latest", writes),
+                "a", "e1");
+        Looper.getMainLooper().runAll();
+        assertEquals(0, batches("events").size());
+
+        mChannel.resume();
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(1, batches.size());
+        assertEquals("[EndpointInfoUpdated:other, EndpointInfoUpdated:latest]", names(batches.get(0)));
+        assertEquals(2, writes.get());
+    }
+
+    @Test
+    public void deliversHeldEventsWithTheNextLifecycleEvent() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        mChannel.pause();
+        mChannel.hold(EventType.CALL_ICE_COMPLETED, source(EventType.CALL_ICE_COMPLETED, "a", null), "a", "a");
+        send(EventType.CALL_CONNECTED, "b");
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(1, batches.size());
+        assertEquals("[CallConnected:b, CallICECompleted:a]", names(batches.get(0)));
+    }
+
+    @Test
+    public void dropsHeldEventsOfAnEndedCall() throws JSONException {
+        mChannel.register(mWebView.callbackContext("events"), 0, 0);
+        mChannel.pause();
+        mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "a", null), "a", "e1");
+        mChannel.hold(EventType.ENDPOINT_INFO_UPDATED, source(EventType.ENDPOINT_INFO_UPDATED, "b", null), "b", "e2");
+        mChannel.dropHeldEvents("a");
+        send(EventType.CALL_DISCONNECTED, "a");
+        Looper.getMainLooper().runAll();
+
+        List<JSONObject> batches = batches("events");
+        assertEquals(1, batches.size());
+        assertEquals("[CallDisconnected:a, EndpointInfoUpdated:b]", names(batches.get(0)));
+    }
+
+    private void send(EventType type, String callId) {
+        mChannel.send(type, System.nanoTime(), EventWriter.begin(type).field("callId", callId).end(), callId);
+    }
+
+    private static EventChannel.EventSource source(EventType type, String callId, AtomicInteger writes) {
+        return () -> {
+            if (writes != null) {
+                writes.incrementAndGet();
+            }
+            return EventWriter.begin(type).field("callId", callId);
+        };
+    }
+
+    private List<JSONObject> batches(String callbackId) throws JSONException {
+        List<JSONObject> batches = new ArrayList<>();
+        for (PluginResult result : mWebView.results(callbackId)) {
+            if (result.getStatus() == PluginResult.Status.OK.ordinal()) {
+                batches.add(new JSONObject(result.getStrMessage()));
+            }
+        }
+        return batches;
+    }
+
+    private static String names(JSONObject batch) throws JSONException {
+        JSONArray events = batch.getJSONArray("events");
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < events.length(); i++) {
+            JSONArray event = events.getJSONArray(i);
+            names.add(event.getString(0) + ":" + event.getJSONObject(1).getString("callId"));
+        }
+        return names.toString();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventWriterTest {
+    @Test
+    public void writesEventNameAndFields() {
+        String event = EventWriter.begin(EventType.CALL_CONNECTED)
+                .field("callId", "a")
+                .field("video", true)
+                .field("code", 486)
+                .field("duration", 10000000000L)
+                .end();
+
+        assertEquals("[\"CallConnected\",{\"callId\":\"a\",\"video\":true,\"code\":486,\"duration\":10000000000}]",
+                event);
+    }
+
+    @Test
+    public void omitsNullValues() {
+        String event = EventWriter.begin(EventType.CALL_FAILED)
+                .field("reason", (String) null)
+                .field("callId", "a")
+                .field("description", (String) null)
+                .end();
+
+        assertEquals("[\"CallFailed\",{\"callId\":\"a\"}]", event);
+    }
+
+    @Test
+    public void escapesValues() throws JSONException {
+        String value = "quote \" backslash \\ slash / </script> \n\r\t \u0001\u001f \u2028\u2029 \u00fcnicode";
+        String event = EventWriter.begin(EventType.CALL_MESSAGE_RECEIVED).field("text", value).end();
+
+        assertTrue(event.contains("quote \\\" backslash \\\\ slash / <\\/script> \\n\\r\\t \\u0001\\u001f "
+                + "\\u2028\\u2029 \u00fcnicode"));
+        assertEquals(value, new JSONArray(event).getJSONObject(1).getString("text"));
+    }
+
+    @Test
+    public void escapesAStringThatStartsWithASlash() throws JSONException {
+        String event = EventWriter.begin(EventType.CALL_MESSAGE_RECEIVED).field("text", "/<").end();
+
+        assertEquals("[\"CallMessageReceived\",{\"text\":\"/<\"}]", event);
+        assertEquals("/<", new JSONArray(event).getJSONObject(1).getString("text"));
+    }
+
+    @Test
+    public void writesHeadersAndSkipsNullEntries() throws JSONException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("X-Key\"", "va\\lue\n");
+        headers.put(null, "no key");
+        headers.put("X-Null", null);
+        headers.put("X-Other", "other");
+        String event = EventWriter.begin(EventType.CALL_DISCONNECTED)
+                .field("callId", "a")
+                .headers("headers", headers)
+                .end();
+
+        JSONObject params = new JSONArray(event).getJSONObject(1);
+        JSONObject written = params.getJSONObject("headers");
+        assertEquals(2, written.length());
+        assertEquals("va\\lue\n", written.getString("X-Key\""));
+        assertEquals("other", written.getString("X-Other"));
+    }
+
+    @Test
+    public void omitsEmptyHeaders() {
+        String event = EventWriter.begin(EventType.CALL_DISCONNECTED)
+                .headers("headers", new HashMap<>())
+                .field("callId", "a")
+                .headers("more", null)
+                .end();
+
+        assertEquals("[\"CallDisconnected\",{\"callId\":\"a\"}]", event);
+    }
+
+    @Test
+    public void writesNestedObjectsAndEncodedJson() throws JSONException {
+        String event = EventWriter.begin(EventType.ENDPOINT_INFO_UPDATED)
+                .beginObject("endpoint")
+                .field("id", "e1")
+                .field("displayName", "Name")
+                .endObject()
+                .json("stats", "{\"a\":[1,2]}")
+                .field("callId", "a")
+                .end();
+
+        JSONObject params = new JSONArray(event).getJSONObject(1);
+        assertEquals("e1", params.getJSONObject("endpoint").getString("id"));
+        assertEquals(2, params.getJSONObject("stats").getJSONArray("a").length());
+        assertEquals("a", params.getString("callId"));
+    }
+
+    @Test
+    public void startsEveryEventWithAnEmptyBuffer() {
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            large.append('x');
+        }
+        EventWriter writer = EventWriter.begin(EventType.CALL_MESSAGE_RECEIVED).field("text", large.toString());
+        writer.end();
+        assertEquals(EventType.CALL_MESSAGE_RECEIVED, writer.getType());
+
+        String event = EventWriter.begin(EventType.CALL_ICE_TIMEOUT).field("callId", "a").end();
+        assertEquals("[\"CallICETimeout\",{\"callId\":\"a\"}]", event);
+        assertFalse(event.contains("x"));
+    }
+}
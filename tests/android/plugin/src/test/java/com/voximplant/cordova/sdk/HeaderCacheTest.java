@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class HeaderCacheTest {
+    private RecordingWebView mWebView;
+    private HeaderCache mCache;
+
+    @Before
+    public void setUp() {
+        mWebView = new RecordingWebView();
+        mCache = new HeaderCache();
+    }
+
+    @Test
+    public void matchesHeaderNamesCaseInsensitively() throws JSONException {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Foo", "foo");
+        headers.put("X-Bar", "bar");
+        int headersId = mCache.put("a", headers);
+
+        mCache.getCallHeaders(new JSONArray().put("a").put(headersId).put(new JSONArray().put("x-foo").put("X-BAZ")),
+                mWebView.callbackContext("headers"));
+
+        List<PluginResult> results = mWebView.results("headers");
+        assertEquals(PluginResult.Status.OK.ordinal(), results.get(0).getStatus());
+        JSONObject result = new JSONObject(results.get(0).getMessage());
+        assertEquals("foo", result.getString("x-foo"));
+        assertFalse(result.has("X-BAZ"));
+        assertEquals("bar", mCache.get("a", headersId).get("x-bar"));
+    }
+
+    @Test
+    public void dropsTheOldestEventsOfACall() {
+        int first = mCache.put("a", new HashMap<>());
+        int last = 0;
+        for (int i = 0; i < 16; i++) {
+            last = mCache.put("a", new HashMap<>());
+        }
+
+        assertNull(mCache.get("a", first));
+        assertNotNull(mCache.get("a", last));
+        assertNull(mCache.get("b", last));
+    }
+
+    @Test
+    public void dropsTheLeastRecentlyUsedCalls() {
+        int kept = mCache.put("kept", new HashMap<>());
+        int dropped = mCache.put("dropped", new HashMap<>());
+        for (int i = 0; i < 31; i++) {
+            mCache.put("c" + i, new HashMap<>());
+            mCache.get("kept", kept);
+        }
+
+        assertNotNull(mCache.get("kept", kept));
+        assertNull(mCache.get("dropped", dropped));
+    }
+}
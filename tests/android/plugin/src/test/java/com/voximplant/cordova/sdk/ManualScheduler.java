@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler that only runs its tasks when the test asks it to, ignoring their delays.
+ */
+class ManualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    final class Task implements ScheduledFuture<Object> {
+        final Runnable runnable;
+        final long delayNanos;
+        final boolean periodic;
+        private boolean mCancelled;
+        private boolean mDone;
+
+        Task(Runnable runnable, long delayNanos, boolean periodic) {
+            this.runnable = runnable;
+            this.delayNanos = delayNanos;
+            this.periodic = periodic;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(delayNanos, other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (ManualScheduler.this) {
+                if (mDone || mCancelled) {
+                    return false;
+                }
+                mCancelled = true;
+                mTasks.remove(this);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return mDone || mCancelled;
+        }
+
+        @Override
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final List<Task> mTasks = new ArrayList<>();
+    private boolean mShutdown;
+
+    /**
+     * @return the tasks that are neither run (for one-shot tasks) nor cancelled
+     */
+    synchronized List<Task> tasks() {
+        return new ArrayList<>(mTasks);
+    }
+
+    /**
+     * Runs every periodic task once.
+     */
+    void tick() {
+        for (Task task : tasks()) {
+            if (task.periodic && !task.isCancelled()) {
+                task.runnable.run();
+            }
+        }
+    }
+
+    void tick(int count) {
+        for (int i = 0; i < count; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Runs the one-shot tasks scheduled so far.
+     *
+     * @return the number of tasks run
+     */
+    int runDelayed() {
+        int count = 0;
+        for (Task task : tasks()) {
+            if (task.periodic) {
+                continue;
+            }
+            synchronized (this) {
+                if (task.isCancelled()) {
+                    continue;
+                }
+                task.mDone = true;
+                mTasks.remove(task);
+            }
+            task.runnable.run();
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return add(new Task(command, unit.toNanos(delay), false));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return add(new Task(command, unit.toNanos(initialDelay), true));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return add(new Task(command, unit.toNanos(initialDelay), true));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        mShutdown = true;
+    }
+
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        mShutdown = true;
+        List<Runnable> runnables = new ArrayList<>();
+        for (Task task : mTasks) {
+            runnables.add(task.runnable);
+        }
+        mTasks.clear();
+        return runnables;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return mShutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return mShutdown && mTasks.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private synchronized Task add(Task task) {
+        if (mShutdown) {
+            throw new RejectedExecutionException("The scheduler is shut down");
+        }
+        mTasks.add(task);
+        return task;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.ICall;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OutboundQueueTest {
+    private ManualScheduler mScheduler;
+    private List<String> mSent;
+    private OutboundQueue mQueue;
+
+    @Before
+    public void setUp() {
+        mScheduler = new ManualScheduler();
+        mSent = new ArrayList<>();
+        ICall call = (ICall) Proxy.newProxyInstance(ICall.class.getClassLoader(), new Class<?>[]{ICall.class},
+                (proxy, method, args) -> {
+                    assertFalse(Thread.holdsLock(mQueue));
+                    if (method.getName().equals("sendMessage")) {
+                        mSent.add((String) args[0]);
+                    } else if (method.getName().equals("sendInfo")) {
+                        mSent.add(args[0] + ":" + args[1] + ":" + args[2]);
+                    }
+                    return null;
+                });
+        mQueue = new OutboundQueue(call, mScheduler);
+    }
+
+    @Test
+    public void passesMessagesThroughUntilConfigured() throws JSONException {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(mQueue.offer(null, "m" + i, null, "key"));
+        }
+
+        assertEquals(100, mSent.size());
+        assertTrue(mScheduler.tasks().isEmpty());
+        JSONObject stats = mQueue.getStats();
+        assertFalse(stats.getBoolean("limited"));
+        assertEquals(100, stats.getInt("sent"));
+        assertEquals(0, stats.getInt("coalesced"));
+    }
+
+    @Test
+    public void sendsABurstRightAway() throws JSONException {
+        configureDefaults();
+        for (int i = 0; i < OutboundQueue.DEFAULT_BURST; i++) {
+            assertTrue(mQueue.offer(null, "m" + i, null, null));
+        }
+
+        assertEquals(OutboundQueue.DEFAULT_BURST, mSent.size());
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertEquals(0, mQueue.getStats().getInt("depth"));
+    }
+
+    @Test
+    public void queuesMessagesBeyondTheBurst() throws JSONException {
+        configureDefaults();
+        for (int i = 0; i < OutboundQueue.DEFAULT_BURST + 5; i++) {
+            mQueue.offer(null, "m" + i, null, null);
+        }
+
+        assertEquals(OutboundQueue.DEFAULT_BURST, mSent.size());
+        JSONObject stats = mQueue.getStats();
+        assertEquals(5, stats.getInt("depth"));
+        assertEquals(5, stats.getInt("maxDepth"));
+        // the drain waits for the next token
+        assertEquals(1, mScheduler.tasks().size());
+        long delayMs = mScheduler.tasks().get(0).getDelay(TimeUnit.MILLISECONDS);
+        assertTrue(delayMs <= 1000 / OutboundQueue.DEFAULT_RATE);
+    }
+
+    @Test
+    public void drainsAtTheConfiguredRate() throws Exception {
+        mQueue.configure(1000, 5, 100, OutboundQueue.DropPolicy.DROP_OLDEST);
+        for (int i = 0; i < 20; i++) {
+            mQueue.offer(null, "m" + i, null, null);
+        }
+        assertEquals(5, mSent.size());
+
+        // 20 ms refill 20 tokens, the burst keeps 5 of them
+        Thread.sleep(20);
+        assertEquals(1, mScheduler.runDelayed());
+        assertEquals(10, mSent.size());
+        assertEquals("m9", mSent.get(9));
+        assertEquals(1, mScheduler.tasks().size());
+
+        Thread.sleep(20);
+        mScheduler.runDelayed();
+        Thread.sleep(20);
+        mScheduler.runDelayed();
+        assertEquals(20, mSent.size());
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertEquals(20, mQueue.getStats().getInt("sent"));
+    }
+
+    @Test
+    public void replacesAQueuedMessageWithTheSameKey() throws Exception {
+        mQueue.configure(1000, 1, 100, OutboundQueue.DropPolicy.DROP_OLDEST);
+        mQueue.offer(null, "first", null, null);
+        mQueue.offer(null, "volume=1", null, "volume");
+        mQueue.offer(null, "other", null, null);
+        mQueue.offer(null, "volume=2", null, "volume");
+        mQueue.offer(null, "volume=3", null, "volume");
+
+        JSONObject stats = mQueue.getStats();
+        assertEquals(2, stats.getInt("depth"));
+        assertEquals(2, stats.getInt("coalesced"));
+
+        mQueue.configure(1000, 10, 100, OutboundQueue.DropPolicy.DROP_OLDEST);
+        Thread.sleep(10);
+        mScheduler.runDelayed();
+        assertEquals("[first, volume=3, other]", mSent.toString());
+    }
+
+    @Test
+    public void replacesOnlyMessagesOfTheSameType() throws Exception {
+        mQueue.configure(1000, 1, 100, OutboundQueue.DropPolicy.DROP_OLDEST);
+        mQueue.offer(null, "first", null, null);
+        mQueue.offer(null, "volume=1", null, "volume");
+        mQueue.offer("text/plain", "volume=2", null, "volume");
+        mQueue.offer("application/json", "{}", null, "volume");
+        mQueue.offer("text/plain", "volume=3", null, "volume");
+
+        assertEquals(1, mQueue.getStats().getInt("coalesced"));
+        mQueue.configure(1000, 10, 100, OutboundQueue.DropPolicy.DROP_OLDEST);
+        Thread.sleep(10);
+        mScheduler.runDelayed();
+        assertEquals("[first, volume=1, text/plain:volume=3:null, application/json:{}:null]", mSent.toString());
+    }
+
+    @Test
+    public void sendsInfosWithTheirHeaders() {
+        Map<String, String> headers = Collections.singletonMap("X-Key", "value");
+        mQueue.offer("application/json", "{}", headers, null);
+
+        assertEquals("[application/json:{}:{X-Key=value}]", mSent.toString());
+    }
+
+    @Test
+    public void dropsTheOldestMessageWhenFull() throws Exception {
+        mQueue.configure(1000, 1, 2, OutboundQueue.DropPolicy.DROP_OLDEST);
+        mQueue.offer(null, "m0", null, null);
+        mQueue.offer(null, "m1", null, null);
+        mQueue.offer(null, "m2", null, null);
+        assertTrue(mQueue.offer(null, "m3", null, null));
+        assertEquals(1, mQueue.getStats().getInt("dropped"));
+
+        mQueue.configure(1000, 10, 2, OutboundQueue.DropPolicy.DROP_OLDEST);
+        Thread.sleep(10);
+        mScheduler.runDelayed();
+        assertEquals("[m0, m2, m3]", mSent.toString());
+    }
+
+    @Test
+    public void dropsTheNewMessageWhenFull() throws Exception {
+        mQueue.configure(1000, 1, 2, OutboundQueue.DropPolicy.DROP_NEWEST);
+        mQueue.offer(null, "m0", null, null);
+        mQueue.offer(null, "m1", null, null);
+        mQueue.offer(null, "m2", null, null);
+        assertFalse(mQueue.offer(null, "m3", null, null));
+        assertEquals(1, mQueue.getStats().getInt("dropped"));
+
+        mQueue.configure(1000, 10, 2, OutboundQueue.DropPolicy.DROP_NEWEST);
+        Thread.sleep(10);
+        mScheduler.runDelayed();
+        assertEquals("[m0, m1, m2]", mSent.toString());
+    }
+
+    @Test
+    public void dropsTheOldestMessagesWhenTheCapacityShrinks() throws Exception {
+        mQueue.configure(1000, 1, 10, OutboundQueue.DropPolicy.DROP_OLDEST);
+        for (int i = 0; i < 6; i++) {
+            mQueue.offer(null, "m" + i, null, null);
+        }
+        mQueue.configure(1000, 10, 2, OutboundQueue.DropPolicy.DROP_OLDEST);
+        JSONObject stats = mQueue.getStats();
+        assertEquals(2, stats.getInt("depth"));
+        assertEquals(3, stats.getInt("dropped"));
+        assertEquals(2, stats.getInt("capacity"));
+
+        Thread.sleep(10);
+        mScheduler.runDelayed();
+        assertEquals("[m0, m4, m5]", mSent.toString());
+    }
+
+    @Test
+    public void dropsQueuedMessagesWhenClosed() throws JSONException {
+        configureDefaults();
+        for (int i = 0; i < OutboundQueue.DEFAULT_BURST + 3; i++) {
+            mQueue.offer(null, "m" + i, null, null);
+        }
+        mQueue.close();
+
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertFalse(mQueue.offer(null, "late", null, null));
+        JSONObject stats = mQueue.getStats();
+        assertEquals(0, stats.getInt("depth"));
+        assertEquals(3, stats.getInt("dropped"));
+        assertEquals(OutboundQueue.DEFAULT_BURST, mSent.size());
+    }
+
+    private void configureDefaults() {
+        mQueue.configure(OutboundQueue.DEFAULT_RATE, OutboundQueue.DEFAULT_BURST, OutboundQueue.DEFAULT_CAPACITY,
+                OutboundQueue.DropPolicy.DROP_OLDEST);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PendingOperationsTest {
+    private static final long TICK_MS = 1000;
+
+    private RecordingWebView mWebView;
+    private ManualScheduler mScheduler;
+    private PendingOperations mOperations;
+
+    @Before
+    public void setUp() {
+        mWebView = new RecordingWebView();
+        mScheduler = new ManualScheduler();
+        mOperations = new PendingOperations(new TimerWheel(mScheduler, TICK_MS, 64));
+    }
+
+    @Test
+    public void mergesARepeatedRequest() throws JSONException {
+        String key = PendingOperations.credentialsKey("password", "user", "secret");
+        long requestId = mOperations.begin(PendingOperations.Kind.LOGIN, key, mWebView.callbackContext("first"));
+        long merged = mOperations.begin(PendingOperations.Kind.LOGIN, key, mWebView.callbackContext("second"));
+        assertTrue(requestId > 0);
+        assertEquals(0, merged);
+        assertTrue(mWebView.results().isEmpty());
+
+        JSONObject result = new JSONObject().put("displayName", "User");
+        mOperations.succeed(PendingOperations.Kind.LOGIN, result);
+
+        assertEquals(result.toString(), single("first", PluginResult.Status.OK).getMessage());
+        assertEquals(result.toString(), single("second", PluginResult.Status.OK).getMessage());
+        assertFalse(mOperations.isPending(PendingOperations.Kind.LOGIN));
+    }
+
+    @Test
+    public void mergesRequestsWithoutAKey() {
+        assertTrue(mOperations.begin(PendingOperations.Kind.CONNECT, null, mWebView.callbackContext("first")) > 0);
+        assertEquals(0, mOperations.begin(PendingOperations.Kind.CONNECT, null, mWebView.callbackContext("second")));
+
+        mOperations.succeed(PendingOperations.Kind.CONNECT, null);
+        single("first", PluginResult.Status.OK);
+        single("second", PluginResult.Status.OK);
+    }
+
+    @Test
+    public void rejectsARequestWithAnotherKey() throws JSONException {
+        long requestId = mOperations.begin(PendingOperations.Kind.LOGIN,
+                PendingOperations.credentialsKey("password", "user", "secret"), mWebView.callbackContext("first"));
+        long rejected = mOperations.begin(PendingOperations.Kind.LOGIN,
+                PendingOperations.credentialsKey("password", "user", "other"), mWebView.callbackContext("second"));
+
+        assertEquals(0, rejected);
+        JSONObject error = new JSONObject(single("second", PluginResult.Status.ERROR).getMessage());
+        assertEquals(PendingOperations.CODE_IN_PROGRESS, error.getInt("code"));
+        assertEquals(requestId, error.getLong("requestId"));
+        assertTrue(mWebView.results("first").isEmpty());
+        assertTrue(mOperations.isPending(PendingOperations.Kind.LOGIN));
+    }
+
+    @Test
+    public void rejectsAConnectionRequestWithAMessage() {
+        mOperations.begin(PendingOperations.Kind.CONNECT, "a", mWebView.callbackContext("first"));
+        mOperations.begin(PendingOperations.Kind.CONNECT, "b", mWebView.callbackContext("second"));
+
+        PluginResult result = single("second", PluginResult.Status.ERROR);
+        assertEquals("Another CONNECT request is in progress", result.getStrMessage());
+    }
+
+    @Test
+    public void rejectsLoginAndOneTimeKeyRequestsWhileTheOtherIsPending() {
+        mOperations.begin(PendingOperations.Kind.LOGIN, "login", mWebView.callbackContext("login"));
+        assertEquals(0, mOperations.begin(PendingOperations.Kind.ONE_TIME_KEY, "key",
+                mWebView.callbackContext("key")));
+        single("key", PluginResult.Status.ERROR);
+
+        mOperations.fail(PendingOperations.Kind.LOGIN, "failed");
+        assertTrue(mOperations.begin(PendingOperations.Kind.ONE_TIME_KEY, "key", mWebView.callbackContext("key2")) > 0);
+        assertEquals(0, mOperations.begin(PendingOperations.Kind.LOGIN, "login", mWebView.callbackContext("login2")));
+        single("login2", PluginResult.Status.ERROR);
+    }
+
+    @Test
+    public void keepsOperationsOfOtherKindsApart() {
+        long connect = mOperations.begin(PendingOperations.Kind.CONNECT, null, mWebView.callbackContext("connect"));
+        long login = mOperations.begin(PendingOperations.Kind.LOGIN, "login", mWebView.callbackContext("login"));
+        long refresh = mOperations.begin(PendingOperations.Kind.REFRESH_TOKEN, "refresh",
+                mWebView.callbackContext("refresh"));
+        assertTrue(connect > 0 && login > 0 && refresh > 0);
+        assertNotEquals(connect, login);
+
+        mOperations.succeed(PendingOperations.Kind.LOGIN, null);
+        single("login", PluginResult.Status.OK);
+        assertTrue(mWebView.results("connect").isEmpty());
+        assertTrue(mOperations.isPending(PendingOperations.Kind.CONNECT));
+        assertTrue(mOperations.isPending(PendingOperations.Kind.REFRESH_TOKEN));
+    }
+
+    @Test
+    public void rejectsAnOperationWhenItsDeadlinePasses() throws JSONException {
+        long requestId = mOperations.begin(PendingOperations.Kind.LOGIN, "login", mWebView.callbackContext("login"));
+        mOperations.begin(PendingOperations.Kind.CONNECT, null, mWebView.callbackContext("connect"));
+
+        mScheduler.tick((int) (PendingOperations.Kind.LOGIN.timeoutMs / TICK_MS) - 1);
+        assertTrue(mWebView.results().isEmpty());
+        mScheduler.tick();
+
+        JSONObject error = new JSONObject(single("login", PluginResult.Status.ERROR).getMessage());
+        assertEquals(PendingOperations.CODE_TIMEOUT, error.getInt("code"));
+        assertEquals("Timeout", error.getString("message"));
+        assertEquals(requestId, error.getLong("requestId"));
+        assertTrue(mWebView.results("connect").isEmpty());
+
+        // a late result of the SDK is not delivered twice
+        mOperations.succeed(PendingOperations.Kind.LOGIN, null);
+        assertEquals(1, mWebView.results("login").size());
+    }
+
+    @Test
+    public void cancelsTheDeadlineOfAFinishedOperation() {
+        mOperations.begin(PendingOperations.Kind.DISCONNECT, null, mWebView.callbackContext("disconnect"));
+        assertEquals(1, mScheduler.tasks().size());
+
+        mOperations.succeed(PendingOperations.Kind.DISCONNECT, null);
+        assertTrue(mScheduler.tasks().isEmpty());
+    }
+
+    @Test
+    public void rejectsAStartedRequestById() {
+        long requestId = mOperations.begin(PendingOperations.Kind.REFRESH_TOKEN, "refresh",
+                mWebView.callbackContext("first"));
+        mOperations.begin(PendingOperations.Kind.REFRESH_TOKEN, "refresh", mWebView.callbackContext("second"));
+
+        mOperations.fail(requestId, "Client is not created");
+        assertEquals("Client is not created", single("first", PluginResult.Status.ERROR).getStrMessage());
+        assertEquals("Client is not created", single("second", PluginResult.Status.ERROR).getStrMessage());
+        assertFalse(mOperations.isPending(PendingOperations.Kind.REFRESH_TOKEN));
+    }
+
+    @Test
+    public void rejectsOperationsOfTheGivenKindsWhenTheConnectionCloses() throws JSONException {
+        mOperations.begin(PendingOperations.Kind.CONNECT, null, mWebView.callbackContext("connect"));
+        mOperations.begin(PendingOperations.Kind.LOGIN, "login", mWebView.callbackContext("login"));
+        mOperations.begin(PendingOperations.Kind.DISCONNECT, null, mWebView.callbackContext("disconnect"));
+
+        mOperations.failAll(new PendingOperations.Kind[]{PendingOperations.Kind.CONNECT, PendingOperations.Kind.LOGIN},
+                PendingOperations.CODE_CONNECTION_CLOSED, "Connection closed");
+
+        assertEquals("Connection closed", single("connect", PluginResult.Status.ERROR).getStrMessage());
+        JSONObject error = new JSONObject(single("login", PluginResult.Status.ERROR).getMessage());
+        assertEquals(PendingOperations.CODE_CONNECTION_CLOSED, error.getInt("code"));
+        assertTrue(mWebView.results("disconnect").isEmpty());
+        assertTrue(mOperations.isPending(PendingOperations.Kind.DISCONNECT));
+    }
+
+    @Test
+    public void dropsOperationsWithoutAResultWhenCleared() {
+        mOperations.begin(PendingOperations.Kind.CONNECT, null, mWebView.callbackContext("connect"));
+        mOperations.begin(PendingOperations.Kind.LOGIN, "login", mWebView.callbackContext("login"));
+
+        mOperations.clear();
+        assertTrue(mScheduler.tasks().isEmpty());
+        mOperations.succeed(PendingOperations.Kind.CONNECT, null);
+        assertTrue(mWebView.results().isEmpty());
+        assertTrue(mOperations.begin(PendingOperations.Kind.LOGIN, "other", mWebView.callbackContext("other")) > 0);
+    }
+
+    @Test
+    public void keepsOnlyADigestOfTheSecretInTheKey() {
+        String key = PendingOperations.credentialsKey("password", "user@app.acc", "secret");
+
+        assertTrue(key.startsWith("password:user@app.acc:"));
+        assertFalse(key.contains("secret"));
+        assertEquals(key, PendingOperations.credentialsKey("password", "user@app.acc", "secret"));
+        assertNotEquals(key, PendingOperations.credentialsKey("password", "user@app.acc", "other"));
+        assertNotEquals(key, PendingOperations.credentialsKey("token", "user@app.acc", "secret"));
+        assertEquals(PendingOperations.credentialsKey("token", "user", ""),
+                PendingOperations.credentialsKey("token", "user", null));
+    }
+
+    private PluginResult single(String callbackId, PluginResult.Status status) {
+        List<PluginResult> results = mWebView.results(callbackId);
+        assertEquals(1, results.size());
+        assertEquals(status.ordinal(), results.get(0).getStatus());
+        return results.get(0);
+    }
+}
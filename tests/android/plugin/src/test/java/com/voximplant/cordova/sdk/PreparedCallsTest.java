@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.ICall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PreparedCallsTest {
+    private ManualScheduler mScheduler;
+    private CallManager mCallManager;
+    private PreparedCalls mPreparedCalls;
+    // the ids of the calls that have been hung up
+    private List<String> mHungUp;
+
+    @Before
+    public void setUp() {
+        mScheduler = new ManualScheduler();
+        mCallManager = new CallManager(new BridgeMetrics(), null);
+        mPreparedCalls = new PreparedCalls(new TimerWheel(mScheduler, 100, 8));
+        mHungUp = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        mCallManager.release();
+    }
+
+    @Test
+    public void discardsACallThatIsNotStartedWithinItsTtl() {
+        assertTrue(mPreparedCalls.add("a", callModule("a"), 300));
+
+        mScheduler.tick(2);
+        assertTrue(mHungUp.isEmpty());
+        mScheduler.tick();
+        assertEquals("[a]", mHungUp.toString());
+        assertNull(mPreparedCalls.remove("a"));
+    }
+
+    @Test
+    public void startingACallCancelsItsExpiry() {
+        CallModule callModule = callModule("a");
+        mPreparedCalls.add("a", callModule, 300);
+
+        assertSame(callModule, mPreparedCalls.remove("a"));
+        assertNull(mPreparedCalls.remove("a"));
+        // the wheel stops ticking when nothing is pending
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertTrue(mHungUp.isEmpty());
+    }
+
+    @Test
+    public void limitsTheNumberOfPreparedCalls() {
+        for (int i = 0; i < PreparedCalls.MAX_PREPARED_CALLS; i++) {
+            assertTrue(mPreparedCalls.add("c" + i, callModule("c" + i), PreparedCalls.DEFAULT_TTL_MS));
+        }
+        assertFalse(mPreparedCalls.add("extra", callModule("extra"), PreparedCalls.DEFAULT_TTL_MS));
+
+        mPreparedCalls.clear();
+        assertEquals(PreparedCalls.MAX_PREPARED_CALLS, mHungUp.size());
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertTrue(mPreparedCalls.add("extra", callModule("extra"), PreparedCalls.DEFAULT_TTL_MS));
+    }
+
+    private CallModule callModule(String callId) {
+        ICall call = (ICall) Proxy.newProxyInstance(ICall.class.getClassLoader(), new Class<?>[]{ICall.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getCallId":
+                            return callId;
+                        case "hangup":
+                            mHungUp.add(callId);
+                            break;
+                        default:
+                            break;
+                    }
+                    return null;
+                });
+        return new CallModule(call, mCallManager);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.os.Looper;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReconnectSupervisorTest {
+    private RecordingWebView mWebView;
+    private CallManager mCallManager;
+    // the runnables passed to the client executor
+    private BlockingQueue<Runnable> mClientActions;
+    private AtomicInteger mReconnects;
+    private ReconnectSupervisor mSupervisor;
+
+    @Before
+    public void setUp() {
+        Looper.getMainLooper().clear();
+        mWebView = new RecordingWebView();
+        mCallManager = new CallManager(new BridgeMetrics(), null);
+        mCallManager.registerEventChannel(new JSONArray(), mWebView.callbackContext("events"));
+        mClientActions = new LinkedBlockingQueue<>();
+        mReconnects = new AtomicInteger();
+        mSupervisor = new ReconnectSupervisor(mCallManager, mClientActions::add, new ReconnectSupervisor.Client() {
+            @Override
+            public void reconnect() {
+                mReconnects.incrementAndGet();
+            }
+
+            @Override
+            public void dropConnection() {
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mSupervisor.release();
+        mCallManager.release();
+    }
+
+    @Test
+    public void backsOffBetweenFailedAttempts() throws Exception {
+        mSupervisor.start(null);
+        mSupervisor.onConnectionLost("connectionClosed");
+        assertTrue(mSupervisor.isReconnecting());
+
+        runAttempt();
+        mSupervisor.onAttemptFinished(false, false);
+        runAttempt();
+        mSupervisor.onAttemptFinished(true, true);
+        assertFalse(mSupervisor.isReconnecting());
+        assertEquals(2, mReconnects.get());
+
+        List<JSONArray> events = events();
+        assertEquals(3, events.size());
+        JSONObject first = events.get(0).getJSONObject(1);
+        assertEquals("Reconnecting", events.get(0).getString(0));
+        assertEquals(1, first.getInt("attempt"));
+        assertEquals("connectionClosed", first.getString("reason"));
+        // a random delay between half and all of 500 ms, doubled with every attempt
+        assertTrue(first.getLong("delay") >= 250 && first.getLong("delay") <= 500);
+        JSONObject second = events.get(1).getJSONObject(1);
+        assertEquals(2, second.getInt("attempt"));
+        assertEquals("connectionFailed", second.getString("reason"));
+        assertTrue(second.getLong("delay") >= 500 && second.getLong("delay") <= 1000);
+        JSONObject reconnected = events.get(2).getJSONObject(1);
+        assertEquals("Reconnected", events.get(2).getString(0));
+        assertEquals(2, reconnected.getInt("attempts"));
+        assertTrue(reconnected.getBoolean("loggedIn"));
+    }
+
+    @Test
+    public void doesNotReconnectAfterStop() throws Exception {
+        mSupervisor.start(null);
+        mSupervisor.onConnectionLost("connectionClosed");
+        mSupervisor.stop();
+
+        assertNull(mClientActions.poll(700, TimeUnit.MILLISECONDS));
+        assertFalse(mSupervisor.isReconnecting());
+    }
+
+    @Test
+    public void ignoresTheConnectionLostWhenNotStarted() throws Exception {
+        mSupervisor.onConnectionLost("connectionClosed");
+
+        assertFalse(mSupervisor.isReconnecting());
+        assertTrue(events().isEmpty());
+    }
+
+    /**
+     * Waits for the attempt to be passed to the client executor and runs it there.
+     */
+    private void runAttempt() throws InterruptedException {
+        Runnable attempt = mClientActions.poll(2, TimeUnit.SECONDS);
+        assertNotNull(attempt);
+        attempt.run();
+    }
+
+    private List<JSONArray> events() throws JSONException {
+        Looper.getMainLooper().runAll();
+        List<JSONArray> events = new ArrayList<>();
+        for (PluginResult result : mWebView.results("events")) {
+            if (result.getStatus() == PluginResult.Status.OK.ordinal()) {
+                JSONArray batch = new JSONObject(result.getStrMessage()).getJSONArray("events");
+                for (int i = 0; i < batch.length(); i++) {
+                    events.add(batch.getJSONArray(i));
+                }
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.Context;
+import android.view.View;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the plugin results sent to JS, in the order they are sent.
+ */
+class RecordingWebView implements CordovaWebView {
+    static final class Result {
+        final String callbackId;
+        final PluginResult pluginResult;
+
+        Result(String callbackId, PluginResult pluginResult) {
+            this.callbackId = callbackId;
+            this.pluginResult = pluginResult;
+        }
+    }
+
+    private final List<Result> mResults = new ArrayList<>();
+
+    CallbackContext callbackContext(String callbackId) {
+        return new CallbackContext(callbackId, this);
+    }
+
+    synchronized List<Result> results() {
+        return new ArrayList<>(mResults);
+    }
+
+    synchronized List<PluginResult> results(String callbackId) {
+        List<PluginResult> results = new ArrayList<>();
+        for (Result result : mResults) {
+            if (result.callbackId.equals(callbackId)) {
+                results.add(result.pluginResult);
+            }
+        }
+        return results;
+    }
+
+    synchronized void clear() {
+        mResults.clear();
+    }
+
+    @Override
+    public synchronized void sendPluginResult(PluginResult cr, String callbackId) {
+        mResults.add(new Result(callbackId, cr));
+    }
+
+    @Override
+    public View getView() {
+        return null;
+    }
+
+    @Override
+    public Context getContext() {
+        return null;
+    }
+
+    @Override
+    public void loadUrl(String url) {
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+    private static final long TICK_MS = 100;
+    private static final int WHEEL_SIZE = 8;
+
+    private ManualScheduler mScheduler;
+    private TimerWheel mTimerWheel;
+    private List<String> mExpired;
+
+    @Before
+    public void setUp() {
+        mScheduler = new ManualScheduler();
+        mTimerWheel = new TimerWheel(mScheduler, TICK_MS, WHEEL_SIZE);
+        mExpired = new ArrayList<>();
+    }
+
+    @Test
+    public void runsATimeoutWithinOneTickOfItsDelay() {
+        mTimerWheel.schedule(() -> mExpired.add("a"), 250);
+
+        mScheduler.tick(2);
+        assertTrue(mExpired.isEmpty());
+        mScheduler.tick();
+        assertEquals("[a]", mExpired.toString());
+    }
+
+    @Test
+    public void runsAZeroDelayTimeoutOnTheNextTick() {
+        mTimerWheel.schedule(() -> mExpired.add("a"), 0);
+
+        assertTrue(mExpired.isEmpty());
+        mScheduler.tick();
+        assertEquals("[a]", mExpired.toString());
+    }
+
+    @Test
+    public void countsFullTurnsOfTheWheel() {
+        // 10 ticks: the slot is passed once before the timeout is due
+        mTimerWheel.schedule(() -> mExpired.add("long"), 10 * TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("short"), 2 * TICK_MS);
+
+        mScheduler.tick(2);
+        assertEquals("[short]", mExpired.toString());
+        mScheduler.tick(7);
+        assertEquals("[short]", mExpired.toString());
+        mScheduler.tick();
+        assertEquals("[short, long]", mExpired.toString());
+    }
+
+    @Test
+    public void runsTimeoutsOfOneSlotInTheOrderTheyAreScheduled() {
+        mTimerWheel.schedule(() -> mExpired.add("a"), TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("b"), TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("c"), TICK_MS);
+
+        mScheduler.tick();
+        assertEquals("[a, b, c]", mExpired.toString());
+    }
+
+    @Test
+    public void doesNotRunACancelledTimeout() {
+        TimerWheel.Timeout cancelled = mTimerWheel.schedule(() -> mExpired.add("cancelled"), TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("kept"), TICK_MS);
+
+        assertTrue(mTimerWheel.cancel(cancelled));
+        assertFalse(mTimerWheel.cancel(cancelled));
+        mScheduler.tick();
+        assertEquals("[kept]", mExpired.toString());
+    }
+
+    @Test
+    public void cancelsTimeoutsAnywhereInTheirSlot() {
+        TimerWheel.Timeout first = mTimerWheel.schedule(() -> mExpired.add("first"), TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("a"), TICK_MS);
+        TimerWheel.Timeout middle = mTimerWheel.schedule(() -> mExpired.add("middle"), TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("b"), TICK_MS);
+        TimerWheel.Timeout last = mTimerWheel.schedule(() -> mExpired.add("last"), TICK_MS);
+
+        assertTrue(mTimerWheel.cancel(middle));
+        assertTrue(mTimerWheel.cancel(last));
+        assertTrue(mTimerWheel.cancel(first));
+        mScheduler.tick();
+        assertEquals("[a, b]", mExpired.toString());
+    }
+
+    @Test
+    public void doesNotCancelAnExpiredTimeout() {
+        TimerWheel.Timeout timeout = mTimerWheel.schedule(() -> mExpired.add("a"), TICK_MS);
+        mScheduler.tick();
+
+        assertFalse(mTimerWheel.cancel(timeout));
+        assertFalse(mTimerWheel.cancel(null));
+    }
+
+    @Test
+    public void ticksOnlyWhileTimeoutsArePending() {
+        assertTrue(mScheduler.tasks().isEmpty());
+        TimerWheel.Timeout first = mTimerWheel.schedule(() -> mExpired.add("first"), TICK_MS);
+        TimerWheel.Timeout second = mTimerWheel.schedule(() -> mExpired.add("second"), 3 * TICK_MS);
+        assertEquals(1, mScheduler.tasks().size());
+
+        mScheduler.tick();
+        assertEquals(1, mScheduler.tasks().size());
+        mTimerWheel.cancel(second);
+        assertTrue(mScheduler.tasks().isEmpty());
+
+        mTimerWheel.schedule(() -> mExpired.add("third"), TICK_MS);
+        assertEquals(1, mScheduler.tasks().size());
+        mScheduler.tick();
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertEquals("[first, third]", mExpired.toString());
+        assertFalse(mTimerWheel.cancel(first));
+    }
+
+    @Test
+    public void keepsRunningTimeoutsAfterAFailedTask() {
+        mTimerWheel.schedule(() -> {
+            throw new IllegalStateException("failed");
+        }, TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("a"), TICK_MS);
+        mTimerWheel.schedule(() -> mExpired.add("b"), 2 * TICK_MS);
+
+        mScheduler.tick(2);
+        assertEquals("[a, b]", mExpired.toString());
+    }
+
+    @Test
+    public void letsATaskScheduleAndCancelTimeouts() {
+        TimerWheel.Timeout[] other = new TimerWheel.Timeout[1];
+        mTimerWheel.schedule(() -> {
+            mTimerWheel.cancel(other[0]);
+            mTimerWheel.schedule(() -> mExpired.add("rescheduled"), TICK_MS);
+        }, TICK_MS);
+        other[0] = mTimerWheel.schedule(() -> mExpired.add("cancelled"), 2 * TICK_MS);
+
+        mScheduler.tick(3);
+        assertEquals("[rescheduled]", mExpired.toString());
+        assertTrue(mScheduler.tasks().isEmpty());
+    }
+
+    @Test
+    public void schedulesOnAShutDownScheduler() {
+        mScheduler.shutdown();
+
+        assertNotNull(mTimerWheel.schedule(() -> mExpired.add("a"), TICK_MS));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.ContextWrapper;
+
+import com.voximplant.sdk.client.AuthParams;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TokenManagerTest {
+    // access token lifetime in seconds
+    private static final int ACCESS_EXPIRE = 1000;
+    private static final int REFRESH_EXPIRE = 100000;
+
+    private ManualScheduler mScheduler;
+    private List<String> mRefreshes;
+    private TokenManager mTokenManager;
+
+    @Before
+    public void setUp() {
+        mScheduler = new ManualScheduler();
+        mRefreshes = new ArrayList<>();
+        mTokenManager = new TokenManager(mScheduler, (username, refreshToken) -> {
+            mRefreshes.add(username + ":" + refreshToken);
+            return true;
+        });
+        mTokenManager.setEnabled(new ContextWrapper(), true);
+    }
+
+    @After
+    public void tearDown() {
+        mTokenManager.release();
+    }
+
+    @Test
+    public void refreshesBetween80And90PercentOfTheLifetime() {
+        mTokenManager.onTokensIssued("user", new AuthParams("access", ACCESS_EXPIRE, "refresh", REFRESH_EXPIRE));
+
+        assertEquals(1, mScheduler.tasks().size());
+        long delayMs = mScheduler.tasks().get(0).getDelay(TimeUnit.MILLISECONDS);
+        assertTrue(delayMs >= 800000 - 1000 && delayMs <= 900000);
+
+        mScheduler.runDelayed();
+        assertEquals("[user:refresh]", mRefreshes.toString());
+    }
+
+    @Test
+    public void keepsTheUserOfRefreshedTokens() {
+        mTokenManager.onTokensIssued("user", new AuthParams("access", ACCESS_EXPIRE, "refresh", REFRESH_EXPIRE));
+        mTokenManager.onTokensIssued(null, new AuthParams("access2", ACCESS_EXPIRE, "refresh2", REFRESH_EXPIRE));
+
+        assertEquals("user", mTokenManager.getTokens().username);
+        assertEquals("access2", mTokenManager.getTokens().accessToken);
+        // the refresh of the old tokens is replaced
+        assertEquals(1, mScheduler.tasks().size());
+        mScheduler.runDelayed();
+        assertEquals("[user:refresh2]", mRefreshes.toString());
+    }
+
+    @Test
+    public void retriesAFailedRefreshAfterAMinute() {
+        mTokenManager.onTokensIssued("user", new AuthParams("access", ACCESS_EXPIRE, "refresh", REFRESH_EXPIRE));
+        mScheduler.runDelayed();
+
+        mTokenManager.onRefreshFailed(503);
+        long delayMs = mScheduler.tasks().get(0).getDelay(TimeUnit.MILLISECONDS);
+        assertTrue(delayMs >= 60000 && delayMs < 120000);
+    }
+
+    @Test
+    public void forgetsTokensThatAreRejected() {
+        mTokenManager.onTokensIssued("user", new AuthParams("access", ACCESS_EXPIRE, "refresh", REFRESH_EXPIRE));
+
+        mTokenManager.onRefreshFailed(401);
+        assertNull(mTokenManager.getTokens());
+        assertTrue(mScheduler.tasks().isEmpty());
+    }
+
+    @Test
+    public void doesNotKeepTokensWhenDisabled() {
+        mTokenManager.setEnabled(new ContextWrapper(), false);
+        mTokenManager.onTokensIssued("user", new AuthParams("access", ACCESS_EXPIRE, "refresh", REFRESH_EXPIRE));
+
+        assertNull(mTokenManager.getTokens());
+        assertTrue(mScheduler.tasks().isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.ICall;
+
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ToneSequenceTest {
+    private ManualScheduler mScheduler;
+    private RecordingWebView mWebView;
+    private List<String> mSent;
+    private ICall mCall;
+    private ToneSequence mSequence;
+    private Runnable mOnTone;
+
+    @Before
+    public void setUp() {
+        mScheduler = new ManualScheduler();
+        mWebView = new RecordingWebView();
+        mSent = new ArrayList<>();
+        mCall = (ICall) Proxy.newProxyInstance(ICall.class.getClassLoader(), new Class<?>[]{ICall.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendDTMF")) {
+                        assertFalse(Thread.holdsLock(mSequence));
+                        mSent.add((String) args[0]);
+                        if (mOnTone != null) {
+                            mOnTone.run();
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void sendsTonesAtTheInterval() throws JSONException {
+        start("12#", 170);
+        assertEquals(1, mScheduler.tasks().size());
+        assertEquals(0, mScheduler.tasks().get(0).getDelay(TimeUnit.MILLISECONDS));
+
+        mScheduler.runDelayed();
+        assertEquals("[1]", mSent.toString());
+        // the next tone is due 170 ms after the first one was due
+        long delayMs = mScheduler.tasks().get(0).getDelay(TimeUnit.MILLISECONDS);
+        assertTrue(delayMs > 100 && delayMs <= 170);
+        assertTrue(mSequence.isActive());
+
+        mScheduler.runDelayed();
+        mScheduler.runDelayed();
+        assertEquals("[1, 2, #]", mSent.toString());
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertFalse(mSequence.isActive());
+        List<PluginResult> results = mWebView.results("tones");
+        assertEquals(1, results.size());
+        assertEquals(PluginResult.Status.OK.ordinal(), results.get(0).getStatus());
+        JSONObject progress = new JSONObject(results.get(0).getMessage());
+        assertEquals(3, progress.getInt("sent"));
+        assertEquals("COMPLETED", progress.getString("result"));
+    }
+
+    @Test
+    public void cancelStopsTheSequence() throws JSONException {
+        start("1234", 100);
+        mScheduler.runDelayed();
+
+        assertTrue(mSequence.cancel("CANCELLED"));
+        assertFalse(mSequence.cancel("CANCELLED"));
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertEquals("[1]", mSent.toString());
+        List<PluginResult> results = mWebView.results("tones");
+        assertEquals(1, results.size());
+        assertEquals(PluginResult.Status.ERROR.ordinal(), results.get(0).getStatus());
+        JSONObject progress = new JSONObject(results.get(0).getMessage());
+        assertEquals("CANCELLED", progress.getString("code"));
+        assertEquals(1, progress.getInt("sent"));
+        assertEquals(4, progress.getInt("total"));
+    }
+
+    @Test
+    public void doesNotScheduleTheNextToneWhenCancelledWhileSending() throws JSONException {
+        start("1234", 100);
+        mOnTone = () -> mSequence.cancel("CALL_ENDED");
+        mScheduler.runDelayed();
+
+        assertTrue(mScheduler.tasks().isEmpty());
+        assertEquals("[1]", mSent.toString());
+        JSONObject progress = mSequence.getProgress();
+        assertEquals(1, progress.getInt("sent"));
+        assertEquals("CALL_ENDED", progress.getString("result"));
+        assertEquals(1, mWebView.results("tones").size());
+    }
+
+    private void start(String tones, int intervalMs) {
+        mSequence = new ToneSequence(mCall, tones, intervalMs, mScheduler, mWebView.callbackContext("tones"));
+        mSequence.start();
+    }
+}
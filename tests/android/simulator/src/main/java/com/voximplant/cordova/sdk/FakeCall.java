@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.CallSettings;
+import com.voximplant.sdk.call.ICall;
+import com.voximplant.sdk.call.ICallCompletionHandler;
+import com.voximplant.sdk.call.ICallListener;
+import com.voximplant.sdk.call.IEndpoint;
+import com.voximplant.sdk.call.IEndpointListener;
+import com.voximplant.sdk.call.IVideoStream;
+import com.voximplant.sdk.call.RejectMode;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Call of the fake SDK. An outgoing call rings after one network round trip and is answered after the second
+ * one, an incoming call connects one round trip after it is answered. The remote party echoes the messages and
+ * SIP INFO it is sent. Once the call has ended no more callbacks are delivered.
+ */
+final class FakeCall implements ICall {
+    private final FakeClient mClient;
+    private final String mCallId;
+    private final FakeEndpoint mEndpoint;
+    private final FakeEndpoint.VideoStream mLocalVideoStream;
+    private final List<ICallListener> mListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean mConnected;
+    private volatile boolean mEnded;
+
+    FakeCall(FakeClient client, String callId) {
+        mClient = client;
+        mCallId = callId;
+        mEndpoint = new FakeEndpoint(callId + "-remote");
+        mLocalVideoStream = new FakeEndpoint.VideoStream(callId + "-local-video");
+    }
+
+    boolean isConnected() {
+        return mConnected && !mEnded;
+    }
+
+    boolean isEnded() {
+        return mEnded;
+    }
+
+    void fireMessageReceived(String text) {
+        fireCallEvent(listener -> listener.onMessageReceived(this, text));
+    }
+
+    void fireSIPInfoReceived(String body, Map<String, String> headers) {
+        fireCallEvent(listener -> listener.onSIPInfoReceived(this, "application/json", body, headers));
+    }
+
+    void fireICECompleted() {
+        fireCallEvent(listener -> listener.onICECompleted(this));
+    }
+
+    void fireLocalVideoStream(boolean added) {
+        fireCallEvent(listener -> {
+            if (added) {
+                listener.onLocalVideoStreamAdded(this, mLocalVideoStream);
+            } else {
+                listener.onLocalVideoStreamRemoved(this, mLocalVideoStream);
+            }
+        });
+    }
+
+    void fireEndpointInfoUpdated(String displayName) {
+        fireEndpointEvent(listener -> {
+            mEndpoint.setUserDisplayName(displayName);
+            listener.onEndpointInfoUpdated(mEndpoint);
+        });
+    }
+
+    void fireRemoteVideoStream(boolean added) {
+        fireEndpointEvent(listener -> {
+            if (added) {
+                listener.onRemoteVideoStreamAdded(mEndpoint, mEndpoint.getVideoStream());
+            } else {
+                listener.onRemoteVideoStreamRemoved(mEndpoint, mEndpoint.getVideoStream());
+            }
+        });
+    }
+
+    /**
+     * The remote party hangs up.
+     */
+    void fireDisconnected(Map<String, String> headers) {
+        mClient.fire(() -> end(headers));
+    }
+
+    private void fireCallEvent(Consumer<ICallListener> callback) {
+        mClient.fire(toListeners(callback));
+    }
+
+    private Runnable toListeners(Consumer<ICallListener> callback) {
+        return () -> {
+            if (mEnded) {
+                return;
+            }
+            for (ICallListener listener : mListeners) {
+                callback.accept(listener);
+            }
+        };
+    }
+
+    private void fireEndpointEvent(Consumer<IEndpointListener> callback) {
+        mClient.fire(() -> {
+            IEndpointListener listener = mEndpoint.getListener();
+            if (!mEnded && listener != null) {
+                callback.accept(listener);
+            }
+        });
+    }
+
+    private void connect(Map<String, String> headers) {
+        if (mEnded) {
+            return;
+        }
+        mConnected = true;
+        for (ICallListener listener : mListeners) {
+            listener.onEndpointAdded(this, mEndpoint);
+            listener.onCallConnected(this, headers);
+            listener.onCallAudioStarted(this);
+            listener.onICECompleted(this);
+        }
+    }
+
+    private void end(Map<String, String> headers) {
+        if (mEnded) {
+            return;
+        }
+        mEnded = true;
+        mClient.removeCall(mCallId);
+        for (ICallListener listener : mListeners) {
+            listener.onCallDisconnected(this, headers, false);
+        }
+    }
+
+    @Override
+    public String getCallId() {
+        return mCallId;
+    }
+
+    @Override
+    public List<IEndpoint> getEndpoints() {
+        return Collections.singletonList(mEndpoint);
+    }
+
+    @Override
+    public List<IVideoStream> getLocalVideoStreams() {
+        return Collections.singletonList(mLocalVideoStream);
+    }
+
+    @Override
+    public void addCallListener(ICallListener listener) {
+        mListeners.add(listener);
+    }
+
+    @Override
+    public void removeCallListener(ICallListener listener) {
+        mListeners.remove(listener);
+    }
+
+    @Override
+    public void start() {
+        mClient.respond(toListeners(listener -> listener.onCallRinging(this, Collections.emptyMap())));
+        mClient.respond(2, () -> connect(Collections.emptyMap()));
+    }
+
+    @Override
+    public void answer(CallSettings settings) {
+        mClient.respond(() -> connect(settings.extraHeaders));
+    }
+
+    @Override
+    public void reject(RejectMode mode, Map<String, String> headers) {
+        mClient.respond(() -> end(headers));
+    }
+
+    @Override
+    public void hangup(Map<String, String> headers) {
+        mClient.respond(() -> end(headers));
+    }
+
+    @Override
+    public void sendAudio(boolean enable) {
+    }
+
+    @Override
+    public void sendDTMF(String dtmf) {
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        mClient.respond(toListeners(listener -> listener.onMessageReceived(this, message)));
+    }
+
+    @Override
+    public void sendInfo(String mimeType, String body, Map<String, String> headers) {
+        mClient.respond(toListeners(listener -> listener.onSIPInfoReceived(this, mimeType, body, headers)));
+    }
+
+    @Override
+    public void hold(boolean enable, ICallCompletionHandler handler) {
+        mClient.respond(handler::onComplete);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.CallSettings;
+import com.voximplant.sdk.call.ICall;
+import com.voximplant.sdk.client.AuthParams;
+import com.voximplant.sdk.client.ClientState;
+import com.voximplant.sdk.client.IClient;
+import com.voximplant.sdk.client.IClientIncomingCallListener;
+import com.voximplant.sdk.client.IClientLoginListener;
+import com.voximplant.sdk.client.IClientSessionListener;
+import com.voximplant.sdk.client.IPushTokenCompletionHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process client of the fake SDK. Every request is answered after the network delay, and every callback is
+ * delivered on the executor the plugin has passed to Voximplant.getClientInstance, as the SDK does.
+ * Connect and login always succeed.
+ */
+final class FakeClient implements IClient {
+    private final Executor mCallbackExecutor;
+    private final ScheduledExecutorService mNetwork;
+    private final long mNetworkDelayMs;
+    private final ConcurrentMap<String, FakeCall> mCalls = new ConcurrentHashMap<>();
+    private final AtomicLong mNextCallId = new AtomicLong();
+    private final AtomicLong mCallbacks = new AtomicLong();
+
+    private volatile ClientState mState = ClientState.DISCONNECTED;
+    private volatile IClientSessionListener mSessionListener;
+    private volatile IClientLoginListener mLoginListener;
+    private volatile IClientIncomingCallListener mIncomingCallListener;
+
+    FakeClient(Executor callbackExecutor, ScheduledExecutorService network, long networkDelayMs) {
+        mCallbackExecutor = callbackExecutor;
+        mNetwork = network;
+        mNetworkDelayMs = networkDelayMs;
+    }
+
+    /**
+     * Delivers a callback on the callback executor.
+     */
+    void fire(Runnable callback) {
+        mCallbacks.incrementAndGet();
+        mCallbackExecutor.execute(callback);
+    }
+
+    /**
+     * Delivers a callback after the network delay.
+     */
+    void respond(Runnable callback) {
+        respond(1, callback);
+    }
+
+    /**
+     * Delivers a callback after the given number of network round trips.
+     */
+    void respond(int roundTrips, Runnable callback) {
+        mNetwork.schedule(() -> fire(callback), roundTrips * mNetworkDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    long getCallbackCount() {
+        return mCallbacks.get();
+    }
+
+    FakeCall getCall(String callId) {
+        return mCalls.get(callId);
+    }
+
+    void removeCall(String callId) {
+        mCalls.remove(callId);
+    }
+
+    int getCallCount() {
+        return mCalls.size();
+    }
+
+    /**
+     * Reports an incoming call to the plugin.
+     *
+     * @return completes once the plugin has handled the callback, so the call can be answered
+     */
+    CompletableFuture<FakeCall> receiveCall(Map<String, String> headers) {
+        FakeCall call = createCall("incoming-");
+        CompletableFuture<FakeCall> received = new CompletableFuture<>();
+        fire(() -> {
+            IClientIncomingCallListener listener = mIncomingCallListener;
+            if (listener != null) {
+                listener.onIncomingCall(call, false, headers);
+            }
+            received.complete(call);
+        });
+        return received;
+    }
+
+    private FakeCall createCall(String prefix) {
+        FakeCall call = new FakeCall(this, prefix + mNextCallId.incrementAndGet());
+        mCalls.put(call.getCallId(), call);
+        return call;
+    }
+
+    private AuthParams createAuthParams() {
+        return new AuthParams("access-" + System.nanoTime(), 3600, "refresh-" + System.nanoTime(), 2592000);
+    }
+
+    @Override
+    public ClientState getClientState() {
+        return mState;
+    }
+
+    @Override
+    public void connect(boolean connectivityCheck, List<String> servers) {
+        if (mState != ClientState.DISCONNECTED) {
+            throw new IllegalStateException("Invalid state: " + mState);
+        }
+        mState = ClientState.CONNECTING;
+        respond(() -> {
+            mState = ClientState.CONNECTED;
+            IClientSessionListener listener = mSessionListener;
+            if (listener != null) {
+                listener.onConnectionEstablished();
+            }
+        });
+    }
+
+    @Override
+    public void disconnect() {
+        respond(() -> {
+            mState = ClientState.DISCONNECTED;
+            IClientSessionListener listener = mSessionListener;
+            if (listener != null) {
+                listener.onConnectionClosed();
+            }
+        });
+    }
+
+    @Override
+    public void login(String username, String password) {
+        completeLogin(username);
+    }
+
+    @Override
+    public void loginWithAccessToken(String username, String token) {
+        completeLogin(username);
+    }
+
+    @Override
+    public void loginWithOneTimeKey(String username, String hash) {
+        completeLogin(username);
+    }
+
+    private void completeLogin(String username) {
+        mState = ClientState.LOGGING_IN;
+        respond(() -> {
+            mState = ClientState.LOGGED_IN;
+            IClientLoginListener listener = mLoginListener;
+            if (listener != null) {
+                listener.onLoginSuccessful("Simulated " + username, createAuthParams());
+            }
+        });
+    }
+
+    @Override
+    public void requestOneTimeKey(String username) {
+        respond(() -> {
+            IClientLoginListener listener = mLoginListener;
+            if (listener != null) {
+                listener.onOneTimeKeyGenerated("key-" + System.nanoTime());
+            }
+        });
+    }
+
+    @Override
+    public void refreshToken(String username, String refreshToken) {
+        respond(() -> {
+            IClientLoginListener listener = mLoginListener;
+            if (listener != null) {
+                listener.onRefreshTokenSuccess(createAuthParams());
+            }
+        });
+    }
+
+    @Override
+    public ICall call(String number, CallSettings callSettings) {
+        if (mState != ClientState.LOGGED_IN) {
+            return null;
+        }
+        return createCall("outgoing-");
+    }
+
+    @Override
+    public void setClientSessionListener(IClientSessionListener listener) {
+        mSessionListener = listener;
+    }
+
+    @Override
+    public void setClientLoginListener(IClientLoginListener listener) {
+        mLoginListener = listener;
+    }
+
+    @Override
+    public void setClientIncomingCallListener(IClientIncomingCallListener listener) {
+        mIncomingCallListener = listener;
+    }
+
+    @Override
+    public void registerForPushNotifications(String pushToken, IPushTokenCompletionHandler handler) {
+        respond(handler::onSuccess);
+    }
+
+    @Override
+    public void unregisterFromPushNotifications(String pushToken, IPushTokenCompletionHandler handler) {
+        respond(handler::onSuccess);
+    }
+
+    @Override
+    public void handlePushNotification(Map<String, String> message) {
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import com.voximplant.sdk.call.IEndpoint;
+import com.voximplant.sdk.call.IEndpointListener;
+import com.voximplant.sdk.call.IVideoStream;
+import com.voximplant.sdk.call.RenderScaleType;
+
+import org.webrtc.VideoSink;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The remote party of a {@link FakeCall}.
+ */
+final class FakeEndpoint implements IEndpoint {
+    static final class VideoStream implements IVideoStream {
+        private final String mVideoStreamId;
+
+        VideoStream(String videoStreamId) {
+            mVideoStreamId = videoStreamId;
+        }
+
+        @Override
+        public String getVideoStreamId() {
+            return mVideoStreamId;
+        }
+
+        @Override
+        public void addVideoRenderer(VideoSink renderer, RenderScaleType scaleType) {
+        }
+
+        @Override
+        public void removeVideoRenderer(VideoSink renderer) {
+        }
+    }
+
+    private final String mEndpointId;
+    private final VideoStream mVideoStream;
+    private volatile IEndpointListener mListener;
+    private volatile String mDisplayName;
+
+    FakeEndpoint(String endpointId) {
+        mEndpointId = endpointId;
+        mVideoStream = new VideoStream(endpointId + "-video");
+        mDisplayName = "User " + endpointId;
+    }
+
+    IEndpointListener getListener() {
+        return mListener;
+    }
+
+    VideoStream getVideoStream() {
+        return mVideoStream;
+    }
+
+    void setUserDisplayName(String displayName) {
+        mDisplayName = displayName;
+    }
+
+    @Override
+    public String getEndpointId() {
+        return mEndpointId;
+    }
+
+    @Override
+    public String getUserName() {
+        return "user-" + mEndpointId;
+    }
+
+    @Override
+    public String getUserDisplayName() {
+        return mDisplayName;
+    }
+
+    @Override
+    public String getSipUri() {
+        return "sip:user-" + mEndpointId + "@simulator.voximplant.com";
+    }
+
+    @Override
+    public List<IVideoStream> getVideoStreams() {
+        return Collections.singletonList(mVideoStream);
+    }
+
+    @Override
+    public void setEndpointListener(IEndpointListener listener) {
+        mListener = listener;
+    }
+}
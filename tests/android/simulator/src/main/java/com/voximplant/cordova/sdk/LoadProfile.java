@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+/**
+ * Parameters of a simulation run, parsed from the command line as --name value.
+ */
+final class LoadProfile {
+    // concurrent calls kept up during the run, half of them outgoing and half incoming
+    int calls = 200;
+    // SDK events per second spread over the connected calls
+    int eventsPerSecond = 5000;
+    // JS actions per second: sendMessage, sendInfo, sendTone and hold on random calls
+    int actionsPerSecond = 500;
+    // calls per second hung up and replaced with new ones
+    int churnPerSecond = 5;
+    // SIP headers of the call lifecycle and SIP INFO events
+    int headerCount = 10;
+    int durationSeconds = 30;
+    // simulated network delay of the SDK requests and responses
+    int networkDelayMs = 20;
+    String callbackExecutorMode = "SHARED";
+    boolean lazyHeaders;
+    // keeps the app in background during the run, so the event channel holds and coalesces events
+    boolean background;
+
+    static LoadProfile parse(String[] args) {
+        LoadProfile profile = new LoadProfile();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("--help")) {
+                throw new IllegalArgumentException(usage());
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value of " + name + "\n" + usage());
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--calls":
+                    profile.calls = parseCount(name, value);
+                    break;
+                case "--events":
+                    profile.eventsPerSecond = parseCount(name, value);
+                    break;
+                case "--actions":
+                    profile.actionsPerSecond = parseCount(name, value);
+                    break;
+                case "--churn":
+                    profile.churnPerSecond = parseCount(name, value);
+                    break;
+                case "--headers":
+                    profile.headerCount = parseCount(name, value);
+                    break;
+                case "--duration":
+                    profile.durationSeconds = parseCount(name, value);
+                    break;
+                case "--network-delay":
+                    profile.networkDelayMs = parseCount(name, value);
+                    break;
+                case "--callback-executor":
+                    profile.callbackExecutorMode = value;
+                    break;
+                case "--lazy-headers":
+                    profile.lazyHeaders = Boolean.parseBoolean(value);
+                    break;
+                case "--background":
+                    profile.background = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name + "\n" + usage());
+            }
+        }
+        return profile;
+    }
+
+    private static int parseCount(String name, String value) {
+        try {
+            int result = Integer.parseInt(value);
+            if (result >= 0) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+    }
+
+    static String usage() {
+        return "Usage: java -jar simulator.jar [options]\n"
+                + "  --calls <n>              concurrent calls (200)\n"
+                + "  --events <n>             SDK events per second (5000)\n"
+                + "  --actions <n>            JS actions per second (500)\n"
+                + "  --churn <n>              calls replaced per second (5)\n"
+                + "  --headers <n>            SIP headers per event (10)\n"
+                + "  --duration <s>           load duration in seconds (30)\n"
+                + "  --network-delay <ms>     delay of the fake SDK responses (20)\n"
+                + "  --callback-executor <m>  SHARED or MAIN (SHARED)\n"
+                + "  --lazy-headers <b>       deliver header handles instead of headers (false)\n"
+                + "  --background <b>         run with the app paused (false)";
+    }
+
+    @Override
+    public String toString() {
+        return "calls=" + calls + " events/s=" + eventsPerSecond + " actions/s=" + actionsPerSecond
+                + " churn/s=" + churnPerSecond + " headers=" + headerCount + " duration=" + durationSeconds + "s"
+                + " networkDelay=" + networkDelayMs + "ms callbackExecutor=" + callbackExecutorMode
+                + " lazyHeaders=" + lazyHeaders + " background=" + background;
+    }
+}
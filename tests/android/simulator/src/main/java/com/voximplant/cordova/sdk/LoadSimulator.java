@@ -0,0 +1,510 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+
+import com.voximplant.sdk.Voximplant;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaInterface;
+import org.apache.cordova.CordovaPreferences;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives VoximplantPlugin under synthetic load: the plugin runs as in the app, with the main looper on a thread
+ * of its own, and JS is replaced by exec calls on a bridge thread while the Voximplant SDK is replaced by
+ * {@link FakeClient}.
+ *
+ * The run connects, logs in and sets up the calls, half of them outgoing and half incoming, then for the load
+ * duration fires SDK events on the connected calls, issues call actions from JS and replaces calls at the
+ * configured rates. It reports the throughput, the end-to-end latency percentiles of events and actions, and
+ * the heap growth over the run.
+ */
+public final class LoadSimulator {
+    private static final long SETUP_TIMEOUT_MS = 30000;
+    private static final long DRAIN_TIMEOUT_MS = 10000;
+    private static final double MB = 1024 * 1024;
+
+    private final LoadProfile mProfile;
+    private final Activity mActivity = new Activity();
+    private final MeasuringWebView mWebView = new MeasuringWebView(mActivity);
+    private final ExecutorService mThreadPool = Executors.newCachedThreadPool(daemon("CordovaThreadPool"));
+    // Cordova runs exec on the thread of the JS bridge
+    private final ExecutorService mBridge = Executors.newSingleThreadExecutor(daemon("JSBridge"));
+    private final ScheduledExecutorService mNetwork = Executors.newScheduledThreadPool(2, daemon("FakeSdkNetwork"));
+    private final ScheduledExecutorService mLoad = Executors.newSingleThreadScheduledExecutor(daemon("LoadGenerator"));
+    private final Map<String, String> mHeaders;
+    private final List<FakeCall> mActiveCalls = new ArrayList<>();
+    private final AtomicLong mFiredEvents = new AtomicLong();
+    private final AtomicLong mIssuedActions = new AtomicLong();
+    private final AtomicLong mReplacedCalls = new AtomicLong();
+    private final AtomicLong mFailedCalls = new AtomicLong();
+    private final VoximplantPlugin mPlugin = new VoximplantPlugin();
+    private volatile FakeClient mClient;
+    private Thread mLooperThread;
+    private long mPeakHeap;
+
+    LoadSimulator(LoadProfile profile) {
+        mProfile = profile;
+        mHeaders = new LinkedHashMap<>();
+        for (int i = 0; i < profile.headerCount; i++) {
+            mHeaders.put(String.format("X-Simulator-Header-%02d", i), "value-" + i + "-" + Long.toHexString(i * 0x9e3779b97f4a7c15L));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile;
+        try {
+            profile = LoadProfile.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        boolean completed = new LoadSimulator(profile).run();
+        System.exit(completed ? 0 : 1);
+    }
+
+    boolean run() throws Exception {
+        System.out.println("Load: " + mProfile);
+        try {
+            start();
+            if (!setUpCalls()) {
+                return false;
+            }
+            long baselineHeap = usedHeapAfterGc();
+            mPeakHeap = baselineHeap;
+            long loadNanos = runLoad();
+            drain();
+            long loadedHeap = usedHeapAfterGc();
+            String bridgeMetrics = exec("getBridgeMetrics", new JSONArray()).getMessage();
+            hangUpAll();
+            long releasedHeap = usedHeapAfterGc();
+            report(loadNanos, baselineHeap, loadedHeap, releasedHeap, bridgeMetrics);
+            return true;
+        } finally {
+            stop();
+        }
+    }
+
+    private void start() throws Exception {
+        mLooperThread = new Thread(Looper::loop, "main");
+        mLooperThread.setDaemon(true);
+        mLooperThread.start();
+        while (Looper.getMainLooper().getThread() == null) {
+            Thread.sleep(1);
+        }
+        Voximplant.setClientFactory((executor, context, clientConfig) ->
+                mClient = new FakeClient(executor, mNetwork, mProfile.networkDelayMs));
+        mPlugin.privateInitialize("Voximplant", new CordovaInterface() {
+            @Override
+            public Activity getActivity() {
+                return mActivity;
+            }
+
+            @Override
+            public Context getContext() {
+                return mActivity;
+            }
+
+            @Override
+            public ExecutorService getThreadPool() {
+                return mThreadPool;
+            }
+        }, mWebView, new CordovaPreferences());
+
+        CallbackContext eventChannel = new CallbackContext(MeasuringWebView.EVENT_CHANNEL_ID, mWebView);
+        mBridge.execute(() -> mPlugin.execute("registerEventChannel", new JSONArray(), eventChannel));
+        expectOk("initClient", exec("initClient", new JSONArray().put(new JSONObject()
+                .put("callbackExecutorMode", mProfile.callbackExecutorMode)
+                .put("lazyHeaders", mProfile.lazyHeaders))));
+        expectOk("connect", exec("connect", new JSONArray().put(new JSONObject())));
+        expectOk("login", exec("login", new JSONArray().put(new JSONObject()
+                .put("username", "simulator@app.account.voximplant.com")
+                .put("password", "secret"))));
+        if (mProfile.background) {
+            mActivity.runOnUiThread(() -> mPlugin.onPause(false));
+        }
+    }
+
+    private void stop() throws InterruptedException {
+        mLoad.shutdownNow();
+        mBridge.shutdown();
+        mBridge.awaitTermination(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> destroyed = new CompletableFuture<>();
+        mActivity.runOnUiThread(() -> {
+            mPlugin.onDestroy();
+            destroyed.complete(null);
+        });
+        try {
+            destroyed.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            System.err.println("Plugin destroy has not completed: " + e);
+        }
+        Looper.getMainLooper().quit();
+        mNetwork.shutdownNow();
+        mThreadPool.shutdownNow();
+        Voximplant.setClientFactory(null);
+    }
+
+    private boolean setUpCalls() throws InterruptedException {
+        for (int i = 0; i < mProfile.calls; i++) {
+            startCall(i % 2 == 0);
+        }
+        long deadline = System.currentTimeMillis() + SETUP_TIMEOUT_MS;
+        while (connectedCalls() < mProfile.calls) {
+            if (System.currentTimeMillis() > deadline || mFailedCalls.get() > 0) {
+                System.err.println("Only " + connectedCalls() + " of " + mProfile.calls + " calls have connected, "
+                        + mFailedCalls.get() + " have failed");
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        System.out.println("Calls: " + mProfile.calls + " connected");
+        return true;
+    }
+
+    /**
+     * Starts an outgoing call from JS, or reports an incoming call from the SDK and answers it from JS.
+     */
+    private void startCall(boolean outgoing) {
+        CompletableFuture<FakeCall> call;
+        if (outgoing) {
+            call = execAsync("call", new JSONArray().put("+1555" + ThreadLocalRandom.current().nextInt(1000000, 9999999))
+                    .put(callSettings()))
+                    .thenApply(result -> result.getStatus() == PluginResult.Status.OK.ordinal()
+                            ? mClient.getCall(result.getStrMessage()) : null);
+        } else {
+            call = mClient.receiveCall(mHeaders).thenCompose(incoming ->
+                    execAsync("answer", new JSONArray().put(incoming.getCallId()).put(callSettings()))
+                            .thenApply(result -> result.getStatus() == PluginResult.Status.OK.ordinal() ? incoming : null));
+        }
+        call.whenComplete((started, error) -> {
+            if (started == null) {
+                mFailedCalls.incrementAndGet();
+                return;
+            }
+            synchronized (mActiveCalls) {
+                mActiveCalls.add(started);
+            }
+        });
+    }
+
+    private JSONObject callSettings() {
+        try {
+            return new JSONObject()
+                    .put("customData", "simulator")
+                    .put("extraHeaders", new JSONObject(mHeaders));
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int connectedCalls() {
+        int connected = 0;
+        synchronized (mActiveCalls) {
+            for (FakeCall call : mActiveCalls) {
+                if (call.isConnected()) {
+                    connected++;
+                }
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * @return a random connected call, or null if there is none
+     */
+    private FakeCall pickCall() {
+        synchronized (mActiveCalls) {
+            int size = mActiveCalls.size();
+            if (size == 0) {
+                return null;
+            }
+            int start = ThreadLocalRandom.current().nextInt(size);
+            for (int i = 0; i < size; i++) {
+                FakeCall call = mActiveCalls.get((start + i) % size);
+                if (call.isConnected()) {
+                    return call;
+                }
+            }
+            return null;
+        }
+    }
+
+    private long runLoad() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(mProfile.durationSeconds);
+        // the rates are kept against the elapsed time, so a late tick catches up
+        mLoad.scheduleAtFixedRate(new Runnable() {
+            private long mEvents;
+            private long mActions;
+            private long mChurn;
+
+            @Override
+            public void run() {
+                long elapsedNanos = System.nanoTime() - startNanos;
+                for (long due = due(elapsedNanos, mProfile.eventsPerSecond); mEvents < due; mEvents++) {
+                    fireEvent(mEvents);
+                }
+                for (long due = due(elapsedNanos, mProfile.actionsPerSecond); mActions < due; mActions++) {
+                    issueAction(mActions);
+                }
+                for (long due = due(elapsedNanos, mProfile.churnPerSecond); mChurn < due; mChurn++) {
+                    replaceCall(mChurn);
+                }
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+
+        long lastEvents = 0;
+        while (System.nanoTime() < endNanos) {
+            Thread.sleep(1000);
+            long events = mWebView.getEventCount();
+            long heap = usedHeap();
+            mPeakHeap = Math.max(mPeakHeap, heap);
+            System.out.printf("%3ds  events %6d/s  calls %4d  pending actions %4d  heap %6.1f MB%n",
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos), events - lastEvents,
+                    connectedCalls(), mWebView.getPendingActionCount(), heap / MB);
+            lastEvents = events;
+        }
+        mLoad.shutdownNow();
+        mLoad.awaitTermination(5, TimeUnit.SECONDS);
+        return System.nanoTime() - startNanos;
+    }
+
+    private static long due(long elapsedNanos, int perSecond) {
+        return elapsedNanos * perSecond / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Fires SDK events in the mix of a busy call: mostly messages and SIP INFO, which carry the time they are
+     * fired at, then endpoint updates, ICE and video stream changes.
+     */
+    private void fireEvent(long sequence) {
+        FakeCall call = pickCall();
+        if (call == null) {
+            return;
+        }
+        mFiredEvents.incrementAndGet();
+        int kind = (int) (sequence % 20);
+        if (kind < 8) {
+            call.fireMessageReceived(MeasuringWebView.PROBE + System.nanoTime());
+        } else if (kind < 14) {
+            call.fireSIPInfoReceived(MeasuringWebView.PROBE + System.nanoTime(), mHeaders);
+        } else if (kind < 17) {
+            call.fireEndpointInfoUpdated("Participant " + sequence);
+        } else if (kind == 17) {
+            call.fireICECompleted();
+        } else if (kind == 18) {
+            call.fireLocalVideoStream(sequence % 40 == 18);
+        } else {
+            call.fireRemoteVideoStream(sequence % 40 == 19);
+        }
+    }
+
+    /**
+     * Issues call actions from JS: messages, which the remote party echoes back, SIP INFO, DTMF and hold.
+     */
+    private void issueAction(long sequence) {
+        FakeCall call = pickCall();
+        if (call == null) {
+            return;
+        }
+        mIssuedActions.incrementAndGet();
+        String callId = call.getCallId();
+        try {
+            int kind = (int) (sequence % 10);
+            if (kind < 5) {
+                execAsync("sendMessage", new JSONArray().put(callId).put(MeasuringWebView.ECHO + System.nanoTime()));
+            } else if (kind < 7) {
+                execAsync("sendInfo", new JSONArray().put(callId).put(new JSONObject()
+                        .put("type", "application/json")
+                        .put("body", "{\"seq\":" + sequence + "}")
+                        .put("headers", new JSONObject(mHeaders))));
+            } else if (kind < 9) {
+                execAsync("sendTone", new JSONArray().put(callId).put(String.valueOf(sequence % 10)));
+            } else {
+                execAsync("hold", new JSONArray().put(callId).put(sequence % 20 == 9));
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ends a connected call, alternately hung up from JS and by the remote party, and starts a new one.
+     */
+    private void replaceCall(long sequence) {
+        FakeCall call = pickCall();
+        if (call == null) {
+            return;
+        }
+        synchronized (mActiveCalls) {
+            mActiveCalls.remove(call);
+        }
+        if (sequence % 2 == 0) {
+            execAsync("hangup", new JSONArray().put(call.getCallId()).put(new JSONObject(mHeaders)));
+        } else {
+            call.fireDisconnected(mHeaders);
+        }
+        mReplacedCalls.incrementAndGet();
+        startCall(sequence % 4 < 2);
+    }
+
+    /**
+     * Waits for the actions and events in flight to be delivered.
+     */
+    private void drain() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        long events = -1;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(100 + 2L * mProfile.networkDelayMs);
+            long delivered = mWebView.getEventCount();
+            if (mWebView.getPendingActionCount() == 0 && delivered == events) {
+                return;
+            }
+            events = delivered;
+        }
+        System.err.println("Not drained: " + mWebView.getPendingActionCount() + " actions pending");
+    }
+
+    private void hangUpAll() throws InterruptedException, ExecutionException, TimeoutException {
+        List<FakeCall> calls;
+        synchronized (mActiveCalls) {
+            calls = new ArrayList<>(mActiveCalls);
+            mActiveCalls.clear();
+        }
+        for (FakeCall call : calls) {
+            execAsync("hangup", new JSONArray().put(call.getCallId()));
+        }
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (mClient.getCallCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        drain();
+    }
+
+    private void report(long loadNanos, long baselineHeap, long loadedHeap, long releasedHeap,
+                        String bridgeMetrics) throws JSONException {
+        double seconds = loadNanos / 1e9;
+        System.out.println();
+        System.out.printf("Throughput over %.1f s:%n", seconds);
+        System.out.printf("  SDK events fired    %10.0f/s%n", mFiredEvents.get() / seconds);
+        System.out.printf("  events delivered    %10.0f/s in %.0f batches/s, %.1f MB/s encoded, %d gaps%n",
+                mWebView.getEventCount() / seconds, mWebView.getBatchCount() / seconds,
+                mWebView.getEncodedChars() * 2 / MB / seconds, mWebView.getGapCount());
+        System.out.printf("  actions issued      %10.0f/s, %d failed%n", mIssuedActions.get() / seconds,
+                mWebView.getActionErrorCount());
+        System.out.printf("  calls replaced      %10.0f/s%n", mReplacedCalls.get() / seconds);
+        System.out.println("Latency:");
+        System.out.println("  SDK event -> WebView          " + mWebView.getEventLatency().summary());
+        System.out.println("  sendMessage -> echo event     " + mWebView.getEchoLatency().summary());
+        for (Map.Entry<String, PercentileRecorder> entry : new TreeMap<>(mWebView.getActionLatency()).entrySet()) {
+            System.out.printf("  %-29s %s%n", entry.getKey() + " -> result", entry.getValue().summary());
+        }
+        System.out.println("Heap after GC:");
+        System.out.printf("  before load         %8.1f MB%n", baselineHeap / MB);
+        System.out.printf("  after load          %8.1f MB (%+.1f MB), peak %.1f MB%n", loadedHeap / MB,
+                (loadedHeap - baselineHeap) / MB, mPeakHeap / MB);
+        System.out.printf("  after hangup        %8.1f MB (%+.1f MB)%n", releasedHeap / MB,
+                (releasedHeap - baselineHeap) / MB);
+        reportBridgeMetrics(new JSONObject(bridgeMetrics));
+    }
+
+    /**
+     * Prints the counters of getBridgeMetrics and the latency of each event type, from the event write to the
+     * batch flush.
+     */
+    private static void reportBridgeMetrics(JSONObject metrics) throws JSONException {
+        System.out.println("Bridge metrics:");
+        System.out.printf("  events sent %d, dropped %d, coalesced %d in %d batches; live calls %d, evicted %d%n",
+                metrics.getLong("eventsSent"), metrics.getLong("eventsDropped"), metrics.getLong("eventsCoalesced"),
+                metrics.getLong("batchesSent"), metrics.getLong("liveCalls"), metrics.getLong("evictedCalls"));
+        System.out.println("  " + formatHistogram("main looper delay", metrics.getJSONObject("mainLooperDelay")));
+        JSONObject events = metrics.getJSONObject("events");
+        Set<String> names = new TreeSet<>();
+        for (Iterator<?> keys = events.keys(); keys.hasNext(); ) {
+            names.add((String) keys.next());
+        }
+        for (String name : names) {
+            System.out.println("  " + formatHistogram(name, events.getJSONObject(name)));
+        }
+    }
+
+    private static String formatHistogram(String name, JSONObject histogram) throws JSONException {
+        return String.format("%-34s n=%d p50<=%sms p90<=%sms p99<=%sms max=%.1fms", name, histogram.getLong("count"),
+                histogram.get("p50Ms"), histogram.get("p90Ms"), histogram.get("p99Ms"), histogram.getDouble("maxMs"));
+    }
+
+    private CompletableFuture<PluginResult> execAsync(String action, JSONArray args) {
+        CallbackContext callbackContext = mWebView.startAction(action);
+        // taken before exec, the pending action is dropped once the result is delivered
+        CompletableFuture<PluginResult> result = mWebView.result(callbackContext);
+        mBridge.execute(() -> {
+            if (!mPlugin.execute(action, args, callbackContext)) {
+                callbackContext.error("Invalid action: " + action);
+            }
+        });
+        return result;
+    }
+
+    private PluginResult exec(String action, JSONArray args)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return execAsync(action, args).get(SETUP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void expectOk(String action, PluginResult result) {
+        if (result.getStatus() != PluginResult.Status.OK.ordinal()) {
+            throw new IllegalStateException(action + " has failed: " + result.getMessage());
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return usedHeap();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicLong count = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import android.content.Context;
+import android.view.View;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the WebView side of the bridge. Results are encoded as the bridge does before passing them to
+ * JS and taken as delivered at that point.
+ *
+ * Events carry the System.nanoTime() of their SDK callback in the text of messages and the body of SIP INFO,
+ * after {@link #PROBE} for the events of the fake SDK and after {@link #ECHO} for the messages JS has sent and
+ * the remote party has echoed back; the latency of the other events is reported by BridgeMetrics.
+ */
+final class MeasuringWebView implements CordovaWebView {
+    static final String EVENT_CHANNEL_ID = "VoximplantEvents";
+    static final String PROBE = "probe:";
+    static final String ECHO = "echo:";
+
+    private static final class PendingAction {
+        final String action;
+        final long startNanos;
+        final CompletableFuture<PluginResult> result = new CompletableFuture<>();
+
+        PendingAction(String action, long startNanos) {
+            this.action = action;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final ConcurrentMap<String, PendingAction> mPendingActions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PercentileRecorder> mActionLatency = new ConcurrentHashMap<>();
+    private final AtomicLong mNextCallbackId = new AtomicLong();
+    private final AtomicLong mActionErrors = new AtomicLong();
+    private final PercentileRecorder mEventLatency = new PercentileRecorder();
+    private final PercentileRecorder mEchoLatency = new PercentileRecorder();
+    private final Context mContext;
+    // written on the main looper thread only, which delivers the event batches
+    private volatile long mBatches;
+    private volatile long mEvents;
+    private volatile long mGaps;
+    private volatile long mEncodedChars;
+
+    MeasuringWebView(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Creates the callback of an exec call and starts measuring its latency.
+     */
+    CallbackContext startAction(String action) {
+        String callbackId = action + mNextCallbackId.incrementAndGet();
+        mPendingActions.put(callbackId, new PendingAction(action, System.nanoTime()));
+        return new CallbackContext(callbackId, this);
+    }
+
+    /**
+     * To be called before the action is executed.
+     *
+     * @return completes with the result of the action, or never if the plugin does not answer
+     */
+    CompletableFuture<PluginResult> result(CallbackContext callbackContext) {
+        return mPendingActions.get(callbackContext.getCallbackId()).result;
+    }
+
+    @Override
+    public void sendPluginResult(PluginResult cr, String callbackId) {
+        long now = System.nanoTime();
+        String message = cr.getMessage();
+        if (EVENT_CHANNEL_ID.equals(callbackId)) {
+            if (cr.getStatus() == PluginResult.Status.OK.ordinal()) {
+                onEventBatch(now, cr.getStrMessage(), message.length());
+            }
+            return;
+        }
+        PendingAction pendingAction = cr.getKeepCallback() ? mPendingActions.get(callbackId)
+                : mPendingActions.remove(callbackId);
+        if (pendingAction == null) {
+            return;
+        }
+        if (cr.getStatus() != PluginResult.Status.OK.ordinal()) {
+            mActionErrors.incrementAndGet();
+        }
+        mActionLatency.computeIfAbsent(pendingAction.action, action -> new PercentileRecorder())
+                .record(now - pendingAction.startNanos);
+        pendingAction.result.complete(cr);
+    }
+
+    private void onEventBatch(long now, String batch, int encodedLength) {
+        mBatches++;
+        mEncodedChars += encodedLength;
+        if (batch.contains("\"gap\":true")) {
+            mGaps++;
+        }
+        int events = 0;
+        int eventsStart = batch.indexOf("\"events\":[") + "\"events\":[".length();
+        for (int i = batch.indexOf("[\"", eventsStart); i >= 0; i = batch.indexOf("[\"", i + 2)) {
+            events++;
+        }
+        mEvents += events;
+        recordProbes(now, batch, PROBE, mEventLatency);
+        recordProbes(now, batch, ECHO, mEchoLatency);
+    }
+
+    private static void recordProbes(long now, String batch, String marker, PercentileRecorder histogram) {
+        for (int i = batch.indexOf(marker); i >= 0; i = batch.indexOf(marker, i + 1)) {
+            int start = i + marker.length();
+            int end = start;
+            while (end < batch.length() && Character.isDigit(batch.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                histogram.record(now - Long.parseLong(batch.substring(start, end)));
+            }
+        }
+    }
+
+    long getBatchCount() {
+        return mBatches;
+    }
+
+    long getEventCount() {
+        return mEvents;
+    }
+
+    long getGapCount() {
+        return mGaps;
+    }
+
+    long getEncodedChars() {
+        return mEncodedChars;
+    }
+
+    long getActionErrorCount() {
+        return mActionErrors.get();
+    }
+
+    int getPendingActionCount() {
+        return mPendingActions.size();
+    }
+
+    PercentileRecorder getEventLatency() {
+        return mEventLatency;
+    }
+
+    PercentileRecorder getEchoLatency() {
+        return mEchoLatency;
+    }
+
+    Map<String, PercentileRecorder> getActionLatency() {
+        return mActionLatency;
+    }
+
+    @Override
+    public View getView() {
+        return null;
+    }
+
+    @Override
+    public Context getContext() {
+        return mContext;
+    }
+
+    @Override
+    public void loadUrl(String url) {
+    }
+}
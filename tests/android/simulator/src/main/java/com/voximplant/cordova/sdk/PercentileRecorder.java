@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.cordova.sdk;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency distribution in microseconds with a fixed footprint, so recording does not add to the heap growth
+ * being measured. Finer than the LatencyHistogram of BridgeMetrics: values up to 16 us are exact, larger ones
+ * fall into 16 buckets per power of two, which keeps the error of a percentile under 7%.
+ */
+final class PercentileRecorder {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        mCounts.incrementAndGet(index(micros));
+        mCount.incrementAndGet();
+        long max;
+        do {
+            max = mMax.get();
+        } while (micros > max && !mMax.compareAndSet(max, micros));
+    }
+
+    long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the percentile, in microseconds
+     */
+    long getPercentile(double percentile) {
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < mCounts.length(); i++) {
+            seen += mCounts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    String summary() {
+        if (getCount() == 0) {
+            return "no samples";
+        }
+        return String.format("n=%d p50=%s p90=%s p99=%s p99.9=%s max=%s", getCount(),
+                format(getPercentile(50)), format(getPercentile(90)), format(getPercentile(99)),
+                format(getPercentile(99.9)), format(mMax.get()));
+    }
+
+    private static String format(long micros) {
+        return micros < 10000 ? micros + "us" : String.format("%.1fms", micros / 1000.0);
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
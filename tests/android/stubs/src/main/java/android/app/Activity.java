@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.app;
+
+import android.content.ContextWrapper;
+import android.os.Handler;
+import android.os.Looper;
+
+public class Activity extends ContextWrapper {
+    public final void runOnUiThread(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            new Handler(Looper.getMainLooper()).post(action);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.content;
+
+import android.content.res.Resources;
+
+public abstract class Context {
+    public static final String CONNECTIVITY_SERVICE = "connectivity";
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract Object getSystemService(String name);
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+    public abstract Context getApplicationContext();
+
+    public abstract Resources getResources();
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.content;
+
+import android.content.res.Resources;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stand-in with in-memory shared preferences, kept per name for the lifetime of the JVM as they would be on disk.
+ */
+public class ContextWrapper extends Context {
+    private static final Map<String, SharedPreferences> sPreferences = new HashMap<>();
+
+    @Override
+    public Object getSystemService(String name) {
+        return null;
+    }
+
+    @Override
+    public SharedPreferences getSharedPreferences(String name, int mode) {
+        synchronized (sPreferences) {
+            SharedPreferences preferences = sPreferences.get(name);
+            if (preferences == null) {
+                preferences = new MemorySharedPreferences();
+                sPreferences.put(name, preferences);
+            }
+            return preferences;
+        }
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public Resources getResources() {
+        return new Resources();
+    }
+
+    private static final class MemorySharedPreferences implements SharedPreferences {
+        private final Map<String, Object> mValues = new HashMap<>();
+
+        @Override
+        public synchronized String getString(String key, String defValue) {
+            Object value = mValues.get(key);
+            return value instanceof String ? (String) value : defValue;
+        }
+
+        @Override
+        public synchronized long getLong(String key, long defValue) {
+            Object value = mValues.get(key);
+            return value instanceof Long ? (Long) value : defValue;
+        }
+
+        @Override
+        public Editor edit() {
+            return new Editor() {
+                private final Map<String, Object> mChanges = new HashMap<>();
+                private boolean mClear;
+
+                @Override
+                public Editor putString(String key, String value) {
+                    mChanges.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor putLong(String key, long value) {
+                    mChanges.put(key, value);
+                    return this;
+                }
+
+                @Override
+                public Editor remove(String key) {
+                    mChanges.put(key, null);
+                    return this;
+                }
+
+                @Override
+                public Editor clear() {
+                    mClear = true;
+                    return this;
+                }
+
+                @Override
+                public void apply() {
+                    synchronized (MemorySharedPreferences.this) {
+                        if (mClear) {
+                            mValues.clear();
+                        }
+                        for (Map.Entry<String, Object> change : mChanges.entrySet()) {
+                            if (change.getValue() == null) {
+                                mValues.remove(change.getKey());
+                            } else {
+                                mValues.put(change.getKey(), change.getValue());
+                            }
+                        }
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.content;
+
+public interface SharedPreferences {
+    interface Editor {
+        Editor putString(String key, String value);
+
+        Editor putLong(String key, long value);
+
+        Editor remove(String key);
+
+        Editor clear();
+
+        void apply();
+    }
+
+    String getString(String key, String defValue);
+
+    long getLong(String key, long defValue);
+
+    Editor edit();
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.content.res;
+
+import android.util.DisplayMetrics;
+
+public class Resources {
+    private final DisplayMetrics mDisplayMetrics = new DisplayMetrics();
+
+    public DisplayMetrics getDisplayMetrics() {
+        return mDisplayMetrics;
+    }
+}
@@ -0,0 +1,9 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.graphics;
+
+public class Color {
+    public static final int TRANSPARENT = 0;
+}
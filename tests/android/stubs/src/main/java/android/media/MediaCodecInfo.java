@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.media;
+
+public final class MediaCodecInfo {
+    private final String mName;
+    private final boolean mEncoder;
+    private final String[] mSupportedTypes;
+
+    /**
+     * Not a part of the Android API.
+     */
+    public MediaCodecInfo(String name, boolean encoder, String... supportedTypes) {
+        mName = name;
+        mEncoder = encoder;
+        mSupportedTypes = supportedTypes;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public boolean isEncoder() {
+        return mEncoder;
+    }
+
+    public String[] getSupportedTypes() {
+        return mSupportedTypes.clone();
+    }
+
+    public boolean isHardwareAccelerated() {
+        return false;
+    }
+
+    public boolean isSoftwareOnly() {
+        return true;
+    }
+}
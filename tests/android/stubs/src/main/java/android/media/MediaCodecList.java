@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.media;
+
+/**
+ * Stand-in that lists the codecs set with {@link #setCodecInfos}, none by default.
+ */
+public final class MediaCodecList {
+    public static final int REGULAR_CODECS = 0;
+
+    private static MediaCodecInfo[] sCodecInfos = new MediaCodecInfo[0];
+
+    public MediaCodecList(int kind) {
+    }
+
+    /**
+     * Not a part of the Android API.
+     */
+    public static synchronized void setCodecInfos(MediaCodecInfo... codecInfos) {
+        sCodecInfos = codecInfos.clone();
+    }
+
+    public MediaCodecInfo[] getCodecInfos() {
+        synchronized (MediaCodecList.class) {
+            return sCodecInfos.clone();
+        }
+    }
+}
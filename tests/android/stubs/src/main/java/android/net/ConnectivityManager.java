@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.net;
+
+public class ConnectivityManager {
+    public static class NetworkCallback {
+        public void onAvailable(Network network) {
+        }
+
+        public void onLost(Network network) {
+        }
+
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities networkCapabilities) {
+        }
+    }
+
+    public void registerDefaultNetworkCallback(NetworkCallback networkCallback) {
+    }
+
+    public void registerNetworkCallback(NetworkRequest request, NetworkCallback networkCallback) {
+    }
+
+    public void unregisterNetworkCallback(NetworkCallback networkCallback) {
+    }
+
+    public Network getActiveNetwork() {
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.net;
+
+public final class NetworkCapabilities {
+    public static final int NET_CAPABILITY_INTERNET = 12;
+
+    public boolean hasCapability(int capability) {
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.net;
+
+public class NetworkRequest {
+    public static class Builder {
+        public Builder addCapability(int capability) {
+            return this;
+        }
+
+        public NetworkRequest build() {
+            return new NetworkRequest();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.os;
+
+/**
+ * Stand-in for an API 21 device, so the plugin takes the paths that do not need the Android Keystore or the
+ * default network callback.
+ */
+public class Build {
+    public static final String FINGERPRINT = "jvm";
+
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.LOLLIPOP;
+        public static final String INCREMENTAL = "";
+    }
+
+    public static class VERSION_CODES {
+        public static final int LOLLIPOP = 21;
+        public static final int M = 23;
+        public static final int N = 24;
+        public static final int O = 26;
+        public static final int Q = 29;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.os;
+
+public class Handler {
+    private final Looper mLooper;
+
+    public Handler(Looper looper) {
+        mLooper = looper;
+    }
+
+    public final Looper getLooper() {
+        return mLooper;
+    }
+
+    public final boolean post(Runnable r) {
+        return postDelayed(r, 0);
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        mLooper.enqueue(this, r, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+        return true;
+    }
+
+    public final boolean postAtFrontOfQueue(Runnable r) {
+        mLooper.enqueue(this, r, Long.MIN_VALUE);
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.remove(this, r);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.os;
+
+import java.util.PriorityQueue;
+
+/**
+ * Stand-in for the main looper only.
+ *
+ * Messages are kept in the order they are due in. The looper either runs on a thread of its own with
+ * {@link #loop()}, as on a device, or is driven by the test with {@link #runPending()} and {@link #runAll()}.
+ */
+public final class Looper {
+    static final class Message implements Comparable<Message> {
+        final Handler target;
+        final Runnable callback;
+        final long when;
+        final long order;
+
+        Message(Handler target, Runnable callback, long when, long order) {
+            this.target = target;
+            this.callback = callback;
+            this.when = when;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Message other) {
+            if (when != other.when) {
+                return when < other.when ? -1 : 1;
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+
+    private static final Looper sMainLooper = new Looper();
+
+    private final PriorityQueue<Message> mQueue = new PriorityQueue<>();
+    private long mNextOrder;
+    private Thread mThread;
+    private boolean mQuitting;
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return sMainLooper;
+    }
+
+    public static Looper myLooper() {
+        return Thread.currentThread() == sMainLooper.mThread ? sMainLooper : null;
+    }
+
+    public static void loop() {
+        Looper looper = sMainLooper;
+        synchronized (looper) {
+            if (looper.mThread != null) {
+                throw new IllegalStateException("The main looper is already running");
+            }
+            looper.mThread = Thread.currentThread();
+            looper.mQuitting = false;
+        }
+        try {
+            while (true) {
+                Message message;
+                synchronized (looper) {
+                    message = looper.mQueue.peek();
+                    while (!looper.mQuitting && (message == null || message.when > SystemClock.uptimeMillis())) {
+                        if (message == null) {
+                            looper.wait();
+                        } else {
+                            looper.wait(Math.max(1, message.when - SystemClock.uptimeMillis()));
+                        }
+                        message = looper.mQueue.peek();
+                    }
+                    if (looper.mQuitting) {
+                        return;
+                    }
+                    looper.mQueue.poll();
+                }
+                message.callback.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (looper) {
+                looper.mThread = null;
+            }
+        }
+    }
+
+    public Thread getThread() {
+        synchronized (this) {
+            return mThread;
+        }
+    }
+
+    /**
+     * Stops {@link #loop()} after the current message, the pending messages stay queued.
+     */
+    public synchronized void quit() {
+        mQuitting = true;
+        notifyAll();
+    }
+
+    /**
+     * Not a part of the Android API: runs the messages that are due on the calling thread.
+     *
+     * @return the number of messages run
+     */
+    public int runPending() {
+        return run(false);
+    }
+
+    /**
+     * Not a part of the Android API: runs the messages on the calling thread until the queue is empty, including
+     * the delayed ones and the ones they post, as if their delays had passed.
+     *
+     * @return the number of messages run
+     */
+    public int runAll() {
+        return run(true);
+    }
+
+    /**
+     * Not a part of the Android API: drops the queued messages.
+     */
+    public synchronized void clear() {
+        mQueue.clear();
+    }
+
+    /**
+     * Not a part of the Android API.
+     */
+    public synchronized boolean isIdle() {
+        return mQueue.isEmpty();
+    }
+
+    synchronized void enqueue(Handler target, Runnable callback, long when) {
+        mQueue.add(new Message(target, callback, when, mNextOrder++));
+        notifyAll();
+    }
+
+    synchronized void remove(Handler target, Runnable callback) {
+        mQueue.removeIf(message -> message.target == target && message.callback == callback);
+    }
+
+    private int run(boolean all) {
+        int count = 0;
+        while (true) {
+            Message message;
+            synchronized (this) {
+                message = mQueue.peek();
+                if (message == null || (!all && message.when > SystemClock.uptimeMillis())) {
+                    return count;
+                }
+                mQueue.poll();
+            }
+            message.callback.run();
+            count++;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.os;
+
+public final class SystemClock {
+    private static final long START_NANOS = System.nanoTime();
+
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return (System.nanoTime() - START_NANOS) / 1000000;
+    }
+
+    public static long elapsedRealtime() {
+        return uptimeMillis();
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime() - START_NANOS;
+    }
+}
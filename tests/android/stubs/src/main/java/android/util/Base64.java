@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.util;
+
+public class Base64 {
+    public static final int NO_WRAP = 2;
+
+    public static String encodeToString(byte[] input, int flags) {
+        return java.util.Base64.getEncoder().encodeToString(input);
+    }
+
+    public static byte[] decode(String str, int flags) {
+        try {
+            return java.util.Base64.getDecoder().decode(str);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("bad base-64", e);
+        }
+    }
+}
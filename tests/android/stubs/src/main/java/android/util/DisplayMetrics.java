@@ -0,0 +1,9 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.util;
+
+public class DisplayMetrics {
+    public float density = 1;
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.util;
+
+/**
+ * Drops the messages unless the voximplant.log system property is set, then prints them to stderr.
+ */
+public final class Log {
+    private static final boolean ENABLED = Boolean.getBoolean("voximplant.log");
+
+    private Log() {
+    }
+
+    public static int d(String tag, String msg) {
+        return println("D", tag, msg);
+    }
+
+    public static int i(String tag, String msg) {
+        return println("I", tag, msg);
+    }
+
+    public static int w(String tag, String msg) {
+        return println("W", tag, msg);
+    }
+
+    public static int e(String tag, String msg) {
+        return println("E", tag, msg);
+    }
+
+    private static int println(String priority, String tag, String msg) {
+        if (!ENABLED) {
+            return 0;
+        }
+        String line = priority + "/" + tag + ": " + msg;
+        System.err.println(line);
+        return line.length();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.view;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+public class View {
+    public static final int VISIBLE = 0;
+    public static final int GONE = 8;
+
+    private final Context mContext;
+    private ViewParent mParent;
+    private ViewGroup.LayoutParams mLayoutParams;
+    private int mVisibility = VISIBLE;
+    private float mX;
+    private float mY;
+    private Drawable mBackground;
+
+    public View(Context context) {
+        mContext = context;
+    }
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public ViewParent getParent() {
+        return mParent;
+    }
+
+    void setParent(ViewParent parent) {
+        mParent = parent;
+    }
+
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        mLayoutParams = params;
+    }
+
+    public ViewGroup.LayoutParams getLayoutParams() {
+        return mLayoutParams;
+    }
+
+    public void setVisibility(int visibility) {
+        mVisibility = visibility;
+    }
+
+    public int getVisibility() {
+        return mVisibility;
+    }
+
+    public void setX(float x) {
+        mX = x;
+    }
+
+    public void setY(float y) {
+        mY = y;
+    }
+
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    public void setBackgroundColor(int color) {
+        mBackground = null;
+    }
+
+    public void setBackground(Drawable background) {
+        mBackground = background;
+    }
+
+    public Drawable getBackground() {
+        return mBackground;
+    }
+}
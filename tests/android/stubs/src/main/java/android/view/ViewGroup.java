@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package android.view;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ViewGroup extends View implements ViewParent {
+    public static class LayoutParams {
+        public static final int MATCH_PARENT = -1;
+
+        public int width;
+        public int height;
+
+        public LayoutParams(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final List<View> mChildren = new ArrayList<>();
+
+    public ViewGroup(Context context) {
+        super(context);
+    }
+
+    public void addView(View child) {
+        addView(child, -1);
+    }
+
+    public void addView(View child, int index) {
+        if (child.getParent() != null) {
+            throw new IllegalStateException("The specified child already has a parent");
+        }
+        mChildren.add(index < 0 ? mChildren.size() : index, child);
+        child.setParent(this);
+    }
+
+    public void addView(View child, LayoutParams params) {
+        addView(child, -1, params);
+    }
+
+    public void addView(View child, int index, LayoutParams params) {
+        child.setLayoutParams(params);
+        addView(child, index);
+    }
+
+    public void removeView(View view) {
+        if (mChildren.remove(view)) {
+            view.setParent(null);
+        }
+    }
+
+    public int indexOfChild(View child) {
+        return mChildren.indexOf(child);
+    }
+
+    public int getChildCount() {
+        return mChildren.size();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk;
+
+import android.content.Context;
+
+import com.voximplant.sdk.client.ClientConfig;
+import com.voximplant.sdk.client.IClient;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Stand-in that returns the client set with {@link #setClientInstance} or created with {@link #setClientFactory}.
+ */
+public class Voximplant {
+    /**
+     * Not a part of the SDK API: creates the client on the first getClientInstance, with the executor the
+     * callbacks have to be delivered on.
+     */
+    public interface ClientFactory {
+        IClient create(Executor executor, Context context, ClientConfig clientConfig);
+    }
+
+    private static volatile IClient sClient;
+    private static volatile ClientFactory sClientFactory;
+
+    public static IClient getClientInstance(Executor executor, Context context, ClientConfig clientConfig) {
+        synchronized (Voximplant.class) {
+            // as the SDK, the first executor is kept for the lifetime of the process
+            if (sClient == null && sClientFactory != null) {
+                sClient = sClientFactory.create(executor, context, clientConfig);
+            }
+        }
+        return getClientInstance();
+    }
+
+    public static IClient getClientInstance() {
+        IClient client = sClient;
+        if (client == null) {
+            throw new UnsupportedOperationException("The Voximplant SDK is not available on the JVM");
+        }
+        return client;
+    }
+
+    /**
+     * Not a part of the SDK API: sets the client returned by getClientInstance, null to remove it.
+     */
+    public static void setClientInstance(IClient client) {
+        sClient = client;
+    }
+
+    /**
+     * Not a part of the SDK API: sets the factory of the client and drops the current one, null to remove it.
+     */
+    public static synchronized void setClientFactory(ClientFactory clientFactory) {
+        sClientFactory = clientFactory;
+        sClient = null;
+    }
+}
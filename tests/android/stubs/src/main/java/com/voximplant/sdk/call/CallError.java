@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+public enum CallError {
+    ALREADY_IN_THIS_STATE,
+    FUNCTIONALITY_IS_DISABLED,
+    INCORRECT_OPERATION,
+    INTERNAL_ERROR,
+    MEDIA_IS_ON_HOLD,
+    MISSING_PERMISSION,
+    NOT_LOGGED_IN,
+    REJECTED,
+    TIMEOUT
+}
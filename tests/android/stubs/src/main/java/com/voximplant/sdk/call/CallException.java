@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+public class CallException extends Exception {
+    private final CallError mErrorCode;
+
+    public CallException(CallError errorCode, String message) {
+        super(message);
+        mErrorCode = errorCode;
+    }
+
+    public CallError getErrorCode() {
+        return mErrorCode;
+    }
+}
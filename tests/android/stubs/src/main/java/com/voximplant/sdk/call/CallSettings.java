@@ -0,0 +1,14 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+import java.util.Map;
+
+public class CallSettings {
+    public String customData;
+    public Map<String, String> extraHeaders;
+    public VideoFlags videoFlags = new VideoFlags(false, false);
+    public VideoCodec preferredVideoCodec = VideoCodec.AUTO;
+}
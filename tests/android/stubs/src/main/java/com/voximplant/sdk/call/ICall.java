@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ICall {
+    String getCallId();
+
+    List<IEndpoint> getEndpoints();
+
+    List<IVideoStream> getLocalVideoStreams();
+
+    void addCallListener(ICallListener listener);
+
+    void removeCallListener(ICallListener listener);
+
+    void start() throws CallException;
+
+    void answer(CallSettings settings) throws CallException;
+
+    void reject(RejectMode mode, Map<String, String> headers) throws CallException;
+
+    void hangup(Map<String, String> headers);
+
+    void sendAudio(boolean enable);
+
+    void sendDTMF(String dtmf);
+
+    void sendMessage(String message);
+
+    void sendInfo(String mimeType, String body, Map<String, String> headers);
+
+    void hold(boolean enable, ICallCompletionHandler handler);
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+import java.util.List;
+
+public interface IEndpoint {
+    String getEndpointId();
+
+    String getUserName();
+
+    String getUserDisplayName();
+
+    String getSipUri();
+
+    List<IVideoStream> getVideoStreams();
+
+    void setEndpointListener(IEndpointListener listener);
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+public interface IEndpointListener {
+    default void onRemoteVideoStreamAdded(IEndpoint endpoint, IVideoStream videoStream) {
+    }
+
+    default void onRemoteVideoStreamRemoved(IEndpoint endpoint, IVideoStream videoStream) {
+    }
+
+    default void onEndpointRemoved(IEndpoint endpoint) {
+    }
+
+    default void onEndpointInfoUpdated(IEndpoint endpoint) {
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+import org.webrtc.VideoSink;
+
+public interface IVideoStream {
+    String getVideoStreamId();
+
+    void addVideoRenderer(VideoSink renderer, RenderScaleType scaleType);
+
+    void removeVideoRenderer(VideoSink renderer);
+}
@@ -0,0 +1,10 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+public enum RejectMode {
+    DECLINE,
+    BUSY
+}
@@ -0,0 +1,11 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+public enum VideoCodec {
+    VP8,
+    H264,
+    AUTO
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.call;
+
+public class VideoFlags {
+    public boolean receiveVideo;
+    public boolean sendVideo;
+
+    public VideoFlags(boolean receiveVideo, boolean sendVideo) {
+        this.receiveVideo = receiveVideo;
+        this.sendVideo = sendVideo;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+public class AuthParams {
+    private final String mAccessToken;
+    private final int mAccessExpire;
+    private final String mRefreshToken;
+    private final int mRefreshExpire;
+
+    public AuthParams(String accessToken, int accessExpire, String refreshToken, int refreshExpire) {
+        mAccessToken = accessToken;
+        mAccessExpire = accessExpire;
+        mRefreshToken = refreshToken;
+        mRefreshExpire = refreshExpire;
+    }
+
+    public String getAccessToken() {
+        return mAccessToken;
+    }
+
+    public int getAccessTokenTimeExpired() {
+        return mAccessExpire;
+    }
+
+    public String getRefreshToken() {
+        return mRefreshToken;
+    }
+
+    public int getRefreshTokenTimeExpired() {
+        return mRefreshExpire;
+    }
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+import org.webrtc.EglBase;
+
+public class ClientConfig {
+    public boolean enableDebugLogging;
+    public boolean enableLogcatLogging = true;
+    public RequestAudioFocusMode requestAudioFocusMode = RequestAudioFocusMode.REQUEST_ON_CALL_START;
+    public String packageName;
+    public EglBase eglBase;
+}
@@ -0,0 +1,14 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+public enum ClientState {
+    DISCONNECTED,
+    CONNECTING,
+    CONNECTED,
+    LOGGING_IN,
+    LOGGED_IN,
+    RECONNECTING
+}
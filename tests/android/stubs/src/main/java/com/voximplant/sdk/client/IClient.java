@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+import com.voximplant.sdk.call.CallSettings;
+import com.voximplant.sdk.call.ICall;
+
+import java.util.List;
+import java.util.Map;
+
+public interface IClient {
+    ClientState getClientState();
+
+    void connect(boolean connectivityCheck, List<String> servers) throws IllegalStateException;
+
+    void disconnect();
+
+    void login(String username, String password);
+
+    void loginWithAccessToken(String username, String token);
+
+    void loginWithOneTimeKey(String username, String hash);
+
+    void requestOneTimeKey(String username);
+
+    void refreshToken(String username, String refreshToken);
+
+    ICall call(String number, CallSettings callSettings);
+
+    void setClientSessionListener(IClientSessionListener listener);
+
+    void setClientLoginListener(IClientLoginListener listener);
+
+    void setClientIncomingCallListener(IClientIncomingCallListener listener);
+
+    void registerForPushNotifications(String pushToken, IPushTokenCompletionHandler handler);
+
+    void unregisterFromPushNotifications(String pushToken, IPushTokenCompletionHandler handler);
+
+    void handlePushNotification(Map<String, String> message);
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+import com.voximplant.sdk.call.ICall;
+
+import java.util.Map;
+
+public interface IClientIncomingCallListener {
+    void onIncomingCall(ICall call, boolean video, Map<String, String> headers);
+}
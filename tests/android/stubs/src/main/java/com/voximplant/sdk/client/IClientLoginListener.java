@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+public interface IClientLoginListener {
+    void onLoginSuccessful(String displayName, AuthParams authParams);
+
+    void onLoginFailed(LoginError reason);
+
+    void onRefreshTokenFailed(LoginError reason);
+
+    void onRefreshTokenSuccess(AuthParams authParams);
+
+    void onOneTimeKeyGenerated(String key);
+}
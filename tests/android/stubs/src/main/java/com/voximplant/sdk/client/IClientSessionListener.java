@@ -0,0 +1,13 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+public interface IClientSessionListener {
+    void onConnectionEstablished();
+
+    void onConnectionFailed(String error);
+
+    void onConnectionClosed();
+}
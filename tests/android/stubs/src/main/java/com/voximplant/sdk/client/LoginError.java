@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+public enum LoginError {
+    INVALID_PASSWORD,
+    ACCOUNT_FROZEN,
+    INVALID_USERNAME,
+    TIMEOUT,
+    INVALID_STATE,
+    NETWORK_ISSUES,
+    TOKEN_EXPIRED,
+    INTERNAL_ERROR
+}
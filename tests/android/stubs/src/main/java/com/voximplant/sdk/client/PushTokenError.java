@@ -0,0 +1,12 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+public enum PushTokenError {
+    INVALID_ARGUMENTS,
+    INVALID_STATE,
+    TIMEOUT,
+    INTERNAL_ERROR
+}
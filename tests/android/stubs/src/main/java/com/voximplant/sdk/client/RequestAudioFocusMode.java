@@ -0,0 +1,10 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package com.voximplant.sdk.client;
+
+public enum RequestAudioFocusMode {
+    REQUEST_ON_CALL_START,
+    REQUEST_ON_CALL_CONNECTED
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package org.apache.cordova;
+
+import android.app.Activity;
+import android.content.Context;
+
+import java.util.concurrent.ExecutorService;
+
+public interface CordovaInterface {
+    Activity getActivity();
+
+    Context getContext();
+
+    ExecutorService getThreadPool();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package org.apache.cordova;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+public class CordovaPlugin {
+    public CordovaWebView webView;
+    public CordovaInterface cordova;
+    protected CordovaPreferences preferences;
+    private String serviceName;
+
+    /**
+     * Called by the plugin manager when the plugin is created.
+     */
+    public final void privateInitialize(String serviceName, CordovaInterface cordova, CordovaWebView webView,
+                                        CordovaPreferences preferences) {
+        this.serviceName = serviceName;
+        this.cordova = cordova;
+        this.webView = webView;
+        this.preferences = preferences;
+        pluginInitialize();
+    }
+
+    protected void pluginInitialize() {
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
+        return false;
+    }
+
+    public void onPause(boolean multitasking) {
+    }
+
+    public void onResume(boolean multitasking) {
+    }
+
+    public void onStart() {
+    }
+
+    public void onStop() {
+    }
+
+    public void onReset() {
+    }
+
+    public void onDestroy() {
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package org.apache.cordova;
+
+import android.content.Context;
+import android.view.View;
+
+public interface CordovaWebView {
+    View getView();
+
+    Context getContext();
+
+    void loadUrl(String url);
+
+    void sendPluginResult(PluginResult cr, String callbackId);
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package org.webrtc;
+
+public interface EglBase {
+    interface Context {
+    }
+
+    static EglBase create() {
+        return new EglBase() {
+            private final Context mContext = new Context() {
+            };
+
+            @Override
+            public Context getEglBaseContext() {
+                return mContext;
+            }
+
+            @Override
+            public void release() {
+            }
+        };
+    }
+
+    Context getEglBaseContext();
+
+    void release();
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package org.webrtc;
+
+import android.content.Context;
+import android.view.View;
+
+public class SurfaceViewRenderer extends View implements VideoSink {
+    public SurfaceViewRenderer(Context context) {
+        super(context);
+    }
+
+    public void init(EglBase.Context sharedContext, Object rendererEvents) {
+    }
+
+    public void release() {
+    }
+
+    public void setZOrderMediaOverlay(boolean isMediaOverlay) {
+    }
+
+    public void setZOrderOnTop(boolean onTop) {
+    }
+
+    public void setMirror(boolean mirror) {
+    }
+
+    public void setEnableHardwareScaler(boolean enabled) {
+    }
+}
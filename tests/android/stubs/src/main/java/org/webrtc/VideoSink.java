@@ -0,0 +1,8 @@
+/*
+ * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+ */
+
+package org.webrtc;
+
+public interface VideoSink {
+}
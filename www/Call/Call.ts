@@ -2,12 +2,13 @@
 * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
 */
 
-import {CallSettings} from "../Structures";
+import {CallSettings, OutboundQueueOptions, OutboundQueueStats, ToneSequenceOptions, ToneSequenceProgress} from "../Structures";
 import {VideoCodec} from "../Enums";
 import {CallEventTypes} from "./CallEventTypes";
 import {CallEventTypesList} from "../EventTypesList";
 import {Endpoint} from "./Endpoint";
 import {EndpointEventTypes} from "./EndpointEventTypes";
+import {EventSubscriptions} from "../EventSubscriptions";
 
 export class Call {
 
@@ -21,6 +22,11 @@ export class Call {
      */
     private _listeners: Map<CallEventTypes, Set<Function>> = new Map();
 
+    /**
+     * @ignore
+     */
+    private _subscribed: boolean = true;
+
     private _endpoints: Map<string, Endpoint> = new Map();
 
     /**
@@ -57,7 +63,13 @@ export class Call {
             this._listeners.set(eventType, new Set());
         }
         // @ts-ignore
-        this._listeners.get(eventType).add(event);
+        let handlers: Set<Function> = this._listeners.get(eventType);
+        if (!handlers.has(event)) {
+            handlers.add(event);
+            if (this._subscribed) {
+                EventSubscriptions.getInstance().add(`Call${eventType}`);
+            }
+        }
     }
 
     /**
@@ -73,14 +85,36 @@ export class Call {
             console.warn(`Call: off: CallEventTypes does not contain ${eventType} event`);
             return;
         }
+        // @ts-ignore
+        let handlers: Set<Function> = this._listeners.get(eventType);
         if (event && typeof event === 'function') {
-            // @ts-ignore
-            this._listeners.get(eventType).delete(event);
+            if (handlers.delete(event) && this._subscribed) {
+                EventSubscriptions.getInstance().remove(`Call${eventType}`);
+            }
         } else {
+            if (this._subscribed) {
+                EventSubscriptions.getInstance().remove(`Call${eventType}`, handlers.size);
+            }
             this._listeners.set(eventType, new Set());
         }
     }
 
+    /**
+     * Stops counting the handlers in the native event subscriptions once the call has ended, so the handlers
+     * that are never removed do not keep the events subscribed. The handlers themselves stay registered.
+     * @ignore
+     */
+    _releaseSubscriptions(): void {
+        if (!this._subscribed) {
+            return;
+        }
+        this._subscribed = false;
+        this._listeners.forEach((handlers, eventType) => {
+            EventSubscriptions.getInstance().remove(`Call${eventType}`, handlers.size);
+        });
+        this._endpoints.forEach(endpoint => endpoint._releaseSubscriptions());
+    }
+
     /**
      * Answer the incoming call.
      * @param callSettings Optional set of call settings.
@@ -139,6 +173,66 @@ export class Call {
         cordova.exec(()=>{}, ()=>{}, 'VoximplantPlugin', 'sendTone', [this.callId, key]);
     }
 
+    /**
+     * Configure the rate limit of the messages and INFOs sent by [Call.sendMessage] and [Call.sendInfo].
+     * Messages over the limit are queued natively. Until it is called, messages and INFOs are sent without a limit.
+     * @param options Rate limit, queue capacity and the message to drop when the queue is full
+     * @android
+     */
+    public configureOutboundQueue(options: OutboundQueueOptions): Promise<void> {
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'configureOutboundQueue', [this.callId, options]);
+        });
+    }
+
+    /**
+     * Get the outbound message queue counters of the call.
+     * @android
+     */
+    public getOutboundQueueStats(): Promise<OutboundQueueStats> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((stats: OutboundQueueStats) => resolve(stats), reject, 'VoximplantPlugin', 'getOutboundQueueStats', [this.callId]);
+        });
+    }
+
+    /**
+     * Send a sequence of tones (DTMF), e.g. a conference PIN. The tones are paced natively, so the timing
+     * does not depend on the WebView load.
+     *
+     * The promise is resolved when the last tone is sent, or rejected with the progress and a code:
+     * 'CANCELLED' after [Call.cancelToneSequence] or 'CALL_ENDED' if the call has ended.
+     * Only one sequence per call can be in progress.
+     * @param tones Tones to send: 0-9, *, #
+     * @param options Interval between the starts of two tones (40-7000 ms, default 170)
+     * @android
+     */
+    public sendToneSequence(tones: string, options?: ToneSequenceOptions): Promise<ToneSequenceProgress> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((progress: ToneSequenceProgress) => resolve(progress), reject, 'VoximplantPlugin', 'sendToneSequence',
+                [this.callId, {tones: tones, interval: options && options.interval}]);
+        });
+    }
+
+    /**
+     * Stop the tone sequence in progress.
+     * @android
+     */
+    public cancelToneSequence(): Promise<ToneSequenceProgress> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((progress: ToneSequenceProgress) => resolve(progress), reject, 'VoximplantPlugin', 'cancelToneSequence', [this.callId]);
+        });
+    }
+
+    /**
+     * Get the progress of the last tone sequence of the call.
+     * @android
+     */
+    public getToneSequenceProgress(): Promise<ToneSequenceProgress> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((progress: ToneSequenceProgress) => resolve(progress), reject, 'VoximplantPlugin', 'getToneSequenceProgress', [this.callId]);
+        });
+    }
+
     /**
      * Hangup the call
      * @param headers Optional custom parameters (SIP headers) that should be sent after disconnecting/cancelling call.
@@ -159,9 +253,11 @@ export class Call {
      * events for the [Web](/docs/references/websdk), [iOS](/docs/references/iossdk) and [Android](/docs/references/androidsdk) SDKs.
      *
      * @param message Message text
+     * @param replaceKey Optional key of a replaceable message. On Android, a message with the same key that is
+     *                   still waiting in the outbound queue is replaced by this one, see [Call.configureOutboundQueue]
      */
-    public sendMessage(message: string): void {
-        cordova.exec(()=>{}, ()=>{}, 'VoximplantPlugin', 'sendMessage', [this.callId, message]);
+    public sendMessage(message: string, replaceKey?: string): void {
+        cordova.exec(()=>{}, ()=>{}, 'VoximplantPlugin', 'sendMessage', [this.callId, message, {replaceKey: replaceKey}]);
     }
 
     /**
@@ -178,15 +274,32 @@ export class Call {
      * @param body Message content
      * @param headers Optional custom parameters (SIP headers) that should be sent after rejecting incoming call.
      *                Parameter names must start with "X-" to be processed by application
+     * @param replaceKey Optional key of a replaceable message. On Android, an INFO of the same MIME type with the
+     *                   same key that is still waiting in the outbound queue is replaced by this one, see
+     *                   [Call.configureOutboundQueue]
      */
-    public sendInfo(mimeType: string, body: string, headers?: object): void {
+    public sendInfo(mimeType: string, body: string, headers?: object, replaceKey?: string): void {
         let info = {
             type: mimeType,
             body: body,
             headers: headers,
+            replaceKey: replaceKey,
         };
         cordova.exec(()=>{}, ()=>{}, 'VoximplantPlugin', 'sendInfo', [this.callId, info]);
     }
+
+    /**
+     * Get SIP headers of a call event if [ClientConfig.lazyHeaders] is enabled.
+     * @param headersId The headersId value of the event
+     * @param keys Optional list of header names to fetch, matched case-insensitively. If not specified, all headers
+     *             are returned
+     * @android
+     */
+    public getHeaders(headersId: number, keys?: string[]): Promise<{[key: string]: string}> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((headers: {[key: string]: string}) => resolve(headers), reject, 'VoximplantPlugin', 'getCallHeaders', [this.callId, headersId, keys]);
+        });
+    }
     //
     // public getEndpoints():Endpoint[] {
     //
@@ -239,6 +352,7 @@ export class Call {
         }
         if (eventName === 'Disconnected') {
             this._emit(CallEventTypes.Disconnected, params);
+            this._releaseSubscriptions();
         }
         if (eventName === 'Connected') {
             this._emit(CallEventTypes.Connected, params);
@@ -251,6 +365,7 @@ export class Call {
         }
         if (eventName === 'Failed') {
             this._emit(CallEventTypes.Failed, params);
+            this._releaseSubscriptions();
         }
         if (eventName === 'ICECompleted') {
             this._emit(CallEventTypes.ICECompleted, params);
@@ -264,11 +379,17 @@ export class Call {
         if (eventName === 'MessageReceived') {
             this._emit(CallEventTypes.MessageReceived, params);
         }
-        if (eventName === 'InfoUpdated') {
+        if (eventName === 'LocalVideoStreamAdded') {
+            this._emit(CallEventTypes.LocalVideoStreamAdded, params);
+        }
+        if (eventName === 'LocalVideoStreamRemoved') {
+            this._emit(CallEventTypes.LocalVideoStreamRemoved, params);
+        }
+        if (event.startsWith('Endpoint') && Object.keys(EndpointEventTypes).indexOf(eventName) !== -1) {
             let endpointId = params.endpointId;
             let endpoint = this._endpoints.get(endpointId);
             if (endpoint) {
-                endpoint._handleEvent(EndpointEventTypes.InfoUpdated, params);
+                endpoint._handleEvent(eventName as EndpointEventTypes, params);
             }
         }
     }
@@ -287,7 +408,9 @@ export class Call {
     private _emit(eventType: CallEventTypes, event: object) {
         console.log(`VOXCRD: Call._emit: ready to emit event: ${eventType}`);
         const handlers = this._listeners.get(eventType);
-        handlers!.forEach(handler => handler(event));
+        if (handlers) {
+            handlers.forEach(handler => handler(event));
+        }
     }
 
 }
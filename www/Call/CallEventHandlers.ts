@@ -5,6 +5,7 @@
 import {Call} from "./Call";
 import {CallError} from "../Enums";
 import {Endpoint} from "./Endpoint";
+import {CallSetupTimeline, LazyHeaders} from "../Structures";
 
 
 /**
@@ -24,7 +25,7 @@ export interface CallEvent {
 /**
  * @private
  */
-export interface CallEventWithHeaders {
+export interface CallEventWithHeaders extends LazyHeaders {
     /**
      * Name of the event
      */
@@ -66,41 +67,22 @@ export interface ProgressToneStop extends CallEvent {
 /**
  * @private
  */
-export interface Disconnected {
-    /**
-     * Name of the event
-     */
-    name: string;
-    /**
-     * Call that triggered the event
-     */
-    call: Call;
-    /**
-     * Optional SIP headers are received with the event
-     */
-    headers: object;
+export interface Disconnected extends CallEventWithHeaders {
     /**
      * True if the call was answered on another device via SIP forking, false otherwise
      */
     answeredElsewhere: boolean;
+    /**
+     * Call setup timeline. Present only if the call was started or answered
+     * @android
+     */
+    timeline?: CallSetupTimeline;
 }
 
 /**
  * @private
  */
-export interface Failed {
-    /**
-     * Name of the event
-     */
-    name: string;
-    /**
-     * Call that triggered the event
-     */
-    call: Call;
-    /**
-     * Optional SIP headers are received with the event
-     */
-    headers: object;
+export interface Failed extends CallEventWithHeaders {
     /**
      * Call status code
      */
@@ -109,25 +91,18 @@ export interface Failed {
      * Status message of a call failure (i.e. Busy Here)
      */
     reason: string;
+    /**
+     * Call setup timeline. Present only if the call was started or answered
+     * @android
+     */
+    timeline?: CallSetupTimeline;
 }
 
 /**
  * @private
  * @ignore
  */
-export interface InfoReceived {
-    /**
-     * Name of the event
-     */
-    name: string;
-    /**
-     * Call that triggered the event
-     */
-    call: Call;
-    /**
-     * Optional SIP headers are received with the event
-     */
-    headers: object;
+export interface InfoReceived extends CallEventWithHeaders {
     /**
      * MIME type of INFO message
      */
@@ -191,3 +166,39 @@ export interface EndpointAdded {
      */
     endpoint: Endpoint;
 }
+
+/**
+ * @private
+ */
+export interface LocalVideoStreamAdded {
+    /**
+     * Name of the event
+     */
+    name: string;
+    /**
+     * Call that triggered the event
+     */
+    call: Call;
+    /**
+     * Id of the video stream to pass to [VideoView.render]
+     */
+    videoStreamId: string;
+}
+
+/**
+ * @private
+ */
+export interface LocalVideoStreamRemoved {
+    /**
+     * Name of the event
+     */
+    name: string;
+    /**
+     * Call that triggered the event
+     */
+    call: Call;
+    /**
+     * Id of the video stream to pass to [VideoView.render]
+     */
+    videoStreamId: string;
+}
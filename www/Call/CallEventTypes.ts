@@ -59,6 +59,20 @@ export enum CallEventTypes {
      * @typedef EventHandlers.InfoReceived
      */
     InfoReceived            = 'InfoReceived',
+    /**
+     * Event is triggered when a local video stream is added to the call. Render it with a [VideoView].
+     * The handler function receives an event with the following parameters as an argument.
+     * @typedef EventHandlers.LocalVideoStreamAdded
+     * @android
+     */
+    LocalVideoStreamAdded   = 'LocalVideoStreamAdded',
+    /**
+     * Event is triggered when a local video stream is removed from the call.
+     * The handler function receives an event with the following parameters as an argument.
+     * @typedef EventHandlers.LocalVideoStreamRemoved
+     * @android
+     */
+    LocalVideoStreamRemoved = 'LocalVideoStreamRemoved',
     /**
      * Event is triggered when a text message is received.
      * The handler function receives an event with the following parameters as an argument.
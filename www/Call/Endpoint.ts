@@ -5,6 +5,7 @@
 
 import {EndpointEventTypes} from "./EndpointEventTypes";
 import {EndpointEventTypesList} from "../EventTypesList";
+import {EventSubscriptions} from "../EventSubscriptions";
 
 
 /**
@@ -36,6 +37,11 @@ export class Endpoint {
      */
     private _listeners: Map<EndpointEventTypes, Set<Function>> = new Map();
 
+    /**
+     * @ignore
+     */
+    private _subscribed: boolean = true;
+
     /**
      * @ignore
      */
@@ -66,7 +72,13 @@ export class Endpoint {
             this._listeners.set(eventType, new Set());
         }
         // @ts-ignore
-        this._listeners.get(eventType).add(event);
+        let handlers: Set<Function> = this._listeners.get(eventType);
+        if (!handlers.has(event)) {
+            handlers.add(event);
+            if (this._subscribed) {
+                EventSubscriptions.getInstance().add(`Endpoint${eventType}`);
+            }
+        }
     }
 
     /**
@@ -82,14 +94,35 @@ export class Endpoint {
             console.warn(`Endpoint: off: EndpointEventTypes does not contain ${eventType} event`);
             return;
         }
+        // @ts-ignore
+        let handlers: Set<Function> = this._listeners.get(eventType);
         if (event && typeof event === 'function') {
-            // @ts-ignore
-            this._listeners.get(eventType).delete(event);
+            if (handlers.delete(event) && this._subscribed) {
+                EventSubscriptions.getInstance().remove(`Endpoint${eventType}`);
+            }
         } else {
+            if (this._subscribed) {
+                EventSubscriptions.getInstance().remove(`Endpoint${eventType}`, handlers.size);
+            }
             this._listeners.set(eventType, new Set());
         }
     }
 
+    /**
+     * Stops counting the handlers in the native event subscriptions once the call has ended, so the handlers
+     * that are never removed do not keep the events subscribed. The handlers themselves stay registered.
+     * @ignore
+     */
+    _releaseSubscriptions(): void {
+        if (!this._subscribed) {
+            return;
+        }
+        this._subscribed = false;
+        this._listeners.forEach((handlers, eventType) => {
+            EventSubscriptions.getInstance().remove(`Endpoint${eventType}`, handlers.size);
+        });
+    }
+
     _handleEvent(eventType: EndpointEventTypes, params: any) {
         if (eventType === EndpointEventTypes.InfoUpdated) {
             this.displayName = params.displayName;
@@ -114,6 +147,8 @@ export class Endpoint {
     private _emit(eventType: EndpointEventTypes, event: object) {
         console.log(`VOXCRD: Endpoint._emit: ready to emit event: ${eventType}`);
         const handlers = this._listeners.get(eventType);
-        handlers!.forEach(handler => handler(event));
+        if (handlers) {
+            handlers.forEach(handler => handler(event));
+        }
     }
 }
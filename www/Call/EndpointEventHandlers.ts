@@ -42,3 +42,47 @@ export interface Removed {
      */
     endpoint: Endpoint;
 }
+
+/**
+ * @private
+ */
+export interface RemoteVideoStreamAdded {
+    /**
+     * Name of the event
+     */
+    name: string;
+    /**
+     * Call which endpoint belongs to
+     */
+    call: Call;
+    /**
+     * Endpoint that triggered the event
+     */
+    endpoint: Endpoint;
+    /**
+     * Id of the video stream to pass to [VideoView.render]
+     */
+    videoStreamId: string;
+}
+
+/**
+ * @private
+ */
+export interface RemoteVideoStreamRemoved {
+    /**
+     * Name of the event
+     */
+    name: string;
+    /**
+     * Call which endpoint belongs to
+     */
+    call: Call;
+    /**
+     * Endpoint that triggered the event
+     */
+    endpoint: Endpoint;
+    /**
+     * Id of the video stream to pass to [VideoView.render]
+     */
+    videoStreamId: string;
+}
@@ -14,6 +14,20 @@ export enum EndpointEventTypes {
      * @typedef EventHandlers.InfoUpdated
      */
     InfoUpdated              = 'InfoUpdated',
+    /**
+     * Event is triggered when the endpoint starts sending a video stream. Render it with a [VideoView].
+     * The handler function receives an event with the following parameters as an argument.
+     * @typedef EventHandlers.RemoteVideoStreamAdded
+     * @android
+     */
+    RemoteVideoStreamAdded   = 'RemoteVideoStreamAdded',
+    /**
+     * Event is triggered when the endpoint stops sending a video stream.
+     * The handler function receives an event with the following parameters as an argument.
+     * @typedef EventHandlers.RemoteVideoStreamRemoved
+     * @android
+     */
+    RemoteVideoStreamRemoved = 'RemoteVideoStreamRemoved',
     /**
      * Event is triggered when an Endpoint is removed.
      * The handler function receives an event with the following parameters as an argument.
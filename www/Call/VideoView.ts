@@ -0,0 +1,69 @@
+/*
+* Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+*/
+
+import {VideoViewLayout} from "../Structures";
+
+/**
+ * Native view that renders a local or remote video stream over or under the WebView.
+ * Video frames are rendered natively and are not passed to JavaScript.
+ *
+ * Get the video stream ids from the [CallEventTypes.LocalVideoStreamAdded] and
+ * [EndpointEventTypes.RemoteVideoStreamAdded] events.
+ * @android
+ */
+export class VideoView {
+    private static _nextId: number = 0;
+
+    /**
+     * @ignore
+     */
+    readonly viewId: string;
+
+    /**
+     * @ignore
+     */
+    private constructor(viewId: string) {
+        this.viewId = viewId;
+    }
+
+    /**
+     * Create a video view.
+     * @param layout Position and size of the view
+     */
+    static create(layout: VideoViewLayout): Promise<VideoView> {
+        let view = new VideoView(`videoView${VideoView._nextId++}`);
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(view), reject, 'VoximplantPlugin', 'createVideoView', [view.viewId, layout]);
+        });
+    }
+
+    /**
+     * Move or resize the view, e.g. after the page layout has changed.
+     * @param layout New position and size of the view
+     */
+    public update(layout: VideoViewLayout): Promise<void> {
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'updateVideoView', [this.viewId, layout]);
+        });
+    }
+
+    /**
+     * Render a video stream in the view, replacing the current one.
+     * @param videoStreamId Id of the video stream, or null to stop rendering
+     */
+    public render(videoStreamId: string | null): Promise<void> {
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'renderVideoStream', [this.viewId, videoStreamId]);
+        });
+    }
+
+    /**
+     * Remove the view. It can not be used afterwards.
+     */
+    public remove(): Promise<void> {
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'removeVideoView', [this.viewId]);
+        });
+    }
+}
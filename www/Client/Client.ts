@@ -3,14 +3,20 @@
 */
 
 
-import {CallSettings, ClientConfig, ConnectOptions} from "../Structures";
-import {ClientState, LogLevel, RequestAudioFocusMode, VideoCodec} from "../Enums";
+import {BatchCommand, BatchCommandResult, BatchOptions, BridgeMetrics, VideoCodecCapabilities, CallSettings, CallSetupStats, CallStats, ClientConfig, ConnectOptions} from "../Structures";
+import {CallbackExecutorMode, ClientState, LogLevel, RequestAudioFocusMode, VideoCodec} from "../Enums";
 import {ClientEventTypesList} from "../EventTypesList";
 import {AuthResult, AuthTokenResult, ConnectionClosed, ConnectionEstablished, SDKReady} from "./ClientEventHandlers";
 import {ClientEventTypes} from "./ClientEventTypes";
 import {Call} from "../Call/Call";
 import {CallManager} from "../Call/CallManager";
 import {Endpoint} from "../Call/Endpoint";
+import {EventSubscriptions} from "../EventSubscriptions";
+
+/**
+ * sessionStorage key of the last handled event, "channel:seq"; it survives a page reload
+ */
+const EVENT_POSITION_KEY = 'VoximplantEventPosition';
 
 export class Client {
 
@@ -22,6 +28,14 @@ export class Client {
      * @ignore
      */
     private _listeners: Map<ClientEventTypes, Set<Function>> = new Map();
+    /**
+     * @ignore
+     */
+    private _lastEventSeq: number = 0;
+    /**
+     * @ignore
+     */
+    private _eventChannel: number = 0;
 
     static getInstance(): Client {
         if (!Client._instance) {
@@ -40,6 +54,8 @@ export class Client {
                 };
                 this._emit(ClientEventTypes.SDKReady, event);
                 resolve(event);
+                // events are delivered once the app has handled SDKReady and added its listeners
+                setTimeout(() => this._registerEventChannel(), 0);
             };
             if (!clientConfig) clientConfig = {};
             if (typeof clientConfig.bundleId === 'undefined') clientConfig.bundleId = "";
@@ -47,6 +63,9 @@ export class Client {
             if (typeof clientConfig.enableLogcatLogging === 'undefined') clientConfig.enableLogcatLogging = true;
             if (typeof clientConfig.logLevel === 'undefined') clientConfig.logLevel = LogLevel.INFO;
             if (typeof clientConfig.requestAudioFocusMode === 'undefined') clientConfig.requestAudioFocusMode = RequestAudioFocusMode.REQUEST_ON_CALL_START;
+            if (typeof clientConfig.callbackExecutorMode === 'undefined') clientConfig.callbackExecutorMode = CallbackExecutorMode.SHARED;
+            if (typeof clientConfig.lazyHeaders === 'undefined') clientConfig.lazyHeaders = false;
+            if (typeof clientConfig.tokenManagement === 'undefined') clientConfig.tokenManagement = false;
             cordova.exec(success, ()=>{}, "VoximplantPlugin", "initClient", [clientConfig]);
         });
     }
@@ -73,11 +92,12 @@ export class Client {
     public connect(options?: ConnectOptions): Promise<ConnectionEstablished> {
         console.log('VOXCRD: Client.connect');
         return new Promise((resolve, reject) => {
-            let success = () => {
+            let success = (data: any) => {
                 console.log('VOXCRD: connection established');
-                let event = {
+                let event: ConnectionEstablished = {
                     name: 'ConnectionEstablished',
                 };
+                if (data && typeof data.autoLogin !== 'undefined') event.autoLogin = data.autoLogin;
                 this._emit(ClientEventTypes.ConnectionEstablished, event);
                 resolve(event);
             };
@@ -93,6 +113,8 @@ export class Client {
             if (!options) options = {};
             if (typeof options.connectivityCheck === 'undefined') options.connectivityCheck = false;
             if (typeof options.servers === 'undefined') options.servers = [];
+            if (typeof options.autoLogin === 'undefined') options.autoLogin = false;
+            if (typeof options.autoReconnect === 'undefined') options.autoReconnect = false;
             cordova.exec(success, fail, 'VoximplantPlugin', 'connect', [options]);
         });
     }
@@ -218,7 +240,7 @@ export class Client {
             let params = {
                 username: username,
             };
-            cordova.exec(success, fail, 'VoximplantPlugin', 'requestOneTimeLoginKey', [params]);
+            cordova.exec(success, fail, 'VoximplantPlugin', 'requestOneTimeKey', [params]);
         });
     }
 
@@ -252,12 +274,63 @@ export class Client {
         });
     }
 
+    /**
+     * Remove the tokens stored with [ClientConfig.tokenManagement] and stop refreshing them, e.g. on logout
+     * @android
+     */
+    public clearTokens(): Promise<void> {
+        console.log('VOXCRD: Client.clearTokens');
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'clearTokens', []);
+        });
+    }
+
+    /**
+     * Register the FCM push notification token to receive incoming calls while the app is not connected
+     * @param token FCM registration token
+     * @android
+     */
+    public registerPushNotificationsToken(token: string): Promise<void> {
+        console.log('VOXCRD: Client.registerPushNotificationsToken');
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'registerPushNotificationsToken', [token]);
+        });
+    }
+
+    /**
+     * Unregister the FCM push notification token, e.g. on logout
+     * @param token FCM registration token
+     * @android
+     */
+    public unregisterPushNotificationsToken(token: string): Promise<void> {
+        console.log('VOXCRD: Client.unregisterPushNotificationsToken');
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'unregisterPushNotificationsToken', [token]);
+        });
+    }
+
+    /**
+     * Pass a push notification received in JS to the SDK. The client connects and logs in with the tokens stored
+     * with [ClientConfig.tokenManagement] if needed; the call is reported with [ClientEventTypes.IncomingCall].
+     *
+     * Pushes received natively should rather be passed to VoximplantPlugin.handlePushNotification from the
+     * FirebaseMessagingService of the app: they are then handled before the page is loaded.
+     * @param payload Data of the push notification
+     * @android
+     */
+    public handlePushNotification(payload: {[key: string]: string}): Promise<void> {
+        console.log('VOXCRD: Client.handlePushNotification');
+        return new Promise((resolve, reject) => {
+            cordova.exec(() => resolve(), reject, 'VoximplantPlugin', 'handlePushNotification', [payload]);
+        });
+    }
+
     /**
      * Disconnect from the Voximplant Cloud
      */
     public disconnect(): Promise<ConnectionClosed> {
         console.log('VOXCRD: Client.disconnect');
-        return new Promise(resolve => {
+        return new Promise((resolve, reject) => {
             let success = () => {
                 console.log('VOXCRD: Client.disconnected');
                 let data = {
@@ -266,7 +339,11 @@ export class Client {
                 this._emit(ClientEventTypes.ConnectionClosed, data);
                 resolve(data);
             };
-            cordova.exec(success, ()=>{}, 'VoximplantPlugin', 'disconnect', []);
+            let fail = (data: any) => {
+                console.log(`VOXCRD: Client.disconnect failed: ${data}`);
+                reject(data);
+            };
+            cordova.exec(success, fail, 'VoximplantPlugin', 'disconnect', []);
         });
     }
 
@@ -311,6 +388,115 @@ export class Client {
         });
     }
 
+    /**
+     * Create an outgoing call ahead of time without starting it, e.g. when a click-to-call button is shown.
+     * The settings are parsed and the native call is created, so [Client.startPreparedCall] only starts it.
+     *
+     * A prepared call that is not started within the TTL is discarded. At most 8 calls can be prepared at once.
+     *
+     * @param number The number to call, see [Client.call]
+     * @param callSettings Optional call settings
+     * @param ttl Milliseconds to keep the prepared call, 60000 by default, at most 600000
+     * @return Handle of the prepared call
+     * @android
+     */
+    public prepareCall(number: string, callSettings?: CallSettings, ttl?: number): Promise<string> {
+        const defaults = {
+            preferredVideoCodec: VideoCodec.AUTO,
+            customData: null,
+            extraHeaders: null,
+            setupCallKit: false,
+            video: {
+                sendVideo: false,
+                receiveVideo: true
+            }
+        };
+        let callSettings_ = {...defaults,...callSettings};
+        return new Promise((resolve, reject) => {
+            let options = typeof ttl === 'undefined' ? {} : {ttl: ttl};
+            cordova.exec((handle: string) => resolve(handle), reject, 'VoximplantPlugin', 'prepareCall', [number, callSettings_, options]);
+        });
+    }
+
+    /**
+     * Start a call created with [Client.prepareCall]. The promise is resolved and rejected the same way as for [Client.call].
+     * @param handle Handle of the prepared call
+     * @android
+     */
+    public startPreparedCall(handle: string): Promise<Call> {
+        return new Promise((resolve, reject) => {
+            let success = (callId: string) => {
+                console.log('VOXCRD: Client.startPreparedCall: successfully started');
+                let call = new Call(callId, null);
+                CallManager.getInstance().addCall(call);
+                resolve(call);
+            };
+            let fail = (error: string) => {
+                console.log('VOXCRD: Client.startPreparedCall: failed');
+                reject(error);
+            };
+            cordova.exec(success, fail, 'VoximplantPlugin', 'startPreparedCall', [handle]);
+        });
+    }
+
+    /**
+     * Get the number of live and released calls tracked by the native module.
+     * @android
+     */
+    public getCallStats(): Promise<CallStats> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((stats: CallStats) => resolve(stats), reject, 'VoximplantPlugin', 'getCallStats', []);
+        });
+    }
+
+    /**
+     * Get latency and throughput metrics of the native bridge.
+     * @param reset If true, the metrics are reset after they are collected
+     * @android
+     */
+    public getBridgeMetrics(reset?: boolean): Promise<BridgeMetrics> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((metrics: BridgeMetrics) => resolve(metrics), reject, 'VoximplantPlugin', 'getBridgeMetrics', [{reset: !!reset}]);
+        });
+    }
+
+    /**
+     * Get rolling percentiles of the call setup stages across finished calls.
+     * @android
+     */
+    public getCallSetupStats(): Promise<CallSetupStats> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((stats: CallSetupStats) => resolve(stats), reject, 'VoximplantPlugin', 'getCallSetupStats', []);
+        });
+    }
+
+    /**
+     * Get the hardware support of the video codecs on the device. The codecs are probed once per OS build.
+     * @android
+     */
+    public getVideoCodecCapabilities(): Promise<VideoCodecCapabilities> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((capabilities: VideoCodecCapabilities) => resolve(capabilities), reject, 'VoximplantPlugin', 'getVideoCodecCapabilities', []);
+        });
+    }
+
+    /**
+     * Run several plugin actions in one bridge call, e.g. answer a call and send INFO messages right after it.
+     *
+     * Commands use the native action names and arguments, for example
+     * {action: 'sendAudio', args: [call.callId, false]} or {action: 'hold', args: [call.callId, true]}.
+     * The promise is resolved with one result per command, in the order of the commands, after all of them complete.
+     * @param commands Ordered list of commands
+     * @param options Run the commands in parallel or sequentially (default), stop on the first error (default)
+     * @android
+     */
+    public batch(commands: BatchCommand[], options?: BatchOptions): Promise<BatchCommandResult[]> {
+        return new Promise((resolve, reject) => {
+            cordova.exec((results: string) => resolve(JSON.parse(results)), reject, 'VoximplantPlugin', 'batch',
+                [commands, options || {}]);
+        });
+    }
+
     /**
      * Register handler for specified client event.
      * Use [Client.off] method to delete a handler.
@@ -365,11 +551,73 @@ export class Client {
     }
 
 
+    /**
+     * @ignore
+     */
+    private _registerEventChannel(): void {
+        if (cordova.platformId !== 'android') {
+            return;
+        }
+        if (this._eventChannel === 0) {
+            // after a page reload only the events the previous page has not handled are replayed
+            try {
+                let position = (sessionStorage.getItem(EVENT_POSITION_KEY) || '').split(':');
+                if (position.length === 2) {
+                    this._eventChannel = parseInt(position[0], 10) || 0;
+                    this._lastEventSeq = parseInt(position[1], 10) || 0;
+                }
+            } catch (e) {
+                console.log(`VOXCRD: Client._registerEventChannel: sessionStorage is not available: ${e}`);
+            }
+        }
+        cordova.exec((batch: string) => this._onEvents(batch), ()=>{}, 'VoximplantPlugin', 'registerEventChannel', [this._lastEventSeq, this._eventChannel]);
+        EventSubscriptions.getInstance().enable();
+    }
+
+    /**
+     * @ignore
+     */
+    private _onEvents(batch: string): void {
+        let eventBatch: {channel: number, seq: number, replay: boolean, gap: boolean, events: Array<[string, any]>} = JSON.parse(batch);
+        if (eventBatch.channel !== this._eventChannel) {
+            // the native side has been recreated and numbers its events anew
+            this._eventChannel = eventBatch.channel;
+            this._lastEventSeq = 0;
+        }
+        if (eventBatch.gap) {
+            console.log('VOXCRD: Client._onEvents: some informational events were dropped before they could be delivered');
+        }
+        eventBatch.events.forEach(([event, params], index) => {
+            let seq = eventBatch.seq + index;
+            if (seq <= this._lastEventSeq) {
+                return;
+            }
+            this._lastEventSeq = seq;
+            this._onEvent(event, params);
+        });
+        try {
+            sessionStorage.setItem(EVENT_POSITION_KEY, `${this._eventChannel}:${this._lastEventSeq}`);
+        } catch (e) {
+            // without sessionStorage a reloaded page gets no replay
+        }
+    }
+
     // @ts-ignore
     private _onEvent(event: string, params: any): void {
         if (event.startsWith('Call') || (event.startsWith('Endpoint'))) {
             CallManager.getInstance()._handleCallEvent(event, params);
         }
+        if (event === 'AuthResult' || event === 'RefreshTokenResult') {
+            // the result of a login or token refresh started natively, see ClientConfig.tokenManagement
+            let data = typeof params.data === 'object' && params.data !== null ? params.data : {message: params.data};
+            data.result = params.result;
+            data.name = event === 'AuthResult' ? 'AuthResult' : 'AuthTokenResult';
+            Client.getInstance()._emit(event as ClientEventTypes, data);
+        }
+        if (event === 'Reconnecting' || event === 'Reconnected') {
+            params.name = event;
+            Client.getInstance()._emit(event as ClientEventTypes, params);
+        }
         if (event === 'IncomingCall') {
             let client = Client.getInstance();
             let endpoint = new Endpoint(params.endpointId, params.displayName, params.sipUri, params.userName);
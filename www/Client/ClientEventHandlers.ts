@@ -2,7 +2,7 @@
 * Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
 */
 
-import {LoginTokens} from "../Structures";
+import {LazyHeaders, LoginTokens} from "../Structures";
 import {Call} from "..";
 
 /**
@@ -80,6 +80,11 @@ export interface ConnectionEstablished {
      * Name of the event
      */
     name: string;
+    /**
+     * True if the login with the stored token is started, see [ConnectOptions.autoLogin]
+     * @android
+     */
+    autoLogin?: boolean;
 }
 
 /**
@@ -95,7 +100,51 @@ export interface ConnectionClosed {
 /**
  * @private
  */
-export interface IncomingCall {
+export interface Reconnecting {
+    /**
+     * Name of the event
+     */
+    name: string;
+    /**
+     * Number of the reconnect attempt, starting from 1
+     */
+    attempt: number;
+    /**
+     * Milliseconds until the attempt, or -1 if it waits for a network to become available
+     */
+    delay: number;
+    /**
+     * Why the connection was lost: 'connectionClosed', 'connectionFailed' or 'networkLost'
+     */
+    reason: string;
+}
+
+/**
+ * @private
+ */
+export interface Reconnected {
+    /**
+     * Name of the event
+     */
+    name: string;
+    /**
+     * Number of attempts it took to reconnect
+     */
+    attempts: number;
+    /**
+     * Milliseconds from the loss of the connection until it was restored
+     */
+    downtime: number;
+    /**
+     * True if the client is logged in again with the stored tokens, see [ClientConfig.tokenManagement]
+     */
+    loggedIn: boolean;
+}
+
+/**
+ * @private
+ */
+export interface IncomingCall extends LazyHeaders {
     /**
      * Name of the event
      */
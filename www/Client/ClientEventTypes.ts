@@ -31,4 +31,16 @@ export enum ClientEventTypes {
      * @typedef EventHandlers.SDKReady
      */
     SDKReady              = 'SDKReady',
+    /**
+     * Connection is lost and is being restored, see [ConnectOptions.autoReconnect]
+     * @typedef EventHandlers.Reconnecting
+     * @android
+     */
+    Reconnecting          = 'Reconnecting',
+    /**
+     * Connection is restored, see [ConnectOptions.autoReconnect]
+     * @typedef EventHandlers.Reconnected
+     * @android
+     */
+    Reconnected           = 'Reconnected',
 }
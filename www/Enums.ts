@@ -118,6 +118,21 @@ export enum RequestAudioFocusMode {
     REQUEST_ON_CALL_CONNECTED = 'REQUEST_ON_CALL_CONNECTED'
 }
 
+/**
+ * Specifies how the native SDK callbacks are delivered.
+ * @android
+ */
+export enum CallbackExecutorMode {
+    /**
+     * Callbacks are delivered on one dedicated thread that is reused across client initializations
+     */
+    SHARED = 'SHARED',
+    /**
+     * Callbacks are delivered on the main looper
+     */
+    MAIN = 'MAIN'
+}
+
 /**
  * Enum representing supported video codecs
  */
@@ -133,9 +148,45 @@ export enum VideoCodec {
     /**
      * Video codec for call will be chosen automatically
      */
-    AUTO = 'AUTO'
+    AUTO = 'AUTO',
+    /**
+     * The codec with hardware encoding and decoding support on the device, see [Client.getVideoCodecCapabilities].
+     * Falls back to AUTO if neither VP8 nor H264 is hardware accelerated, or on iOS
+     * @android
+     */
+    OPTIMAL = 'OPTIMAL'
 }
 
 
 
 
+
+/**
+ * Position of a [VideoView] relative to the WebView
+ * @android
+ */
+export enum VideoViewPlacement {
+    /**
+     * The video is drawn over the page
+     */
+    OVER = 'OVER',
+    /**
+     * The video is drawn under the page and shows through its transparent areas
+     */
+    UNDER = 'UNDER'
+}
+
+/**
+ * How a video is scaled to a [VideoView]
+ * @android
+ */
+export enum VideoScaleType {
+    /**
+     * The video fills the view and is cropped if the aspect ratios differ
+     */
+    FILL = 'FILL',
+    /**
+     * The whole video fits into the view
+     */
+    FIT = 'FIT'
+}
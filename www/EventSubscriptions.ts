@@ -0,0 +1,72 @@
+/*
+* Copyright (c) 2011-2020, Zingaya, Inc. All rights reserved.
+*/
+
+
+/**
+ * Keeps the native event subscription mask in sync with the registered listeners,
+ * so the native module does not serialize events nobody listens to.
+ * @ignore
+ */
+export class EventSubscriptions {
+    private static _instance: EventSubscriptions;
+    private _counts: Map<string, number> = new Map();
+    private _enabled: boolean = false;
+    private _syncScheduled: boolean = false;
+
+    static getInstance(): EventSubscriptions {
+        if (!EventSubscriptions._instance) {
+            EventSubscriptions._instance = new EventSubscriptions();
+        }
+        return EventSubscriptions._instance;
+    }
+
+    /**
+     * Start reporting subscriptions to the native module. Until then all events are delivered.
+     */
+    enable(): void {
+        if (cordova.platformId !== 'android') {
+            return;
+        }
+        this._enabled = true;
+        this._scheduleSync();
+    }
+
+    add(nativeEvent: string): void {
+        let count = this._counts.get(nativeEvent) || 0;
+        this._counts.set(nativeEvent, count + 1);
+        if (count === 0) {
+            this._scheduleSync();
+        }
+    }
+
+    remove(nativeEvent: string, handlers: number = 1): void {
+        let count = this._counts.get(nativeEvent) || 0;
+        if (count === 0 || handlers <= 0) {
+            return;
+        }
+        let newCount = Math.max(0, count - handlers);
+        this._counts.set(nativeEvent, newCount);
+        if (newCount === 0) {
+            this._scheduleSync();
+        }
+    }
+
+    private _scheduleSync(): void {
+        if (!this._enabled || this._syncScheduled) {
+            return;
+        }
+        this._syncScheduled = true;
+        // several listeners are usually added at once, report them in one bridge call
+        setTimeout(() => {
+            this._syncScheduled = false;
+            let events: string[] = [];
+            this._counts.forEach((count, event) => {
+                if (count > 0) {
+                    events.push(event);
+                }
+            });
+            cordova.exec(()=>{}, ()=>{}, 'VoximplantPlugin', 'setEventSubscriptions', [events]);
+        }, 0);
+    }
+}
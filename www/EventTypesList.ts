@@ -10,7 +10,9 @@ import {
     ConnectionClosed,
     ConnectionEstablished,
     ConnectionFailed,
-    IncomingCall
+    IncomingCall,
+    Reconnected,
+    Reconnecting
 } from "./Client/ClientEventHandlers";
 import {CallEventTypes} from "./Call/CallEventTypes";
 import {
@@ -36,6 +38,8 @@ export interface ClientEventTypesList {
     [ClientEventTypes.AuthResult]: AuthResult,
     [ClientEventTypes.RefreshTokenResult]: AuthTokenResult,
     [ClientEventTypes.IncomingCall]: IncomingCall,
+    [ClientEventTypes.Reconnecting]: Reconnecting,
+    [ClientEventTypes.Reconnected]: Reconnected,
 }
 
 /**
@@ -3,7 +3,7 @@
 */
 
 
-import {LogLevel, RequestAudioFocusMode} from "./Enums";
+import {CallbackExecutorMode, LogLevel, RequestAudioFocusMode, VideoCodec, VideoScaleType, VideoViewPlacement} from "./Enums";
 
 
 export interface ClientConfig {
@@ -47,6 +47,24 @@ export interface ClientConfig {
      * @android
      */
     requestAudioFocusMode?: RequestAudioFocusMode;
+    /**
+     * Specifies how the native SDK callbacks are delivered. [CallbackExecutorMode.SHARED] by default.
+     * @android
+     */
+    callbackExecutorMode?: CallbackExecutorMode;
+    /**
+     * If true, SIP headers of call events are kept natively and events carry only a headersId handle.
+     * The headers are fetched on demand via [Call.getHeaders]. False by default.
+     * @android
+     */
+    lazyHeaders?: boolean;
+    /**
+     * If true, the tokens received on login are stored natively, encrypted with a key kept in the Android Keystore,
+     * and the access token is refreshed before it expires. The refreshed tokens are reported with
+     * [ClientEventTypes.RefreshTokenResult]. False by default.
+     * @android
+     */
+    tokenManagement?: boolean;
 }
 
 export interface ConnectOptions {
@@ -58,6 +76,21 @@ export interface ConnectOptions {
      * Server name of particular media gateway for connection
      */
     servers?: string[];
+    /**
+     * If true and [ClientConfig.tokenManagement] is enabled, the client logs in with the stored access token
+     * as soon as the connection is established. The result is reported with [ClientEventTypes.AuthResult].
+     * False by default.
+     * @android
+     */
+    autoLogin?: boolean;
+    /**
+     * If true, a connection lost without [Client.disconnect] is restored natively with exponential backoff,
+     * right away when a network becomes available, and the client logs in again with the stored tokens.
+     * Progress is reported with [ClientEventTypes.Reconnecting] and [ClientEventTypes.Reconnected].
+     * False by default.
+     * @android
+     */
+    autoReconnect?: boolean;
 }
 
 export interface LoginTokens {
@@ -98,3 +131,324 @@ export interface CallSettings {
      */
     setupCallKit?: boolean;
 }
+
+export interface CallStats {
+    /**
+     * Number of calls that are currently tracked by the native module
+     */
+    liveCalls: number;
+    /**
+     * Number of calls that were released after they were disconnected or failed
+     */
+    evictedCalls: number;
+}
+
+export interface LatencyHistogram {
+    /**
+     * Number of recorded samples
+     */
+    count: number;
+    /**
+     * Mean latency in milliseconds
+     */
+    meanMs: number;
+    /**
+     * Max latency in milliseconds
+     */
+    maxMs: number;
+    /**
+     * Approximate percentiles, the upper bound of the bucket that contains the percentile
+     */
+    p50Ms: number;
+    p90Ms: number;
+    p99Ms: number;
+    /**
+     * Sample counts per bucket, see [BridgeMetrics.bucketBoundsMs]. The last bucket collects values above the highest bound
+     */
+    buckets: number[];
+}
+
+export interface BridgeMetrics {
+    /**
+     * Upper bounds of the histogram buckets in milliseconds
+     */
+    bucketBoundsMs: number[];
+    /**
+     * Per action histograms: time spent waiting in the action queue and time spent executing the action
+     */
+    actions: {[action: string]: {queueDelay: LatencyHistogram, execution: LatencyHistogram}};
+    /**
+     * Per event type histograms of the time between the SDK callback and the delivery to the WebView
+     */
+    events: {[event: string]: LatencyHistogram};
+    /**
+     * Delay of the event batch delivery on the main looper
+     */
+    mainLooperDelay: LatencyHistogram;
+    /**
+     * Queueing latency per event priority class: LIFECYCLE (IncomingCall, Connected, Disconnected, Failed)
+     * and INFORMATIONAL (all other events)
+     */
+    eventPriorities: {[priority: string]: LatencyHistogram};
+    eventsSent: number;
+    eventsDropped: number;
+    /**
+     * Informational events replaced by a newer event of the same call while the app was in background
+     */
+    eventsCoalesced: number;
+    batchesSent: number;
+    liveCalls: number;
+    evictedCalls: number;
+}
+
+export interface CallSetupTimeline {
+    /**
+     * Direction of the call: "outgoing" if the timeline starts at [Client.call], "incoming" if it starts at [Call.answer]
+     */
+    direction: string;
+    /**
+     * Milliseconds until [CallEventTypes.ProgressToneStart]
+     */
+    ringingMs?: number;
+    /**
+     * Milliseconds until [CallEventTypes.ICECompleted] or [CallEventTypes.ICETimeout]
+     */
+    iceMs?: number;
+    /**
+     * True if ICE ended with [CallEventTypes.ICETimeout]
+     */
+    iceTimeout?: boolean;
+    /**
+     * Milliseconds until [CallEventTypes.Connected]
+     */
+    connectedMs?: number;
+    /**
+     * Milliseconds until [CallEventTypes.ProgressToneStop], i.e. audio is started
+     */
+    audioMs?: number;
+}
+
+export interface CallSetupStageStats {
+    count: number;
+    p50: number;
+    p90: number;
+    p99: number;
+}
+
+export interface CallSetupStats {
+    /**
+     * Number of finished calls that were started or answered
+     */
+    calls: number;
+    /**
+     * Rolling percentiles in milliseconds over the last 256 calls that reached the stage
+     */
+    ringingMs: CallSetupStageStats;
+    iceMs: CallSetupStageStats;
+    connectedMs: CallSetupStageStats;
+    audioMs: CallSetupStageStats;
+}
+
+/**
+ * SIP headers of an event that are kept natively when [ClientConfig.lazyHeaders] is enabled.
+ * The event then carries a handle instead of the headers, and [Call.getHeaders] fetches them
+ * while the call is among the recently active ones.
+ * @android
+ */
+export interface LazyHeaders {
+    /**
+     * Handle of the SIP headers kept natively if [ClientConfig.lazyHeaders] is enabled.
+     * Use [Call.getHeaders] to fetch them. It is not related to the event order and stays valid for an event
+     * replayed after a page reload
+     * @android
+     */
+    headersId?: number;
+    /**
+     * Number of the SIP headers available via headersId
+     * @android
+     */
+    headerCount?: number;
+}
+
+/**
+ * Rejection value of an action called with missing or malformed required arguments.
+ * A malformed optional argument is ignored and its default is used.
+ * @android
+ */
+export interface InvalidArgumentsError {
+    code: 'INVALID_ARGUMENTS';
+    /**
+     * Name of the rejected action, e.g. 'Client.login'
+     */
+    action: string;
+    errors: {
+        /**
+         * Path of the argument, e.g. 'arguments[0].username'
+         */
+        field: string;
+        message: string;
+    }[];
+}
+
+/**
+ * @android
+ */
+export interface BatchCommand {
+    /**
+     * Native action name, e.g. 'answer', 'sendInfo', 'sendAudio', 'hold'
+     */
+    action: string;
+    /**
+     * Native action arguments; call actions take the call id first
+     */
+    args?: any[];
+}
+
+/**
+ * @android
+ */
+export interface BatchOptions {
+    /**
+     * Dispatch all commands at once. Commands of the same call still run in order. Default is false
+     */
+    parallel?: boolean;
+    /**
+     * In the sequential mode, skip the remaining commands after a failed one. Default is true
+     */
+    stopOnError?: boolean;
+}
+
+/**
+ * @android
+ */
+export interface BatchCommandResult {
+    action: string;
+    /**
+     * True if the command succeeded, undefined if it was skipped
+     */
+    success?: boolean;
+    /**
+     * Resolved value or rejection reason of the command
+     */
+    result?: any;
+    /**
+     * True if the command was not run because an earlier command failed
+     */
+    skipped?: boolean;
+}
+
+/**
+ * @android
+ */
+export interface ToneSequenceOptions {
+    /**
+     * Time from the start of a tone to the start of the next one in milliseconds, 40-7000. Default is 170.
+     * The length of a tone is set by the SDK
+     */
+    interval?: number;
+}
+
+/**
+ * @android
+ */
+export interface ToneSequenceProgress {
+    /**
+     * True while tones are being sent
+     */
+    active: boolean;
+    sent: number;
+    total: number;
+    /**
+     * 'COMPLETED', 'CANCELLED' or 'CALL_ENDED' once the sequence is finished
+     */
+    result?: string;
+    /**
+     * Set on rejection, same as result
+     */
+    code?: string;
+}
+
+/**
+ * @android
+ */
+export interface OutboundQueueOptions {
+    /**
+     * Average number of messages and INFOs sent per second, 1-1000. Default is 20
+     */
+    rate?: number;
+    /**
+     * Number of messages that can be sent at once before the rate applies, 1-1000. Default is 20
+     */
+    burst?: number;
+    /**
+     * Maximum number of queued messages, 1-4096. Default is 256
+     */
+    capacity?: number;
+    /**
+     * 'DROP_OLDEST' (default) drops the oldest queued message when the queue is full, 'DROP_NEWEST' drops the new one
+     */
+    dropPolicy?: string;
+}
+
+/**
+ * @android
+ */
+export interface OutboundQueueStats {
+    /**
+     * Whether the rate limit is set with [Call.configureOutboundQueue]
+     */
+    limited: boolean;
+    depth: number;
+    maxDepth: number;
+    sent: number;
+    /**
+     * Number of queued messages replaced by a message with the same replace key
+     */
+    coalesced: number;
+    dropped: number;
+    rate: number;
+    burst: number;
+    capacity: number;
+    dropPolicy: string;
+}
+
+/**
+ * Position and size of a [VideoView] in CSS pixels relative to the top left corner of the WebView
+ * @android
+ */
+export interface VideoViewLayout {
+    x: number;
+    y: number;
+    width: number;
+    height: number;
+    /**
+     * Default is [VideoViewPlacement.OVER]. Only used when the view is created
+     */
+    placement?: VideoViewPlacement;
+    /**
+     * Mirror the video horizontally, e.g. for the local camera preview. Default is false,
+     * [VideoView.update] keeps the current value if omitted
+     */
+    mirror?: boolean;
+    /**
+     * Default is [VideoScaleType.FILL], [VideoView.update] keeps the current value if omitted
+     */
+    scaleType?: VideoScaleType;
+}
+
+export interface VideoCodecSupport {
+    hardwareEncoder: boolean;
+    hardwareDecoder: boolean;
+}
+
+/**
+ * @android
+ */
+export interface VideoCodecCapabilities {
+    H264: VideoCodecSupport;
+    VP8: VideoCodecSupport;
+    /**
+     * The codec used for [VideoCodec.OPTIMAL]
+     */
+    optimal: VideoCodec;
+}
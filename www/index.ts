@@ -5,12 +5,13 @@
 
 import {Client} from "./Client/Client";
 import {getInstance} from "./SDK";
-import {LogLevel, ClientState, CallError, RequestAudioFocusMode, VideoCodec} from './Enums';
+import {LogLevel, ClientState, CallError, RequestAudioFocusMode, VideoCodec, CallbackExecutorMode, VideoViewPlacement, VideoScaleType} from './Enums';
 import {ClientEventTypes} from './Client/ClientEventTypes'
 import {CallEventTypes} from "./Call/CallEventTypes";
 import {Call} from './Call/Call';
 import {Endpoint} from "./Call/Endpoint";
 import {EndpointEventTypes} from "./Call/EndpointEventTypes";
+import {VideoView} from "./Call/VideoView";
 
 
 export {
@@ -25,5 +26,9 @@ export {
     ClientEventTypes,
     CallEventTypes,
     EndpointEventTypes,
-    VideoCodec
+    VideoCodec,
+    CallbackExecutorMode,
+    VideoView,
+    VideoViewPlacement,
+    VideoScaleType
 }